@@ -17,7 +17,6 @@ import tubes.pbo.be.shared.dto.ApiResponse;
 import tubes.pbo.be.shared.dto.PageResponse;
 import tubes.pbo.be.shared.exception.ForbiddenException;
 import tubes.pbo.be.shared.security.SecurityContextHelper;
-import tubes.pbo.be.user.model.User;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -34,8 +33,7 @@ public class AdminController {
      * Check if current user is admin, throw exception if not
      */
     private void requireAdminRole() {
-        User currentUser = securityContextHelper.getCurrentUser();
-        if (!currentUser.getRole().equals(User.UserRole.ADMIN)) {
+        if (!securityContextHelper.getCurrentUser().isAdmin()) {
             throw new ForbiddenException("Admin access required");
         }
     }
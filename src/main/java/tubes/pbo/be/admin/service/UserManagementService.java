@@ -11,12 +11,18 @@ import tubes.pbo.be.admin.dto.CreateUserRequest;
 import tubes.pbo.be.admin.dto.UpdateUserRequest;
 import tubes.pbo.be.admin.dto.UserDetailResponse;
 import tubes.pbo.be.auth.repository.PasswordResetTokenRepository;
-import tubes.pbo.be.auth.repository.SessionRepository;
 import tubes.pbo.be.auth.repository.VerificationTokenRepository;
+import tubes.pbo.be.auth.service.AccessTokenService;
+import tubes.pbo.be.auth.service.TokenService;
+import tubes.pbo.be.quiz.repository.QuestionBankRepository;
 import tubes.pbo.be.shared.exception.ForbiddenException;
 import tubes.pbo.be.shared.exception.ResourceNotFoundException;
 import tubes.pbo.be.shared.exception.ValidationException;
+import tubes.pbo.be.shared.security.PrincipalCache;
+import tubes.pbo.be.summary.model.Summary;
 import tubes.pbo.be.summary.repository.SummaryRepository;
+import tubes.pbo.be.summary.service.StoredFileService;
+import tubes.pbo.be.summary.service.SummaryJobService;
 import tubes.pbo.be.user.model.User;
 import tubes.pbo.be.user.repository.UserRepository;
 
@@ -34,10 +40,15 @@ public class UserManagementService {
     
     private final UserRepository userRepository;
     private final SummaryRepository summaryRepository;
-    private final SessionRepository sessionRepository;
     private final VerificationTokenRepository verificationTokenRepository;
     private final PasswordResetTokenRepository passwordResetTokenRepository;
     private final PasswordEncoder passwordEncoder;
+    private final StoredFileService storedFileService;
+    private final TokenService tokenService;
+    private final AccessTokenService accessTokenService;
+    private final PrincipalCache principalCache;
+    private final SummaryJobService summaryJobService;
+    private final QuestionBankRepository questionBankRepository;
     
     /**
      * List all users with optional search filter
@@ -72,20 +83,24 @@ public class UserManagementService {
     /**
      * Create a new user (auto-verified)
      * Admin-created users are automatically verified
+     * No transaction is open while the password is hashed, so no database connection
+     * waits on the hashing pool
      */
-    @Transactional
     public UserDetailResponse createUser(CreateUserRequest request) {
         // Check if email already exists
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new ValidationException("Email already exists");
         }
         
+        User.UserRole role = User.UserRole.valueOf(request.getRole().toUpperCase());
+        String hashedPassword = passwordEncoder.encode(request.getPassword());
+        
         // Create new user
         User user = new User();
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(hashedPassword);
         user.setName(request.getName());
-        user.setRole(User.UserRole.valueOf(request.getRole().toUpperCase()));
+        user.setRole(role);
         user.setIsVerified(true); // Admin-created users are auto-verified
         
         user = userRepository.save(user);
@@ -108,14 +123,25 @@ public class UserManagementService {
             throw new ValidationException("Email already exists");
         }
         
+        User.UserRole role = User.UserRole.valueOf(request.getRole().toUpperCase());
+        boolean roleChanged = user.getRole() != role;
+        
         // Update user fields
         user.setEmail(request.getEmail());
         user.setName(request.getName());
-        user.setRole(User.UserRole.valueOf(request.getRole().toUpperCase()));
+        user.setRole(role);
         user.setIsVerified(request.getIsVerified());
         
         user = userRepository.save(user);
         
+        // Cached principals carry the old role. Signed access tokens carry it too and cannot be
+        // refreshed in place, so with those enabled a role change makes the user sign in again.
+        if (roleChanged && accessTokenService.isEnabled()) {
+            tokenService.deleteAllUserSessions(userId);
+        } else {
+            principalCache.invalidateUser(userId);
+        }
+        
         return convertToUserDetailResponse(user);
     }
     
@@ -136,13 +162,22 @@ public class UserManagementService {
         // Delete user's PDF files from filesystem
         deleteUserFiles(userIdToDelete);
         
-        // Delete related tokens (cascade will handle sessions via JPA)
-        sessionRepository.deleteByUserId(userIdToDelete);
+        // Delete related tokens, revoking access tokens of the user's sessions
+        tokenService.deleteAllUserSessions(userIdToDelete);
         verificationTokenRepository.deleteByUserId(userIdToDelete);
         passwordResetTokenRepository.deleteByUserId(userIdToDelete);
         
+        // Delete summary jobs, releasing the uploads of those that never produced a summary
+        summaryJobService.deleteUserJobs(userIdToDelete);
+        
         // Delete summaries (cascade should handle quizzes and questions via JPA relationships)
-        summaryRepository.deleteAll(summaryRepository.findByUserId(userIdToDelete, Pageable.unpaged()).getContent());
+        // Uploads are shared by content, so each summary gives up its reference instead of deleting the file
+        List<Summary> summaries = summaryRepository.findByUserId(userIdToDelete, Pageable.unpaged()).getContent();
+        summaries.forEach(summary -> {
+            questionBankRepository.deleteBySummaryId(summary.getId());
+            storedFileService.discard(summary.getFilePath());
+        });
+        summaryRepository.deleteAll(summaries);
         
         // Finally delete the user
         userRepository.delete(user);
@@ -3,6 +3,7 @@ package tubes.pbo.be.auth.controller;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -24,8 +25,9 @@ public class AuthController {
 
     @PostMapping("/register")
     @Operation(summary = "Register a new user", description = "Creates a new user account and sends verification email")
-    public ResponseEntity<ApiResponse<Map<String, Long>>> register(@Valid @RequestBody RegisterRequest request) {
-        Long userId = authService.register(request);
+    public ResponseEntity<ApiResponse<Map<String, Long>>> register(@Valid @RequestBody RegisterRequest request,
+                                                                     HttpServletRequest httpRequest) {
+        Long userId = authService.register(request, httpRequest.getRemoteAddr());
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(new ApiResponse<>(
                         "Registration successful. Please check your email to verify your account.",
@@ -35,11 +37,19 @@ public class AuthController {
 
     @PostMapping("/login")
     @Operation(summary = "Login", description = "Authenticate user and return session token")
-    public ResponseEntity<ApiResponse<TokenResponse>> login(@Valid @RequestBody LoginRequest request) {
-        TokenResponse tokenResponse = authService.login(request);
+    public ResponseEntity<ApiResponse<TokenResponse>> login(@Valid @RequestBody LoginRequest request,
+                                                            HttpServletRequest httpRequest) {
+        TokenResponse tokenResponse = authService.login(request, httpRequest.getRemoteAddr());
         return ResponseEntity.ok(new ApiResponse<>("Login successful", tokenResponse));
     }
 
+    @PostMapping("/refresh")
+    @Operation(summary = "Refresh access token", description = "Issue a new access token using the refresh token returned by login. Only needed when signed access tokens are enabled")
+    public ResponseEntity<ApiResponse<TokenResponse>> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        TokenResponse tokenResponse = authService.refresh(request.getRefreshToken());
+        return ResponseEntity.ok(new ApiResponse<>("Token refreshed successfully", tokenResponse));
+    }
+
     @GetMapping("/verify")
     @Operation(summary = "Verify email", description = "Verify user email address using token from email")
     public ResponseEntity<ApiResponse<Void>> verifyEmail(
@@ -1,5 +1,6 @@
 package tubes.pbo.be.auth.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -8,12 +9,21 @@ import lombok.NoArgsConstructor;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @Schema(description = "Authentication token response")
 public class TokenResponse {
 
-    @Schema(description = "Session token (UUID format)", example = "550e8400-e29b-41d4-a716-446655440000")
+    @Schema(description = "Access token for the Authorization header: the session token (UUID format), or a signed token when signed access tokens are enabled",
+            example = "550e8400-e29b-41d4-a716-446655440000")
     private String token;
 
+    @Schema(description = "Session token (UUID format) for /api/auth/refresh. Only present when signed access tokens are enabled",
+            example = "550e8400-e29b-41d4-a716-446655440000")
+    private String refreshToken;
+
+    @Schema(description = "Seconds until the access token expires. Only present when signed access tokens are enabled", example = "900")
+    private Long expiresIn;
+
     @Schema(description = "User information")
     private UserInfo user;
 }
@@ -0,0 +1,41 @@
+package tubes.pbo.be.auth.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Record that a session was ended while signed access tokens issued for it may still be unexpired.
+ * Every node loads these into its revocation list; a row is useless once {@code expiresAt} passes,
+ * since no token of the session can outlive it.
+ */
+@Entity
+@Table(name = "session_revocations", indexes = {
+    @Index(name = "idx_revocation_session_id", columnList = "sessionId", unique = true),
+    @Index(name = "idx_revocation_revoked_at", columnList = "revokedAt"),
+    @Index(name = "idx_revocation_expires_at", columnList = "expiresAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionRevocation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private Long sessionId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDateTime revokedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,16 @@
+package tubes.pbo.be.auth.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import tubes.pbo.be.auth.model.EmailOutbox;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    List<EmailOutbox> findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+            EmailOutbox.Status status, LocalDateTime now, Pageable pageable);
+}
@@ -1,9 +1,14 @@
 package tubes.pbo.be.auth.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import tubes.pbo.be.auth.model.PasswordResetToken;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +17,10 @@ public interface PasswordResetTokenRepository extends JpaRepository<PasswordRese
     Optional<PasswordResetToken> findByToken(String token);
     
     void deleteByUserId(Long userId);
+
+    @Query("SELECT t.id FROM PasswordResetToken t WHERE t.expiresAt < :now ORDER BY t.expiresAt")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Query("SELECT t.id FROM PasswordResetToken t WHERE t.used = true")
+    List<Long> findUsedIds(Pageable pageable);
 }
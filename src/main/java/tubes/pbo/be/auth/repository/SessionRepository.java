@@ -1,9 +1,14 @@
 package tubes.pbo.be.auth.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import tubes.pbo.be.auth.model.Session;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,4 +21,14 @@ public interface SessionRepository extends JpaRepository<Session, Long> {
     void deleteByUserIdAndTokenNot(Long userId, String currentToken);
 
     void deleteByToken(String token);
+
+    @Query("SELECT s.id FROM Session s WHERE s.userId = :userId")
+    List<Long> findIdsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT s.id FROM Session s WHERE s.userId = :userId AND s.token <> :currentToken")
+    List<Long> findIdsByUserIdAndTokenNot(@Param("userId") Long userId, @Param("currentToken") String currentToken);
+
+    // Oldest first, so the scan follows idx_expires_at
+    @Query("SELECT s.id FROM Session s WHERE s.expiresAt < :now ORDER BY s.expiresAt")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
 }
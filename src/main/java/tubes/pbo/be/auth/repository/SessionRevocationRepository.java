@@ -0,0 +1,22 @@
+package tubes.pbo.be.auth.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import tubes.pbo.be.auth.model.SessionRevocation;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SessionRevocationRepository extends JpaRepository<SessionRevocation, Long> {
+
+    List<SessionRevocation> findByRevokedAtGreaterThanEqualAndExpiresAtAfter(LocalDateTime since, LocalDateTime now);
+
+    List<SessionRevocation> findBySessionIdIn(List<Long> sessionIds);
+
+    @Query("SELECT r.id FROM SessionRevocation r WHERE r.expiresAt < :now ORDER BY r.expiresAt")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+}
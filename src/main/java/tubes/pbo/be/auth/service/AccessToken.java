@@ -0,0 +1,16 @@
+package tubes.pbo.be.auth.service;
+
+import tubes.pbo.be.shared.security.AuthenticatedUser;
+import tubes.pbo.be.user.model.User;
+
+import java.time.Instant;
+
+/**
+ * Claims of a verified signed access token.
+ */
+public record AccessToken(Long userId, User.UserRole role, Long sessionId, Instant expiresAt) {
+
+    public AuthenticatedUser principal() {
+        return new AuthenticatedUser(userId, role);
+    }
+}
@@ -0,0 +1,159 @@
+package tubes.pbo.be.auth.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tubes.pbo.be.auth.model.Session;
+import tubes.pbo.be.shared.exception.ConfigurationException;
+import tubes.pbo.be.user.model.User;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Issues and verifies signed access tokens: compact HS256 JWTs carrying the user id, role,
+ * session id and expiry. Verifying one is a MAC check and a {@link RevocationList} lookup, with
+ * no database access. The session token becomes the refresh token, and the session is what
+ * logout and password changes revoke.
+ * <p>
+ * Off by default; while off, session tokens are used as access tokens.
+ */
+@Service
+public class AccessTokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String HEADER = ENCODER.encodeToString(
+            "{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final RevocationList revocationList;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final SecretKeySpec key;
+
+    public AccessTokenService(
+            RevocationList revocationList,
+            ObjectMapper objectMapper,
+            @Value("${app.auth.access-token.enabled:false}") boolean enabled,
+            @Value("${app.auth.access-token.secret:}") String secret,
+            @Value("${app.auth.access-token.ttl-minutes:15}") long ttlMinutes) {
+        this.revocationList = revocationList;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+
+        byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (enabled && secretBytes.length < MIN_SECRET_BYTES) {
+            throw new ConfigurationException(
+                    "Signed access tokens need a secret of at least " + MIN_SECRET_BYTES + " bytes (JWT_SECRET)");
+        }
+        this.key = enabled ? new SecretKeySpec(secretBytes, ALGORITHM) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getTtlSeconds() {
+        return ttl.toSeconds();
+    }
+
+    /**
+     * @return true if the token has the shape of a signed access token; session tokens are UUIDs
+     */
+    public boolean isAccessToken(String token) {
+        return enabled && token.indexOf('.') >= 0;
+    }
+
+    /**
+     * Signs a token for the session, expiring after the TTL or with the session, whichever is first.
+     */
+    public String issue(Session session, User user) {
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(ttl);
+        Instant sessionExpiresAt = session.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant();
+        if (sessionExpiresAt.isBefore(expiresAt)) {
+            expiresAt = sessionExpiresAt;
+        }
+
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", String.valueOf(user.getId()));
+        claims.put("role", user.getRole().name());
+        claims.put("sid", session.getId());
+        claims.put("iat", now.getEpochSecond());
+        claims.put("exp", expiresAt.getEpochSecond());
+
+        String payload;
+        try {
+            payload = ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to write access token claims", e);
+        }
+        String signingInput = HEADER + "." + payload;
+        return signingInput + "." + ENCODER.encodeToString(sign(signingInput));
+    }
+
+    /**
+     * @return the claims if the token is a correctly signed, unexpired and unrevoked access token
+     */
+    public Optional<AccessToken> verify(String token) {
+        if (!isAccessToken(token)) {
+            return Optional.empty();
+        }
+
+        int payloadStart = token.indexOf('.') + 1;
+        int signatureStart = token.lastIndexOf('.') + 1;
+        // Only tokens with our own header are accepted, which also pins the algorithm
+        if (payloadStart == signatureStart || !token.startsWith(HEADER + ".")) {
+            return Optional.empty();
+        }
+
+        try {
+            byte[] signature = DECODER.decode(token.substring(signatureStart));
+            if (!MessageDigest.isEqual(sign(token.substring(0, signatureStart - 1)), signature)) {
+                return Optional.empty();
+            }
+
+            JsonNode claims = objectMapper.readTree(DECODER.decode(token.substring(payloadStart, signatureStart - 1)));
+            AccessToken accessToken = new AccessToken(
+                    Long.valueOf(claims.path("sub").asText()),
+                    User.UserRole.valueOf(claims.path("role").asText()),
+                    claims.path("sid").asLong(),
+                    Instant.ofEpochSecond(claims.path("exp").asLong()));
+
+            if (!accessToken.expiresAt().isAfter(Instant.now()) || revocationList.isRevoked(accessToken.sessionId())) {
+                return Optional.empty();
+            }
+            return Optional.of(accessToken);
+        } catch (IllegalArgumentException | IOException _) {
+            // Malformed Base64, JSON or claims
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(String signingInput) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+}
@@ -4,8 +4,11 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import tubes.pbo.be.auth.dto.*;
+import tubes.pbo.be.auth.model.Session;
 import tubes.pbo.be.shared.exception.ForbiddenException;
+import tubes.pbo.be.shared.exception.UnauthorizedException;
 import tubes.pbo.be.shared.exception.ValidationException;
 import tubes.pbo.be.user.model.User;
 import tubes.pbo.be.user.repository.UserRepository;
@@ -18,33 +21,51 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final TokenService tokenService;
     private final EmailService emailService;
+    private final AccessTokenService accessTokenService;
+    private final LoginRateLimiter loginRateLimiter;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * The password is hashed before the transaction opens, so no database connection is held
+     * while the hash waits for the hashing pool.
+     */
+    public Long register(RegisterRequest request, String clientIp) {
+        loginRateLimiter.checkRegistration(clientIp);
 
-    @Transactional
-    public Long register(RegisterRequest request) {
         // Check if email already exists
-        if (userRepository.existsByEmail(request.getEmail().toLowerCase())) {
+        String email = request.getEmail().toLowerCase();
+        if (userRepository.existsByEmail(email)) {
             throw new ValidationException("Email already exists");
         }
 
-        // Create user
-        User user = new User();
-        user.setEmail(request.getEmail().toLowerCase());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        user.setName(request.getName());
-        user.setRole(User.UserRole.USER);
-        user.setIsVerified(false);
+        String hashedPassword = passwordEncoder.encode(request.getPassword());
+
+        return transactionTemplate.execute(_ -> {
+            // Create user
+            User user = new User();
+            user.setEmail(email);
+            user.setPassword(hashedPassword);
+            user.setName(request.getName());
+            user.setRole(User.UserRole.USER);
+            user.setIsVerified(false);
 
-        user = userRepository.save(user);
+            user = userRepository.save(user);
 
-        // Generate verification token and send email
-        String verificationToken = tokenService.generateVerificationToken(user.getId());
-        emailService.sendVerificationEmail(user.getEmail(), verificationToken);
+            // Generate verification token and queue the email
+            String verificationToken = tokenService.generateVerificationToken(user.getId());
+            emailService.queueVerificationEmail(user.getEmail(), verificationToken);
 
-        return user.getId();
+            return user.getId();
+        });
     }
 
-    @Transactional
-    public TokenResponse login(LoginRequest request) {
+    /**
+     * Not transactional, so no database connection is held while the password check waits for
+     * the hashing pool. Throttled attempts are rejected before any hashing.
+     */
+    public TokenResponse login(LoginRequest request, String clientIp) {
+        loginRateLimiter.checkLogin(request.getEmail(), clientIp);
+
         // Find user by email (case-insensitive)
         User user = userRepository.findByEmail(request.getEmail().toLowerCase())
                 .orElseThrow(() -> new ValidationException("Invalid email or password"));
@@ -60,20 +81,21 @@ public class AuthService {
         }
 
         // Generate session token
-        String sessionToken = tokenService.generateSessionToken(user.getId());
+        Session session = tokenService.createSession(user.getId());
 
-        // Prepare response
-        UserInfo userInfo = new UserInfo();
-        userInfo.setId(user.getId());
-        userInfo.setEmail(user.getEmail());
-        userInfo.setName(user.getName());
-        userInfo.setRole(user.getRole().name());
+        return toTokenResponse(user, session);
+    }
 
-        TokenResponse response = new TokenResponse();
-        response.setToken(sessionToken);
-        response.setUser(userInfo);
+    /**
+     * Issues a new signed access token for a session, identified by its session token
+     */
+    public TokenResponse refresh(String refreshToken) {
+        Session session = tokenService.validateSession(refreshToken);
 
-        return response;
+        User user = userRepository.findById(session.getUserId())
+                .orElseThrow(() -> new UnauthorizedException("Invalid or expired session token"));
+
+        return toTokenResponse(user, session);
     }
 
     @Transactional
@@ -93,27 +115,61 @@ public class AuthService {
         // But only send email if user exists
         userRepository.findByEmail(email.toLowerCase()).ifPresent(user -> {
             String resetToken = tokenService.generatePasswordResetToken(user.getId());
-            emailService.sendPasswordResetEmail(user.getEmail(), resetToken);
+            emailService.queuePasswordResetEmail(user.getEmail(), resetToken);
         });
     }
 
-    @Transactional
+    /**
+     * The token is checked before hashing, so a bad one costs no hash, and used up together with
+     * the password update once the hash is ready.
+     */
     public void resetPassword(ResetPasswordRequest request) {
-        Long userId = tokenService.validatePasswordResetToken(request.getToken());
+        Long userId = tokenService.checkPasswordResetToken(request.getToken());
+        if (!userRepository.existsById(userId)) {
+            throw new ValidationException("User not found");
+        }
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ValidationException("User not found"));
+        String hashedPassword = passwordEncoder.encode(request.getNewPassword());
 
-        // Update password
-        user.setPassword(passwordEncoder.encode(request.getNewPassword()));
-        userRepository.save(user);
+        transactionTemplate.executeWithoutResult(_ -> {
+            tokenService.validatePasswordResetToken(request.getToken());
+
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new ValidationException("User not found"));
 
-        // Invalidate all existing sessions
-        tokenService.deleteAllUserSessions(userId);
+            // Update password
+            user.setPassword(hashedPassword);
+            userRepository.save(user);
+
+            // Invalidate all existing sessions
+            tokenService.deleteAllUserSessions(userId);
+        });
     }
 
     @Transactional
     public void logout(String token) {
         tokenService.deleteSession(token);
     }
+
+    private TokenResponse toTokenResponse(User user, Session session) {
+        UserInfo userInfo = new UserInfo();
+        userInfo.setId(user.getId());
+        userInfo.setEmail(user.getEmail());
+        userInfo.setName(user.getName());
+        userInfo.setRole(user.getRole().name());
+
+        TokenResponse response = new TokenResponse();
+        response.setUser(userInfo);
+
+        if (accessTokenService.isEnabled()) {
+            // The session token is only used to refresh the signed access token
+            response.setToken(accessTokenService.issue(session, user));
+            response.setRefreshToken(session.getToken());
+            response.setExpiresIn(accessTokenService.getTtlSeconds());
+        } else {
+            response.setToken(session.getToken());
+        }
+
+        return response;
+    }
 }
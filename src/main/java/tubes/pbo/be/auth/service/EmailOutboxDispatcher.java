@@ -0,0 +1,203 @@
+package tubes.pbo.be.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tubes.pbo.be.auth.model.EmailOutbox;
+import tubes.pbo.be.auth.repository.EmailOutboxRepository;
+import tubes.pbo.be.shared.lock.SchedulerLockService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sends queued emails from the outbox, oldest first, in batches. Each batch goes out over one
+ * SMTP connection; emails the server accepted are deleted, the others are retried with
+ * exponential backoff until they use up their attempts.
+ * <p>
+ * Runs go through a single-thread executor, so one node never sends the same email twice at
+ * once, and the outbox lock keeps other nodes out meanwhile. Delivery is at least once: an email
+ * sent just before a crash is sent again by the next run.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    static final String LOCK_NAME = "email-outbox";
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final SchedulerLockService schedulerLockService;
+    private final MeterRegistry meterRegistry;
+    @Qualifier("emailOutboxExecutor")
+    private final TaskExecutor emailOutboxExecutor;
+
+    @Value("${spring.mail.properties.mail.from}")
+    private String fromEmail;
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.initial-backoff-ms:30000}")
+    private long initialBackoffMs;
+
+    @Value("${app.mail.outbox.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    @Value("${app.mail.outbox.lock-ttl-ms:300000}")
+    private long lockTtlMs;
+
+    /**
+     * Picks up emails whose retry is due, and any whose after-commit trigger was missed.
+     */
+    @Scheduled(fixedDelayString = "${app.mail.outbox.dispatch-interval-ms:10000}")
+    public void dispatchPending() {
+        trigger();
+    }
+
+    /**
+     * Starts a run unless one is already waiting; that run will pick up new emails as well.
+     */
+    public void trigger() {
+        try {
+            emailOutboxExecutor.execute(this::dispatch);
+        } catch (TaskRejectedException _) {
+            log.debug("Email dispatch already queued");
+        }
+    }
+
+    void dispatch() {
+        if (!schedulerLockService.tryLock(LOCK_NAME, Duration.ofMillis(lockTtlMs))) {
+            log.debug("Email outbox is being dispatched by another node");
+            return;
+        }
+
+        try {
+            long deadline = System.nanoTime() + Duration.ofMillis(lockTtlMs).toNanos();
+            List<EmailOutbox> batch;
+            do {
+                batch = emailOutboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+                        EmailOutbox.Status.PENDING, LocalDateTime.now(), PageRequest.ofSize(batchSize));
+                if (!batch.isEmpty()) {
+                    send(batch);
+                }
+            } while (batch.size() == batchSize && System.nanoTime() < deadline);
+        } catch (Exception e) {
+            log.warn("Email dispatch failed; pending emails stay in the outbox", e);
+        } finally {
+            schedulerLockService.unlock(LOCK_NAME);
+        }
+    }
+
+    private void send(List<EmailOutbox> batch) {
+        SimpleMailMessage[] messages = batch.stream().map(this::toMessage).toArray(SimpleMailMessage[]::new);
+
+        Map<Object, Exception> failures;
+        try {
+            mailSender.send(messages);
+            failures = Map.of();
+        } catch (MailSendException e) {
+            // Lists the messages the server refused; the others were accepted
+            failures = e.getFailedMessages().isEmpty() ? failAll(messages, e) : e.getFailedMessages();
+        } catch (MailException e) {
+            failures = failAll(messages, e);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> sentIds = new ArrayList<>();
+        List<EmailOutbox> failed = new ArrayList<>();
+        for (int i = 0; i < messages.length; i++) {
+            Exception error = failures.get(messages[i]);
+            if (error == null) {
+                sentIds.add(batch.get(i).getId());
+            } else {
+                reschedule(batch.get(i), error, now);
+                failed.add(batch.get(i));
+            }
+        }
+
+        if (!sentIds.isEmpty()) {
+            emailOutboxRepository.deleteAllByIdInBatch(sentIds);
+            count("sent", sentIds.size());
+            log.info("Sent {} emails", sentIds.size());
+        }
+        if (!failed.isEmpty()) {
+            emailOutboxRepository.saveAll(failed);
+        }
+    }
+
+    private void reschedule(EmailOutbox email, Exception error, LocalDateTime now) {
+        email.setAttempts(email.getAttempts() + 1);
+        String message = String.valueOf(error.getMessage());
+        email.setLastError(message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message);
+
+        if (email.getAttempts() >= maxAttempts) {
+            email.setStatus(EmailOutbox.Status.FAILED);
+            count("failed", 1);
+            log.error("Giving up on email {} to {} after {} attempts", email.getId(), email.getRecipient(),
+                    email.getAttempts(), error);
+        } else {
+            email.setNextAttemptAt(now.plus(Duration.ofMillis(backoff(email.getAttempts()))));
+            count("retried", 1);
+            log.warn("Failed to send email {} to {}, retrying at {}: {}", email.getId(), email.getRecipient(),
+                    email.getNextAttemptAt(), message);
+        }
+    }
+
+    /**
+     * Exponential backoff with equal jitter, so a mail server outage is not followed by every
+     * queued email retrying at the same moment.
+     */
+    private long backoff(int attempt) {
+        long step = Math.min(Math.max(initialBackoffMs, maxBackoffMs), initialBackoffMs << Math.min(attempt - 1, 20));
+        long half = step / 2;
+        return half + (half > 0 ? ThreadLocalRandom.current().nextLong(half + 1) : 0);
+    }
+
+    private SimpleMailMessage toMessage(EmailOutbox email) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(fromEmail);
+        message.setTo(email.getRecipient());
+        message.setSubject(email.getSubject());
+        message.setText(email.getBody());
+        return message;
+    }
+
+    private static Map<Object, Exception> failAll(SimpleMailMessage[] messages, Exception error) {
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        for (SimpleMailMessage message : messages) {
+            failures.put(message, error);
+        }
+        return failures;
+    }
+
+    private void count(String result, int amount) {
+        Counter.builder("mail.outbox.messages")
+                .description("Outbox emails by send outcome")
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment(amount);
+    }
+}
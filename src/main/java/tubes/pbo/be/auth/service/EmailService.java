@@ -3,72 +3,73 @@ package tubes.pbo.be.auth.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tubes.pbo.be.auth.model.EmailOutbox;
+import tubes.pbo.be.auth.repository.EmailOutboxRepository;
 
+/**
+ * Writes emails to the outbox in the caller's transaction, so an email exists exactly when the
+ * token it carries does. {@link EmailOutboxDispatcher} sends them once the transaction commits.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
 
-    private final JavaMailSender mailSender;
-
-    @Value("${spring.mail.properties.mail.from}")
-    private String fromEmail;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailOutboxDispatcher emailOutboxDispatcher;
 
     @Value("${app.frontend-url}")
     private String frontendUrl;
 
-    public void sendVerificationEmail(String toEmail, String token) {
-        try {
-            String verificationLink = frontendUrl + "/verify?token=" + token;
-            
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Verify Your Email - Tubes PBO");
-            message.setText(
-                "Welcome to Tubes PBO!\n\n" +
-                "Please verify your email address by clicking the link below:\n" +
-                verificationLink + "\n\n" +
-                "This link will expire in 24 hours.\n\n" +
-                "If you did not create an account, please ignore this email.\n\n" +
-                "Best regards,\n" +
-                "Tubes PBO Team"
-            );
+    public void queueVerificationEmail(String toEmail, String token) {
+        String verificationLink = frontendUrl + "/verify?token=" + token;
 
-            mailSender.send(message);
-            log.info("Verification email sent to: {}", toEmail);
-        } catch (Exception e) {
-            log.error("Failed to send verification email to: {}", toEmail, e);
-            // Don't throw exception - email failures shouldn't block registration
-        }
+        queue(toEmail, "Verify Your Email - Tubes PBO",
+            "Welcome to Tubes PBO!\n\n" +
+            "Please verify your email address by clicking the link below:\n" +
+            verificationLink + "\n\n" +
+            "This link will expire in 24 hours.\n\n" +
+            "If you did not create an account, please ignore this email.\n\n" +
+            "Best regards,\n" +
+            "Tubes PBO Team"
+        );
+    }
+
+    public void queuePasswordResetEmail(String toEmail, String token) {
+        String resetLink = frontendUrl + "/reset-password?token=" + token;
+
+        queue(toEmail, "Password Reset Request - Tubes PBO",
+            "Hello,\n\n" +
+            "We received a request to reset your password. Click the link below to reset it:\n" +
+            resetLink + "\n\n" +
+            "This link will expire in 1 hour.\n\n" +
+            "If you did not request a password reset, please ignore this email. Your password will remain unchanged.\n\n" +
+            "Best regards,\n" +
+            "Tubes PBO Team"
+        );
     }
 
-    public void sendPasswordResetEmail(String toEmail, String token) {
-        try {
-            String resetLink = frontendUrl + "/reset-password?token=" + token;
-            
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(toEmail);
-            message.setSubject("Password Reset Request - Tubes PBO");
-            message.setText(
-                "Hello,\n\n" +
-                "We received a request to reset your password. Click the link below to reset it:\n" +
-                resetLink + "\n\n" +
-                "This link will expire in 1 hour.\n\n" +
-                "If you did not request a password reset, please ignore this email. Your password will remain unchanged.\n\n" +
-                "Best regards,\n" +
-                "Tubes PBO Team"
-            );
+    private void queue(String toEmail, String subject, String body) {
+        EmailOutbox email = new EmailOutbox();
+        email.setRecipient(toEmail);
+        email.setSubject(subject);
+        email.setBody(body);
+        emailOutboxRepository.save(email);
+        log.info("Queued email '{}' to: {}", subject, toEmail);
 
-            mailSender.send(message);
-            log.info("Password reset email sent to: {}", toEmail);
-        } catch (Exception e) {
-            log.error("Failed to send password reset email to: {}", toEmail, e);
-            // Don't throw exception - email failures shouldn't block the flow
+        // Send right after commit instead of waiting for the next dispatch round
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    emailOutboxDispatcher.trigger();
+                }
+            });
+        } else {
+            emailOutboxDispatcher.trigger();
         }
     }
 }
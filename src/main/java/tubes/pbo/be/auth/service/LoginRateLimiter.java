@@ -0,0 +1,137 @@
+package tubes.pbo.be.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tubes.pbo.be.shared.exception.TooManyRequestsException;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Throttles login attempts per email and per client IP, and registrations per client IP, before
+ * any password hashing happens. Each key uses a sliding window counter: the count of the current
+ * window plus the previous window's count weighted by how much of it still overlaps, which needs
+ * two counters per key instead of a timestamp per attempt.
+ * <p>
+ * Counters are per node. Past {@code max-keys} tracked keys new keys are let through untracked,
+ * so a flood of distinct keys cannot exhaust memory; the hashing pool still bounds the load.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private static final String MESSAGE = "Too many attempts. Please try again later.";
+
+    private final boolean enabled;
+    private final long windowMs;
+    private final int loginsPerEmail;
+    private final int loginsPerIp;
+    private final int registrationsPerIp;
+    private final int maxKeys;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public LoginRateLimiter(
+            @Value("${app.auth.rate-limit.enabled:true}") boolean enabled,
+            @Value("${app.auth.rate-limit.window-seconds:60}") long windowSeconds,
+            @Value("${app.auth.rate-limit.logins-per-email:10}") int loginsPerEmail,
+            @Value("${app.auth.rate-limit.logins-per-ip:50}") int loginsPerIp,
+            @Value("${app.auth.rate-limit.registrations-per-ip:10}") int registrationsPerIp,
+            @Value("${app.auth.rate-limit.max-keys:100000}") int maxKeys,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.windowMs = windowSeconds * 1000;
+        this.loginsPerEmail = loginsPerEmail;
+        this.loginsPerIp = loginsPerIp;
+        this.registrationsPerIp = registrationsPerIp;
+        this.maxKeys = maxKeys;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("auth.rate_limit.keys", windows, Map::size)
+                .description("Emails and client IPs with a tracked attempt window")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @throws TooManyRequestsException if the client IP or the email has used up its login attempts
+     */
+    public void checkLogin(String email, String clientIp) {
+        long now = System.currentTimeMillis();
+        acquire("login-ip", clientIp, loginsPerIp, now);
+        acquire("login-email", email.toLowerCase(Locale.ROOT), loginsPerEmail, now);
+    }
+
+    /**
+     * @throws TooManyRequestsException if the client IP has used up its registrations
+     */
+    public void checkRegistration(String clientIp) {
+        acquire("register-ip", clientIp, registrationsPerIp, System.currentTimeMillis());
+    }
+
+    /**
+     * Drops windows that no longer affect any decision.
+     */
+    @Scheduled(fixedDelayString = "${app.auth.rate-limit.cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        windows.values().removeIf(window -> now - window.start() >= 2 * windowMs);
+    }
+
+    int size() {
+        return windows.size();
+    }
+
+    void acquire(String limit, String value, int maxAttempts, long now) {
+        if (!enabled || value == null) {
+            return;
+        }
+
+        String key = limit + ":" + value;
+        if (windows.size() >= maxKeys && !windows.containsKey(key)) {
+            return;
+        }
+
+        boolean[] admitted = new boolean[1];
+        Window window = windows.compute(key, (_, current) -> {
+            Window advanced = current == null ? new Window(now, 0, 0) : current.advance(now, windowMs);
+            if (advanced.estimate(now, windowMs) < maxAttempts) {
+                admitted[0] = true;
+                return new Window(advanced.start(), advanced.previous(), advanced.current() + 1);
+            }
+            return advanced;
+        });
+
+        if (!admitted[0]) {
+            Counter.builder("auth.rate_limit.rejected")
+                    .tag("limit", limit)
+                    .register(meterRegistry)
+                    .increment();
+            long retryAfterMs = window.start() + windowMs - now;
+            throw new TooManyRequestsException(MESSAGE, Math.max(1, (retryAfterMs + 999) / 1000));
+        }
+    }
+
+    private record Window(long start, int previous, int current) {
+
+        Window advance(long now, long windowMs) {
+            long elapsedWindows = (now - start) / windowMs;
+            if (elapsedWindows == 0) {
+                return this;
+            }
+            if (elapsedWindows == 1) {
+                return new Window(start + windowMs, current, 0);
+            }
+            return new Window(now, 0, 0);
+        }
+
+        double estimate(long now, long windowMs) {
+            double previousOverlap = 1.0 - (double) (now - start) / windowMs;
+            return previous * previousOverlap + current;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package tubes.pbo.be.auth.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tubes.pbo.be.auth.model.SessionRevocation;
+import tubes.pbo.be.auth.repository.SessionRevocationRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Sessions whose signed access tokens must no longer be accepted, kept in memory so checking a
+ * token needs no I/O.
+ * <p>
+ * Revocations made on this node apply as soon as their transaction commits. Revocations made on
+ * other nodes are read from {@code session_revocations} on every refresh; each refresh re-reads a
+ * short overlap window, so rows committed late or written by a node with a slightly different
+ * clock are not missed. An entry is dropped once every token of its session has expired.
+ */
+@Component
+@Slf4j
+public class RevocationList {
+
+    private final SessionRevocationRepository sessionRevocationRepository;
+    private final boolean enabled;
+    private final Duration tokenTtl;
+    private final Duration overlap;
+
+    // Session id -> when the last token issued for it expires
+    private final Map<Long, LocalDateTime> revoked = new ConcurrentHashMap<>();
+    private volatile LocalDateTime lastRefresh;
+
+    public RevocationList(
+            SessionRevocationRepository sessionRevocationRepository,
+            @Value("${app.auth.access-token.enabled:false}") boolean enabled,
+            @Value("${app.auth.access-token.ttl-minutes:15}") long ttlMinutes,
+            @Value("${app.auth.access-token.revocation-overlap-ms:60000}") long overlapMs,
+            MeterRegistry meterRegistry) {
+        this.sessionRevocationRepository = sessionRevocationRepository;
+        this.enabled = enabled;
+        this.tokenTtl = Duration.ofMinutes(ttlMinutes);
+        this.overlap = Duration.ofMillis(overlapMs);
+
+        Gauge.builder("auth.revocations.size", revoked, Map::size)
+                .description("Revoked sessions whose access tokens may still be unexpired")
+                .register(meterRegistry);
+    }
+
+    public boolean isRevoked(Long sessionId) {
+        return revoked.containsKey(sessionId);
+    }
+
+    /**
+     * Records the sessions as revoked. Must be called in the transaction that ends them, so the
+     * records and the session deletes commit together.
+     */
+    public void revoke(Long userId, List<Long> sessionIds) {
+        if (!enabled || sessionIds.isEmpty()) {
+            return;
+        }
+
+        Set<Long> alreadyRevoked = sessionRevocationRepository.findBySessionIdIn(sessionIds).stream()
+                .map(SessionRevocation::getSessionId)
+                .collect(Collectors.toSet());
+        LocalDateTime now = LocalDateTime.now();
+        // Tokens issued just before the revocation live up to one TTL longer; the overlap covers clock skew
+        LocalDateTime expiresAt = now.plus(tokenTtl).plus(overlap);
+        List<SessionRevocation> revocations = sessionIds.stream()
+                .distinct()
+                .filter(sessionId -> !alreadyRevoked.contains(sessionId))
+                .map(sessionId -> new SessionRevocation(null, sessionId, userId, now, expiresAt))
+                .toList();
+        if (revocations.isEmpty()) {
+            return;
+        }
+        sessionRevocationRepository.saveAll(revocations);
+
+        afterCommit(() -> revocations.forEach(revocation ->
+                revoked.put(revocation.getSessionId(), revocation.getExpiresAt())));
+    }
+
+    /**
+     * Loads revocations recorded since the last refresh, including those of other nodes, and drops
+     * expired entries. The first run loads every revocation that can still matter.
+     */
+    @Scheduled(fixedDelayString = "${app.auth.access-token.revocation-refresh-ms:5000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = lastRefresh == null ? now.minus(tokenTtl).minus(overlap) : lastRefresh.minus(overlap);
+        try {
+            for (SessionRevocation revocation : sessionRevocationRepository
+                    .findByRevokedAtGreaterThanEqualAndExpiresAtAfter(since, now)) {
+                revoked.put(revocation.getSessionId(), revocation.getExpiresAt());
+            }
+            lastRefresh = now;
+        } catch (Exception e) {
+            // Keep the old watermark so the next run reads the missed window again
+            log.warn("Failed to refresh the session revocation list", e);
+        }
+
+        revoked.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,147 @@
+package tubes.pbo.be.auth.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import tubes.pbo.be.auth.repository.PasswordResetTokenRepository;
+import tubes.pbo.be.auth.repository.SessionRepository;
+import tubes.pbo.be.auth.repository.SessionRevocationRepository;
+import tubes.pbo.be.auth.repository.VerificationTokenRepository;
+import tubes.pbo.be.shared.lock.SchedulerLockService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Deletes expired sessions and session revocations, and used or expired verification and
+ * password reset tokens.
+ * <p>
+ * Rows are deleted in chunks of {@code batch-size}, each in its own short transaction, with a
+ * pause in between so the sweep never holds locks for long. Expired rows are found through the
+ * {@code expiresAt} indexes; the used-token pass runs afterwards, when only unexpired tokens are
+ * left to scan. Only the node holding the purge lock runs a sweep, and a sweep that reaches the
+ * end of the lock stops and leaves the rest for the next run.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TokenPurgeService {
+
+    static final String LOCK_NAME = "token-purge";
+
+    private final SessionRepository sessionRepository;
+    private final SessionRevocationRepository sessionRevocationRepository;
+    private final VerificationTokenRepository verificationTokenRepository;
+    private final PasswordResetTokenRepository passwordResetTokenRepository;
+    private final SchedulerLockService schedulerLockService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.auth.purge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.auth.purge.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.auth.purge.pause-ms:100}")
+    private long pauseMs;
+
+    @Value("${app.auth.purge.lock-ttl-ms:600000}")
+    private long lockTtlMs;
+
+    @Scheduled(fixedDelayString = "${app.auth.purge.interval-ms:3600000}",
+            initialDelayString = "${app.auth.purge.initial-delay-ms:60000}")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        if (!schedulerLockService.tryLock(LOCK_NAME, Duration.ofMillis(lockTtlMs))) {
+            log.debug("Token purge is running on another node");
+            return;
+        }
+
+        try {
+            Sweep sweep = new Sweep(LocalDateTime.now(), System.nanoTime() + Duration.ofMillis(lockTtlMs).toNanos());
+            Pageable batch = PageRequest.ofSize(batchSize);
+
+            long sessions = sweep.delete(() -> sessionRepository.findExpiredIds(sweep.now, batch),
+                    sessionRepository::deleteAllByIdInBatch);
+            long revocations = sweep.delete(() -> sessionRevocationRepository.findExpiredIds(sweep.now, batch),
+                    sessionRevocationRepository::deleteAllByIdInBatch);
+            long verificationTokens = sweep.delete(() -> verificationTokenRepository.findExpiredIds(sweep.now, batch),
+                    verificationTokenRepository::deleteAllByIdInBatch)
+                    + sweep.delete(() -> verificationTokenRepository.findUsedIds(batch),
+                    verificationTokenRepository::deleteAllByIdInBatch);
+            long passwordResetTokens = sweep.delete(() -> passwordResetTokenRepository.findExpiredIds(sweep.now, batch),
+                    passwordResetTokenRepository::deleteAllByIdInBatch)
+                    + sweep.delete(() -> passwordResetTokenRepository.findUsedIds(batch),
+                    passwordResetTokenRepository::deleteAllByIdInBatch);
+
+            record("sessions", sessions);
+            record("session_revocations", revocations);
+            record("verification_tokens", verificationTokens);
+            record("password_reset_tokens", passwordResetTokens);
+
+            if (sessions + revocations + verificationTokens + passwordResetTokens > 0) {
+                log.info("Purged {} sessions, {} session revocations, {} verification tokens and {} password reset tokens",
+                        sessions, revocations, verificationTokens, passwordResetTokens);
+            }
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.warn("Token purge failed; the next run continues where it stopped", e);
+        } finally {
+            schedulerLockService.unlock(LOCK_NAME);
+        }
+    }
+
+    private void record(String table, long purged) {
+        DistributionSummary.builder("auth.purge.rows")
+                .description("Rows deleted per purge run")
+                .tag("table", table)
+                .register(meterRegistry)
+                .record(purged);
+    }
+
+    private class Sweep {
+
+        private final LocalDateTime now;
+        private final long deadlineNanos;
+
+        Sweep(LocalDateTime now, long deadlineNanos) {
+            this.now = now;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Deletes batches until one comes back short or the lock is about to run out.
+         *
+         * @return rows deleted
+         */
+        long delete(Supplier<List<Long>> nextBatch, Consumer<List<Long>> deleteBatch) throws InterruptedException {
+            long deleted = 0;
+            while (System.nanoTime() < deadlineNanos) {
+                List<Long> ids = nextBatch.get();
+                if (!ids.isEmpty()) {
+                    deleteBatch.accept(ids);
+                    deleted += ids.size();
+                }
+                if (ids.size() < batchSize) {
+                    break;
+                }
+                if (pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+            }
+            return deleted;
+        }
+    }
+}
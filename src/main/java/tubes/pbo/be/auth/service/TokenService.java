@@ -12,8 +12,10 @@ import tubes.pbo.be.auth.repository.SessionRepository;
 import tubes.pbo.be.auth.repository.VerificationTokenRepository;
 import tubes.pbo.be.shared.exception.UnauthorizedException;
 import tubes.pbo.be.shared.exception.ValidationException;
+import tubes.pbo.be.shared.security.PrincipalCache;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -23,6 +25,9 @@ public class TokenService {
     private final SessionRepository sessionRepository;
     private final VerificationTokenRepository verificationTokenRepository;
     private final PasswordResetTokenRepository passwordResetTokenRepository;
+    private final PrincipalCache principalCache;
+    private final AccessTokenService accessTokenService;
+    private final RevocationList revocationList;
 
     @Value("${app.session.expiry-hours:24}")
     private int sessionExpiryHours;
@@ -34,6 +39,10 @@ public class TokenService {
     private int passwordResetExpiryHours;
 
     public String generateSessionToken(Long userId) {
+        return createSession(userId).getToken();
+    }
+
+    public Session createSession(Long userId) {
         String token = UUID.randomUUID().toString();
         LocalDateTime expiresAt = LocalDateTime.now().plusHours(sessionExpiryHours);
 
@@ -42,11 +51,18 @@ public class TokenService {
         session.setUserId(userId);
         session.setExpiresAt(expiresAt);
 
-        sessionRepository.save(session);
-        return token;
+        return sessionRepository.save(session);
     }
 
     public Long validateSessionToken(String token) {
+        return validateSession(token).getUserId();
+    }
+
+    /**
+     * @return the session for the token
+     * @throws UnauthorizedException if there is no such session or it has expired
+     */
+    public Session validateSession(String token) {
         Session session = sessionRepository.findByToken(token)
                 .orElseThrow(() -> new UnauthorizedException("Invalid or expired session token"));
 
@@ -55,23 +71,49 @@ public class TokenService {
             throw new UnauthorizedException("Session has expired");
         }
 
-        return session.getUserId();
+        return session;
     }
 
+    /**
+     * Ends the session of a session token or of a signed access token.
+     */
     @Transactional
     public void deleteSession(String token) {
-        sessionRepository.deleteByToken(token);
+        String sessionToken = toSessionToken(token);
+        if (accessTokenService.isEnabled()) {
+            sessionRepository.findByToken(sessionToken).ifPresent(session ->
+                    revocationList.revoke(session.getUserId(), List.of(session.getId())));
+        }
+        sessionRepository.deleteByToken(sessionToken);
+        principalCache.invalidateToken(sessionToken);
     }
 
     @Transactional
     public void deleteAllUserSessions(Long userId) {
+        if (accessTokenService.isEnabled()) {
+            revocationList.revoke(userId, sessionRepository.findIdsByUserId(userId));
+        }
         sessionRepository.deleteByUserId(userId);
+        principalCache.invalidateUser(userId);
     }
 
 
     @Transactional
     public void deleteAllUserSessionsExceptCurrent(Long userId, String currentToken) {
-        sessionRepository.deleteByUserIdAndTokenNot(userId, currentToken);
+        String sessionToken = toSessionToken(currentToken);
+        if (accessTokenService.isEnabled()) {
+            revocationList.revoke(userId, sessionRepository.findIdsByUserIdAndTokenNot(userId, sessionToken));
+        }
+        sessionRepository.deleteByUserIdAndTokenNot(userId, sessionToken);
+        principalCache.invalidateUserExcept(userId, sessionToken);
+    }
+
+    // The session token behind a signed access token, or the token itself
+    private String toSessionToken(String token) {
+        return accessTokenService.verify(token)
+                .flatMap(accessToken -> sessionRepository.findById(accessToken.sessionId()))
+                .map(Session::getToken)
+                .orElse(token);
     }
 
     public String generateVerificationToken(Long userId) {
@@ -121,8 +163,26 @@ public class TokenService {
         return token;
     }
 
+    /**
+     * Checks a password reset token without using it up.
+     *
+     * @return the user the token was issued to
+     */
+    public Long checkPasswordResetToken(String token) {
+        return findUsablePasswordResetToken(token).getUserId();
+    }
+
     @Transactional
     public Long validatePasswordResetToken(String token) {
+        PasswordResetToken resetToken = findUsablePasswordResetToken(token);
+
+        resetToken.setUsed(true);
+        passwordResetTokenRepository.save(resetToken);
+
+        return resetToken.getUserId();
+    }
+
+    private PasswordResetToken findUsablePasswordResetToken(String token) {
         PasswordResetToken resetToken = passwordResetTokenRepository.findByToken(token)
                 .orElseThrow(() -> new ValidationException("Invalid password reset token"));
 
@@ -134,9 +194,6 @@ public class TokenService {
             throw new ValidationException("Password reset token has expired");
         }
 
-        resetToken.setUsed(true);
-        passwordResetTokenRepository.save(resetToken);
-
-        return resetToken.getUserId();
+        return resetToken;
     }
 }
@@ -15,6 +15,7 @@ import org.springframework.web.bind.annotation.*;
 import tubes.pbo.be.history.dto.HistoryResponse;
 import tubes.pbo.be.history.service.HistoryService;
 import tubes.pbo.be.shared.dto.ApiResponse;
+import tubes.pbo.be.shared.dto.CursorPageResponse;
 import tubes.pbo.be.shared.dto.PageResponse;
 import tubes.pbo.be.shared.security.SecurityContextHelper;
 
@@ -45,6 +46,23 @@ public class HistoryController {
         return ResponseEntity.ok(history);
     }
 
+    // Chosen over the offset variant whenever a cursor parameter is sent, even an empty one
+    @GetMapping(params = "cursor")
+    @Operation(
+            summary = "List history (cursor)",
+            description = "Get the user's summaries newest first using keyset pagination. Send an empty cursor " +
+                    "for the first page, then the returned nextCursor. Totals are not counted.",
+            security = {@io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearerAuth")}
+    )
+    public ResponseEntity<CursorPageResponse<HistoryResponse>> listHistoryByCursor(
+            @Parameter(description = "nextCursor from the previous page, empty for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 100)")
+            @RequestParam(defaultValue = "10") int size) {
+        Long userId = securityContextHelper.getCurrentUserId();
+        return ResponseEntity.ok(historyService.listHistory(userId, cursor, size));
+    }
+
     @DeleteMapping("/{id}")
     @Operation(
             summary = "Delete summary",
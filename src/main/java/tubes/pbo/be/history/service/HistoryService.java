@@ -3,20 +3,25 @@ package tubes.pbo.be.history.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import tubes.pbo.be.history.dto.HistoryResponse;
+import tubes.pbo.be.quiz.repository.QuestionBankRepository;
 import tubes.pbo.be.quiz.repository.QuizRepository;
-import tubes.pbo.be.shared.config.FileStorageConfig;
+import tubes.pbo.be.shared.dto.CursorPageResponse;
+import tubes.pbo.be.shared.dto.PageCursor;
 import tubes.pbo.be.shared.dto.PageResponse;
 import tubes.pbo.be.shared.exception.FileOperationException;
 import tubes.pbo.be.shared.exception.ForbiddenException;
 import tubes.pbo.be.shared.exception.ResourceNotFoundException;
 import tubes.pbo.be.summary.model.Summary;
 import tubes.pbo.be.summary.repository.SummaryRepository;
+import tubes.pbo.be.summary.repository.SummaryRepository.SummaryListView;
+import tubes.pbo.be.summary.service.StoredFileService;
 
-import java.nio.file.Path;
+import java.util.List;
 
 /**
  * Service for managing summary history and file operations.
@@ -29,8 +34,9 @@ public class HistoryService {
 
     private final SummaryRepository summaryRepository;
     private final QuizRepository quizRepository;
+    private final QuestionBankRepository questionBankRepository;
     private final FileService fileService;
-    private final FileStorageConfig fileStorageConfig;
+    private final StoredFileService storedFileService;
 
     /**
      * Lists all summaries for a user (paginated).
@@ -43,13 +49,34 @@ public class HistoryService {
     public PageResponse<HistoryResponse> listHistory(Long userId, Pageable pageable) {
         log.info("Listing history for user ID: {}", userId);
         
-        Page<Summary> summaries = summaryRepository.findByUserId(userId, pageable);
+        Page<SummaryListView> summaries = summaryRepository.findListByUserId(userId, pageable);
         
         Page<HistoryResponse> historyPage = summaries.map(this::toHistoryResponse);
         
         return new PageResponse<>(historyPage);
     }
 
+    /**
+     * Lists summaries for a user with keyset pagination, newest first.
+     * No count query is run, so the response carries a next cursor instead of totals.
+     *
+     * @param userId The user ID
+     * @param cursor The nextCursor of the previous page, or null for the first page
+     * @param size Page size
+     * @return Page of history items with the cursor for the next page
+     */
+    public CursorPageResponse<HistoryResponse> listHistory(Long userId, String cursor, int size) {
+        log.info("Listing history by cursor for user ID: {}", userId);
+
+        PageCursor after = PageCursor.decode(cursor);
+        int pageSize = PageCursor.pageSize(size);
+        List<SummaryListView> rows = summaryRepository.findListByUserIdAfter(
+                userId, after.createdAt(), after.id(), PageRequest.ofSize(pageSize + 1));
+
+        return CursorPageResponse.of(rows, pageSize,
+                row -> new PageCursor(row.getCreatedAt(), row.getId()), this::toHistoryResponse);
+    }
+
     /**
      * Deletes a summary and all associated data (quizzes, files).
      *
@@ -77,9 +104,12 @@ public class HistoryService {
             // Delete associated quizzes (cascade will delete questions)
             log.debug("Deleting quizzes for summary ID: {}", summaryId);
             quizRepository.deleteBySummaryId(summaryId);
+            questionBankRepository.deleteBySummaryId(summaryId);
             
-            // Delete the PDF file from filesystem
-            deleteSummaryFile(summary);
+            // The PDF file goes after commit, once no other summary shares it
+            if (!storedFileService.release(summary.getFilePath())) {
+                log.debug("Keeping file {} for other summaries", summary.getFilePath());
+            }
             
             // Delete the database record
             summaryRepository.delete(summary);
@@ -159,9 +189,9 @@ public class HistoryService {
     }
 
     /**
-     * Converts a Summary entity to HistoryResponse DTO.
+     * Converts a summary list row to HistoryResponse DTO.
      */
-    private HistoryResponse toHistoryResponse(Summary summary) {
+    private HistoryResponse toHistoryResponse(SummaryListView summary) {
         return new HistoryResponse(
                 summary.getId(),
                 summary.getOriginalFilename(),
@@ -169,24 +199,4 @@ public class HistoryService {
                 summary.getCreatedAt()
         );
     }
-
-    /**
-     * Deletes the summary file from the filesystem.
-     * Logs warnings but doesn't throw exceptions to avoid breaking the deletion flow.
-     *
-     * @param summary The summary containing the file path
-     */
-    private void deleteSummaryFile(Summary summary) {
-        Path filePath = fileStorageConfig.getUploadPath().resolve(summary.getFilePath());
-        if (java.nio.file.Files.exists(filePath)) {
-            try {
-                java.nio.file.Files.delete(filePath);
-                log.debug("Successfully deleted file: {}", summary.getFilePath());
-            } catch (java.io.IOException e) {
-                log.warn("Failed to delete file: {}", summary.getFilePath(), e);
-            }
-        } else {
-            log.warn("File not found during deletion: {}", summary.getFilePath());
-        }
-    }
 }
@@ -13,9 +13,12 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import tubes.pbo.be.quiz.dto.*;
 import tubes.pbo.be.quiz.service.QuizService;
+import tubes.pbo.be.quiz.service.QuizStreamService;
 import tubes.pbo.be.shared.dto.ApiResponse;
+import tubes.pbo.be.shared.dto.CursorPageResponse;
 import tubes.pbo.be.shared.dto.PageResponse;
 import tubes.pbo.be.shared.security.SecurityContextHelper;
 
@@ -27,6 +30,7 @@ import tubes.pbo.be.shared.security.SecurityContextHelper;
 public class QuizController {
     
     private final QuizService quizService;
+    private final QuizStreamService quizStreamService;
     private final SecurityContextHelper securityContextHelper;
     
     @PostMapping
@@ -49,6 +53,22 @@ public class QuizController {
                 .body(new ApiResponse<>("Quiz generated successfully", quiz));
     }
     
+    // No produces condition, so validation errors can still be rendered as JSON
+    @PostMapping("/stream")
+    @Operation(
+            summary = "Generate a quiz from a summary (streaming)",
+            description = "Creates a new quiz and sends its questions over Server-Sent Events as they are generated. " +
+                    "Emits a 'question' event per question (without the correct answer), then 'done' with the " +
+                    "saved quiz or 'error' if generation fails. Requires summary ownership.",
+            security = {@io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearerAuth")}
+    )
+    public SseEmitter streamQuiz(@Valid @RequestBody QuizRequest request) {
+        Long userId = securityContextHelper.getCurrentUserId();
+        log.info("User {} streaming quiz for summary {}", userId, request.getSummaryId());
+        
+        return quizStreamService.streamQuiz(userId, request);
+    }
+    
     @PostMapping("/{id}/submit")
     @Operation(
             summary = "Submit quiz answers",
@@ -100,6 +120,26 @@ public class QuizController {
         return ResponseEntity.ok(response);
     }
     
+    // Chosen over the offset variant whenever a cursor parameter is sent, even an empty one
+    @GetMapping(params = "cursor")
+    @Operation(
+            summary = "List user's quizzes (cursor)",
+            description = "Returns quizzes newest first using keyset pagination. Send an empty cursor for the " +
+                    "first page, then the returned nextCursor. Totals are not counted.",
+            security = {@io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearerAuth")}
+    )
+    public ResponseEntity<CursorPageResponse<QuizListItem>> listQuizzesByCursor(
+            @Parameter(description = "Filter by summary ID (optional)")
+            @RequestParam(required = false) Long summaryId,
+            @Parameter(description = "nextCursor from the previous page, empty for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 100)")
+            @RequestParam(defaultValue = "10") int size
+    ) {
+        Long userId = securityContextHelper.getCurrentUserId();
+        return ResponseEntity.ok(quizService.listQuizzes(userId, summaryId, cursor, size));
+    }
+    
     @GetMapping("/{id}")
     @Operation(
             summary = "Get quiz details",
@@ -0,0 +1,80 @@
+package tubes.pbo.be.quiz.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A generated question kept in the bank of a summary and difficulty.
+ * Quizzes copy bank questions into their own {@link Question} rows, so the bank
+ * keeps growing and is reused by every later quiz on the summary.
+ */
+@Entity
+@Table(name = "question_bank", indexes = {
+        @Index(name = "idx_bank_summary_difficulty", columnList = "summary_id, difficulty")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BankQuestion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "summary_id", nullable = false)
+    private Long summaryId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Quiz.Difficulty difficulty;
+
+    @Column(name = "question_text", nullable = false, columnDefinition = "TEXT")
+    private String questionText;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String options;  // Stored as JSON array string, same as Question
+
+    @Column(name = "correct_answer", nullable = false, length = 500)
+    private String correctAnswer;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String explanation;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public static BankQuestion of(Long summaryId, Quiz.Difficulty difficulty, Question question) {
+        BankQuestion banked = new BankQuestion();
+        banked.setSummaryId(summaryId);
+        banked.setDifficulty(difficulty);
+        banked.setQuestionText(question.getQuestionText());
+        banked.setOptions(question.getOptions());
+        banked.setCorrectAnswer(question.getCorrectAnswer());
+        banked.setExplanation(question.getExplanation());
+        return banked;
+    }
+
+    /**
+     * Copies the question into a new question of the given quiz. The question ID is left
+     * for the caller, which numbers all questions of the quiz.
+     */
+    public Question toQuestion(Long quizId) {
+        Question question = new Question();
+        question.setQuizId(quizId);
+        question.setBankQuestionId(id);
+        question.setQuestionText(questionText);
+        question.setOptions(options);
+        question.setCorrectAnswer(correctAnswer);
+        question.setExplanation(explanation);
+        return question;
+    }
+}
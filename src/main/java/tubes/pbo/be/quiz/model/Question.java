@@ -24,6 +24,10 @@ public class Question {
     @Column(name = "question_id", nullable = false, length = 10)
     private String questionId;
     
+    // Bank entry the question was copied from; null for questions generated before the bank existed
+    @Column(name = "bank_question_id")
+    private Long bankQuestionId;
+    
     @Column(name = "question_text", nullable = false, columnDefinition = "TEXT")
     private String questionText;
     
@@ -15,7 +15,8 @@ import java.util.List;
 @Table(name = "quizzes", indexes = {
         @Index(name = "idx_user_id", columnList = "user_id"),
         @Index(name = "idx_summary_id", columnList = "summary_id"),
-        @Index(name = "idx_created_at", columnList = "created_at")
+        @Index(name = "idx_created_at", columnList = "created_at"),
+        @Index(name = "idx_quiz_user_created", columnList = "user_id, created_at")
 })
 @Data
 @NoArgsConstructor
@@ -0,0 +1,58 @@
+package tubes.pbo.be.quiz.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import tubes.pbo.be.quiz.model.BankQuestion;
+import tubes.pbo.be.quiz.model.Quiz;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface QuestionBankRepository extends JpaRepository<BankQuestion, Long> {
+
+    long countBySummaryIdAndDifficulty(Long summaryId, Quiz.Difficulty difficulty);
+
+    // IDs only: a quiz needs a handful of questions out of a bank that may hold many
+    @Query("SELECT b.id FROM BankQuestion b WHERE b.summaryId = :summaryId AND b.difficulty = :difficulty")
+    List<Long> findIdsBySummaryIdAndDifficulty(@Param("summaryId") Long summaryId,
+                                               @Param("difficulty") Quiz.Difficulty difficulty);
+
+    @Modifying
+    @Transactional
+    void deleteBySummaryId(Long summaryId);
+
+    // Other summaries of the same upload with questions for the difficulty, fullest bank first
+    @Query("SELECT b.summaryId FROM BankQuestion b, Summary s WHERE s.id = b.summaryId " +
+           "AND s.contentHash = :contentHash AND b.summaryId <> :summaryId AND b.difficulty = :difficulty " +
+           "GROUP BY b.summaryId ORDER BY COUNT(b) DESC")
+    List<Long> findSummaryIdsWithSameContent(@Param("contentHash") String contentHash,
+                                             @Param("summaryId") Long summaryId,
+                                             @Param("difficulty") Quiz.Difficulty difficulty,
+                                             Pageable pageable);
+
+    // Copied in the database, without loading the questions
+    @Modifying
+    @Transactional
+    @Query("INSERT INTO BankQuestion (summaryId, difficulty, questionText, options, correctAnswer, explanation, createdAt) " +
+           "SELECT :targetSummaryId, b.difficulty, b.questionText, b.options, b.correctAnswer, b.explanation, :now " +
+           "FROM BankQuestion b WHERE b.summaryId = :sourceSummaryId AND b.difficulty = :difficulty")
+    int copyBank(@Param("sourceSummaryId") Long sourceSummaryId,
+                 @Param("targetSummaryId") Long targetSummaryId,
+                 @Param("difficulty") Quiz.Difficulty difficulty,
+                 @Param("now") LocalDateTime now);
+
+    // Recent summaries whose bank for the difficulty holds fewer questions than the low watermark
+    @Query("SELECT s.id FROM Summary s WHERE s.createdAt >= :since AND " +
+           "(SELECT COUNT(b) FROM BankQuestion b WHERE b.summaryId = s.id AND b.difficulty = :difficulty) " +
+           "< :lowWatermark ORDER BY s.createdAt DESC")
+    List<Long> findSummaryIdsBelowWatermark(@Param("since") LocalDateTime since,
+                                            @Param("difficulty") Quiz.Difficulty difficulty,
+                                            @Param("lowWatermark") long lowWatermark,
+                                            Pageable pageable);
+}
@@ -1,9 +1,12 @@
 package tubes.pbo.be.quiz.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import tubes.pbo.be.quiz.model.Question;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,4 +15,7 @@ public interface QuestionRepository extends JpaRepository<Question, Long> {
     List<Question> findByQuizIdOrderById(Long quizId);
     
     void deleteByQuizId(Long quizId);
+    
+    @Query("SELECT q.bankQuestionId FROM Question q WHERE q.quizId IN :quizIds AND q.bankQuestionId IS NOT NULL")
+    List<Long> findBankQuestionIdsByQuizIdIn(@Param("quizIds") Collection<Long> quizIds);
 }
@@ -8,16 +8,42 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import tubes.pbo.be.quiz.model.Quiz;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface QuizRepository extends JpaRepository<Quiz, Long> {
+
+    String LIST_COLUMNS = "q.id AS id, q.summaryId AS summaryId, s.originalFilename AS originalFilename, " +
+            "q.difficulty AS difficulty, q.numberOfQuestions AS numberOfQuestions, q.isSubmitted AS isSubmitted, " +
+            "q.correctAnswers AS correctAnswers, q.createdAt AS createdAt, q.submittedAt AS submittedAt";
+
+    String AFTER_CURSOR = "(q.createdAt < :createdAt OR (q.createdAt = :createdAt AND q.id < :id))";
+    
+    // List views join only the summary filename, so listing never reads summaryText
+    @Query(value = "SELECT " + LIST_COLUMNS + " FROM Quiz q LEFT JOIN q.summary s WHERE q.userId = :userId",
+            countQuery = "SELECT COUNT(q) FROM Quiz q WHERE q.userId = :userId")
+    Page<QuizListView> findListByUserId(@Param("userId") Long userId, Pageable pageable);
+    
+    @Query(value = "SELECT " + LIST_COLUMNS + " FROM Quiz q LEFT JOIN q.summary s " +
+            "WHERE q.userId = :userId AND q.summaryId = :summaryId",
+            countQuery = "SELECT COUNT(q) FROM Quiz q WHERE q.userId = :userId AND q.summaryId = :summaryId")
+    Page<QuizListView> findListByUserIdAndSummaryId(@Param("userId") Long userId, @Param("summaryId") Long summaryId,
+                                                    Pageable pageable);
     
-    @Query("SELECT q FROM Quiz q LEFT JOIN FETCH q.summary WHERE q.userId = :userId")
-    Page<Quiz> findByUserId(@Param("userId") Long userId, Pageable pageable);
+    // Keyset pages: rows after the (createdAt, id) cursor, without a count query
+    @Query("SELECT " + LIST_COLUMNS + " FROM Quiz q LEFT JOIN q.summary s WHERE q.userId = :userId " +
+            "AND " + AFTER_CURSOR + " ORDER BY q.createdAt DESC, q.id DESC")
+    List<QuizListView> findListByUserIdAfter(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") Long id, Pageable limit);
     
-    @Query("SELECT q FROM Quiz q LEFT JOIN FETCH q.summary WHERE q.userId = :userId AND q.summaryId = :summaryId")
-    Page<Quiz> findByUserIdAndSummaryId(@Param("userId") Long userId, @Param("summaryId") Long summaryId, Pageable pageable);
+    @Query("SELECT " + LIST_COLUMNS + " FROM Quiz q LEFT JOIN q.summary s " +
+            "WHERE q.userId = :userId AND q.summaryId = :summaryId " +
+            "AND " + AFTER_CURSOR + " ORDER BY q.createdAt DESC, q.id DESC")
+    List<QuizListView> findListByUserIdAndSummaryIdAfter(@Param("userId") Long userId, @Param("summaryId") Long summaryId,
+                                                         @Param("createdAt") LocalDateTime createdAt,
+                                                         @Param("id") Long id, Pageable limit);
     
     Optional<Quiz> findByIdAndUserId(Long id, Long userId);
     
@@ -25,4 +51,31 @@ public interface QuizRepository extends JpaRepository<Quiz, Long> {
     Optional<Quiz> findByIdAndUserIdWithQuestions(@Param("id") Long id, @Param("userId") Long userId);
     
     void deleteBySummaryId(Long summaryId);
+    
+    // The user's latest quizzes on a summary and difficulty, whose questions count as recently seen
+    @Query("SELECT q.id FROM Quiz q WHERE q.userId = :userId AND q.summaryId = :summaryId " +
+            "AND q.difficulty = :difficulty ORDER BY q.createdAt DESC, q.id DESC")
+    List<Long> findRecentIds(@Param("userId") Long userId, @Param("summaryId") Long summaryId,
+                             @Param("difficulty") Quiz.Difficulty difficulty, Pageable limit);
+
+    interface QuizListView {
+
+        Long getId();
+
+        Long getSummaryId();
+
+        String getOriginalFilename();
+
+        Quiz.Difficulty getDifficulty();
+
+        Integer getNumberOfQuestions();
+
+        Boolean getIsSubmitted();
+
+        Integer getCorrectAnswers();
+
+        LocalDateTime getCreatedAt();
+
+        LocalDateTime getSubmittedAt();
+    }
 }
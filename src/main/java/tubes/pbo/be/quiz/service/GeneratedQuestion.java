@@ -0,0 +1,39 @@
+package tubes.pbo.be.quiz.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * A question as the AI returns it, before it is numbered and stored.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+record GeneratedQuestion(String id, String question, List<String> options, String correctAnswer, String explanation) {
+
+    static final int OPTION_COUNT = 4;
+
+    /**
+     * Four non-blank options, one of which is the correct answer, plus the question text and an explanation.
+     */
+    boolean isValid() {
+        if (isBlank(question) || isBlank(correctAnswer) || explanation == null
+                || options == null || options.size() != OPTION_COUNT) {
+            return false;
+        }
+        if (options.stream().anyMatch(GeneratedQuestion::isBlank)) {
+            return false;
+        }
+        return isAmongOptions(correctAnswer, options);
+    }
+
+    /**
+     * Answers are graded ignoring case and surrounding whitespace, so the correct answer is matched the same way.
+     */
+    static boolean isAmongOptions(String correctAnswer, List<String> options) {
+        return options.stream().anyMatch(option -> option != null && option.trim().equalsIgnoreCase(correctAnswer.trim()));
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
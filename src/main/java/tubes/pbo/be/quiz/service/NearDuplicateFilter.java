@@ -0,0 +1,65 @@
+package tubes.pbo.be.quiz.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Rejects question texts that are nearly the same as one already accepted. Texts are
+ * compared as sets of lower-cased words (Jaccard similarity), so rewordings that only
+ * change case, punctuation, word order or a word or two count as duplicates.
+ */
+class NearDuplicateFilter {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final double threshold;
+    private final List<Set<String>> accepted = new ArrayList<>();
+
+    /**
+     * @param threshold similarity from 0 to 1 at which a text counts as a duplicate
+     */
+    NearDuplicateFilter(double threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return true if the text is distinct from every text accepted so far, in which case it is accepted too
+     */
+    boolean accept(String text) {
+        Set<String> words = words(text);
+        for (Set<String> other : accepted) {
+            if (similarity(words, other) >= threshold) {
+                return false;
+            }
+        }
+        accepted.add(words);
+        return true;
+    }
+
+    static double similarity(Set<String> a, Set<String> b) {
+        if (a.isEmpty() && b.isEmpty()) {
+            return 1.0;
+        }
+        int common = 0;
+        for (String word : a) {
+            if (b.contains(word)) {
+                common++;
+            }
+        }
+        return (double) common / (a.size() + b.size() - common);
+    }
+
+    static Set<String> words(String text) {
+        Set<String> words = new HashSet<>();
+        for (String word : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+}
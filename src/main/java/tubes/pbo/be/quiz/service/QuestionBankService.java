@@ -0,0 +1,410 @@
+package tubes.pbo.be.quiz.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tubes.pbo.be.quiz.model.BankQuestion;
+import tubes.pbo.be.quiz.model.Question;
+import tubes.pbo.be.quiz.model.Quiz;
+import tubes.pbo.be.quiz.repository.QuestionBankRepository;
+import tubes.pbo.be.quiz.repository.QuestionRepository;
+import tubes.pbo.be.quiz.repository.QuizRepository;
+import tubes.pbo.be.shared.exception.AiCapacityExceededException;
+import tubes.pbo.be.shared.exception.AiServiceException;
+import tubes.pbo.be.summary.model.Summary;
+import tubes.pbo.be.summary.repository.SummaryRepository;
+import tubes.pbo.be.summary.service.SummaryCreatedEvent;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a bank of generated questions per summary and difficulty and assembles quizzes
+ * from it. A quiz takes bank questions the user has not seen in their recent quizzes on
+ * the summary, and the AI is only asked for the questions the bank cannot cover.
+ * <p>
+ * Banks are filled in the background when a summary is created, and again after a quiz
+ * leaves the user with fewer unseen questions than the low watermark; a scheduled sweep
+ * retries fills that failed or were rejected by a busy executor. An empty bank is first
+ * copied from another summary of the same upload, so re-uploading a known document does
+ * not generate its questions again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QuestionBankService {
+
+    private final QuestionBankRepository questionBankRepository;
+    private final QuestionRepository questionRepository;
+    private final QuizRepository quizRepository;
+    private final SummaryRepository summaryRepository;
+    private final QuestionGenerationService questionGenerationService;
+    private final ObjectMapper objectMapper;
+    @Qualifier("questionBankExecutor")
+    private final TaskExecutor questionBankExecutor;
+
+    // Banks handed to the executor on this node and not filled yet
+    private final Set<String> pendingFills = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.quiz.bank.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.quiz.bank.fill-size:15}")
+    private int fillSize;
+
+    @Value("${app.quiz.bank.low-watermark:5}")
+    private int lowWatermark;
+
+    @Value("${app.quiz.bank.recent-quizzes:3}")
+    private int recentQuizzes;
+
+    @Value("${app.quiz.bank.sweep-window-hours:24}")
+    private int sweepWindowHours;
+
+    @Value("${app.quiz.bank.sweep-batch-size:20}")
+    private int sweepBatchSize;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSummaryCreated(SummaryCreatedEvent event) {
+        for (Quiz.Difficulty difficulty : Quiz.Difficulty.values()) {
+            requestFill(event.summaryId(), difficulty, null);
+        }
+    }
+
+    /**
+     * Questions picked for a quiz that is not saved yet, numbered from q1. Questions the AI
+     * generated have no bank entry until {@link #attach} saves them with the quiz.
+     *
+     * @param lowOnUnseen whether the user is left below the low watermark once the quiz is saved
+     */
+    public record Assembly(List<Question> questions, boolean lowOnUnseen) {
+    }
+
+    /**
+     * Picks the questions of a new quiz. Call it before the quiz's transaction: a top-up may wait
+     * for the AI, and nothing is written here.
+     */
+    public Assembly assemble(Long userId, Summary summary, Quiz.Difficulty difficulty, int count) {
+        if (!enabled) {
+            return new Assembly(number(questionGenerationService.generateQuestions(
+                    userId, summary.getSummaryText(), difficulty.name(), count, null)), false);
+        }
+
+        Candidates candidates = candidates(userId, summary.getId(), difficulty, null);
+        List<Long> unseenIds = candidates.unseen();
+        List<Long> seenIds = candidates.seen();
+
+        int fromBank = Math.min(count, unseenIds.size());
+        List<Question> picked = new ArrayList<>(toQuestions(unseenIds.subList(0, fromBank)));
+
+        int missing = count - picked.size();
+        int generated = 0;
+        if (missing > 0) {
+            try {
+                List<Question> added = generate(userId, summary, difficulty, missing);
+                generated = added.size();
+                picked.addAll(added);
+            } catch (AiServiceException | AiCapacityExceededException e) {
+                // Better a repeated question than no quiz, as long as the bank can cover it
+                if (seenIds.size() < missing) {
+                    throw e;
+                }
+                log.warn("Question top-up failed, a quiz on summary {} reuses recently seen questions",
+                        summary.getId(), e);
+            }
+        }
+
+        // Whatever is still missing (top-up failed or returned too few) comes from seen questions
+        int stillMissing = count - picked.size();
+        if (stillMissing > 0 && !seenIds.isEmpty()) {
+            picked.addAll(toQuestions(seenIds.subList(0, Math.min(stillMissing, seenIds.size()))));
+        }
+
+        log.info("Assembled a quiz on summary {}: {} unseen bank questions, {} generated, {} repeated",
+                summary.getId(), fromBank, generated, picked.size() - fromBank - generated);
+        return new Assembly(number(picked), unseenIds.size() - fromBank < lowWatermark);
+    }
+
+    /**
+     * Links assembled questions to their saved quiz and keeps the generated ones in the bank.
+     * Call it inside the quiz's transaction; a refill the quiz made necessary starts after commit.
+     *
+     * @return the questions of the quiz, ready to be saved
+     */
+    public List<Question> attach(Quiz quiz, Assembly assembly) {
+        List<Question> generated = new ArrayList<>();
+        for (Question question : assembly.questions()) {
+            question.setQuizId(quiz.getId());
+            if (question.getBankQuestionId() == null) {
+                generated.add(question);
+            }
+        }
+
+        if (enabled && !generated.isEmpty()) {
+            List<BankQuestion> banked = questionBankRepository.saveAll(generated.stream()
+                    .map(question -> BankQuestion.of(quiz.getSummaryId(), quiz.getDifficulty(), question))
+                    .toList());
+            for (int i = 0; i < generated.size(); i++) {
+                generated.get(i).setBankQuestionId(banked.get(i).getId());
+            }
+        }
+
+        if (assembly.lowOnUnseen()) {
+            refillAfterCommit(quiz.getSummaryId(), quiz.getDifficulty(), quiz.getUserId());
+        }
+        return assembly.questions();
+    }
+
+    /**
+     * Takes up to {@code count} bank questions the user has not seen recently, for a quiz whose
+     * other questions the caller generates itself. Nothing is generated here.
+     *
+     * @return unnumbered questions of the quiz, empty when the bank is disabled
+     */
+    public List<Question> takeUnseen(Long userId, Summary summary, Quiz.Difficulty difficulty, int count, Long quizId) {
+        if (!enabled) {
+            return List.of();
+        }
+
+        List<Long> unseenIds = candidates(userId, summary.getId(), difficulty, quizId).unseen();
+        int fromBank = Math.min(count, unseenIds.size());
+        if (unseenIds.size() - fromBank < lowWatermark) {
+            refillAfterCommit(summary.getId(), difficulty, userId);
+        }
+        return questionBankRepository.findAllById(unseenIds.subList(0, fromBank)).stream()
+                .map(banked -> banked.toQuestion(quizId))
+                .toList();
+    }
+
+    /**
+     * Keeps a question generated outside the bank for later quizzes on the summary.
+     *
+     * @return the same question, linked to its new bank entry
+     */
+    public Question addToBank(Long summaryId, Quiz.Difficulty difficulty, Question question) {
+        if (!enabled) {
+            return question;
+        }
+
+        BankQuestion banked = questionBankRepository.save(BankQuestion.of(summaryId, difficulty, question));
+        question.setBankQuestionId(banked.getId());
+        return question;
+    }
+
+    /**
+     * Queues banks of recent summaries that hold fewer questions than the low watermark.
+     */
+    @Scheduled(fixedDelayString = "${app.quiz.bank.sweep-interval-ms:300000}")
+    public void sweepLowBanks() {
+        if (!enabled) {
+            return;
+        }
+
+        LocalDateTime since = LocalDateTime.now().minusHours(sweepWindowHours);
+        for (Quiz.Difficulty difficulty : Quiz.Difficulty.values()) {
+            List<Long> summaryIds = questionBankRepository.findSummaryIdsBelowWatermark(
+                    since, difficulty, lowWatermark, PageRequest.ofSize(sweepBatchSize));
+            for (Long summaryId : summaryIds) {
+                if (!requestFill(summaryId, difficulty, null)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param userId whose unseen questions count towards the low watermark, or null to count the whole bank
+     * @return false if the executor is saturated; the sweep picks the bank up later
+     */
+    boolean requestFill(Long summaryId, Quiz.Difficulty difficulty, Long userId) {
+        if (!enabled) {
+            return true;
+        }
+
+        String key = summaryId + ":" + difficulty;
+        if (!pendingFills.add(key)) {
+            return true;
+        }
+
+        try {
+            questionBankExecutor.execute(() -> {
+                try {
+                    fill(summaryId, difficulty, userId);
+                } finally {
+                    pendingFills.remove(key);
+                }
+            });
+            return true;
+        } catch (TaskRejectedException _) {
+            pendingFills.remove(key);
+            log.debug("Question bank executor is saturated, bank {} waits for the sweep", key);
+            return false;
+        }
+    }
+
+    void fill(Long summaryId, Quiz.Difficulty difficulty, Long userId) {
+        List<Long> bankIds = questionBankRepository.findIdsBySummaryIdAndDifficulty(summaryId, difficulty);
+        Set<Long> seen = userId == null ? Set.of() : recentlySeen(userId, summaryId, difficulty, null);
+        long available = bankIds.stream().filter(id -> !seen.contains(id)).count();
+        if (available >= lowWatermark) {
+            return;
+        }
+
+        // The summary may have been deleted since the fill was requested
+        Summary summary = summaryRepository.findById(summaryId).orElse(null);
+        if (summary == null) {
+            return;
+        }
+
+        if (bankIds.isEmpty()) {
+            available += copyFromSameContent(summary, difficulty);
+            if (available >= lowWatermark) {
+                return;
+            }
+        }
+
+        try {
+            List<BankQuestion> added = questionBankRepository.saveAll(
+                    generate(summary.getUserId(), summary, difficulty, (int) (fillSize - available)).stream()
+                            .map(question -> BankQuestion.of(summaryId, difficulty, question))
+                            .toList());
+            log.info("Added {} questions to the {} bank of summary {}", added.size(), difficulty, summaryId);
+        } catch (AiCapacityExceededException _) {
+            log.info("AI capacity exhausted, {} bank of summary {} waits for the sweep", difficulty, summaryId);
+        } catch (Exception e) {
+            log.warn("Failed to fill the {} bank of summary {}", difficulty, summaryId, e);
+        }
+    }
+
+    /**
+     * @return number of questions copied from the fullest bank of another summary with the same content hash
+     */
+    private int copyFromSameContent(Summary summary, Quiz.Difficulty difficulty) {
+        if (summary.getContentHash() == null) {
+            return 0;
+        }
+
+        List<Long> sourceIds = questionBankRepository.findSummaryIdsWithSameContent(
+                summary.getContentHash(), summary.getId(), difficulty, PageRequest.ofSize(1));
+        if (sourceIds.isEmpty()) {
+            return 0;
+        }
+
+        int copied = questionBankRepository.copyBank(sourceIds.getFirst(), summary.getId(), difficulty, LocalDateTime.now());
+        log.info("Copied {} {} questions from summary {} to summary {}",
+                copied, difficulty, sourceIds.getFirst(), summary.getId());
+        return copied;
+    }
+
+    /**
+     * Asks the AI for new questions and keeps the well-formed ones. Nothing is saved.
+     */
+    private List<Question> generate(Long userId, Summary summary, Quiz.Difficulty difficulty, int count) {
+        return questionGenerationService.generateQuestions(
+                        userId, summary.getSummaryText(), difficulty.name(), count, null)
+                .stream()
+                .filter(this::isValid)
+                .toList();
+    }
+
+    private List<Question> toQuestions(List<Long> bankIds) {
+        return questionBankRepository.findAllById(bankIds).stream()
+                .map(banked -> banked.toQuestion(null))
+                .toList();
+    }
+
+    /**
+     * Bank question IDs split into those the user has and has not seen recently, each in random order.
+     */
+    private Candidates candidates(Long userId, Long summaryId, Quiz.Difficulty difficulty, Long quizId) {
+        Set<Long> seen = recentlySeen(userId, summaryId, difficulty, quizId);
+        List<Long> unseenIds = new ArrayList<>();
+        List<Long> seenIds = new ArrayList<>();
+        for (Long id : questionBankRepository.findIdsBySummaryIdAndDifficulty(summaryId, difficulty)) {
+            if (seen.contains(id)) {
+                seenIds.add(id);
+            } else {
+                unseenIds.add(id);
+            }
+        }
+        Collections.shuffle(unseenIds);
+        Collections.shuffle(seenIds);
+        return new Candidates(unseenIds, seenIds);
+    }
+
+    /**
+     * Bank questions of the user's latest quizzes on the summary and difficulty,
+     * not counting the quiz being assembled.
+     */
+    private Set<Long> recentlySeen(Long userId, Long summaryId, Quiz.Difficulty difficulty, Long currentQuizId) {
+        List<Long> quizIds = quizRepository.findRecentIds(userId, summaryId, difficulty,
+                        PageRequest.ofSize(recentQuizzes + 1))
+                .stream()
+                .filter(id -> !id.equals(currentQuizId))
+                .limit(recentQuizzes)
+                .toList();
+
+        if (quizIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(questionRepository.findBankQuestionIdsByQuizIdIn(quizIds));
+    }
+
+    /**
+     * Bank questions are served again without another look, so only well-formed ones are kept.
+     */
+    private boolean isValid(Question question) {
+        if (question.getQuestionText() == null || question.getQuestionText().isBlank()
+                || question.getCorrectAnswer() == null) {
+            return false;
+        }
+
+        try {
+            List<String> options = objectMapper.readValue(question.getOptions(), new TypeReference<List<String>>() {});
+            return options.size() == GeneratedQuestion.OPTION_COUNT
+                    && GeneratedQuestion.isAmongOptions(question.getCorrectAnswer(), options);
+        } catch (Exception _) {
+            return false;
+        }
+    }
+
+    private static List<Question> number(List<Question> questions) {
+        for (int i = 0; i < questions.size(); i++) {
+            questions.get(i).setQuestionId("q" + (i + 1));
+        }
+        return questions;
+    }
+
+    private void refillAfterCommit(Long summaryId, Quiz.Difficulty difficulty, Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            requestFill(summaryId, difficulty, userId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                requestFill(summaryId, difficulty, userId);
+            }
+        });
+    }
+
+    private record Candidates(List<Long> unseen, List<Long> seen) {
+    }
+}
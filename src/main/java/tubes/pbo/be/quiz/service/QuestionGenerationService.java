@@ -1,47 +1,266 @@
 package tubes.pbo.be.quiz.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import tubes.pbo.be.quiz.model.Question;
+import tubes.pbo.be.shared.ai.AiGateway;
+import tubes.pbo.be.shared.exception.AiCapacityExceededException;
 import tubes.pbo.be.shared.exception.AiServiceException;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class QuestionGenerationService {
+
+    // Each part of a fanned-out quiz asks about a different side of the document
+    private static final List<String> FOCUS_HINTS = List.of(
+            "key concepts, definitions and terminology",
+            "processes, causes and relationships between ideas",
+            "applications, examples and consequences",
+            "comparisons, distinctions and common misconceptions",
+            "specific details, facts and figures");
     
-    private final ChatClient.Builder chatClientBuilder;
+    private final AiGateway aiGateway;
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    @Qualifier("quizFanOutExecutor")
+    private final Executor quizFanOutExecutor;
     
     @Value("${spring.ai.google.genai.chat.options.model}")
     private String aiModel;
+
+    @Value("${app.quiz.fan-out.enabled:true}")
+    private boolean fanOutEnabled;
+
+    @Value("${app.quiz.fan-out.batch-size:5}")
+    private int fanOutBatchSize;
+
+    @Value("${app.quiz.similarity-threshold:0.8}")
+    private double similarityThreshold;
     
-    public List<Question> generateQuestions(String summaryText, String difficulty, int count, Long quizId) {
+    public List<Question> generateQuestions(Long userId, String summaryText, String difficulty, int count, Long quizId) {
         try {
-            String prompt = buildPrompt(summaryText, difficulty, count);
-            String response = callAiService(prompt);
-            String cleanedResponse = cleanAndExtractJson(response);
-            List<Map<String, Object>> questionMaps = parseJsonResponse(cleanedResponse, count);
-            return convertToQuestions(questionMaps, quizId);
+            List<GeneratedQuestion> questions = new ArrayList<>();
+            NearDuplicateFilter distinct = new NearDuplicateFilter(similarityThreshold);
+            int skipped = 0;
+            for (Batch batch : requestBatches(userId, summaryText, difficulty, count)) {
+                skipped += batch.skipped() + addDistinct(batch.questions(), count, questions, distinct);
+            }
+
+            int missing = count - questions.size();
+            if (missing > 0) {
+                log.warn("AI returned {} usable questions out of {} ({} skipped), requesting {} more",
+                        questions.size(), count, skipped, missing);
+                skipped += topUp(userId, summaryText, difficulty, count, questions, distinct);
+            }
+
+            recordSkipped(skipped);
+            if (questions.isEmpty()) {
+                throw new AiServiceException("AI returned empty question list");
+            }
+            if (questions.size() < count) {
+                log.warn("AI generated {} questions, expected {}. Using what was generated.", questions.size(), count);
+            }
+            return convertToQuestions(questions, quizId);
+        } catch (AiCapacityExceededException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to generate questions with AI", e);
             throw new AiServiceException("Failed to generate quiz questions. Please try again later.", e);
         }
     }
-    
-    private String buildPrompt(String summaryText, String difficulty, int count) {
+
+    /**
+     * Streams questions as the model writes them, each one as soon as its JSON object closes and
+     * validates. If the reply holds fewer usable questions than requested, one top-up stream asks
+     * for the rest; it is best effort once at least one question came through.
+     *
+     * @param existingQuestions texts of questions the quiz already has, which are not repeated
+     */
+    Flux<GeneratedQuestion> streamQuestions(Long userId, String summaryText, String difficulty, int count,
+                                            List<String> existingQuestions) {
+        return Flux.defer(() -> {
+            NearDuplicateFilter distinct = new NearDuplicateFilter(similarityThreshold);
+            existingQuestions.forEach(distinct::accept);
+            List<String> kept = new ArrayList<>(existingQuestions);
+            AtomicInteger skipped = new AtomicInteger();
+
+            Flux<GeneratedQuestion> topUp = Flux.defer(() -> {
+                int streamed = kept.size() - existingQuestions.size();
+                int missing = count - streamed;
+                if (missing <= 0) {
+                    return Flux.empty();
+                }
+                log.warn("AI streamed {} usable questions out of {}, requesting {} more", streamed, count, missing);
+                Counter.builder("quiz.generation.top-ups")
+                        .description("Follow-up AI requests for questions missing from a reply")
+                        .register(meterRegistry)
+                        .increment();
+                return streamReply(userId, buildPrompt(summaryText, difficulty, missing, null, List.copyOf(kept)),
+                        distinct, skipped)
+                        .onErrorResume(_ -> streamed > 0, e -> {
+                            log.warn("Question top-up failed, keeping {} questions", streamed, e);
+                            return Flux.empty();
+                        });
+            });
+
+            return streamReply(userId, buildPrompt(summaryText, difficulty, count, null, existingQuestions),
+                    distinct, skipped)
+                    .concatWith(topUp)
+                    .take(count)
+                    .doOnNext(question -> kept.add(question.question()))
+                    .doOnComplete(() -> recordSkipped(skipped.get()))
+                    .onErrorMap(e -> !(e instanceof AiServiceException || e instanceof AiCapacityExceededException),
+                            e -> new AiServiceException("Failed to generate quiz questions. Please try again later.", e));
+        });
+    }
+
+    private Flux<GeneratedQuestion> streamReply(Long userId, String prompt, NearDuplicateFilter distinct,
+                                                AtomicInteger skipped) {
+        return Flux.defer(() -> {
+            QuestionStreamParser parser = new QuestionStreamParser(objectMapper);
+            return aiGateway.stream(userId, prompt)
+                    .concatMapIterable(parser::feed)
+                    .filter(question -> {
+                        if (distinct.accept(question.question())) {
+                            return true;
+                        }
+                        skipped.incrementAndGet();
+                        return false;
+                    })
+                    .doOnComplete(() -> {
+                        parser.finish();
+                        skipped.addAndGet(parser.skipped());
+                    });
+        });
+    }
+
+    /**
+     * Small quizzes are generated in one request. Larger ones are split into parts of at most
+     * {@code fanOutBatchSize} questions, each with its own focus, and the parts run in parallel:
+     * reply length drives latency, so a large quiz takes about as long as a small one. A part
+     * that fails only loses its own questions.
+     *
+     * @return the parsed parts in request order, so question order does not depend on which part finishes first
+     */
+    private List<Batch> requestBatches(Long userId, String summaryText, String difficulty, int count) {
+        if (!fanOutEnabled || count <= fanOutBatchSize) {
+            return List.of(requestQuestions(userId, buildPrompt(summaryText, difficulty, count, null, List.of())));
+        }
+
+        int parts = Math.ceilDiv(count, fanOutBatchSize);
+        List<CompletableFuture<Batch>> futures = new ArrayList<>(parts);
+        for (int part = 0; part < parts; part++) {
+            // Spread the count evenly: 12 questions in parts of 5 become 4 + 4 + 4
+            int size = count / parts + (part < count % parts ? 1 : 0);
+            String prompt = buildPrompt(summaryText, difficulty, size, FOCUS_HINTS.get(part % FOCUS_HINTS.size()), List.of());
+            futures.add(CompletableFuture.supplyAsync(() -> requestQuestions(userId, prompt), quizFanOutExecutor));
+        }
+        log.info("Generating {} questions in {} parallel parts", count, parts);
+
+        List<Batch> batches = new ArrayList<>(parts);
+        RuntimeException failure = null;
+        for (CompletableFuture<Batch> future : futures) {
+            try {
+                batches.add(future.join());
+            } catch (CompletionException e) {
+                RuntimeException cause = e.getCause() instanceof RuntimeException runtime ? runtime : e;
+                log.warn("A part of the quiz failed to generate, continuing with the others", cause);
+                if (failure == null) {
+                    failure = cause;
+                }
+            }
+        }
+
+        if (batches.isEmpty()) {
+            throw failure;
+        }
+        return batches;
+    }
+
+    /**
+     * Asks only for the questions still missing. The top-up is best effort: if it fails,
+     * the quiz goes ahead with the questions already parsed.
+     *
+     * @return number of top-up questions skipped
+     */
+    private int topUp(Long userId, String summaryText, String difficulty, int count,
+                      List<GeneratedQuestion> questions, NearDuplicateFilter distinct) {
+        Counter.builder("quiz.generation.top-ups")
+                .description("Follow-up AI requests for questions missing from a reply")
+                .register(meterRegistry)
+                .increment();
+
+        List<String> existing = questions.stream().map(GeneratedQuestion::question).toList();
+        try {
+            int missing = count - questions.size();
+            Batch batch = requestQuestions(userId, buildPrompt(summaryText, difficulty, missing, null, existing));
+            return batch.skipped() + addDistinct(batch.questions(), count, questions, distinct);
+        } catch (RuntimeException e) {
+            if (questions.isEmpty()) {
+                throw e;
+            }
+            log.warn("Question top-up failed, keeping {} questions", questions.size(), e);
+            return 0;
+        }
+    }
+
+    private Batch requestQuestions(Long userId, String prompt) {
+        String response = callAiService(userId, prompt);
+        QuestionStreamParser parser = new QuestionStreamParser(objectMapper);
+        List<GeneratedQuestion> questions = parser.feed(response);
+        parser.finish();
+        return new Batch(questions, parser.skipped());
+    }
+
+    /**
+     * Adds candidates that are not near-duplicates of questions already kept, until there are {@code count}.
+     *
+     * @return number of duplicates dropped
+     */
+    private static int addDistinct(List<GeneratedQuestion> candidates, int count,
+                                   List<GeneratedQuestion> questions, NearDuplicateFilter distinct) {
+        int duplicates = 0;
+        for (GeneratedQuestion candidate : candidates) {
+            if (questions.size() == count) {
+                break;
+            }
+            if (distinct.accept(candidate.question())) {
+                questions.add(candidate);
+            } else {
+                duplicates++;
+            }
+        }
+        return duplicates;
+    }
+
+    private String buildPrompt(String summaryText, String difficulty, int count, String focus,
+                               List<String> existingQuestions) {
+        String focusLine = focus == null ? "" : "Focus on: " + focus + "\n";
+        String avoid = existingQuestions.isEmpty() ? "" : existingQuestions.stream()
+                .map(question -> "- " + question)
+                .collect(Collectors.joining("\n", "Do not repeat any of these questions:\n", "\n\n"));
+
         return """
                 Generate exactly %d multiple-choice questions based on the following document summary.
                 Difficulty level: %s
-                
+                %s
                 Requirements:
                 - Each question must have exactly 4 options
                 - Only ONE option should be correct
@@ -69,123 +288,67 @@ public class QuestionGenerationService {
                 - No trailing commas
                 - Valid JSON syntax
                 
-                Document summary:
+                %sDocument summary:
                 %s
-                """.formatted(count, difficulty.toUpperCase(), summaryText);
+                """.formatted(count, difficulty.toUpperCase(), focusLine, avoid, summaryText);
     }
     
-    private String callAiService(String prompt) {
-        ChatClient chatClient = chatClientBuilder.build();
-        String response = chatClient.prompt()
-                .user(prompt)
-                .call()
-                .content();
+    private String callAiService(Long userId, String prompt) {
+        String response = aiGateway.call(userId, prompt);
         
         log.info("Received AI response for quiz generation");
         log.debug("Raw AI response: {}", response);
         return response;
     }
     
-    private String cleanAndExtractJson(String response) {
-        String cleaned = response.trim();
-        
-        // Remove markdown code blocks
-        cleaned = removeMarkdownBlocks(cleaned);
-        
-        // Extract JSON array
-        int arrayStart = cleaned.indexOf('[');
-        int arrayEnd = cleaned.lastIndexOf(']');
-        
-        if (arrayStart == -1 || arrayEnd == -1 || arrayStart > arrayEnd) {
-            log.error("Invalid AI response - no valid JSON array found: {}", cleaned);
-            throw new AiServiceException("AI returned invalid response format");
-        }
-        
-        cleaned = cleaned.substring(arrayStart, arrayEnd + 1);
-        log.debug("Cleaned AI response: {}", cleaned);
-        return cleaned;
-    }
-    
-    private String removeMarkdownBlocks(String text) {
-        String result = text;
-        if (result.startsWith("```json")) {
-            result = result.substring(7);
-        } else if (result.startsWith("```")) {
-            result = result.substring(3);
-        }
-        if (result.endsWith("```")) {
-            result = result.substring(0, result.length() - 3);
-        }
-        return result.trim();
-    }
-    
-    private List<Map<String, Object>> parseJsonResponse(String jsonResponse, int expectedCount) {
-        try {
-            List<Map<String, Object>> questionMaps = objectMapper.readValue(
-                    jsonResponse,
-                    new TypeReference<List<Map<String, Object>>>() {}
-            );
-            
-            if (questionMaps.size() != expectedCount) {
-                log.warn("AI generated {} questions, expected {}. Using what was generated.",
-                        questionMaps.size(), expectedCount);
-            }
-            
-            if (questionMaps.isEmpty()) {
-                throw new AiServiceException("AI returned empty question list");
-            }
-            
-            return questionMaps;
-        } catch (Exception e) {
-            throw new AiServiceException("Failed to parse AI response as JSON", e);
+    // Question IDs are renumbered in merge order, since every part and top-up starts its own numbering from q1
+    private List<Question> convertToQuestions(List<GeneratedQuestion> generated, Long quizId) {
+        List<Question> questions = new ArrayList<>(generated.size());
+        for (int i = 0; i < generated.size(); i++) {
+            questions.add(convertToQuestion(generated.get(i), "q" + (i + 1), quizId));
         }
+        return questions;
     }
     
-    private List<Question> convertToQuestions(List<Map<String, Object>> questionMaps, Long quizId) {
-        return questionMaps.stream()
-                .map(qMap -> convertToQuestion(qMap, quizId))
-                .toList();
+    private Question convertToQuestion(GeneratedQuestion generated, String questionId, Long quizId) {
+        Question question = toQuestion(generated, quizId);
+        question.setQuestionId(questionId);
+        return question;
     }
     
-    private Question convertToQuestion(Map<String, Object> qMap, Long quizId) {
-        validateQuestionMap(qMap);
-        
+    /**
+     * @return the question without a question ID, which the caller assigns
+     */
+    Question toQuestion(GeneratedQuestion generated, Long quizId) {
         Question question = new Question();
         question.setQuizId(quizId);
-        question.setQuestionId((String) qMap.get("id"));
-        question.setQuestionText((String) qMap.get("question"));
-        question.setOptions(serializeOptions(qMap.get("options")));
-        question.setCorrectAnswer((String) qMap.get("correctAnswer"));
-        question.setExplanation((String) qMap.get("explanation"));
+        question.setQuestionText(generated.question());
+        question.setOptions(serializeOptions(generated.options()));
+        question.setCorrectAnswer(generated.correctAnswer());
+        question.setExplanation(generated.explanation());
         
         return question;
     }
     
-    private void validateQuestionMap(Map<String, Object> qMap) {
-        if (!qMap.containsKey("id") || !qMap.containsKey("question") ||
-            !qMap.containsKey("options") || !qMap.containsKey("correctAnswer") ||
-            !qMap.containsKey("explanation")) {
-            log.error("Invalid question structure: {}", qMap);
-            throw new AiServiceException("AI returned question with missing required fields");
-        }
-    }
-    
-    private String serializeOptions(Object optionsObj) {
+    private String serializeOptions(List<String> options) {
         try {
-            @SuppressWarnings("unchecked")
-            List<String> options = (List<String>) optionsObj;
-            
-            if (options == null || options.size() != 4) {
-                throw new AiServiceException("Question must have exactly 4 options");
-            }
-            
             return objectMapper.writeValueAsString(options);
-        } catch (ClassCastException e) {
-            throw new AiServiceException("Options must be a list of strings", e);
-        } catch (Exception e) {
+        } catch (JsonProcessingException e) {
             throw new AiServiceException("Failed to serialize options", e);
         }
     }
+
+    private void recordSkipped(int skipped) {
+        if (skipped > 0) {
+            Counter.builder("quiz.generation.skipped")
+                    .description("Questions from the AI dropped as invalid, cut off or duplicated")
+                    .register(meterRegistry)
+                    .increment(skipped);
+        }
+    }
+
+    private record Batch(List<GeneratedQuestion> questions, int skipped) {
+    }
     
     public String getAiProvider() {
         return "gemini";
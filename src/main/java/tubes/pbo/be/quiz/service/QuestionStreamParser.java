@@ -0,0 +1,157 @@
+package tubes.pbo.be.quiz.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the JSON array of questions returned by the AI. Text can be fed in chunks as it
+ * arrives, and each question is returned as soon as its object closes.
+ * <p>
+ * Anything before the opening bracket (a preamble or a markdown fence) and after the closing
+ * one is ignored. Elements that are not valid questions are skipped and counted, and if the
+ * JSON itself breaks off, the questions read up to that point are kept.
+ * <p>
+ * Not thread-safe; use one parser per AI reply.
+ */
+@Slf4j
+class QuestionStreamParser {
+
+    private final ObjectMapper objectMapper;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    private boolean started;
+    private boolean inArray;
+    private boolean done;
+    private int depth;
+    private TokenBuffer element;
+    private int skipped;
+
+    QuestionStreamParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        try {
+            this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * @return the questions completed by this chunk, in order
+     */
+    List<GeneratedQuestion> feed(String chunk) {
+        if (done || chunk == null || chunk.isEmpty()) {
+            return List.of();
+        }
+
+        String text = chunk;
+        if (!started) {
+            int start = text.indexOf('[');
+            if (start < 0) {
+                return List.of();
+            }
+            started = true;
+            text = text.substring(start);
+        }
+
+        List<GeneratedQuestion> questions = new ArrayList<>();
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            readAvailable(questions);
+        } catch (IOException e) {
+            log.warn("AI returned malformed quiz JSON, keeping the questions read so far: {}", e.getMessage());
+            stop();
+        }
+        return questions;
+    }
+
+    /**
+     * Ends the reply. A question still open at this point was cut off and counts as skipped.
+     */
+    void finish() {
+        stop();
+    }
+
+    /**
+     * @return number of array elements dropped as invalid or cut off
+     */
+    int skipped() {
+        return skipped;
+    }
+
+    private void readAvailable(List<GeneratedQuestion> questions) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.NOT_AVAILABLE) {
+            if (token == null) {
+                stop();
+                return;
+            }
+            if (!inArray) {
+                // The first token is the bracket the input was cut to
+                inArray = true;
+                continue;
+            }
+            if (depth == 0 && token == JsonToken.END_ARRAY) {
+                stop();
+                return;
+            }
+
+            if (depth == 0) {
+                element = new TokenBuffer(parser);
+            }
+            element.copyCurrentEvent(parser);
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+
+            if (depth == 0) {
+                accept(element, questions);
+                element = null;
+            }
+        }
+    }
+
+    private void accept(TokenBuffer buffer, List<GeneratedQuestion> questions) {
+        try (JsonParser elementParser = buffer.asParser(objectMapper)) {
+            GeneratedQuestion question = objectMapper.readValue(elementParser, GeneratedQuestion.class);
+            if (question != null && question.isValid()) {
+                questions.add(question);
+                return;
+            }
+            log.debug("Skipping invalid question from AI: {}", question);
+        } catch (IOException e) {
+            log.debug("Skipping unreadable question from AI: {}", e.getMessage());
+        }
+        skipped++;
+    }
+
+    private void stop() {
+        if (done) {
+            return;
+        }
+        done = true;
+        if (element != null) {
+            skipped++;
+            element = null;
+        }
+        try {
+            parser.close();
+        } catch (IOException _) {
+            // Nothing is left to read
+        }
+    }
+}
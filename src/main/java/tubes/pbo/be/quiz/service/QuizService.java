@@ -5,14 +5,19 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import tubes.pbo.be.quiz.dto.*;
 import tubes.pbo.be.quiz.model.Question;
 import tubes.pbo.be.quiz.model.Quiz;
 import tubes.pbo.be.quiz.repository.QuestionRepository;
 import tubes.pbo.be.quiz.repository.QuizRepository;
+import tubes.pbo.be.quiz.repository.QuizRepository.QuizListView;
+import tubes.pbo.be.shared.dto.CursorPageResponse;
+import tubes.pbo.be.shared.dto.PageCursor;
 import tubes.pbo.be.shared.exception.AiServiceException;
 import tubes.pbo.be.shared.exception.ForbiddenException;
 import tubes.pbo.be.shared.exception.ResourceNotFoundException;
@@ -33,11 +38,37 @@ public class QuizService {
     private final QuizRepository quizRepository;
     private final QuestionRepository questionRepository;
     private final SummaryRepository summaryRepository;
-    private final QuestionGenerationService questionGenerationService;
+    private final QuestionBankService questionBankService;
     private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
     
-    @Transactional
     public QuizResponse generateQuiz(Long userId, QuizRequest request) {
+        Summary summary = validateRequest(userId, request);
+        
+        // Assemble questions from the summary's question bank; the AI only covers what it lacks.
+        // That may wait for the AI, so it runs before the transaction takes a connection.
+        QuestionBankService.Assembly assembly = questionBankService.assemble(
+                userId, summary, parseDifficulty(request.getDifficulty()), request.getNumberOfQuestions());
+        
+        return transactionTemplate.execute(_ -> {
+            Quiz savedQuiz = createQuiz(userId, summary, request);
+            
+            // Save questions, with the generated ones added to the bank
+            List<Question> questions = questionBankService.attach(savedQuiz, assembly);
+            questionRepository.saveAll(questions);
+            
+            log.info("Generated quiz {} with {} questions for user {}", savedQuiz.getId(), questions.size(), userId);
+            
+            return toResponse(savedQuiz, questions);
+        });
+    }
+    
+    /**
+     * Checks the question count and difficulty of a quiz request and that the user owns its summary.
+     *
+     * @return the summary to generate the quiz from
+     */
+    public Summary validateRequest(Long userId, QuizRequest request) {
         // Validate numberOfQuestions
         if (request.getNumberOfQuestions() != 5 && 
             request.getNumberOfQuestions() != 10 && 
@@ -49,67 +80,64 @@ public class QuizService {
         Summary summary = summaryRepository.findByIdAndUserId(request.getSummaryId(), userId)
                 .orElseThrow(() -> new ForbiddenException("You do not have access to this summary"));
         
-        // Parse difficulty (case-insensitive)
-        Quiz.Difficulty difficulty;
-        try {
-            difficulty = Quiz.Difficulty.valueOf(request.getDifficulty().toUpperCase());
-        } catch (IllegalArgumentException _) {
-            throw new ValidationException("Invalid difficulty. Must be easy, medium, or hard");
-        }
-        
-        // Create quiz entity
+        parseDifficulty(request.getDifficulty());
+        return summary;
+    }
+    
+    /**
+     * Saves a new, empty quiz for a request that passed {@link #validateRequest}.
+     */
+    public Quiz createQuiz(Long userId, Summary summary, QuizRequest request) {
         Quiz quiz = new Quiz();
         quiz.setUserId(userId);
         quiz.setSummaryId(summary.getId());
-        quiz.setDifficulty(difficulty);
+        quiz.setDifficulty(parseDifficulty(request.getDifficulty()));
         quiz.setNumberOfQuestions(request.getNumberOfQuestions());
         quiz.setIsSubmitted(false);
         quiz.setCreatedAt(LocalDateTime.now());
         
-        Quiz savedQuiz = quizRepository.save(quiz);
-        
-        // Generate questions using AI
-        List<Question> questions = questionGenerationService.generateQuestions(
-                summary.getSummaryText(),
-                difficulty.name(),
-                request.getNumberOfQuestions(),
-                savedQuiz.getId()
-        );
-        
-        // Save questions
-        questionRepository.saveAll(questions);
-        
-        // Build response WITHOUT correct answers and explanations
+        return quizRepository.save(quiz);
+    }
+    
+    /**
+     * Builds the response for a new quiz, WITHOUT correct answers and explanations.
+     */
+    public QuizResponse toResponse(Quiz quiz, List<Question> questions) {
         QuizResponse response = new QuizResponse();
-        response.setId(savedQuiz.getId());
-        response.setSummaryId(savedQuiz.getSummaryId());
-        response.setDifficulty(savedQuiz.getDifficulty().name().toLowerCase());
-        response.setNumberOfQuestions(savedQuiz.getNumberOfQuestions());
+        response.setId(quiz.getId());
+        response.setSummaryId(quiz.getSummaryId());
+        response.setDifficulty(quiz.getDifficulty().name().toLowerCase());
+        response.setNumberOfQuestions(quiz.getNumberOfQuestions());
         response.setIsSubmitted(false);
-        response.setCreatedAt(savedQuiz.getCreatedAt());
-        
-        // Map questions (hide correct answers and explanations)
-        List<QuestionResponse> questionResponses = questions.stream()
-                .map(q -> {
-                    try {
-                        List<String> options = objectMapper.readValue(
-                                q.getOptions(), 
-                                new TypeReference<List<String>>() {}
-                        );
-                        return new QuestionResponse(q.getQuestionId(), q.getQuestionText(), options);
-                    } catch (Exception e) {
-                        throw new AiServiceException("Failed to parse question options", e);
-                    }
-                })
-                .toList();
-        
-        response.setQuestions(questionResponses);
-        
-        log.info("Generated quiz {} with {} questions for user {}", savedQuiz.getId(), questions.size(), userId);
-        
+        response.setCreatedAt(quiz.getCreatedAt());
+        response.setQuestions(questions.stream().map(this::toQuestionResponse).toList());
         return response;
     }
     
+    /**
+     * Maps a question for the quiz taker, hiding its correct answer and explanation.
+     */
+    public QuestionResponse toQuestionResponse(Question question) {
+        try {
+            List<String> options = objectMapper.readValue(
+                    question.getOptions(), 
+                    new TypeReference<List<String>>() {}
+            );
+            return new QuestionResponse(question.getQuestionId(), question.getQuestionText(), options);
+        } catch (Exception e) {
+            throw new AiServiceException("Failed to parse question options", e);
+        }
+    }
+    
+    // Case-insensitive
+    private static Quiz.Difficulty parseDifficulty(String difficulty) {
+        try {
+            return Quiz.Difficulty.valueOf(difficulty.toUpperCase());
+        } catch (IllegalArgumentException _) {
+            throw new ValidationException("Invalid difficulty. Must be easy, medium, or hard");
+        }
+    }
+    
     @Transactional
     public QuizSubmissionResponse submitQuiz(Long userId, Long quizId, QuizSubmission submission) {
         // Find quiz with questions
@@ -176,41 +204,63 @@ public class QuizService {
     }
     
     public Page<QuizListItem> listQuizzes(Long userId, Long summaryId, Pageable pageable) {
-        Page<Quiz> quizzes;
+        Page<QuizListView> quizzes;
         
         if (summaryId != null) {
-            // Verify user owns the summary
-            if (!summaryRepository.existsByIdAndUserId(summaryId, userId)) {
-                throw new ForbiddenException("You do not have access to this summary");
-            }
-            quizzes = quizRepository.findByUserIdAndSummaryId(userId, summaryId, pageable);
+            verifySummaryAccess(userId, summaryId);
+            quizzes = quizRepository.findListByUserIdAndSummaryId(userId, summaryId, pageable);
         } else {
-            quizzes = quizRepository.findByUserId(userId, pageable);
+            quizzes = quizRepository.findListByUserId(userId, pageable);
         }
         
-        return quizzes.map(quiz -> {
-            QuizListItem item = new QuizListItem();
-            item.setId(quiz.getId());
-            item.setSummaryId(quiz.getSummaryId());
-            
-            // Get original filename from summary
-            Summary summary = quiz.getSummary();
-            if (summary != null) {
-                item.setOriginalFilename(summary.getOriginalFilename());
-            }
-            
-            item.setDifficulty(quiz.getDifficulty().name().toLowerCase());
-            item.setNumberOfQuestions(quiz.getNumberOfQuestions());
-            item.setIsSubmitted(quiz.getIsSubmitted());
-            item.setCreatedAt(quiz.getCreatedAt());
-            
-            if (quiz.getIsSubmitted()) {
-                item.setCorrectAnswers(quiz.getCorrectAnswers());
-                item.setSubmittedAt(quiz.getSubmittedAt());
-            }
-            
-            return item;
-        });
+        return quizzes.map(this::toListItem);
+    }
+    
+    /**
+     * Keyset-paginated variant of {@link #listQuizzes(Long, Long, Pageable)}, newest first,
+     * without a count query.
+     */
+    public CursorPageResponse<QuizListItem> listQuizzes(Long userId, Long summaryId, String cursor, int size) {
+        PageCursor after = PageCursor.decode(cursor);
+        int pageSize = PageCursor.pageSize(size);
+        Pageable limit = PageRequest.ofSize(pageSize + 1);
+        List<QuizListView> quizzes;
+        
+        if (summaryId != null) {
+            verifySummaryAccess(userId, summaryId);
+            quizzes = quizRepository.findListByUserIdAndSummaryIdAfter(
+                    userId, summaryId, after.createdAt(), after.id(), limit);
+        } else {
+            quizzes = quizRepository.findListByUserIdAfter(userId, after.createdAt(), after.id(), limit);
+        }
+        
+        return CursorPageResponse.of(quizzes, pageSize,
+                quiz -> new PageCursor(quiz.getCreatedAt(), quiz.getId()), this::toListItem);
+    }
+    
+    private void verifySummaryAccess(Long userId, Long summaryId) {
+        // Verify user owns the summary
+        if (!summaryRepository.existsByIdAndUserId(summaryId, userId)) {
+            throw new ForbiddenException("You do not have access to this summary");
+        }
+    }
+    
+    private QuizListItem toListItem(QuizListView quiz) {
+        QuizListItem item = new QuizListItem();
+        item.setId(quiz.getId());
+        item.setSummaryId(quiz.getSummaryId());
+        item.setOriginalFilename(quiz.getOriginalFilename());
+        item.setDifficulty(quiz.getDifficulty().name().toLowerCase());
+        item.setNumberOfQuestions(quiz.getNumberOfQuestions());
+        item.setIsSubmitted(quiz.getIsSubmitted());
+        item.setCreatedAt(quiz.getCreatedAt());
+        
+        if (Boolean.TRUE.equals(quiz.getIsSubmitted())) {
+            item.setCorrectAnswers(quiz.getCorrectAnswers());
+            item.setSubmittedAt(quiz.getSubmittedAt());
+        }
+        
+        return item;
     }
     
     public QuizResponse getQuizDetail(Long userId, Long quizId) {
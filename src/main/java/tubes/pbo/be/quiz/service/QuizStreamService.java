@@ -0,0 +1,220 @@
+package tubes.pbo.be.quiz.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import tubes.pbo.be.quiz.dto.QuizRequest;
+import tubes.pbo.be.quiz.model.Question;
+import tubes.pbo.be.quiz.model.Quiz;
+import tubes.pbo.be.quiz.repository.QuestionRepository;
+import tubes.pbo.be.quiz.repository.QuizRepository;
+import tubes.pbo.be.shared.dto.ErrorResponse;
+import tubes.pbo.be.shared.exception.AiCapacityExceededException;
+import tubes.pbo.be.shared.exception.AiUnavailableException;
+import tubes.pbo.be.summary.model.Summary;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Generates a quiz while streaming its questions to the client over Server-Sent Events.
+ * <p>
+ * Events: {@code question} carries the next question without its answer, {@code done} carries
+ * the finished quiz, {@code error} carries an {@link ErrorResponse}. Unseen questions from the
+ * summary's question bank are sent first; the rest are parsed from the model's output as it is
+ * written, and each one is saved as soon as it is complete. If generation fails or the client
+ * goes away first, the quiz is deleted.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QuizStreamService {
+
+    private final QuizService quizService;
+    private final QuizRepository quizRepository;
+    private final QuestionRepository questionRepository;
+    private final QuestionBankService questionBankService;
+    private final QuestionGenerationService questionGenerationService;
+
+    @Value("${app.quiz.stream.timeout-ms:180000}")
+    private long timeoutMs;
+
+    /**
+     * Validates the request and creates the quiz on the calling thread, so those errors are
+     * still returned as regular error responses, then starts streaming.
+     */
+    public SseEmitter streamQuiz(Long userId, QuizRequest request) {
+        Summary summary = quizService.validateRequest(userId, request);
+        Quiz quiz = quizService.createQuiz(userId, summary, request);
+
+        Flux<Question> questions;
+        try {
+            List<Question> fromBank = questionBankService.takeUnseen(
+                    userId, summary, quiz.getDifficulty(), quiz.getNumberOfQuestions(), quiz.getId());
+            int missing = quiz.getNumberOfQuestions() - fromBank.size();
+
+            Flux<Question> generated = missing == 0 ? Flux.empty() : questionGenerationService
+                    .streamQuestions(userId, summary.getSummaryText(), quiz.getDifficulty().name(), missing,
+                            fromBank.stream().map(Question::getQuestionText).toList())
+                    .map(question -> questionBankService.addToBank(summary.getId(), quiz.getDifficulty(),
+                            questionGenerationService.toQuestion(question, quiz.getId())));
+            questions = Flux.fromIterable(fromBank).concatWith(generated);
+        } catch (RuntimeException e) {
+            quizRepository.deleteById(quiz.getId());
+            throw e;
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        new QuizStream(quiz, emitter).start(questions);
+        return emitter;
+    }
+
+    /**
+     * One streaming request. Whichever of completion, failure or disconnect happens first wins;
+     * the others become no-ops.
+     */
+    class QuizStream {
+
+        private final Quiz quiz;
+        private final SseEmitter emitter;
+        private final List<Question> saved = new ArrayList<>();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile Disposable subscription;
+
+        QuizStream(Quiz quiz, SseEmitter emitter) {
+            this.quiz = quiz;
+            this.emitter = emitter;
+        }
+
+        void start(Flux<Question> questions) {
+            emitter.onTimeout(this::abort);
+            emitter.onError(_ -> abort());
+            emitter.onCompletion(this::abort);
+
+            subscription = questions.subscribe(this::onQuestion, this::onFailure, this::onComplete);
+            if (finished.get()) {
+                // The client left before the subscription was assigned
+                subscription.dispose();
+            }
+        }
+
+        private void onQuestion(Question question) {
+            if (finished.get()) {
+                return;
+            }
+
+            question.setQuestionId("q" + (saved.size() + 1));
+            try {
+                saved.add(questionRepository.save(question));
+            } catch (Exception e) {
+                log.error("Failed to save streamed question of quiz {}", quiz.getId(), e);
+                onFailure(e);
+                return;
+            }
+
+            try {
+                emitter.send(SseEmitter.event().name("question").data(quizService.toQuestionResponse(question)));
+            } catch (IOException | IllegalStateException _) {
+                abort();
+            }
+        }
+
+        private void onComplete() {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+
+            if (saved.isEmpty()) {
+                deleteQuiz();
+                sendErrorAndComplete(HttpStatus.INTERNAL_SERVER_ERROR,
+                        "Failed to generate quiz questions. Please try again later.");
+                return;
+            }
+
+            try {
+                // Fewer questions than requested are kept rather than failing the quiz
+                if (saved.size() != quiz.getNumberOfQuestions()) {
+                    quiz.setNumberOfQuestions(saved.size());
+                    quizRepository.save(quiz);
+                }
+            } catch (Exception e) {
+                log.error("Failed to finalize streamed quiz {}", quiz.getId(), e);
+                deleteQuiz();
+                sendErrorAndComplete(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to generate quiz. Please try again.");
+                return;
+            }
+
+            log.info("Streamed quiz {} with {} questions for user {}", quiz.getId(), saved.size(), quiz.getUserId());
+            try {
+                emitter.send(SseEmitter.event().name("done").data(quizService.toResponse(quiz, saved)));
+                emitter.complete();
+            } catch (IOException | IllegalStateException _) {
+                // Saved anyway; the client can find it in the quiz list
+                log.debug("Client left before receiving quiz {}", quiz.getId());
+            }
+        }
+
+        private void onFailure(Throwable error) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            disposeSubscription();
+            deleteQuiz();
+            HttpStatus status;
+            if (error instanceof AiUnavailableException) {
+                status = HttpStatus.SERVICE_UNAVAILABLE;
+            } else if (error instanceof AiCapacityExceededException) {
+                status = HttpStatus.TOO_MANY_REQUESTS;
+            } else {
+                status = HttpStatus.INTERNAL_SERVER_ERROR;
+            }
+            sendErrorAndComplete(status, error.getMessage());
+        }
+
+        /**
+         * Client disconnected or timed out: stop generating and drop the unfinished quiz.
+         */
+        void abort() {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+
+            log.info("Quiz stream {} for user {} ended before completion", quiz.getId(), quiz.getUserId());
+            disposeSubscription();
+            deleteQuiz();
+        }
+
+        private void disposeSubscription() {
+            Disposable current = subscription;
+            if (current != null) {
+                current.dispose();
+            }
+        }
+
+        // Questions go with the quiz; banked copies stay for later quizzes
+        private void deleteQuiz() {
+            try {
+                quizRepository.deleteById(quiz.getId());
+            } catch (Exception e) {
+                log.warn("Failed to delete unfinished quiz {}", quiz.getId(), e);
+            }
+        }
+
+        private void sendErrorAndComplete(HttpStatus status, String message) {
+            try {
+                emitter.send(SseEmitter.event().name("error")
+                        .data(new ErrorResponse(status.value(), status.getReasonPhrase(), message)));
+                emitter.complete();
+            } catch (IOException | IllegalStateException _) {
+                log.debug("Client left before receiving the error");
+            }
+        }
+    }
+}
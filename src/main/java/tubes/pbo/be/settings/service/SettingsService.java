@@ -1,9 +1,10 @@
 package tubes.pbo.be.settings.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import tubes.pbo.be.auth.service.TokenService;
 import tubes.pbo.be.settings.dto.ChangePasswordRequest;
 import tubes.pbo.be.settings.dto.ProfileResponse;
@@ -21,7 +22,8 @@ public class SettingsService {
 
     private final UserRepository userRepository;
     private final TokenService tokenService;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transactionTemplate;
 
     public ProfileResponse getProfile(Long userId) {
         User user = userRepository.findById(userId)
@@ -53,7 +55,10 @@ public class SettingsService {
                 .build();
     }
 
-    @Transactional
+    /**
+     * Both hashes run before the transaction opens, so no database connection is held while they
+     * wait for the hashing pool.
+     */
     public void changePassword(Long userId, String currentToken, ChangePasswordRequest request) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException(USER_NOT_FOUND_MSG));
@@ -69,11 +74,23 @@ public class SettingsService {
         }
 
         // Hash new password
+        String verifiedHash = user.getPassword();
         String hashedPassword = passwordEncoder.encode(request.getNewPassword());
-        user.setPassword(hashedPassword);
-        userRepository.save(user);
 
-        // Invalidate all sessions except current one
-        tokenService.deleteAllUserSessionsExceptCurrent(userId, currentToken);
+        transactionTemplate.executeWithoutResult(_ -> {
+            User current = userRepository.findById(userId)
+                    .orElseThrow(() -> new ResourceNotFoundException(USER_NOT_FOUND_MSG));
+
+            // The password was changed elsewhere while hashing, so the one just verified is no longer current
+            if (!current.getPassword().equals(verifiedHash)) {
+                throw new ValidationException("Current password is incorrect");
+            }
+
+            current.setPassword(hashedPassword);
+            userRepository.save(current);
+
+            // Invalidate all sessions except current one
+            tokenService.deleteAllUserSessionsExceptCurrent(userId, currentToken);
+        });
     }
 }
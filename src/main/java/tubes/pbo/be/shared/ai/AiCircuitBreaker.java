@@ -0,0 +1,124 @@
+package tubes.pbo.be.shared.ai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tubes.pbo.be.shared.exception.AiUnavailableException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops sending calls to the AI provider after repeated provider failures.
+ * <p>
+ * After {@code failureThreshold} consecutive failures the breaker opens and every call fails
+ * fast with {@link AiUnavailableException}. Once {@code openDuration} has passed, a single
+ * trial call is let through: success closes the breaker, failure opens it again.
+ */
+@Component
+@Slf4j
+public class AiCircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final LongSupplier nanoClock;
+    private final Counter rejections;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    @Autowired
+    public AiCircuitBreaker(
+            @Value("${app.ai.gateway.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${app.ai.gateway.circuit-breaker.open-duration-ms:30000}") long openDurationMs,
+            MeterRegistry meterRegistry) {
+        this(failureThreshold, openDurationMs, meterRegistry, System::nanoTime);
+    }
+
+    AiCircuitBreaker(int failureThreshold, long openDurationMs, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+        this.nanoClock = nanoClock;
+
+        Gauge.builder("ai.gateway.circuit.state", this, breaker -> switch (breaker.getState()) {
+                    case CLOSED -> 0;
+                    case HALF_OPEN -> 1;
+                    case OPEN -> 2;
+                })
+                .description("AI circuit breaker state: 0 closed, 1 half-open, 2 open")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("ai.gateway.circuit.rejected")
+                .description("AI calls failed fast because the circuit was open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Must be followed by exactly one of {@link #onSuccess()}, {@link #onFailure()} or {@link #onIgnored()}.
+     *
+     * @throws AiUnavailableException when the breaker is open or a trial call is already running
+     */
+    synchronized void acquirePermission() {
+        if (state == State.OPEN) {
+            long remaining = openedAt + openDurationNanos - nanoClock.getAsLong();
+            if (remaining > 0) {
+                throw reject(remaining);
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+            log.info("AI circuit breaker half-open, letting a trial call through");
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                throw reject(openDurationNanos);
+            }
+            trialInFlight = true;
+        }
+    }
+
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        if (state != State.CLOSED) {
+            state = State.CLOSED;
+            log.info("AI circuit breaker closed");
+        }
+    }
+
+    synchronized void onFailure() {
+        trialInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            if (state != State.OPEN) {
+                log.warn("AI circuit breaker opened after {} consecutive failures", consecutiveFailures);
+            }
+            state = State.OPEN;
+            openedAt = nanoClock.getAsLong();
+        }
+    }
+
+    /**
+     * The call ended without saying anything about the provider's health, e.g. it was
+     * cancelled or the request itself was invalid.
+     */
+    synchronized void onIgnored() {
+        trialInFlight = false;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private AiUnavailableException reject(long retryAfterNanos) {
+        rejections.increment();
+        return new AiUnavailableException("The AI service is temporarily unavailable. Please try again later.",
+                Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos)));
+    }
+}
@@ -0,0 +1,268 @@
+package tubes.pbo.be.shared.ai;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tubes.pbo.be.shared.exception.AiCapacityExceededException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of AI provider calls in flight across the whole application.
+ * <p>
+ * Callers beyond the limit wait in a bounded queue. Waiters are grouped per user and
+ * served round-robin, so one user uploading many documents cannot starve the others.
+ * A full queue or a wait longer than the queue timeout fails with
+ * {@link AiCapacityExceededException}, which is returned to clients as 429.
+ */
+@Component
+@Slf4j
+public class AiConcurrencyGovernor {
+
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final Duration queueTimeout;
+    private final long retryAfterSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Insertion order is the round-robin order; a user moves to the back after being served
+    private final Map<Object, ArrayDeque<CompletableFuture<Void>>> waitersByUser = new LinkedHashMap<>();
+    private int inFlight;
+    private int queued;
+
+    private final Timer waitTimer;
+    private final Counter queueFullRejections;
+    private final Counter timeoutRejections;
+
+    public AiConcurrencyGovernor(
+            @Value("${app.ai.governor.max-in-flight:8}") int maxInFlight,
+            @Value("${app.ai.governor.max-queued:50}") int maxQueued,
+            @Value("${app.ai.governor.queue-timeout-ms:30000}") long queueTimeoutMs,
+            MeterRegistry meterRegistry) {
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+        this.queueTimeout = Duration.ofMillis(queueTimeoutMs);
+        this.retryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(queueTimeoutMs));
+
+        Gauge.builder("ai.governor.in_flight", this, AiConcurrencyGovernor::getInFlight)
+                .description("AI calls currently running")
+                .register(meterRegistry);
+        Gauge.builder("ai.governor.queue.depth", this, AiConcurrencyGovernor::getQueueDepth)
+                .description("AI calls waiting for a slot")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("ai.governor.queue.wait")
+                .description("Time spent waiting for an AI call slot")
+                .register(meterRegistry);
+        this.queueFullRejections = Counter.builder("ai.governor.rejected")
+                .tag("reason", "queue_full")
+                .register(meterRegistry);
+        this.timeoutRejections = Counter.builder("ai.governor.rejected")
+                .tag("reason", "timeout")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a blocking AI call once a slot is free.
+     *
+     * @param userKey who the call is made for; waiters are served fairly across keys
+     */
+    public <T> T execute(Object userKey, Supplier<T> call) {
+        acquire(userKey);
+        try {
+            return call.get();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Holds a slot from subscription until the stream completes, fails or is cancelled. Waiting for
+     * the slot does not block a thread, so the stream may be subscribed, and retried, on any scheduler.
+     */
+    public <T> Flux<T> stream(Object userKey, Supplier<Flux<T>> call) {
+        return Flux.usingWhen(acquireAsync(userKey), _ -> call.get(), _ -> Mono.fromRunnable(this::release));
+    }
+
+    void acquire(Object userKey) {
+        long start = System.nanoTime();
+        CompletableFuture<Void> slot = enqueue(userKey);
+        if (slot == null) {
+            return;
+        }
+
+        try {
+            slot.get(queueTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException _) {
+            if (withdraw(userKey, slot)) {
+                timeoutRejections.increment();
+                throw busy();
+            }
+            // The slot was handed over just as the wait ran out, so keep it
+        } catch (InterruptedException e) {
+            if (!withdraw(userKey, slot)) {
+                release();
+            }
+            Thread.currentThread().interrupt();
+            throw new AiCapacityExceededException("Interrupted while waiting for the AI service", retryAfterSeconds);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+        waitTimer.record(Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Same as {@link #acquire(Object)}, but completes when the slot is handed over instead of blocking.
+     */
+    private Mono<Boolean> acquireAsync(Object userKey) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            CompletableFuture<Void> slot = enqueue(userKey);
+            if (slot == null) {
+                return Mono.just(Boolean.TRUE);
+            }
+
+            AtomicBoolean granted = new AtomicBoolean();
+            return Mono.fromFuture(slot, true)
+                    .thenReturn(Boolean.TRUE)
+                    .timeout(queueTimeout, Mono.defer(() -> {
+                        if (withdraw(userKey, slot)) {
+                            timeoutRejections.increment();
+                            return Mono.error(busy());
+                        }
+                        // The slot was handed over just as the wait ran out, so keep it
+                        return Mono.just(Boolean.TRUE);
+                    }))
+                    .doOnNext(_ -> {
+                        granted.set(true);
+                        waitTimer.record(Duration.ofNanos(System.nanoTime() - start));
+                    })
+                    .doOnCancel(() -> {
+                        if (!granted.get() && !withdraw(userKey, slot)) {
+                            release();
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Takes a free slot or joins the queue.
+     *
+     * @return null if a slot was taken, otherwise the waiter that completes once a slot is handed over
+     */
+    private CompletableFuture<Void> enqueue(Object userKey) {
+        lock.lock();
+        try {
+            if (inFlight < maxInFlight && queued == 0) {
+                inFlight++;
+                waitTimer.record(Duration.ZERO);
+                return null;
+            }
+            if (queued >= maxQueued) {
+                queueFullRejections.increment();
+                throw busy();
+            }
+            CompletableFuture<Void> slot = new CompletableFuture<>();
+            waitersByUser.computeIfAbsent(userKey, _ -> new ArrayDeque<>()).addLast(slot);
+            queued++;
+            return slot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release() {
+        CompletableFuture<Void> next;
+
+        lock.lock();
+        try {
+            next = pollNextWaiter();
+            if (next == null) {
+                inFlight--;
+            } else {
+                // The slot passes straight to the next waiter, so inFlight stays the same
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (next != null) {
+            next.complete(null);
+        }
+    }
+
+    /**
+     * @return true if the waiter was still queued and has now been removed
+     */
+    private boolean withdraw(Object userKey, CompletableFuture<Void> slot) {
+        lock.lock();
+        try {
+            ArrayDeque<CompletableFuture<Void>> waiters = waitersByUser.get(userKey);
+            if (waiters == null || !waiters.remove(slot)) {
+                return false;
+            }
+            if (waiters.isEmpty()) {
+                waitersByUser.remove(userKey);
+            }
+            queued--;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private CompletableFuture<Void> pollNextWaiter() {
+        Iterator<Map.Entry<Object, ArrayDeque<CompletableFuture<Void>>>> users = waitersByUser.entrySet().iterator();
+        if (!users.hasNext()) {
+            return null;
+        }
+
+        Map.Entry<Object, ArrayDeque<CompletableFuture<Void>>> user = users.next();
+        CompletableFuture<Void> next = user.getValue().pollFirst();
+        users.remove();
+        if (!user.getValue().isEmpty()) {
+            // Back of the line until every other waiting user has had a turn
+            waitersByUser.put(user.getKey(), user.getValue());
+        }
+        return next;
+    }
+
+    private AiCapacityExceededException busy() {
+        return new AiCapacityExceededException("The AI service is busy. Please try again shortly.", retryAfterSeconds);
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package tubes.pbo.be.shared.ai;
+
+import com.google.genai.errors.ApiException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+import tubes.pbo.be.shared.exception.AiCapacityExceededException;
+import tubes.pbo.be.shared.exception.AiServiceException;
+import tubes.pbo.be.shared.exception.AiUnavailableException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single entry point for prompts sent to the AI provider.
+ * <p>
+ * Every attempt takes a slot from {@link AiConcurrencyGovernor} and is checked against
+ * {@link AiCircuitBreaker}. Transient provider errors are retried with exponential backoff
+ * and jitter. When hedging is enabled, a blocking call that is slower than the recent p95
+ * gets a second identical request and whichever answers first wins.
+ */
+@Component
+@Slf4j
+public class AiGateway {
+
+    private static final double HEDGE_PERCENTILE = 0.95;
+
+    private final ChatClient chatClient;
+    private final AiConcurrencyGovernor aiConcurrencyGovernor;
+    private final AiCircuitBreaker aiCircuitBreaker;
+    private final MeterRegistry meterRegistry;
+    private final Executor aiHedgeExecutor;
+    private final Counter retries;
+    private final Counter hedges;
+
+    @Value("${app.ai.gateway.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.ai.gateway.retry.initial-backoff-ms:500}")
+    private long initialBackoffMs;
+
+    @Value("${app.ai.gateway.retry.max-backoff-ms:5000}")
+    private long maxBackoffMs;
+
+    @Value("${app.ai.gateway.hedging.enabled:false}")
+    private boolean hedgingEnabled;
+
+    @Value("${app.ai.gateway.hedging.min-samples:20}")
+    private long hedgingMinSamples;
+
+    public AiGateway(
+            ChatClient chatClient,
+            AiConcurrencyGovernor aiConcurrencyGovernor,
+            AiCircuitBreaker aiCircuitBreaker,
+            MeterRegistry meterRegistry,
+            @Qualifier("aiHedgeExecutor") Executor aiHedgeExecutor) {
+        this.chatClient = chatClient;
+        this.aiConcurrencyGovernor = aiConcurrencyGovernor;
+        this.aiCircuitBreaker = aiCircuitBreaker;
+        this.meterRegistry = meterRegistry;
+        this.aiHedgeExecutor = aiHedgeExecutor;
+        this.retries = Counter.builder("ai.gateway.retries")
+                .description("AI call attempts repeated after a transient error")
+                .register(meterRegistry);
+        this.hedges = Counter.builder("ai.gateway.hedges")
+                .description("Second requests sent because the first was slower than p95")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sends the prompt and waits for the whole response.
+     *
+     * @param userKey who the call is made for; used to share capacity fairly
+     */
+    public String call(Object userKey, String prompt) {
+        long start = System.nanoTime();
+        try {
+            String content = callWithRetry(userKey, prompt);
+            record("call", "success", start);
+            return content;
+        } catch (RuntimeException e) {
+            record("call", outcomeOf(e), start);
+            throw e;
+        }
+    }
+
+    /**
+     * Streams the response. A failed attempt is only retried if nothing has been emitted yet,
+     * so subscribers never see the same text twice. Retries are resubscribed on Reactor's
+     * parallel scheduler, which must not block; the governor hands out stream slots without blocking.
+     */
+    public Flux<String> stream(Object userKey, String prompt) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean emitted = new AtomicBoolean();
+
+            return Flux.defer(() -> {
+                        aiCircuitBreaker.acquirePermission();
+                        return aiConcurrencyGovernor.stream(userKey, () -> chatClient.prompt()
+                                .user(prompt)
+                                .stream()
+                                .content())
+                                .doOnNext(_ -> emitted.set(true))
+                                .doOnComplete(aiCircuitBreaker::onSuccess)
+                                .doOnError(this::onAttemptFailed)
+                                .doOnCancel(aiCircuitBreaker::onIgnored);
+                    })
+                    .retryWhen(Retry.backoff(Math.max(1, maxAttempts) - 1L, Duration.ofMillis(initialBackoffMs))
+                            .maxBackoff(Duration.ofMillis(Math.max(initialBackoffMs, maxBackoffMs)))
+                            .jitter(0.5)
+                            .filter(e -> !emitted.get() && isRetryable(e))
+                            .doBeforeRetry(signal -> {
+                                retries.increment();
+                                log.warn("AI stream failed before the first token, retrying: {}",
+                                        signal.failure().getMessage());
+                            })
+                            .onRetryExhaustedThrow((_, signal) -> signal.failure()))
+                    .doOnComplete(() -> record("stream", "success", start))
+                    .doOnError(e -> record("stream", outcomeOf(e), start));
+        });
+    }
+
+    private String callWithRetry(Object userKey, String prompt) {
+        int attempts = Math.max(1, maxAttempts);
+        for (int attempt = 1; ; attempt++) {
+            aiCircuitBreaker.acquirePermission();
+            try {
+                String content = hedgingEnabled ? callHedged(userKey, prompt) : callOnce(userKey, prompt);
+                aiCircuitBreaker.onSuccess();
+                return content;
+            } catch (RuntimeException e) {
+                onAttemptFailed(e);
+                if (attempt >= attempts || !isRetryable(e)) {
+                    throw e;
+                }
+                retries.increment();
+                log.warn("AI call failed (attempt {} of {}), retrying: {}", attempt, attempts, e.getMessage());
+                sleep(backoff(attempt), e);
+            }
+        }
+    }
+
+    private String callOnce(Object userKey, String prompt) {
+        return aiConcurrencyGovernor.execute(userKey, () -> chatClient.prompt()
+                .user(prompt)
+                .call()
+                .content());
+    }
+
+    /**
+     * Runs the call on the hedge pool and, if it is still running after the recent p95,
+     * sends a second one. The slower call cannot be interrupted; it finishes in the
+     * background and its result is dropped.
+     */
+    private String callHedged(Object userKey, String prompt) {
+        Duration hedgeDelay = hedgeDelay();
+        if (hedgeDelay == null) {
+            return callOnce(userKey, prompt);
+        }
+
+        CompletableFuture<String> primary;
+        try {
+            primary = CompletableFuture.supplyAsync(() -> callOnce(userKey, prompt), aiHedgeExecutor);
+        } catch (RejectedExecutionException _) {
+            return callOnce(userKey, prompt);
+        }
+
+        try {
+            return primary.get(hedgeDelay.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException _) {
+            // Slower than usual, hedge below
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AiServiceException("Interrupted while waiting for the AI service", e);
+        }
+
+        // With callers already queued for a slot, a second request would only add to the backlog
+        if (aiConcurrencyGovernor.getQueueDepth() > 0) {
+            return await(primary);
+        }
+
+        CompletableFuture<String> hedge;
+        try {
+            hedge = CompletableFuture.supplyAsync(() -> callOnce(userKey, prompt), aiHedgeExecutor);
+        } catch (RejectedExecutionException _) {
+            return await(primary);
+        }
+        hedges.increment();
+        return await(firstSuccessful(primary, hedge));
+    }
+
+    /**
+     * @return the recent p95 of successful calls, or null while there are too few samples to trust it
+     */
+    private Duration hedgeDelay() {
+        Timer latency = latencyTimer("call", "success");
+        if (latency.count() < hedgingMinSamples) {
+            return null;
+        }
+        for (ValueAtPercentile percentile : latency.takeSnapshot().percentileValues()) {
+            if (percentile.percentile() == HEDGE_PERCENTILE && percentile.value() > 0) {
+                return Duration.ofNanos((long) percentile.value(TimeUnit.NANOSECONDS));
+            }
+        }
+        return null;
+    }
+
+    private static CompletableFuture<String> firstSuccessful(CompletableFuture<String> first, CompletableFuture<String> second) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<String> candidate : List.of(first, second)) {
+            candidate.whenComplete((content, error) -> {
+                if (error == null) {
+                    result.complete(content);
+                } else if (failures.incrementAndGet() == 2) {
+                    result.completeExceptionally(error);
+                }
+            });
+        }
+        return result;
+    }
+
+    private static String await(CompletableFuture<String> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new AiServiceException("AI call failed", error);
+    }
+
+    private void onAttemptFailed(Throwable error) {
+        if (error instanceof AiUnavailableException) {
+            // Rejected by the breaker itself, so no permission was taken
+            return;
+        }
+        if (isRetryable(error)) {
+            aiCircuitBreaker.onFailure();
+        } else {
+            aiCircuitBreaker.onIgnored();
+        }
+    }
+
+    /**
+     * Transient provider errors: rate limiting, server errors, timeouts and I/O failures.
+     * Bad requests, authentication errors and our own capacity limits are not retried.
+     */
+    static boolean isRetryable(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof AiCapacityExceededException || current instanceof NonTransientAiException) {
+                return false;
+            }
+            if (current instanceof TransientAiException
+                    || current instanceof IOException
+                    || current instanceof TimeoutException) {
+                return true;
+            }
+            if (current instanceof ApiException apiException) {
+                int code = apiException.code();
+                return code == 408 || code == 429 || code >= 500;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Exponential backoff with equal jitter: half the step is fixed, the other half random,
+     * so retries from many callers spread out instead of arriving together.
+     */
+    private long backoff(int attempt) {
+        long step = Math.min(Math.max(initialBackoffMs, maxBackoffMs), initialBackoffMs << Math.min(attempt - 1, 20));
+        long half = step / 2;
+        return half + (half > 0 ? ThreadLocalRandom.current().nextLong(half + 1) : 0);
+    }
+
+    private static void sleep(long millis, RuntimeException lastError) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+            throw lastError;
+        }
+    }
+
+    private void record(String operation, String outcome, long startNanos) {
+        latencyTimer(operation, outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer latencyTimer(String operation, String outcome) {
+        return Timer.builder("ai.gateway.latency")
+                .description("AI calls by outcome, including retries")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, HEDGE_PERCENTILE, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static String outcomeOf(Throwable error) {
+        if (error instanceof AiUnavailableException) {
+            return "circuit_open";
+        }
+        if (error instanceof AiCapacityExceededException) {
+            return "rejected";
+        }
+        return "failure";
+    }
+}
@@ -0,0 +1,228 @@
+package tubes.pbo.be.shared.ai;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+import java.util.zip.CRC32;
+
+/**
+ * Stand-in for Gemini under the {@code local-ai} profile, for load tests and offline development.
+ * <p>
+ * Answers are derived from the prompt alone, so the same prompt always gets the same summary
+ * or quiz. Latency follows a log-normal distribution set by its median and p99, and a
+ * configurable share of calls fail with a transient error so retries and the circuit breaker
+ * see realistic traffic.
+ */
+@Component
+@Primary
+@Profile("local-ai")
+@Slf4j
+public class LocalChatModel implements ChatModel {
+
+    // z-score of the 99th percentile of a standard normal distribution
+    private static final double Z_99 = 2.3263;
+    private static final int SUMMARY_POINTS = 5;
+    private static final int MAX_POINT_LENGTH = 160;
+    private static final List<String> BODY_MARKERS = List.of(
+            "Document text:", "Document part:", "Part summaries:", "Summaries:", "Document summary:");
+
+    private final ObjectMapper objectMapper;
+    private final double latencyMu;
+    private final double latencySigma;
+    private final double errorRate;
+    private final DoubleSupplier random;
+
+    @Autowired
+    public LocalChatModel(
+            ObjectMapper objectMapper,
+            @Value("${app.ai.local.latency-median-ms:300}") long latencyMedianMs,
+            @Value("${app.ai.local.latency-p99-ms:1500}") long latencyP99Ms,
+            @Value("${app.ai.local.error-rate:0.0}") double errorRate) {
+        this(objectMapper, latencyMedianMs, latencyP99Ms, errorRate, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    LocalChatModel(ObjectMapper objectMapper, long latencyMedianMs, long latencyP99Ms, double errorRate,
+                   DoubleSupplier random) {
+        this.objectMapper = objectMapper;
+        long median = Math.max(0, latencyMedianMs);
+        this.latencyMu = median > 0 ? Math.log(median) : Double.NEGATIVE_INFINITY;
+        this.latencySigma = median > 0 ? Math.max(0, Math.log(Math.max(median, latencyP99Ms)) - latencyMu) / Z_99 : 0;
+        this.errorRate = errorRate;
+        this.random = random;
+        log.info("Using local AI stand-in (median latency {} ms, p99 {} ms, error rate {})",
+                median, Math.max(median, latencyP99Ms), errorRate);
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        long latencyMs = sampleLatencyMs();
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TransientAiException("Interrupted while simulating AI latency", e);
+            }
+        }
+        if (shouldFail()) {
+            throw simulatedError();
+        }
+        return response(respond(prompt.getContents()));
+    }
+
+    /**
+     * Waits for the sampled time to first token, then streams the answer word by word.
+     */
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> Mono.delay(Duration.ofMillis(sampleLatencyMs()))
+                .flatMapMany(_ -> {
+                    if (shouldFail()) {
+                        return Flux.error(simulatedError());
+                    }
+                    return Flux.fromArray(respond(prompt.getContents()).split("(?<= )"));
+                })
+                .map(LocalChatModel::response));
+    }
+
+    String respond(String prompt) {
+        int questionCount = requestedQuestionCount(prompt);
+        return questionCount > 0 ? quiz(prompt, questionCount) : summary(prompt);
+    }
+
+    long sampleLatencyMs() {
+        if (latencyMu == Double.NEGATIVE_INFINITY) {
+            return 0;
+        }
+        double gaussian = Math.sqrt(-2 * Math.log(1 - random.getAsDouble())) * Math.cos(2 * Math.PI * random.getAsDouble());
+        return Math.round(Math.exp(latencyMu + latencySigma * gaussian));
+    }
+
+    private boolean shouldFail() {
+        return errorRate > 0 && random.getAsDouble() < errorRate;
+    }
+
+    private static TransientAiException simulatedError() {
+        return new TransientAiException("503 Service Unavailable (simulated by the local AI stand-in)");
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+
+    /**
+     * Markdown summary made of the first sentences of the document in the prompt.
+     */
+    private static String summary(String prompt) {
+        String body = body(prompt);
+        StringBuilder summary = new StringBuilder("## Summary\n\n");
+        int points = 0;
+        int start = 0;
+        while (points < SUMMARY_POINTS && start < body.length()) {
+            int end = sentenceEnd(body, start);
+            String sentence = body.substring(start, end).strip().replace('\n', ' ');
+            if (!sentence.isEmpty()) {
+                if (sentence.length() > MAX_POINT_LENGTH) {
+                    sentence = sentence.substring(0, MAX_POINT_LENGTH).strip() + "...";
+                }
+                summary.append("- ").append(sentence).append('\n');
+                points++;
+            }
+            start = end;
+        }
+        if (points == 0) {
+            summary.append("- The document contains no text to summarize.\n");
+        }
+        return summary.append("\n_Local summary ").append(digest(prompt)).append("_").toString();
+    }
+
+    private String quiz(String prompt, int count) {
+        String digest = digest(prompt);
+        List<Map<String, Object>> questions = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            List<String> options = List.of(
+                    "Option A for question " + i,
+                    "Option B for question " + i,
+                    "Option C for question " + i,
+                    "Option D for question " + i);
+            Map<String, Object> question = new LinkedHashMap<>();
+            question.put("id", "q" + i);
+            question.put("question", "Question " + i + " about document " + digest + "?");
+            question.put("options", options);
+            question.put("correctAnswer", options.get(Math.floorMod(digest.hashCode() + i, options.size())));
+            question.put("explanation", "Generated locally for question " + i + ".");
+            questions.add(question);
+        }
+        try {
+            return objectMapper.writeValueAsString(questions);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to write local quiz response", e);
+        }
+    }
+
+    /**
+     * @return N from a quiz prompt starting "Generate exactly N multiple-choice questions", or 0
+     */
+    private static int requestedQuestionCount(String prompt) {
+        String head = prompt.stripLeading();
+        String prefix = "Generate exactly ";
+        if (!head.startsWith(prefix)) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = prefix.length(); i < head.length() && Character.isDigit(head.charAt(i)); i++) {
+            count = count * 10 + (head.charAt(i) - '0');
+        }
+        return count;
+    }
+
+    private static String body(String prompt) {
+        int bodyStart = -1;
+        for (String marker : BODY_MARKERS) {
+            int index = prompt.lastIndexOf(marker);
+            if (index >= 0) {
+                bodyStart = Math.max(bodyStart, index + marker.length());
+            }
+        }
+        return bodyStart >= 0 ? prompt.substring(bodyStart) : prompt;
+    }
+
+    private static int sentenceEnd(String text, int start) {
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '.' || c == '!' || c == '?' || c == '\n') {
+                return i + 1;
+            }
+        }
+        return text.length();
+    }
+
+    private static String digest(String prompt) {
+        CRC32 crc = new CRC32();
+        crc.update(prompt.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().toHexDigits((int) crc.getValue());
+    }
+}
@@ -0,0 +1,18 @@
+package tubes.pbo.be.shared.config;
+
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * One ChatClient for the whole application. ChatClient is thread-safe, so building
+ * a new one per request only adds allocation and setup cost.
+ */
+@Configuration
+public class AiConfig {
+
+    @Bean
+    public ChatClient chatClient(ChatClient.Builder chatClientBuilder) {
+        return chatClientBuilder.build();
+    }
+}
@@ -0,0 +1,175 @@
+package tubes.pbo.be.shared.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Dedicated thread pools for background work, so long-running tasks never
+ * borrow Tomcat request threads.
+ */
+@Configuration
+@EnableScheduling
+public class ExecutorConfig {
+
+    @Value("${app.summary.jobs.pool-size:4}")
+    private int summaryJobPoolSize;
+
+    @Value("${app.summary.jobs.queue-capacity:50}")
+    private int summaryJobQueueCapacity;
+
+    @Value("${app.summary.batch.pool-size:8}")
+    private int summaryBatchPoolSize;
+
+    @Value("${app.pdf.extraction.pool-size:4}")
+    private int pdfExtractionPoolSize;
+
+    @Value("${app.pdf.extraction.queue-capacity:100}")
+    private int pdfExtractionQueueCapacity;
+
+    @Value("${app.ai.summary.map-parallelism:4}")
+    private int summaryMapParallelism;
+
+    @Value("${app.ai.gateway.hedging.pool-size:8}")
+    private int aiHedgePoolSize;
+
+    @Value("${app.quiz.bank.pool-size:2}")
+    private int questionBankPoolSize;
+
+    @Value("${app.quiz.bank.queue-capacity:100}")
+    private int questionBankQueueCapacity;
+
+    @Value("${app.quiz.fan-out.parallelism:6}")
+    private int quizFanOutParallelism;
+
+    @Value("${app.auth.password-hash.pool-size:2}")
+    private int passwordHashPoolSize;
+
+    @Value("${app.auth.password-hash.queue-capacity:32}")
+    private int passwordHashQueueCapacity;
+
+    @Bean
+    public ThreadPoolTaskExecutor summaryJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(summaryJobPoolSize);
+        executor.setMaxPoolSize(summaryJobPoolSize);
+        executor.setQueueCapacity(summaryJobQueueCapacity);
+        executor.setThreadNamePrefix("summary-job-");
+        return executor;
+    }
+
+    /**
+     * Files of batch uploads. Each request takes only a few threads; when the pool is
+     * full the request thread works through its own batch.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor summaryBatchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(summaryBatchPoolSize);
+        executor.setMaxPoolSize(summaryBatchPoolSize);
+        executor.setQueueCapacity(0);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("summary-batch-");
+        return executor;
+    }
+
+    /**
+     * Page-range extraction for large PDFs. When saturated the caller extracts the range itself.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor pdfExtractionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pdfExtractionPoolSize);
+        executor.setMaxPoolSize(pdfExtractionPoolSize);
+        executor.setQueueCapacity(pdfExtractionQueueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("pdf-extract-");
+        return executor;
+    }
+
+    /**
+     * Chunk summaries of long documents. The pool size caps how many chunk prompts
+     * are in flight at once across all documents; the rest wait in the queue.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor summaryMapExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(summaryMapParallelism);
+        executor.setMaxPoolSize(summaryMapParallelism);
+        executor.setThreadNamePrefix("summary-map-");
+        return executor;
+    }
+
+    /**
+     * Hedged AI calls. Only used when hedging is enabled; when saturated the call
+     * simply runs without a hedge.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor aiHedgeExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(aiHedgePoolSize);
+        executor.setMaxPoolSize(aiHedgePoolSize);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("ai-hedge-");
+        return executor;
+    }
+
+    /**
+     * Background question bank fills. Kept small so pre-generation leaves most of the AI
+     * capacity to interactive requests; fills it cannot queue are left to the sweep.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor questionBankExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(questionBankPoolSize);
+        executor.setMaxPoolSize(questionBankPoolSize);
+        executor.setQueueCapacity(questionBankQueueCapacity);
+        executor.setThreadNamePrefix("question-bank-");
+        return executor;
+    }
+
+    /**
+     * Parts of large quizzes. The pool size caps how many parts are in flight at once
+     * across all quizzes; the rest wait in the queue.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor quizFanOutExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(quizFanOutParallelism);
+        executor.setMaxPoolSize(quizFanOutParallelism);
+        executor.setThreadNamePrefix("quiz-fan-out-");
+        return executor;
+    }
+
+    /**
+     * Email outbox runs. One thread, so runs on a node never overlap, and room for one
+     * waiting run, which picks up everything queued before it starts.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor emailOutboxExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("email-outbox-");
+        return executor;
+    }
+
+    /**
+     * Password hashing and matching. Sized below the core count so a login flood cannot take
+     * every core; work it cannot queue is rejected and answered with a 429.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(passwordHashPoolSize);
+        executor.setMaxPoolSize(passwordHashPoolSize);
+        executor.setQueueCapacity(passwordHashQueueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        return executor;
+    }
+}
@@ -0,0 +1,45 @@
+package tubes.pbo.be.shared.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Cursor-paginated response wrapper for list resources, without totals")
+public class CursorPageResponse<T> {
+
+    @Schema(description = "List of items in current page")
+    private List<T> content;
+
+    @Schema(description = "Page size", example = "10")
+    private int size;
+
+    @Schema(description = "Whether more items follow this page", example = "true")
+    private boolean hasNext;
+
+    @Schema(description = "Opaque cursor to pass as 'cursor' for the next page (only present if hasNext)",
+            example = "MjAyNi0wMS0wMlQxMDowMHw0Mg")
+    private String nextCursor;
+
+    /**
+     * Builds a page from rows fetched with a limit of {@code size + 1}; the extra row only
+     * tells whether another page exists and is not returned.
+     *
+     * @param position cursor of a row, used for the last row returned
+     */
+    public static <R, T> CursorPageResponse<T> of(List<R> rows, int size, Function<R, PageCursor> position,
+                                                  Function<R, T> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<R> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? position.apply(page.getLast()).encode() : null;
+        return new CursorPageResponse<>(page.stream().map(mapper).toList(), size, hasNext, nextCursor);
+    }
+}
@@ -0,0 +1,56 @@
+package tubes.pbo.be.shared.dto;
+
+import tubes.pbo.be.shared.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a list ordered by createdAt and then id, both descending.
+ * The next page holds the rows strictly after it, found with a seek predicate on
+ * (createdAt, id) instead of an offset, so deep pages cost the same as the first.
+ * Clients only see the encoded form and pass it back unchanged.
+ */
+public record PageCursor(LocalDateTime createdAt, Long id) {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Sorts before every real row, so the first page uses the same query as the rest
+    public static final PageCursor START = new PageCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        String raw = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor a value from {@link #encode()}, or null or blank for the first page
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.strip()), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new ValidationException("Invalid cursor");
+            }
+            return new PageCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+
+    /**
+     * @return the requested page size kept within 1 and {@link #MAX_PAGE_SIZE}
+     */
+    public static int pageSize(int size) {
+        return Math.clamp(size, 1, MAX_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,17 @@
+package tubes.pbo.be.shared.exception;
+
+import lombok.Getter;
+
+/**
+ * Exception thrown when the AI service has no capacity left for another call
+ */
+@Getter
+public class AiCapacityExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public AiCapacityExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
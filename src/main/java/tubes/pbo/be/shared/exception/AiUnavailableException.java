@@ -0,0 +1,15 @@
+package tubes.pbo.be.shared.exception;
+
+/**
+ * Exception thrown while the AI provider is considered down and calls are failing fast.
+ * It is a capacity problem from the caller's point of view, so it is handled wherever
+ * {@link AiCapacityExceededException} is, but returned to clients as 503. Callers that retry on
+ * their own, like background jobs, should catch it first: unlike a busy governor it says the
+ * provider is failing, so a retry should wait and count against the attempt limit.
+ */
+public class AiUnavailableException extends AiCapacityExceededException {
+
+    public AiUnavailableException(String message, long retryAfterSeconds) {
+        super(message, retryAfterSeconds);
+    }
+}
@@ -0,0 +1,17 @@
+package tubes.pbo.be.shared.exception;
+
+import lombok.Getter;
+
+/**
+ * Exception thrown when a client is throttled or the server has no capacity left for the request
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
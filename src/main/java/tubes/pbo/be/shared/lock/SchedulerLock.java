@@ -0,0 +1,30 @@
+package tubes.pbo.be.shared.lock;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row that lets one node at a time run a scheduled task. The holder is {@code lockedBy}
+ * until it releases the lock or {@code lockedUntil} passes.
+ */
+@Entity
+@Table(name = "scheduler_locks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SchedulerLock {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDateTime lockedUntil;
+
+    @Column(nullable = false, length = 36)
+    private String lockedBy;
+}
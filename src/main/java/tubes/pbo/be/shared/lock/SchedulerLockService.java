@@ -0,0 +1,50 @@
+package tubes.pbo.be.shared.lock;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Database-backed locks for scheduled tasks that must run on only one node at a time.
+ * A lock is held until it is released or its duration passes, so a node that dies while
+ * holding one blocks the task for at most that long.
+ */
+@Service
+@RequiredArgsConstructor
+public class SchedulerLockService {
+
+    private final SchedulerLockRepository schedulerLockRepository;
+
+    // Identifies this node as the holder
+    private final String owner = UUID.randomUUID().toString();
+
+    /**
+     * @return true if this node now holds the lock, until {@link #unlock} or until {@code lockFor} passes
+     */
+    public boolean tryLock(String name, Duration lockFor) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(lockFor);
+        if (schedulerLockRepository.claim(name, owner, now, until) == 1) {
+            return true;
+        }
+        if (schedulerLockRepository.existsById(name)) {
+            return false;
+        }
+
+        // First use of this lock
+        try {
+            return schedulerLockRepository.insert(name, owner, until) == 1;
+        } catch (DataIntegrityViolationException _) {
+            // Another node created it first and holds it
+            return false;
+        }
+    }
+
+    public void unlock(String name) {
+        schedulerLockRepository.release(name, owner, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,29 @@
+package tubes.pbo.be.shared.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import tubes.pbo.be.user.model.User;
+
+import java.util.List;
+
+/**
+ * Principal of an authenticated request. Holds only what authorization needs, so no entity
+ * or password hash is kept in the security context or the principal cache.
+ */
+public record AuthenticatedUser(Long id, User.UserRole role) {
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getRole());
+    }
+
+    public boolean isAdmin() {
+        return role == User.UserRole.ADMIN;
+    }
+
+    /**
+     * The role as a Spring Security authority, for URL rules such as {@code hasRole("ADMIN")}.
+     */
+    public List<GrantedAuthority> authorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+}
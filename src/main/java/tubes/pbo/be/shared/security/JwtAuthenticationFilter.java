@@ -10,6 +10,9 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import tubes.pbo.be.auth.model.Session;
+import tubes.pbo.be.auth.service.AccessToken;
+import tubes.pbo.be.auth.service.AccessTokenService;
 import tubes.pbo.be.auth.service.TokenService;
 import tubes.pbo.be.user.model.User;
 import tubes.pbo.be.user.repository.UserRepository;
@@ -22,6 +25,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final TokenService tokenService;
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final AccessTokenService accessTokenService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -43,16 +48,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private void authenticateWithToken(HttpServletRequest request, String token) {
         try {
-            // Validate token and get user ID
-            Long userId = tokenService.validateSessionToken(token);
-            
-            // Get user entity
-            User user = userRepository.findById(userId).orElse(null);
+            AuthenticatedUser principal;
+            if (accessTokenService.isAccessToken(token)) {
+                // Signed access token: verified in memory, never looked up
+                principal = accessTokenService.verify(token).map(AccessToken::principal).orElse(null);
+            } else if (accessTokenService.isEnabled()) {
+                // The session token is a refresh token now; /api/auth/refresh and logout read it themselves
+                principal = null;
+            } else {
+                // Session token: cached principal, or validate token and load the user
+                principal = principalCache.get(token).orElseGet(() -> loadPrincipal(token));
+            }
             
-            if (user != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            if (principal != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 // Create authentication object
                 UsernamePasswordAuthenticationToken authentication = 
-                    new UsernamePasswordAuthenticationToken(user, null, null);
+                    new UsernamePasswordAuthenticationToken(principal, null, principal.authorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 
                 // Set authentication in security context
@@ -63,4 +74,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // Let SecurityConfig handle 401 for protected endpoints
         }
     }
+    
+    private AuthenticatedUser loadPrincipal(String token) {
+        long generation = principalCache.generation();
+        Session session = tokenService.validateSession(token);
+        
+        User user = userRepository.findById(session.getUserId()).orElse(null);
+        if (user == null) {
+            return null;
+        }
+        
+        AuthenticatedUser principal = AuthenticatedUser.from(user);
+        principalCache.put(token, principal, session.getExpiresAt(), generation);
+        return principal;
+    }
 }
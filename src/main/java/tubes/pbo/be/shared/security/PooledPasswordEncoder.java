@@ -0,0 +1,97 @@
+package tubes.pbo.be.shared.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import tubes.pbo.be.shared.exception.TooManyRequestsException;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs password hashing and matching on a small dedicated pool, so a burst of logins can use
+ * at most that many cores and leaves the rest to other requests. When the pool's queue is full,
+ * or a caller has waited longer than the timeout, the request is turned away with a 429
+ * instead of queueing without bound; a timed-out hash that has not started yet is dropped.
+ */
+public class PooledPasswordEncoder implements PasswordEncoder {
+
+    private static final String BUSY_MESSAGE = "The server is busy. Please try again shortly.";
+
+    private final PasswordEncoder delegate;
+    private final AsyncTaskExecutor executor;
+    private final Duration timeout;
+
+    private final Timer latency;
+    private final Counter saturated;
+    private final Counter timedOut;
+
+    public PooledPasswordEncoder(PasswordEncoder delegate, AsyncTaskExecutor executor, Duration timeout,
+                                 MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.timeout = timeout;
+
+        this.latency = Timer.builder("auth.password_hash.latency")
+                .description("Time from submitting a password hash to its result, including queueing")
+                .register(meterRegistry);
+        this.saturated = Counter.builder("auth.password_hash.rejected")
+                .tag("reason", "saturated")
+                .register(meterRegistry);
+        this.timedOut = Counter.builder("auth.password_hash.rejected")
+                .tag("reason", "timeout")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Callable<T> task) {
+        long start = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (TaskRejectedException _) {
+            saturated.increment();
+            throw new TooManyRequestsException(BUSY_MESSAGE, 1);
+        }
+
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException _) {
+            future.cancel(false);
+            timedOut.increment();
+            throw new TooManyRequestsException(BUSY_MESSAGE, Math.max(1, timeout.toSeconds()));
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        } finally {
+            latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
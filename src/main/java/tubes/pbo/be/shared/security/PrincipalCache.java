@@ -0,0 +1,177 @@
+package tubes.pbo.be.shared.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Remembers which user a session token belongs to, so authenticated requests skip the session
+ * and user lookups. An entry lives for at most the TTL and never past its session's expiry;
+ * the least recently used entry is dropped when the cache is full.
+ * <p>
+ * Revoking sessions or changing a user through the admin API invalidates the matching entries
+ * on this node immediately. The cache is per node, so another node keeps accepting a revoked
+ * token until its own entry expires; the TTL bounds that delay.
+ */
+@Component
+public class PrincipalCache {
+
+    private final boolean enabled;
+    private final long ttlSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Entry> entries;
+    // Bumped by every invalidation, so a lookup that raced with one does not cache a stale result
+    private long generation;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public PrincipalCache(
+            @Value("${app.auth.principal-cache.enabled:true}") boolean enabled,
+            @Value("${app.auth.principal-cache.ttl-seconds:60}") long ttlSeconds,
+            @Value("${app.auth.principal-cache.max-size:10000}") int maxSize,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.ttlSeconds = ttlSeconds;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+
+        Gauge.builder("auth.principal_cache.size", this, PrincipalCache::size)
+                .description("Session tokens with a cached principal")
+                .register(meterRegistry);
+        this.hits = Counter.builder("auth.principal_cache.lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("auth.principal_cache.lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the cached principal for the token, or empty if it has to be loaded
+     */
+    public Optional<AuthenticatedUser> get(String token) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        lock.lock();
+        try {
+            Entry entry = entries.get(token);
+            if (entry != null && entry.expiresAt().isAfter(LocalDateTime.now())) {
+                hits.increment();
+                return Optional.of(entry.user());
+            }
+            if (entry != null) {
+                entries.remove(token);
+            }
+            misses.increment();
+            return Optional.empty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Read before loading a principal and pass to {@link #put}, which then ignores the result if
+     * an invalidation happened in between.
+     */
+    public long generation() {
+        lock.lock();
+        try {
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(String token, AuthenticatedUser user, LocalDateTime sessionExpiresAt, long loadedAtGeneration) {
+        if (!enabled) {
+            return;
+        }
+
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(ttlSeconds);
+        if (sessionExpiresAt.isBefore(expiresAt)) {
+            expiresAt = sessionExpiresAt;
+        }
+
+        lock.lock();
+        try {
+            if (generation == loadedAtGeneration) {
+                entries.put(token, new Entry(user, expiresAt));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateToken(String token) {
+        invalidate(entry -> entry.getKey().equals(token));
+    }
+
+    public void invalidateUser(Long userId) {
+        invalidate(entry -> entry.getValue().user().id().equals(userId));
+    }
+
+    public void invalidateUserExcept(Long userId, String keptToken) {
+        invalidate(entry -> entry.getValue().user().id().equals(userId) && !entry.getKey().equals(keptToken));
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops matching entries now and, inside a transaction, again after commit: until then a
+     * concurrent request still sees the session row and may cache it again.
+     */
+    private void invalidate(Predicate<Map.Entry<String, Entry>> matches) {
+        if (!enabled) {
+            return;
+        }
+
+        remove(matches);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(matches);
+                }
+            });
+        }
+    }
+
+    private void remove(Predicate<Map.Entry<String, Entry>> matches) {
+        lock.lock();
+        try {
+            generation++;
+            entries.entrySet().removeIf(matches);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Entry(AuthenticatedUser user, LocalDateTime expiresAt) {
+    }
+}
@@ -4,7 +4,6 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import tubes.pbo.be.shared.exception.UnauthorizedException;
-import tubes.pbo.be.user.model.User;
 
 @Component
 public class SecurityContextHelper {
@@ -22,8 +21,8 @@ public class SecurityContextHelper {
             throw new UnauthorizedException();
         }
         
-        if (authentication.getPrincipal() instanceof User user) {
-            return user.getId();
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.id();
         }
         
         throw new UnauthorizedException();
@@ -31,10 +30,10 @@ public class SecurityContextHelper {
 
     /**
      * Get the current authenticated user
-     * @return User entity
+     * @return User ID and role
      * @throws UnauthorizedException if user is not authenticated
      */
-    public User getCurrentUser() {
+    public AuthenticatedUser getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         
         if (authentication == null || !authentication.isAuthenticated() || 
@@ -42,7 +41,7 @@ public class SecurityContextHelper {
             throw new UnauthorizedException();
         }
         
-        if (authentication.getPrincipal() instanceof User user) {
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user) {
             return user;
         }
         
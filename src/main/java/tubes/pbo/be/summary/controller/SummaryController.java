@@ -9,17 +9,27 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import tubes.pbo.be.shared.dto.ApiResponse;
+import tubes.pbo.be.shared.dto.CursorPageResponse;
 import tubes.pbo.be.shared.dto.PageResponse;
 import tubes.pbo.be.shared.security.SecurityContextHelper;
+import tubes.pbo.be.summary.dto.SummaryBatchResponse;
+import tubes.pbo.be.summary.dto.SummaryJobResponse;
 import tubes.pbo.be.summary.dto.SummaryListItem;
 import tubes.pbo.be.summary.dto.SummaryResponse;
+import tubes.pbo.be.summary.service.SummaryBatchService;
+import tubes.pbo.be.summary.service.SummaryJobService;
 import tubes.pbo.be.summary.service.SummaryService;
+import tubes.pbo.be.summary.service.SummaryStreamService;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/summaries")
@@ -28,15 +38,42 @@ import tubes.pbo.be.summary.service.SummaryService;
 public class SummaryController {
 
     private final SummaryService summaryService;
+    private final SummaryBatchService summaryBatchService;
+    private final SummaryJobService summaryJobService;
+    private final SummaryStreamService summaryStreamService;
     private final SecurityContextHelper securityContextHelper;
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(
             summary = "Generate summary",
-            description = "Upload a PDF file and generate an AI-powered summary",
+            description = "Upload a PDF file and queue AI-powered summary generation. " +
+                    "Poll the returned job until it is done to get the summary ID.",
+            security = {@io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearerAuth")}
+    )
+    public ResponseEntity<ApiResponse<SummaryJobResponse>> generateSummary(
+            @Parameter(
+                    description = "PDF file to summarize",
+                    required = true,
+                    content = @Content(mediaType = MediaType.MULTIPART_FORM_DATA_VALUE)
+            )
+            @RequestPart("file") MultipartFile file) {
+        Long userId = securityContextHelper.getCurrentUserId();
+        SummaryJobResponse response = summaryJobService.submitJob(userId, file);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/api/summaries/jobs/" + response.getId())
+                .body(new ApiResponse<>("Summary generation queued", response));
+    }
+
+    // No produces condition, so validation errors can still be rendered as JSON
+    @PostMapping(value = "/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(
+            summary = "Generate summary (streaming)",
+            description = "Upload a PDF file and receive the summary over Server-Sent Events as it is generated. " +
+                    "Emits 'token' events with markdown fragments as {\"text\": ...}, then 'done' with the saved summary " +
+                    "or 'error' if generation fails.",
             security = {@io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearerAuth")}
     )
-    public ResponseEntity<ApiResponse<SummaryResponse>> generateSummary(
+    public SseEmitter streamSummary(
             @Parameter(
                     description = "PDF file to summarize",
                     required = true,
@@ -44,9 +81,40 @@ public class SummaryController {
             )
             @RequestPart("file") MultipartFile file) {
         Long userId = securityContextHelper.getCurrentUserId();
-        SummaryResponse response = summaryService.createSummary(userId, file);
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(new ApiResponse<>("Summary generated successfully", response));
+        return summaryStreamService.streamSummary(userId, file);
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(
+            summary = "Generate summaries (batch)",
+            description = "Upload several PDF files and summarize them in parallel. All files are validated first; " +
+                    "after that a failing file does not stop the others. Returns one result per file, in request order.",
+            security = {@io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearerAuth")}
+    )
+    public ResponseEntity<ApiResponse<SummaryBatchResponse>> generateSummaries(
+            @Parameter(
+                    description = "PDF files to summarize",
+                    required = true,
+                    content = @Content(mediaType = MediaType.MULTIPART_FORM_DATA_VALUE)
+            )
+            @RequestPart("files") List<MultipartFile> files) {
+        Long userId = securityContextHelper.getCurrentUserId();
+        SummaryBatchResponse response = summaryBatchService.createSummaries(userId, files);
+        return ResponseEntity.ok(new ApiResponse<>(
+                "Created " + response.getCreated() + " of " + files.size() + " summaries", response));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    @Operation(
+            summary = "Get summary job status",
+            description = "Get the status of a summary generation job: queued, extracting, summarizing, done or failed",
+            security = {@io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearerAuth")}
+    )
+    public ResponseEntity<ApiResponse<SummaryJobResponse>> getJobStatus(
+            @Parameter(description = "Job ID") @PathVariable Long jobId) {
+        Long userId = securityContextHelper.getCurrentUserId();
+        SummaryJobResponse response = summaryJobService.getJobStatus(userId, jobId);
+        return ResponseEntity.ok(new ApiResponse<>("Summary job retrieved successfully", response));
     }
 
     @GetMapping
@@ -63,6 +131,23 @@ public class SummaryController {
         return ResponseEntity.ok(new PageResponse<>(summaries));
     }
 
+    // Chosen over the offset variant whenever a cursor parameter is sent, even an empty one
+    @GetMapping(params = "cursor")
+    @Operation(
+            summary = "List summaries (cursor)",
+            description = "Get summaries newest first using keyset pagination. Send an empty cursor for the " +
+                    "first page, then the returned nextCursor. Totals are not counted.",
+            security = {@io.swagger.v3.oas.annotations.security.SecurityRequirement(name = "bearerAuth")}
+    )
+    public ResponseEntity<CursorPageResponse<SummaryListItem>> listSummariesByCursor(
+            @Parameter(description = "nextCursor from the previous page, empty for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 100)")
+            @RequestParam(defaultValue = "10") int size) {
+        Long userId = securityContextHelper.getCurrentUserId();
+        return ResponseEntity.ok(summaryService.listSummaries(userId, cursor, size));
+    }
+
     @GetMapping("/{id}")
     @Operation(
             summary = "Get summary detail",
@@ -0,0 +1,30 @@
+package tubes.pbo.be.summary.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Result for one file of a batch upload")
+public class SummaryBatchItem {
+
+    @Schema(description = "Position of the file in the request, starting at 0", example = "0")
+    private int index;
+
+    @Schema(description = "Original PDF filename", example = "document.pdf")
+    private String originalFilename;
+
+    @Schema(description = "Result status", example = "created", allowableValues = {"created", "failed"})
+    private String status;
+
+    @Schema(description = "ID of the created summary (only present when created)", example = "1")
+    private Long summaryId;
+
+    @Schema(description = "Failure reason (only present when failed)", example = "Invalid or corrupted PDF file")
+    private String errorMessage;
+}
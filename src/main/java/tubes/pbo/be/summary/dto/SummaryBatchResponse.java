@@ -0,0 +1,24 @@
+package tubes.pbo.be.summary.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Batch upload results")
+public class SummaryBatchResponse {
+
+    @Schema(description = "Number of summaries created", example = "4")
+    private int created;
+
+    @Schema(description = "Number of files that failed", example = "1")
+    private int failed;
+
+    @Schema(description = "One result per uploaded file, in request order")
+    private List<SummaryBatchItem> results;
+}
@@ -0,0 +1,39 @@
+package tubes.pbo.be.summary.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Summary generation job status")
+public class SummaryJobResponse {
+
+    @Schema(description = "Job ID", example = "1")
+    private Long id;
+
+    @Schema(description = "Job status", example = "summarizing",
+            allowableValues = {"queued", "extracting", "summarizing", "done", "failed"})
+    private String status;
+
+    @Schema(description = "Original PDF filename", example = "document.pdf")
+    private String originalFilename;
+
+    @Schema(description = "ID of the generated summary (only present when done)", example = "1")
+    private Long summaryId;
+
+    @Schema(description = "Failure reason (only present when failed)", example = "Invalid or corrupted PDF file")
+    private String errorMessage;
+
+    @Schema(description = "Creation timestamp", example = "2026-01-02T10:00:00")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "Last status change timestamp", example = "2026-01-02T10:00:05")
+    private LocalDateTime updatedAt;
+}
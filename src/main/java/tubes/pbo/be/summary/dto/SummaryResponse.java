@@ -30,4 +30,13 @@ public class SummaryResponse {
 
     @Schema(description = "Creation timestamp", example = "2026-01-02T10:00:00Z")
     private LocalDateTime createdAt;
+
+    @Schema(description = "Whether the PDF was too long and only its beginning was summarized", example = "false")
+    private boolean truncated;
+
+    @Schema(description = "Number of pages whose text was summarized", example = "12")
+    private Integer pagesSummarized;
+
+    @Schema(description = "Number of pages in the PDF", example = "12")
+    private Integer totalPages;
 }
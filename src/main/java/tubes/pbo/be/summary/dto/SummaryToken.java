@@ -0,0 +1,17 @@
+package tubes.pbo.be.summary.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "Next piece of a streamed summary")
+public class SummaryToken {
+
+    // Sent as JSON so leading spaces and newlines survive the SSE data line
+    @Schema(description = "Markdown fragment, to be appended as is", example = " world")
+    private String text;
+}
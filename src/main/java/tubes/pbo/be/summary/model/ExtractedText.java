@@ -0,0 +1,59 @@
+package tubes.pbo.be.summary.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Deflate-compressed text extracted from a PDF, shared by every upload with the same content.
+ * Kept out of {@link Summary} so listing summaries never reads the blob.
+ */
+@Entity
+@Table(name = "extracted_texts", indexes = {
+    @Index(name = "idx_extracted_text_hash", columnList = "contentHash", unique = true)
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtractedText {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String contentHash;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] compressedText;
+
+    // Comma-separated offset in the text where each page starts
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String pageOffsets;
+
+    @Column(nullable = false)
+    private Integer pageCount;
+
+    @Column(nullable = false)
+    private Integer textLength;
+
+    // Pages in the PDF, which is more than pageCount when extraction stopped at a budget.
+    // Null on rows stored before budgets existed, which were never truncated.
+    private Integer totalPageCount;
+
+    private Boolean pageLimitReached;
+
+    private Boolean charLimitReached;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
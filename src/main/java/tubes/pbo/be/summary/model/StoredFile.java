@@ -0,0 +1,50 @@
+package tubes.pbo.be.summary.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A physical upload shared by every summary whose PDF has the same content.
+ * The file is removed only when refCount drops to zero.
+ */
+@Entity
+@Table(name = "stored_files", indexes = {
+    @Index(name = "idx_stored_file_sha256", columnList = "sha256", unique = true),
+    @Index(name = "idx_stored_file_path", columnList = "filePath")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredFile {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 64)
+    private String sha256;
+
+    @Column(nullable = false, length = 500)
+    private String filePath;
+
+    @Column(nullable = false)
+    private Long sizeBytes;
+
+    @Column(nullable = false)
+    private Integer refCount = 1;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (refCount == null) {
+            refCount = 1;
+        }
+    }
+}
@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "summaries", indexes = {
-    @Index(name = "idx_user_created", columnList = "userId, createdAt")
+    @Index(name = "idx_user_created", columnList = "userId, createdAt"),
+    @Index(name = "idx_content_hash_model", columnList = "contentHash, aiModel")
 })
 @Data
 @NoArgsConstructor
@@ -34,6 +35,10 @@ public class Summary {
     @Column(nullable = false, length = 500)
     private String filePath;
 
+    // SHA-256 of the uploaded PDF, used to reuse earlier results for identical uploads
+    @Column(length = 64)
+    private String contentHash;
+
     @Column(nullable = false, columnDefinition = "TEXT")
     private String summaryText;
 
@@ -43,6 +48,13 @@ public class Summary {
     @Column(nullable = false, length = 100)
     private String aiModel;
 
+    // Set when the PDF went over the extraction budget and only its first pages were summarized
+    private Boolean truncated;
+
+    private Integer pagesSummarized;
+
+    private Integer totalPages;
+
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
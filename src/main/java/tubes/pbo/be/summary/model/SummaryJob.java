@@ -0,0 +1,78 @@
+package tubes.pbo.be.summary.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "summary_jobs", indexes = {
+    @Index(name = "idx_summary_job_user_created", columnList = "userId, createdAt"),
+    @Index(name = "idx_summary_job_status", columnList = "status, createdAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SummaryJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 255)
+    private String originalFilename;
+
+    @Column(nullable = false, length = 500)
+    private String filePath;
+
+    @Column(length = 64)
+    private String contentHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.QUEUED;
+
+    // Set once the job is DONE
+    private Long summaryId;
+
+    @Column(length = 500)
+    private String errorMessage;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    // A QUEUED job is not dispatched before this time
+    private LocalDateTime notBefore;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+        if (status == null) {
+            status = Status.QUEUED;
+        }
+        if (attempts == null) {
+            attempts = 0;
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public enum Status {
+        QUEUED, EXTRACTING, SUMMARIZING, DONE, FAILED
+    }
+}
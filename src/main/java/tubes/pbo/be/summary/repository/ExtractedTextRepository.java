@@ -0,0 +1,38 @@
+package tubes.pbo.be.summary.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import tubes.pbo.be.summary.model.ExtractedText;
+
+import java.util.Optional;
+
+@Repository
+public interface ExtractedTextRepository extends JpaRepository<ExtractedText, Long> {
+
+    Optional<ExtractedText> findByContentHash(String contentHash);
+
+    /**
+     * Page counts and truncation flags only, without reading the compressed text.
+     */
+    Optional<ExtractionInfo> findInfoByContentHash(String contentHash);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ExtractedText t WHERE t.contentHash = :contentHash")
+    int deleteByContentHash(@Param("contentHash") String contentHash);
+
+    interface ExtractionInfo {
+
+        Integer getPageCount();
+
+        Integer getTotalPageCount();
+
+        Boolean getPageLimitReached();
+
+        Boolean getCharLimitReached();
+    }
+}
@@ -0,0 +1,26 @@
+package tubes.pbo.be.summary.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import tubes.pbo.be.summary.model.StoredFile;
+
+import java.util.Optional;
+
+@Repository
+public interface StoredFileRepository extends JpaRepository<StoredFile, Long> {
+
+    // Row locks keep concurrent uploads and deletes of the same content from racing on refCount
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM StoredFile f WHERE f.sha256 = :sha256")
+    Optional<StoredFile> findBySha256ForUpdate(@Param("sha256") String sha256);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM StoredFile f WHERE f.filePath = :filePath")
+    Optional<StoredFile> findByFilePathForUpdate(@Param("filePath") String filePath);
+
+    boolean existsBySha256(String sha256);
+}
@@ -0,0 +1,64 @@
+package tubes.pbo.be.summary.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import tubes.pbo.be.summary.model.SummaryJob;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SummaryJobRepository extends JpaRepository<SummaryJob, Long> {
+
+    Optional<SummaryJob> findByIdAndUserId(Long id, Long userId);
+
+    @Query("SELECT j FROM SummaryJob j WHERE j.status = :status AND (j.notBefore IS NULL OR j.notBefore <= :now) " +
+           "ORDER BY j.createdAt ASC")
+    List<SummaryJob> findDispatchable(@Param("status") SummaryJob.Status status,
+                                      @Param("now") LocalDateTime now,
+                                      Pageable pageable);
+
+    List<SummaryJob> findByUserIdAndStatusIn(Long userId, Collection<SummaryJob.Status> statuses);
+
+    @Modifying
+    @Transactional
+    void deleteByUserId(Long userId);
+
+    List<SummaryJob> findByStatusInAndUpdatedAtBefore(Collection<SummaryJob.Status> statuses, LocalDateTime staleBefore);
+
+    // Atomically moves a job out of QUEUED so that it is processed at most once
+    @Modifying
+    @Transactional
+    @Query("UPDATE SummaryJob j SET j.status = :newStatus, j.attempts = j.attempts + 1, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.status = :expectedStatus")
+    int claim(@Param("id") Long id,
+              @Param("expectedStatus") SummaryJob.Status expectedStatus,
+              @Param("newStatus") SummaryJob.Status newStatus,
+              @Param("now") LocalDateTime now);
+
+    // Moves a job nobody is working on any more, unless a heartbeat touched it after it was read
+    @Modifying
+    @Transactional
+    @Query("UPDATE SummaryJob j SET j.status = :newStatus, j.errorMessage = :errorMessage, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.status IN :statuses AND j.updatedAt < :staleBefore")
+    int recoverStale(@Param("id") Long id,
+                     @Param("statuses") Collection<SummaryJob.Status> statuses,
+                     @Param("staleBefore") LocalDateTime staleBefore,
+                     @Param("newStatus") SummaryJob.Status newStatus,
+                     @Param("errorMessage") String errorMessage,
+                     @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE SummaryJob j SET j.updatedAt = :now WHERE j.id IN :ids AND j.status IN :statuses")
+    int touch(@Param("ids") Collection<Long> ids,
+              @Param("statuses") Collection<SummaryJob.Status> statuses,
+              @Param("now") LocalDateTime now);
+}
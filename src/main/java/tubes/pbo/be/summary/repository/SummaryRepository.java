@@ -4,20 +4,39 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import tubes.pbo.be.summary.model.Summary;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface SummaryRepository extends JpaRepository<Summary, Long> {
     
     Page<Summary> findByUserId(Long userId, Pageable pageable);
+
+    // List views select only the columns they show, so listing never reads summaryText
+    @Query(value = "SELECT s.id AS id, s.originalFilename AS originalFilename, s.aiProvider AS aiProvider, " +
+            "s.createdAt AS createdAt FROM Summary s WHERE s.userId = :userId",
+            countQuery = "SELECT COUNT(s) FROM Summary s WHERE s.userId = :userId")
+    Page<SummaryListView> findListByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    // Keyset page: rows after the (createdAt, id) cursor, read through idx_user_created without a count query
+    @Query("SELECT s.id AS id, s.originalFilename AS originalFilename, s.aiProvider AS aiProvider, " +
+            "s.createdAt AS createdAt FROM Summary s WHERE s.userId = :userId " +
+            "AND (s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id)) " +
+            "ORDER BY s.createdAt DESC, s.id DESC")
+    List<SummaryListView> findListByUserIdAfter(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                                @Param("id") Long id, Pageable limit);
     
     Optional<Summary> findByIdAndUserId(Long id, Long userId);
 
     boolean existsByIdAndUserId(Long id, Long userId);
+
+    // Latest summary of identical content produced by the same model
+    Optional<Summary> findFirstByContentHashAndAiModelOrderByCreatedAtDesc(String contentHash, String aiModel);
     
     // Admin: count summaries by user
     long countByUserId(Long userId);
@@ -31,9 +50,42 @@ public interface SummaryRepository extends JpaRepository<Summary, Long> {
     
     // Admin: get AI provider usage statistics
     @Query("SELECT s.aiProvider, COUNT(s) FROM Summary s GROUP BY s.aiProvider")
-    java.util.List<Object[]> countByAiProvider();
+    List<Object[]> countByAiProvider();
     
     // Admin: get recent summaries with user info for activity
     @Query("SELECT s FROM Summary s ORDER BY s.createdAt DESC")
     Page<Summary> findAllOrderByCreatedAtDesc(Pageable pageable);
+
+    // Admin: activity log rows joined with their user in the same query
+    @Query(value = "SELECT u.id AS userId, u.name AS userName, u.email AS userEmail, " +
+            "s.originalFilename AS originalFilename, s.aiProvider AS aiProvider, s.createdAt AS createdAt " +
+            "FROM Summary s JOIN s.user u ORDER BY s.createdAt DESC",
+            countQuery = "SELECT COUNT(s) FROM Summary s JOIN s.user u")
+    Page<SummaryActivityView> findActivity(Pageable pageable);
+
+    interface SummaryListView {
+
+        Long getId();
+
+        String getOriginalFilename();
+
+        String getAiProvider();
+
+        LocalDateTime getCreatedAt();
+    }
+
+    interface SummaryActivityView {
+
+        Long getUserId();
+
+        String getUserName();
+
+        String getUserEmail();
+
+        String getOriginalFilename();
+
+        String getAiProvider();
+
+        LocalDateTime getCreatedAt();
+    }
 }
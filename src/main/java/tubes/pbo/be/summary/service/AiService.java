@@ -2,48 +2,194 @@ package tubes.pbo.be.summary.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import tubes.pbo.be.shared.ai.AiGateway;
+import tubes.pbo.be.shared.exception.AiCapacityExceededException;
 import tubes.pbo.be.shared.exception.AiServiceException;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AiService {
 
-    private final ChatClient.Builder chatClientBuilder;
+    // Collapse rounds before the reduce prompt is sent regardless of size
+    private static final int MAX_COLLAPSE_ROUNDS = 3;
+
+    private final AiGateway aiGateway;
+    @Qualifier("summaryMapExecutor")
+    private final AsyncTaskExecutor summaryMapExecutor;
 
     @Value("${spring.ai.google.genai.chat.options.model}")
     private String aiModel;
 
-    public String generateSummary(String text) {
+    @Value("${app.ai.summary.map-reduce-threshold-tokens:30000}")
+    private int mapReduceThresholdTokens;
+
+    @Value("${app.ai.summary.chunk-tokens:8000}")
+    private int chunkTokens;
+
+    /**
+     * Summarizes the document in one prompt, or map-reduce style when it is larger
+     * than {@code mapReduceThresholdTokens}.
+     *
+     * @param userId the user the summary is for, used to share AI capacity fairly
+     */
+    public String generateSummary(Long userId, String text) {
         try {
-            String prompt = """
-                Please provide a comprehensive and structured summary of the following document.
-                Focus on key points, main arguments, and important details.
-                Format the summary in clear, readable markdown with appropriate sections.
-                
-                Document text:
-                %s
-                """.formatted(text);
-
-            ChatClient chatClient = chatClientBuilder.build();
-            
-            String summary = chatClient.prompt()
-                    .user(prompt)
-                    .call()
-                    .content();
+            String summary;
+            if (TextChunker.estimateTokens(text) > mapReduceThresholdTokens) {
+                summary = generateChunkedSummary(userId, text);
+            } else {
+                summary = aiGateway.call(userId, summaryPrompt(text));
+            }
 
             log.info("Successfully generated summary using model: {}", aiModel);
             return summary;
-            
+
+        } catch (AiCapacityExceededException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to generate summary with AI", e);
             throw new AiServiceException("Failed to generate summary. Please try again later.", e);
         }
     }
 
+    /**
+     * Streams the summary as it is generated. For long documents the chunk pass still runs
+     * to completion first, and only the final merge is streamed.
+     */
+    public Flux<String> streamSummary(Long userId, String text) {
+        Flux<String> tokens;
+        if (TextChunker.estimateTokens(text) > mapReduceThresholdTokens) {
+            tokens = Mono.fromCallable(() -> combinePartialSummaries(userId, text))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMapMany(combined -> aiGateway.stream(userId, reducePrompt(combined)));
+        } else {
+            tokens = aiGateway.stream(userId, summaryPrompt(text));
+        }
+
+        return tokens
+                .doOnComplete(() -> log.info("Successfully streamed summary using model: {}", aiModel))
+                .onErrorMap(e -> !(e instanceof AiCapacityExceededException), e -> {
+                    log.error("Failed to stream summary with AI", e);
+                    return new AiServiceException("Failed to generate summary. Please try again later.", e);
+                });
+    }
+
+    private String generateChunkedSummary(Long userId, String text) {
+        return aiGateway.call(userId, reducePrompt(combinePartialSummaries(userId, text)));
+    }
+
+    /**
+     * Summarizes each chunk concurrently (bounded by the summaryMapExecutor pool) and joins
+     * the partial summaries. Partials that are still too large together are condensed again.
+     */
+    private String combinePartialSummaries(Long userId, String text) {
+        List<String> partials = mapChunks(userId, TextChunker.split(text, chunkTokens), false);
+        log.info("Summarized document in {} chunks", partials.size());
+
+        String combined = joinPartials(partials);
+        for (int round = 0; round < MAX_COLLAPSE_ROUNDS
+                && partials.size() > 1
+                && TextChunker.estimateTokens(combined) > mapReduceThresholdTokens; round++) {
+            partials = mapChunks(userId, TextChunker.split(combined, chunkTokens), true);
+            combined = joinPartials(partials);
+        }
+
+        return combined;
+    }
+
+    private List<String> mapChunks(Long userId, List<String> chunks, boolean condensing) {
+        List<Future<String>> futures = new ArrayList<>(chunks.size());
+        try {
+            for (int i = 0; i < chunks.size(); i++) {
+                String prompt = condensing
+                        ? condensePrompt(chunks.get(i))
+                        : chunkPrompt(chunks.get(i), i + 1, chunks.size());
+                futures.add(summaryMapExecutor.submit(() -> aiGateway.call(userId, prompt)));
+            }
+
+            // Joined in submission order so the partials keep the document order
+            List<String> partials = new ArrayList<>(futures.size());
+            for (Future<String> future : futures) {
+                partials.add(future.get());
+            }
+            return partials;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new AiServiceException("Failed to summarize a document part", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AiServiceException("Interrupted while summarizing document parts", e);
+        } finally {
+            // After a failure or an interrupt the other parts are useless: queued ones never start
+            // and running ones are interrupted. Finished futures ignore the cancel.
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private static String joinPartials(List<String> partials) {
+        return String.join("\n\n", partials);
+    }
+
+    private static String summaryPrompt(String text) {
+        return """
+            Please provide a comprehensive and structured summary of the following document.
+            Focus on key points, main arguments, and important details.
+            Format the summary in clear, readable markdown with appropriate sections.
+
+            Document text:
+            %s
+            """.formatted(text);
+    }
+
+    private static String chunkPrompt(String chunk, int part, int totalParts) {
+        return """
+            The following is part %d of %d of a longer document.
+            Summarize this part, keeping its key points, arguments, definitions and important details.
+            Use concise markdown bullet points and keep any section titles that appear in it.
+
+            Document part:
+            %s
+            """.formatted(part, totalParts, chunk);
+    }
+
+    private static String condensePrompt(String partials) {
+        return """
+            The following are summaries of consecutive parts of one document.
+            Condense them into a single shorter summary without losing key points or important details.
+            Use concise markdown bullet points.
+
+            Summaries:
+            %s
+            """.formatted(partials);
+    }
+
+    private static String reducePrompt(String partials) {
+        return """
+            The following are summaries of consecutive parts of one document, in order.
+            Please combine them into a comprehensive and structured summary of the whole document.
+            Focus on key points, main arguments, and important details, and remove repetition between parts.
+            Format the summary in clear, readable markdown with appropriate sections.
+
+            Part summaries:
+            %s
+            """.formatted(partials);
+    }
+
     public String getAiProvider() {
         return "gemini";
     }
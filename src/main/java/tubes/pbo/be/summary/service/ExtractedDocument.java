@@ -0,0 +1,111 @@
+package tubes.pbo.be.summary.service;
+
+import java.util.Arrays;
+
+/**
+ * Text extracted from a PDF together with the offset in that text where each page starts.
+ * A document read back from storage keeps only the compressed bytes until the text is first needed.
+ * When extraction stopped at the page or character budget, the flags say which one was hit.
+ */
+public final class ExtractedDocument {
+
+    private final int[] pageOffsets;
+    private final int totalPageCount;
+    private final boolean pageLimitReached;
+    private final boolean charLimitReached;
+    private byte[] compressedText;
+    private String text;
+
+    private ExtractedDocument(String text, byte[] compressedText, int[] pageOffsets,
+                              int totalPageCount, boolean pageLimitReached, boolean charLimitReached) {
+        this.text = text;
+        this.compressedText = compressedText;
+        this.pageOffsets = pageOffsets;
+        this.totalPageCount = totalPageCount;
+        this.pageLimitReached = pageLimitReached;
+        this.charLimitReached = charLimitReached;
+    }
+
+    public static ExtractedDocument of(String text, int[] pageOffsets) {
+        return of(text, pageOffsets, pageOffsets.length, false, false);
+    }
+
+    /**
+     * @param totalPageCount pages in the PDF, including any beyond the budget
+     */
+    public static ExtractedDocument of(String text, int[] pageOffsets, int totalPageCount,
+                                       boolean pageLimitReached, boolean charLimitReached) {
+        return new ExtractedDocument(text, null, pageOffsets.clone(), totalPageCount, pageLimitReached, charLimitReached);
+    }
+
+    static ExtractedDocument compressed(byte[] compressedText, int[] pageOffsets, int totalPageCount,
+                                        boolean pageLimitReached, boolean charLimitReached) {
+        return new ExtractedDocument(null, compressedText, pageOffsets.clone(), totalPageCount,
+                pageLimitReached, charLimitReached);
+    }
+
+    public synchronized String text() {
+        if (text == null) {
+            text = TextCompression.inflate(compressedText);
+            compressedText = null;
+        }
+        return text;
+    }
+
+    /**
+     * @return pages whose text is included, which is fewer than {@link #totalPageCount()} when truncated
+     */
+    public int pageCount() {
+        return pageOffsets.length;
+    }
+
+    public int totalPageCount() {
+        return totalPageCount;
+    }
+
+    public boolean pageLimitReached() {
+        return pageLimitReached;
+    }
+
+    public boolean charLimitReached() {
+        return charLimitReached;
+    }
+
+    public boolean isTruncated() {
+        return pageLimitReached || charLimitReached;
+    }
+
+    /**
+     * @param page 1-based page number
+     */
+    public String pageText(int page) {
+        if (page < 1 || page > pageOffsets.length) {
+            throw new IndexOutOfBoundsException("Page " + page + " of " + pageOffsets.length);
+        }
+        String fullText = text();
+        int end = page < pageOffsets.length ? pageOffsets[page] : fullText.length();
+        return fullText.substring(pageOffsets[page - 1], end).strip();
+    }
+
+    public int[] pageOffsets() {
+        return pageOffsets.clone();
+    }
+
+    static String encodeOffsets(int[] pageOffsets) {
+        StringBuilder encoded = new StringBuilder(pageOffsets.length * 6);
+        for (int i = 0; i < pageOffsets.length; i++) {
+            if (i > 0) {
+                encoded.append(',');
+            }
+            encoded.append(pageOffsets[i]);
+        }
+        return encoded.toString();
+    }
+
+    static int[] decodeOffsets(String encoded) {
+        if (encoded == null || encoded.isEmpty()) {
+            return new int[0];
+        }
+        return Arrays.stream(encoded.split(",")).mapToInt(Integer::parseInt).toArray();
+    }
+}
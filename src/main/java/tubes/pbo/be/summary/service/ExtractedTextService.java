@@ -0,0 +1,93 @@
+package tubes.pbo.be.summary.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import tubes.pbo.be.summary.model.ExtractedText;
+import tubes.pbo.be.summary.repository.ExtractedTextRepository;
+import tubes.pbo.be.summary.repository.ExtractedTextRepository.ExtractionInfo;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Keeps the text extracted from each distinct PDF, so summarizing the same content again
+ * is a database read instead of another parse.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExtractedTextService {
+
+    private final ExtractedTextRepository extractedTextRepository;
+    private final PdfProcessingService pdfProcessingService;
+
+    /**
+     * Returns the stored text for this content, extracting and storing it on first use.
+     *
+     * @param contentHash SHA-256 of the PDF, or null for uploads stored before hashing,
+     *                    which are extracted every time
+     */
+    public ExtractedDocument getOrExtract(String contentHash, Path pdfPath) {
+        if (contentHash != null) {
+            Optional<ExtractedDocument> stored = find(contentHash);
+            if (stored.isPresent()) {
+                log.debug("Reusing extracted text for {}", contentHash);
+                return stored.get();
+            }
+        }
+
+        ExtractedDocument document = pdfProcessingService.extractDocument(pdfPath);
+        if (contentHash != null) {
+            store(contentHash, document);
+        }
+        return document;
+    }
+
+    /**
+     * @return the stored text, still compressed until {@link ExtractedDocument#text()} is called
+     */
+    public Optional<ExtractedDocument> find(String contentHash) {
+        return extractedTextRepository.findByContentHash(contentHash)
+                .map(stored -> {
+                    int[] pageOffsets = ExtractedDocument.decodeOffsets(stored.getPageOffsets());
+                    // Rows stored before extraction budgets hold the whole document
+                    int totalPageCount = stored.getTotalPageCount() != null
+                            ? stored.getTotalPageCount()
+                            : pageOffsets.length;
+                    return ExtractedDocument.compressed(stored.getCompressedText(), pageOffsets, totalPageCount,
+                            Boolean.TRUE.equals(stored.getPageLimitReached()),
+                            Boolean.TRUE.equals(stored.getCharLimitReached()));
+                });
+    }
+
+    /**
+     * @return page counts and truncation flags of the stored text, without reading the text itself
+     */
+    public Optional<ExtractionInfo> findInfo(String contentHash) {
+        return extractedTextRepository.findInfoByContentHash(contentHash);
+    }
+
+    private void store(String contentHash, ExtractedDocument document) {
+        String text = document.text();
+        ExtractedText extractedText = new ExtractedText();
+        extractedText.setContentHash(contentHash);
+        extractedText.setCompressedText(TextCompression.deflate(text));
+        extractedText.setPageOffsets(ExtractedDocument.encodeOffsets(document.pageOffsets()));
+        extractedText.setPageCount(document.pageCount());
+        extractedText.setTextLength(text.length());
+        extractedText.setTotalPageCount(document.totalPageCount());
+        extractedText.setPageLimitReached(document.pageLimitReached());
+        extractedText.setCharLimitReached(document.charLimitReached());
+
+        try {
+            extractedTextRepository.save(extractedText);
+            log.info("Stored extracted text for {} ({} chars, {} bytes compressed)",
+                    contentHash, text.length(), extractedText.getCompressedText().length);
+        } catch (DataIntegrityViolationException _) {
+            // The same content was extracted concurrently and the other copy is already stored
+            log.debug("Extracted text for {} was stored concurrently", contentHash);
+        }
+    }
+}
@@ -1,42 +1,99 @@
 package tubes.pbo.be.summary.service;
 
+import com.itextpdf.io.source.IRandomAccessSource;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.ReaderProperties;
 import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import tubes.pbo.be.shared.exception.ValidationException;
 
-import java.io.InputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class PdfProcessingService {
 
-    public String extractText(InputStream pdfInputStream) {
+    @Qualifier("pdfExtractionExecutor")
+    private final Executor pdfExtractionExecutor;
+
+    @Value("${app.pdf.extraction.parallel-threshold-pages:50}")
+    private int parallelThresholdPages;
+
+    @Value("${app.pdf.extraction.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.pdf.extraction.max-pages:500}")
+    private int maxPages;
+
+    @Value("${app.pdf.extraction.max-chars:2000000}")
+    private int maxChars;
+
+    /**
+     * Extracts the text of a stored PDF.
+     */
+    public String extractText(Path pdfPath) {
+        return extractDocument(pdfPath).text();
+    }
+
+    /**
+     * Extracts the text of a stored PDF along with the offset where each page starts.
+     * The file is memory-mapped once so iText can seek through it without buffering it on the heap.
+     * Documents with at least {@code parallelThresholdPages} pages are split into page ranges
+     * that are extracted concurrently and joined back in page order.
+     * <p>
+     * At most {@code maxPages} pages and {@code maxChars} characters are kept. Extraction stops
+     * as soon as the budget is used up, and the result says which limit cut the document short.
+     * Parallel ranges draw on one shared character budget and stop as soon as any range fails.
+     */
+    public ExtractedDocument extractDocument(Path pdfPath) {
         try {
-            PdfReader reader = new PdfReader(pdfInputStream);
-            PdfDocument pdfDoc = new PdfDocument(reader);
-            
-            StringBuilder text = new StringBuilder();
-            int numberOfPages = pdfDoc.getNumberOfPages();
-            
-            for (int i = 1; i <= numberOfPages; i++) {
-                String pageText = PdfTextExtractor.getTextFromPage(pdfDoc.getPage(i));
-                text.append(pageText).append("\n");
-            }
-            
-            pdfDoc.close();
-            
-            String extractedText = text.toString().trim();
-            
-            if (extractedText.isEmpty()) {
+            SharedSource source = SharedSource.map(pdfPath);
+            int numberOfPages;
+            try (PdfDocument pdfDoc = open(source)) {
+                numberOfPages = pdfDoc.getNumberOfPages();
+            }
+            int pagesToExtract = Math.min(numberOfPages, Math.max(1, maxPages));
+
+            List<String> pages;
+            if (pagesToExtract >= parallelThresholdPages && parallelism > 1) {
+                pages = extractParallel(source, pagesToExtract);
+            } else {
+                pages = extractSequential(source, pagesToExtract);
+            }
+            ExtractedDocument document = join(pages, numberOfPages, pagesToExtract, maxChars);
+
+            if (document.text().isEmpty()) {
                 throw new ValidationException("PDF file appears to be empty or contains no extractable text");
             }
-            
-            log.info("Successfully extracted {} pages of text from PDF", numberOfPages);
-            return extractedText;
-            
+
+            if (document.isTruncated()) {
+                log.info("Extracted {} of {} pages ({} chars) before reaching the extraction budget",
+                        document.pageCount(), numberOfPages, document.text().length());
+            } else {
+                log.info("Successfully extracted {} pages of text from PDF", numberOfPages);
+            }
+            return document;
+
         } catch (ValidationException e) {
             throw e;
         } catch (Exception e) {
@@ -44,4 +101,187 @@ public class PdfProcessingService {
             throw new ValidationException("Invalid or corrupted PDF file");
         }
     }
+
+    List<String> extractSequential(SharedSource source, int numberOfPages) throws IOException {
+        return extractPages(source, 1, numberOfPages, new AtomicLong(), new AtomicBoolean());
+    }
+
+    List<String> extractParallel(SharedSource source, int numberOfPages) throws IOException {
+        int ranges = Math.min(parallelism, numberOfPages);
+        int pagesPerRange = (numberOfPages + ranges - 1) / ranges;
+        // Shared by all ranges, so together they hold about one budget of text rather than one each
+        AtomicLong extractedChars = new AtomicLong();
+        AtomicBoolean failed = new AtomicBoolean();
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+        List<CompletableFuture<List<String>>> parts = new ArrayList<>(ranges);
+        for (int first = 1; first <= numberOfPages; first += pagesPerRange) {
+            int from = first;
+            int to = Math.min(first + pagesPerRange - 1, numberOfPages);
+            // PdfDocument is not thread-safe, so each range parses its own document over the shared bytes
+            parts.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return extractPages(source, from, to, extractedChars, failed);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, pdfExtractionExecutor));
+        }
+        for (CompletableFuture<List<String>> part : parts) {
+            part.whenComplete((_, error) -> {
+                if (error != null && !(error instanceof CancellationException)
+                        && firstFailure.compareAndSet(null, error)) {
+                    failed.set(true);
+                    // Running ranges stop at their next page, queued ones never start
+                    parts.forEach(other -> other.cancel(false));
+                }
+            });
+        }
+
+        List<String> pages = new ArrayList<>(numberOfPages);
+        try {
+            for (CompletableFuture<List<String>> part : parts) {
+                List<String> rangePages = part.join();
+                pages.addAll(rangePages);
+                if (rangePages.size() < pagesPerRange) {
+                    // This range stopped early, so later pages would leave a gap in the text
+                    break;
+                }
+            }
+        } catch (CompletionException | CancellationException e) {
+            // A cancelled range only reports that a sibling failed, so surface the sibling's error
+            Throwable cause = firstFailure.get() != null ? firstFailure.get() : e;
+            throw new IOException("Failed to extract page range", cause instanceof CompletionException
+                    && cause.getCause() != null ? cause.getCause() : cause);
+        }
+
+        // Later ranges may have used up the shared budget before the earlier ones got to it;
+        // the pages after the gap are then read in order, as sequential extraction would
+        long prefixChars = pages.stream().mapToLong(page -> page.length() + 1).sum();
+        if (prefixChars < maxChars && pages.size() < numberOfPages) {
+            pages.addAll(extractPages(source, pages.size() + 1, numberOfPages, new AtomicLong(prefixChars),
+                    new AtomicBoolean()));
+        }
+        return pages;
+    }
+
+    /**
+     * Extracts pages in order until all ranges sharing {@code extractedChars} hold {@code maxChars}
+     * characters between them, or until another range has failed.
+     */
+    private List<String> extractPages(SharedSource source, int from, int to, AtomicLong extractedChars,
+                                      AtomicBoolean failed) throws IOException {
+        List<String> pages = new ArrayList<>(to - from + 1);
+        try (PdfDocument pdfDoc = open(source)) {
+            for (int i = from; i <= to && extractedChars.get() < maxChars && !failed.get(); i++) {
+                String pageText = PdfTextExtractor.getTextFromPage(pdfDoc.getPage(i));
+                pages.add(pageText);
+                extractedChars.addAndGet(pageText.length() + 1);
+            }
+        }
+        return pages;
+    }
+
+    static ExtractedDocument join(List<String> pages) {
+        return join(pages, pages.size(), pages.size(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Joins pages with a line break after each one, up to {@code maxChars}, and trims the result,
+     * shifting the page offsets so they still point into the trimmed text.
+     *
+     * @param totalPages     pages in the PDF
+     * @param pagesRequested pages that fit the page budget; fewer pages means extraction stopped at the character budget
+     */
+    static ExtractedDocument join(List<String> pages, int totalPages, int pagesRequested, int maxChars) {
+        int limit = Math.max(1, maxChars);
+        boolean charLimitReached = pages.size() < pagesRequested;
+        StringBuilder text = new StringBuilder();
+        int[] offsets = new int[pages.size()];
+        int included = 0;
+        while (included < pages.size()) {
+            int room = limit - text.length();
+            if (room <= 0) {
+                charLimitReached = true;
+                break;
+            }
+            String page = pages.get(included);
+            offsets[included++] = text.length();
+            if (page.length() >= room) {
+                text.append(page, 0, room);
+                charLimitReached |= page.length() > room || included < pages.size();
+                break;
+            }
+            text.append(page).append("\n");
+        }
+        if (included < offsets.length) {
+            offsets = Arrays.copyOf(offsets, included);
+        }
+
+        // Same characters String.trim() removes
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = Math.clamp(offsets[i] - start, 0, end - start);
+        }
+        return ExtractedDocument.of(text.substring(start, end), offsets, totalPages,
+                pagesRequested < totalPages, charLimitReached);
+    }
+
+    private static PdfDocument open(SharedSource source) throws IOException {
+        return new PdfDocument(new PdfReader(source, new ReaderProperties()));
+    }
+
+    /**
+     * Read-only view over a memory-mapped PDF. Reads are absolute, so any number of readers
+     * can share one mapping; closing a reader leaves the mapping to the garbage collector.
+     */
+    static final class SharedSource implements IRandomAccessSource {
+
+        private final ByteBuffer buffer;
+
+        private SharedSource(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        static SharedSource map(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                return new SharedSource(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+
+        @Override
+        public int get(long position) {
+            if (position < 0 || position >= buffer.limit()) {
+                return -1;
+            }
+            return buffer.get((int) position) & 0xff;
+        }
+
+        @Override
+        public int get(long position, byte[] bytes, int off, int len) {
+            if (position < 0 || position >= buffer.limit()) {
+                return -1;
+            }
+            int count = (int) Math.min(len, buffer.limit() - position);
+            buffer.get((int) position, bytes, off, count);
+            return count;
+        }
+
+        @Override
+        public long length() {
+            return buffer.limit();
+        }
+
+        @Override
+        public void close() {
+            // The mapping is shared with other readers
+        }
+    }
 }
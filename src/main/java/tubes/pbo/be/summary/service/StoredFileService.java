@@ -0,0 +1,230 @@
+package tubes.pbo.be.summary.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import tubes.pbo.be.shared.config.FileStorageConfig;
+import tubes.pbo.be.shared.exception.FileOperationException;
+import tubes.pbo.be.summary.model.StoredFile;
+import tubes.pbo.be.summary.repository.ExtractedTextRepository;
+import tubes.pbo.be.summary.repository.StoredFileRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Content-addressed storage for uploaded PDFs.
+ * Identical uploads share one file under objects/, and each summary holds a reference to it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StoredFileService {
+
+    private static final String OBJECTS_DIR = "objects";
+    private static final String TMP_DIR = "tmp";
+
+    private final StoredFileRepository storedFileRepository;
+    private final ExtractedTextRepository extractedTextRepository;
+    private final FileStorageConfig fileStorageConfig;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Stored upload with the SHA-256 of its content.
+     *
+     * @param filePath path relative to the upload directory
+     */
+    public record StoredUpload(String filePath, String sha256, long sizeBytes) {
+    }
+
+    /**
+     * Streams the upload to disk once while hashing it, then either reuses the file already
+     * stored for that content or moves the new one into place. Either way the caller
+     * owns one reference and must hand it to a summary or {@link #discard(String)} it.
+     */
+    public StoredUpload store(MultipartFile file) throws IOException {
+        Path tmpDir = fileStorageConfig.getUploadPath().resolve(TMP_DIR);
+        Files.createDirectories(tmpDir);
+        Path tmpFile = tmpDir.resolve(UUID.randomUUID() + ".part");
+
+        MessageDigest digest = newSha256();
+        long sizeBytes;
+        try (InputStream inputStream = new DigestInputStream(file.getInputStream(), digest)) {
+            sizeBytes = Files.copy(inputStream, tmpFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmpFile);
+            throw e;
+        }
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+
+        try {
+            return register(sha256, tmpFile, sizeBytes);
+        } catch (DataIntegrityViolationException _) {
+            // Someone stored the same content concurrently; their row is committed now
+            return register(sha256, tmpFile, sizeBytes);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    /**
+     * Drops one reference to a stored file. The row update and the decision to delete the file
+     * share one transaction, joining the caller's if there is one. The last reference also takes
+     * the text extracted from it; the file itself goes after commit, and only if nobody stored
+     * the same content again in the meantime.
+     *
+     * @return true if that was the last reference
+     */
+    public boolean release(String filePath) {
+        return Boolean.TRUE.equals(new TransactionTemplate(transactionManager).execute(_ -> {
+            Released released = releaseReference(filePath);
+            if (released.lastReference()) {
+                deleteAfterCommit(filePath, released.sha256());
+            }
+            return released.lastReference();
+        }));
+    }
+
+    /**
+     * Releases a reference that no summary ended up holding.
+     *
+     * @see #release(String)
+     */
+    public void discard(String filePath) {
+        release(filePath);
+    }
+
+    /**
+     * @return absolute location of a stored file
+     */
+    public Path resolve(String filePath) {
+        return fileStorageConfig.getUploadPath().resolve(filePath);
+    }
+
+    public void deleteFile(String filePath) {
+        try {
+            Files.deleteIfExists(resolve(filePath));
+        } catch (IOException e) {
+            log.warn("Failed to delete file: {}", filePath, e);
+        }
+    }
+
+    /**
+     * @param sha256 content hash of the released row, null for an untracked upload
+     */
+    private record Released(boolean lastReference, String sha256) {
+    }
+
+    private Released releaseReference(String filePath) {
+        Optional<StoredFile> tracked = storedFileRepository.findByFilePathForUpdate(filePath);
+        if (tracked.isEmpty()) {
+            // Uploads stored before deduplication belong to exactly one summary
+            return new Released(true, null);
+        }
+
+        StoredFile storedFile = tracked.get();
+        if (storedFile.getRefCount() <= 1) {
+            storedFileRepository.delete(storedFile);
+            extractedTextRepository.deleteByContentHash(storedFile.getSha256());
+            return new Released(true, storedFile.getSha256());
+        }
+
+        storedFile.setRefCount(storedFile.getRefCount() - 1);
+        storedFileRepository.save(storedFile);
+        return new Released(false, storedFile.getSha256());
+    }
+
+    private void deleteAfterCommit(String filePath, String sha256) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deleteUnlessStoredAgain(filePath, sha256);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deleteUnlessStoredAgain(filePath, sha256);
+            }
+        });
+    }
+
+    private void deleteUnlessStoredAgain(String filePath, String sha256) {
+        if (sha256 != null && isStoredAgain(sha256)) {
+            log.info("Keeping file {}, its content was stored again", filePath);
+            return;
+        }
+        deleteFile(filePath);
+    }
+
+    private boolean isStoredAgain(String sha256) {
+        // The committed transaction is still bound here, so the check gets its own
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setReadOnly(true);
+        return Boolean.TRUE.equals(transactionTemplate.execute(_ -> storedFileRepository.existsBySha256(sha256)));
+    }
+
+    private StoredUpload register(String sha256, Path tmpFile, long sizeBytes) {
+        // Own transaction so the row lock is not held for the rest of the caller's work
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        return transactionTemplate.execute(_ -> {
+            Optional<StoredFile> existing = storedFileRepository.findBySha256ForUpdate(sha256);
+            if (existing.isPresent()) {
+                StoredFile storedFile = existing.get();
+                storedFile.setRefCount(storedFile.getRefCount() + 1);
+                storedFileRepository.save(storedFile);
+                log.info("Reusing stored file {} ({} references)", storedFile.getFilePath(), storedFile.getRefCount());
+                return new StoredUpload(storedFile.getFilePath(), sha256, storedFile.getSizeBytes());
+            }
+
+            String filePath = OBJECTS_DIR + "/" + sha256.substring(0, 2) + "/" + sha256 + ".pdf";
+            moveIntoPlace(tmpFile, fileStorageConfig.getUploadPath().resolve(filePath));
+
+            StoredFile storedFile = new StoredFile();
+            storedFile.setSha256(sha256);
+            storedFile.setFilePath(filePath);
+            storedFile.setSizeBytes(sizeBytes);
+            storedFile.setRefCount(1);
+            storedFileRepository.saveAndFlush(storedFile);
+
+            return new StoredUpload(filePath, sha256, sizeBytes);
+        });
+    }
+
+    private void moveIntoPlace(Path source, Path target) {
+        try {
+            Files.createDirectories(target.getParent());
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new FileOperationException("SHA-256 is not available", e);
+        }
+    }
+}
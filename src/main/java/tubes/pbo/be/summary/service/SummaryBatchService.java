@@ -0,0 +1,111 @@
+package tubes.pbo.be.summary.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import tubes.pbo.be.shared.exception.AiCapacityExceededException;
+import tubes.pbo.be.shared.exception.AiUnavailableException;
+import tubes.pbo.be.shared.exception.FileOperationException;
+import tubes.pbo.be.shared.exception.ValidationException;
+import tubes.pbo.be.summary.dto.SummaryBatchItem;
+import tubes.pbo.be.summary.dto.SummaryBatchResponse;
+import tubes.pbo.be.summary.dto.SummaryResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Summarizes several uploads from one request.
+ * Every file is validated before any of them is processed; after that each file succeeds or
+ * fails on its own. A request runs at most {@code parallelism} files at a time, each worker
+ * taking the next file in order, so one large batch cannot occupy the whole pool.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SummaryBatchService {
+
+    private final SummaryService summaryService;
+    @Qualifier("summaryBatchExecutor")
+    private final Executor summaryBatchExecutor;
+
+    @Value("${app.summary.batch.max-files:20}")
+    private int maxFiles;
+
+    @Value("${app.summary.batch.parallelism:3}")
+    private int parallelism;
+
+    public SummaryBatchResponse createSummaries(Long userId, List<MultipartFile> files) {
+        validateBatch(files);
+
+        SummaryBatchItem[] results = new SummaryBatchItem[files.size()];
+        AtomicInteger nextFile = new AtomicInteger();
+        int workers = Math.min(Math.max(1, parallelism), files.size());
+
+        List<CompletableFuture<Void>> running = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            running.add(CompletableFuture.runAsync(() -> {
+                for (int index = nextFile.getAndIncrement(); index < results.length; index = nextFile.getAndIncrement()) {
+                    results[index] = process(userId, index, files.get(index));
+                }
+            }, summaryBatchExecutor));
+        }
+        CompletableFuture.allOf(running.toArray(CompletableFuture[]::new)).join();
+
+        int created = (int) Arrays.stream(results).filter(item -> item.getSummaryId() != null).count();
+        log.info("Batch for user {} created {} of {} summaries", userId, created, results.length);
+        return new SummaryBatchResponse(created, results.length - created, List.of(results));
+    }
+
+    /**
+     * Applies the single-upload checks to every file and rejects the whole batch if any fails,
+     * before anything is stored.
+     */
+    private void validateBatch(List<MultipartFile> files) {
+        if (files == null || files.isEmpty()) {
+            throw new ValidationException("At least one file is required");
+        }
+        if (files.size() > maxFiles) {
+            throw new ValidationException("At most " + maxFiles + " files can be uploaded at once");
+        }
+
+        List<String> invalid = new ArrayList<>();
+        for (MultipartFile file : files) {
+            try {
+                summaryService.validatePdf(file);
+            } catch (ValidationException e) {
+                invalid.add(file.getOriginalFilename() + " (" + e.getMessage() + ")");
+            }
+        }
+        if (!invalid.isEmpty()) {
+            throw new ValidationException("Invalid files: " + String.join(", ", invalid));
+        }
+    }
+
+    private SummaryBatchItem process(Long userId, int index, MultipartFile file) {
+        SummaryBatchItem item = new SummaryBatchItem();
+        item.setIndex(index);
+        item.setOriginalFilename(file.getOriginalFilename());
+        try {
+            SummaryResponse summary = summaryService.createSummary(userId, file);
+            item.setStatus("created");
+            item.setSummaryId(summary.getId());
+        } catch (ValidationException | FileOperationException
+                 | AiCapacityExceededException | AiUnavailableException e) {
+            item.setStatus("failed");
+            item.setErrorMessage(e.getMessage());
+        } catch (Exception e) {
+            log.error("Batch summary of {} failed", file.getOriginalFilename(), e);
+            item.setStatus("failed");
+            item.setErrorMessage("Failed to create summary. Please try again.");
+        }
+        return item;
+    }
+}
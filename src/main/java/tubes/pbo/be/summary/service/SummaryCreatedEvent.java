@@ -0,0 +1,9 @@
+package tubes.pbo.be.summary.service;
+
+/**
+ * Published when a summary has been saved, whichever upload path created it.
+ * Listeners that need the row should use a transactional listener, since the
+ * summary may be saved inside a transaction that has not committed yet.
+ */
+public record SummaryCreatedEvent(Long summaryId) {
+}
@@ -0,0 +1,317 @@
+package tubes.pbo.be.summary.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import tubes.pbo.be.shared.exception.AiCapacityExceededException;
+import tubes.pbo.be.shared.exception.AiUnavailableException;
+import tubes.pbo.be.shared.exception.FileOperationException;
+import tubes.pbo.be.shared.exception.ResourceNotFoundException;
+import tubes.pbo.be.shared.exception.ValidationException;
+import tubes.pbo.be.summary.dto.SummaryJobResponse;
+import tubes.pbo.be.summary.model.Summary;
+import tubes.pbo.be.summary.model.SummaryJob;
+import tubes.pbo.be.summary.repository.SummaryJobRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs summary generation in the background.
+ * Jobs are persisted in the summary_jobs table, which acts as the queue: the bounded
+ * executor only holds the jobs currently being worked on, and anything it cannot take
+ * stays QUEUED until the next dispatch round.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SummaryJobService {
+
+    private static final List<SummaryJob.Status> IN_FLIGHT_STATUSES =
+            List.of(SummaryJob.Status.EXTRACTING, SummaryJob.Status.SUMMARIZING);
+    private static final List<SummaryJob.Status> UNFINISHED_STATUSES =
+            List.of(SummaryJob.Status.QUEUED, SummaryJob.Status.EXTRACTING, SummaryJob.Status.SUMMARIZING);
+    private static final String INTERRUPTED_MESSAGE = "Summary generation was interrupted. Please upload the file again.";
+    private static final String UNAVAILABLE_MESSAGE = "The AI service is unavailable. Please try again later.";
+
+    private final SummaryJobRepository summaryJobRepository;
+    private final SummaryService summaryService;
+    private final StoredFileService storedFileService;
+    private final ExtractedTextService extractedTextService;
+    private final TextNormalizer textNormalizer;
+    private final AiService aiService;
+    private final TransactionTemplate transactionTemplate;
+    @Qualifier("summaryJobExecutor")
+    private final TaskExecutor summaryJobExecutor;
+
+    // Jobs handed to the executor on this node and not finished yet
+    private final Set<Long> pendingJobIds = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.summary.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.summary.jobs.dispatch-batch-size:20}")
+    private int dispatchBatchSize;
+
+    @Value("${app.summary.jobs.stale-after-ms:600000}")
+    private long staleAfterMs;
+
+    /**
+     * Validates and stores the upload, then queues it for summarization.
+     */
+    public SummaryJobResponse submitJob(Long userId, MultipartFile file) {
+        summaryService.validatePdf(file);
+
+        StoredFileService.StoredUpload upload;
+        try {
+            upload = storedFileService.store(file);
+        } catch (IOException e) {
+            log.error("Failed to save PDF file", e);
+            throw new FileOperationException("Failed to save file. Please try again.", e);
+        }
+
+        SummaryJob job = new SummaryJob();
+        job.setUserId(userId);
+        job.setOriginalFilename(file.getOriginalFilename());
+        job.setFilePath(upload.filePath());
+        job.setContentHash(upload.sha256());
+        job.setStatus(SummaryJob.Status.QUEUED);
+        job = summaryJobRepository.save(job);
+
+        log.info("Queued summary job {} for user {}", job.getId(), userId);
+        dispatch(job.getId());
+
+        return toResponse(job);
+    }
+
+    public SummaryJobResponse getJobStatus(Long userId, Long jobId) {
+        SummaryJob job = summaryJobRepository.findByIdAndUserId(jobId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Summary job", "id", jobId));
+
+        return toResponse(job);
+    }
+
+    /**
+     * Deletes all jobs of a user, joining the caller's transaction. Unfinished jobs still hold a
+     * reference to their upload, which is released with them; a worker still running one can no
+     * longer complete it once the row is gone.
+     */
+    public void deleteUserJobs(Long userId) {
+        transactionTemplate.executeWithoutResult(_ -> {
+            summaryJobRepository.findByUserIdAndStatusIn(userId, UNFINISHED_STATUSES)
+                    .forEach(job -> storedFileService.discard(job.getFilePath()));
+            summaryJobRepository.deleteByUserId(userId);
+        });
+    }
+
+    /**
+     * Puts jobs that were in progress when a node went down back in the queue, then starts on the queue.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void requeueInterruptedJobs() {
+        recoverStaleJobs();
+        dispatchQueuedJobs();
+    }
+
+    /**
+     * Requeues in-progress jobs that no node has touched for {@code stale-after-ms}. A running job
+     * is kept fresh by {@link #heartbeat()}, so only jobs whose node stopped are taken over.
+     * Jobs that already used up their attempts are failed instead of being retried forever.
+     */
+    @Scheduled(fixedDelayString = "${app.summary.jobs.recovery-interval-ms:60000}",
+            initialDelayString = "${app.summary.jobs.recovery-interval-ms:60000}")
+    public void recoverStaleJobs() {
+        LocalDateTime staleBefore = LocalDateTime.now().minus(Duration.ofMillis(staleAfterMs));
+        List<SummaryJob> stale = summaryJobRepository.findByStatusInAndUpdatedAtBefore(IN_FLIGHT_STATUSES, staleBefore);
+
+        int recovered = 0;
+        for (SummaryJob job : stale) {
+            if (pendingJobIds.contains(job.getId())) {
+                continue;
+            }
+
+            boolean exhausted = job.getAttempts() >= maxAttempts;
+            if (summaryJobRepository.recoverStale(job.getId(), IN_FLIGHT_STATUSES, staleBefore,
+                    exhausted ? SummaryJob.Status.FAILED : SummaryJob.Status.QUEUED,
+                    exhausted ? INTERRUPTED_MESSAGE : null, LocalDateTime.now()) == 0) {
+                continue;
+            }
+            if (exhausted) {
+                storedFileService.discard(job.getFilePath());
+            }
+            recovered++;
+        }
+
+        if (recovered > 0) {
+            log.info("Recovered {} interrupted summary jobs", recovered);
+        }
+    }
+
+    /**
+     * Refreshes updatedAt of the jobs running on this node so other nodes do not take them over.
+     */
+    @Scheduled(fixedDelayString = "${app.summary.jobs.heartbeat-interval-ms:60000}")
+    public void heartbeat() {
+        if (pendingJobIds.isEmpty()) {
+            return;
+        }
+        summaryJobRepository.touch(List.copyOf(pendingJobIds), IN_FLIGHT_STATUSES, LocalDateTime.now());
+    }
+
+    /**
+     * Hands queued jobs to the executor, oldest first, until it stops accepting work.
+     */
+    @Scheduled(fixedDelayString = "${app.summary.jobs.dispatch-interval-ms:5000}")
+    public void dispatchQueuedJobs() {
+        List<SummaryJob> queued = summaryJobRepository.findDispatchable(
+                SummaryJob.Status.QUEUED, LocalDateTime.now(), PageRequest.of(0, dispatchBatchSize));
+
+        for (SummaryJob job : queued) {
+            if (!dispatch(job.getId())) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return false if the executor is saturated; the job then stays QUEUED
+     */
+    boolean dispatch(Long jobId) {
+        if (!pendingJobIds.add(jobId)) {
+            return true;
+        }
+
+        try {
+            summaryJobExecutor.execute(() -> {
+                try {
+                    processJob(jobId);
+                } finally {
+                    pendingJobIds.remove(jobId);
+                }
+            });
+            return true;
+        } catch (TaskRejectedException _) {
+            pendingJobIds.remove(jobId);
+            log.debug("Summary job executor is saturated, job {} stays queued", jobId);
+            return false;
+        }
+    }
+
+    void processJob(Long jobId) {
+        // Another dispatch may have picked the job up already
+        if (summaryJobRepository.claim(jobId, SummaryJob.Status.QUEUED,
+                SummaryJob.Status.EXTRACTING, LocalDateTime.now()) == 0) {
+            return;
+        }
+
+        SummaryJob job = summaryJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+
+        try {
+            String summaryText = summaryService.findReusableSummaryText(job.getContentHash()).orElse(null);
+
+            if (summaryText == null) {
+                String extractedText = textNormalizer.normalize(extractedTextService
+                        .getOrExtract(job.getContentHash(), storedFileService.resolve(job.getFilePath())));
+
+                updateStatus(job, SummaryJob.Status.SUMMARIZING);
+                summaryText = aiService.generateSummary(job.getUserId(), extractedText);
+            }
+
+            completeJob(job, summaryText);
+            log.info("Summary job {} completed with summary {}", jobId, job.getSummaryId());
+
+        } catch (AiUnavailableException e) {
+            retryLater(job, e.getRetryAfterSeconds());
+        } catch (AiCapacityExceededException _) {
+            log.info("AI capacity exhausted, summary job {} goes back to the queue", jobId);
+            requeueJob(job);
+        } catch (ValidationException e) {
+            failJob(job, e.getMessage());
+        } catch (Exception e) {
+            log.error("Summary job {} failed", jobId, e);
+            failJob(job, "Failed to create summary. Please try again.");
+        }
+    }
+
+    private void completeJob(SummaryJob job, String summaryText) {
+        // The summary and the job link are written together so a crash cannot leave a duplicate behind
+        transactionTemplate.executeWithoutResult(_ -> {
+            Summary summary = summaryService.saveSummary(
+                    job.getUserId(), job.getOriginalFilename(), job.getFilePath(), job.getContentHash(), summaryText);
+            job.setSummaryId(summary.getId());
+            job.setStatus(SummaryJob.Status.DONE);
+            job.setErrorMessage(null);
+            summaryJobRepository.save(job);
+        });
+    }
+
+    private void failJob(SummaryJob job, String errorMessage) {
+        job.setStatus(SummaryJob.Status.FAILED);
+        job.setErrorMessage(errorMessage);
+        summaryJobRepository.save(job);
+        storedFileService.discard(job.getFilePath());
+    }
+
+    /**
+     * Running out of AI capacity says nothing about the document, so the attempt is handed back.
+     * Chunk summaries of a long document that finished before capacity ran out are not kept,
+     * and the retry makes those calls again.
+     */
+    private void requeueJob(SummaryJob job) {
+        job.setStatus(SummaryJob.Status.QUEUED);
+        job.setAttempts(Math.max(0, job.getAttempts() - 1));
+        summaryJobRepository.save(job);
+    }
+
+    /**
+     * An open circuit means the provider itself is failing, so unlike a busy governor the attempt
+     * counts. The job waits out the breaker's Retry-After instead of being claimed again on the
+     * next dispatch round, and fails once it has used up its attempts.
+     */
+    private void retryLater(SummaryJob job, long retryAfterSeconds) {
+        if (job.getAttempts() >= maxAttempts) {
+            log.warn("AI service unavailable, summary job {} used up its attempts", job.getId());
+            failJob(job, UNAVAILABLE_MESSAGE);
+            return;
+        }
+
+        log.info("AI service unavailable, summary job {} is retried in {} s", job.getId(), retryAfterSeconds);
+        job.setStatus(SummaryJob.Status.QUEUED);
+        job.setNotBefore(LocalDateTime.now().plusSeconds(retryAfterSeconds));
+        summaryJobRepository.save(job);
+    }
+
+    private void updateStatus(SummaryJob job, SummaryJob.Status status) {
+        job.setStatus(status);
+        summaryJobRepository.save(job);
+    }
+
+    private SummaryJobResponse toResponse(SummaryJob job) {
+        SummaryJobResponse response = new SummaryJobResponse();
+        response.setId(job.getId());
+        response.setStatus(job.getStatus().name().toLowerCase());
+        response.setOriginalFilename(job.getOriginalFilename());
+        response.setSummaryId(job.getSummaryId());
+        response.setErrorMessage(job.getErrorMessage());
+        response.setCreatedAt(job.getCreatedAt());
+        response.setUpdatedAt(job.getUpdatedAt());
+        return response;
+    }
+}
@@ -3,12 +3,15 @@ package tubes.pbo.be.summary.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
-import tubes.pbo.be.shared.config.FileStorageConfig;
+import tubes.pbo.be.shared.dto.CursorPageResponse;
+import tubes.pbo.be.shared.dto.PageCursor;
+import tubes.pbo.be.shared.exception.AiCapacityExceededException;
 import tubes.pbo.be.shared.exception.FileOperationException;
 import tubes.pbo.be.shared.exception.ResourceNotFoundException;
 import tubes.pbo.be.shared.exception.ValidationException;
@@ -16,12 +19,12 @@ import tubes.pbo.be.summary.dto.SummaryListItem;
 import tubes.pbo.be.summary.dto.SummaryResponse;
 import tubes.pbo.be.summary.model.Summary;
 import tubes.pbo.be.summary.repository.SummaryRepository;
+import tubes.pbo.be.summary.repository.SummaryRepository.SummaryListView;
+import tubes.pbo.be.summary.service.StoredFileService.StoredUpload;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.util.List;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -29,15 +32,60 @@ import java.util.UUID;
 public class SummaryService {
 
     private final SummaryRepository summaryRepository;
-    private final PdfProcessingService pdfProcessingService;
+    private final ExtractedTextService extractedTextService;
+    private final TextNormalizer textNormalizer;
     private final AiService aiService;
-    private final FileStorageConfig fileStorageConfig;
+    private final StoredFileService storedFileService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${spring.servlet.multipart.max-file-size}")
     private String maxFileSize;
 
-    @Transactional
     public SummaryResponse createSummary(Long userId, MultipartFile file) {
+        validatePdf(file);
+
+        // Save file
+        StoredUpload upload;
+        try {
+            upload = storedFileService.store(file);
+        } catch (IOException e) {
+            log.error("Failed to save PDF file", e);
+            throw new FileOperationException("Failed to save file. Please try again.", e);
+        }
+
+        try {
+            String summaryText = findReusableSummaryText(upload.sha256()).orElse(null);
+
+            if (summaryText == null) {
+                // Extract text from the stored copy rather than reading the upload a second time
+                String extractedText = textNormalizer.normalize(extractedTextService
+                        .getOrExtract(upload.sha256(), storedFileService.resolve(upload.filePath())));
+
+                // Generate summary using AI
+                summaryText = aiService.generateSummary(userId, extractedText);
+            }
+
+            Summary summary = saveSummary(userId, file.getOriginalFilename(),
+                    upload.filePath(), upload.sha256(), summaryText);
+
+            log.info("Summary created successfully for user {} with ID {}", userId, summary.getId());
+
+            return toResponse(summary);
+
+        } catch (ValidationException | AiCapacityExceededException e) {
+            storedFileService.discard(upload.filePath());
+            throw e;
+        } catch (Exception e) {
+            storedFileService.discard(upload.filePath());
+            log.error("Failed to create summary", e);
+            throw new FileOperationException("Failed to create summary. Please try again.", e);
+        }
+    }
+
+    /**
+     * Checks that the upload is a non-empty PDF. File size is enforced by the multipart config.
+     */
+    public void validatePdf(MultipartFile file) {
         // Validate file is not empty
         if (file.isEmpty()) {
             throw new ValidationException("File is required");
@@ -46,7 +94,7 @@ public class SummaryService {
         // Validate file is PDF
         String contentType = file.getContentType();
         String originalFilename = file.getOriginalFilename();
-        
+
         if (contentType == null || !contentType.equals("application/pdf")) {
             throw new ValidationException("Only PDF files are allowed");
         }
@@ -54,59 +102,67 @@ public class SummaryService {
         if (originalFilename == null || !originalFilename.toLowerCase().endsWith(".pdf")) {
             throw new ValidationException("Only PDF files are allowed");
         }
+    }
 
-        // Validate file size is handled by Spring Boot multipart config
-
-        try {
-            // Extract text from PDF
-            String extractedText = pdfProcessingService.extractText(file.getInputStream());
-
-            // Generate summary using AI
-            String summaryText = aiService.generateSummary(extractedText);
-
-            // Generate UUID for file storage
-            String fileUuid = UUID.randomUUID().toString();
-            String storedFilename = fileUuid + ".pdf";
-
-            // Create user directory if not exists
-            Path userDir = fileStorageConfig.getUploadPath().resolve(userId.toString());
-            Files.createDirectories(userDir);
-
-            // Save file
-            Path filePath = userDir.resolve(storedFilename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-            // Create summary entity
-            Summary summary = new Summary();
-            summary.setUserId(userId);
-            summary.setOriginalFilename(originalFilename);
-            summary.setFilePath(userId + "/" + storedFilename);
-            summary.setSummaryText(summaryText);
-            summary.setAiProvider(aiService.getAiProvider());
-            summary.setAiModel(aiService.getAiModel());
-
-            summary = summaryRepository.save(summary);
-
-            log.info("Summary created successfully for user {} with ID {}", userId, summary.getId());
+    /**
+     * Looks up a summary of the same PDF content made with the current model,
+     * so identical uploads skip extraction and the AI call.
+     */
+    public Optional<String> findReusableSummaryText(String contentHash) {
+        // A null hash would match every summary stored before hashing existed
+        if (contentHash == null) {
+            return Optional.empty();
+        }
 
-            return toResponse(summary);
+        return summaryRepository.findFirstByContentHashAndAiModelOrderByCreatedAtDesc(contentHash, aiService.getAiModel())
+                .map(existing -> {
+                    log.info("Reusing summary {} for identical content {}", existing.getId(), contentHash);
+                    return existing.getSummaryText();
+                });
+    }
 
-        } catch (ValidationException e) {
-            throw e;
-        } catch (IOException e) {
-            log.error("Failed to save PDF file", e);
-            throw new FileOperationException("Failed to save file. Please try again.", e);
-        } catch (Exception e) {
-            log.error("Failed to create summary", e);
-            throw new FileOperationException("Failed to create summary. Please try again.", e);
+    public Summary saveSummary(Long userId, String originalFilename, String filePath,
+                               String contentHash, String summaryText) {
+        Summary summary = new Summary();
+        summary.setUserId(userId);
+        summary.setOriginalFilename(originalFilename);
+        summary.setFilePath(filePath);
+        summary.setContentHash(contentHash);
+        summary.setSummaryText(summaryText);
+        summary.setAiProvider(aiService.getAiProvider());
+        summary.setAiModel(aiService.getAiModel());
+        if (contentHash != null) {
+            extractedTextService.findInfo(contentHash).ifPresent(info -> {
+                summary.setPagesSummarized(info.getPageCount());
+                summary.setTotalPages(info.getTotalPageCount() != null ? info.getTotalPageCount() : info.getPageCount());
+                summary.setTruncated(Boolean.TRUE.equals(info.getPageLimitReached())
+                        || Boolean.TRUE.equals(info.getCharLimitReached()));
+            });
         }
+
+        Summary saved = summaryRepository.save(summary);
+        eventPublisher.publishEvent(new SummaryCreatedEvent(saved.getId()));
+        return saved;
     }
 
     public Page<SummaryListItem> listSummaries(Long userId, Pageable pageable) {
-        return summaryRepository.findByUserId(userId, pageable)
+        return summaryRepository.findListByUserId(userId, pageable)
                 .map(this::toListItem);
     }
 
+    /**
+     * Keyset-paginated variant of {@link #listSummaries(Long, Pageable)}, newest first.
+     * Skips the count query, and a deep page costs the same as the first.
+     */
+    public CursorPageResponse<SummaryListItem> listSummaries(Long userId, String cursor, int size) {
+        PageCursor after = PageCursor.decode(cursor);
+        int pageSize = PageCursor.pageSize(size);
+        List<SummaryListView> rows = summaryRepository.findListByUserIdAfter(
+                userId, after.createdAt(), after.id(), PageRequest.ofSize(pageSize + 1));
+        return CursorPageResponse.of(rows, pageSize,
+                row -> new PageCursor(row.getCreatedAt(), row.getId()), this::toListItem);
+    }
+
     public SummaryResponse getSummaryDetail(Long userId, Long summaryId) {
         Summary summary = summaryRepository.findByIdAndUserId(summaryId, userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Summary", "id", summaryId));
@@ -114,7 +170,7 @@ public class SummaryService {
         return toResponse(summary);
     }
 
-    private SummaryResponse toResponse(Summary summary) {
+    SummaryResponse toResponse(Summary summary) {
         SummaryResponse response = new SummaryResponse();
         response.setId(summary.getId());
         response.setOriginalFilename(summary.getOriginalFilename());
@@ -122,10 +178,13 @@ public class SummaryService {
         response.setAiProvider(summary.getAiProvider());
         response.setAiModel(summary.getAiModel());
         response.setCreatedAt(summary.getCreatedAt());
+        response.setTruncated(Boolean.TRUE.equals(summary.getTruncated()));
+        response.setPagesSummarized(summary.getPagesSummarized());
+        response.setTotalPages(summary.getTotalPages());
         return response;
     }
 
-    private SummaryListItem toListItem(Summary summary) {
+    private SummaryListItem toListItem(SummaryListView summary) {
         SummaryListItem item = new SummaryListItem();
         item.setId(summary.getId());
         item.setOriginalFilename(summary.getOriginalFilename());
@@ -0,0 +1,186 @@
+package tubes.pbo.be.summary.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import tubes.pbo.be.shared.dto.ErrorResponse;
+import tubes.pbo.be.shared.exception.AiCapacityExceededException;
+import tubes.pbo.be.shared.exception.AiUnavailableException;
+import tubes.pbo.be.shared.exception.FileOperationException;
+import tubes.pbo.be.summary.dto.SummaryToken;
+import tubes.pbo.be.summary.model.Summary;
+import tubes.pbo.be.summary.service.StoredFileService.StoredUpload;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Generates a summary while streaming it to the client over Server-Sent Events.
+ * <p>
+ * Events: {@code token} carries the next piece of markdown as {@code {"text": ...}}, {@code done} carries the saved
+ * summary, {@code error} carries an {@link ErrorResponse}. The summary is only saved once the
+ * model finishes; if the client goes away first, generation is cancelled and nothing is kept.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SummaryStreamService {
+
+    private final SummaryService summaryService;
+    private final StoredFileService storedFileService;
+    private final ExtractedTextService extractedTextService;
+    private final TextNormalizer textNormalizer;
+    private final AiService aiService;
+
+    @Value("${app.summary.stream.timeout-ms:180000}")
+    private long timeoutMs;
+
+    /**
+     * Validates, stores and extracts the upload on the calling thread, so those errors are
+     * still returned as regular error responses, then starts streaming.
+     */
+    public SseEmitter streamSummary(Long userId, MultipartFile file) {
+        summaryService.validatePdf(file);
+
+        StoredUpload upload;
+        try {
+            upload = storedFileService.store(file);
+        } catch (IOException e) {
+            log.error("Failed to save PDF file", e);
+            throw new FileOperationException("Failed to save file. Please try again.", e);
+        }
+
+        Flux<String> tokens;
+        try {
+            tokens = summaryService.findReusableSummaryText(upload.sha256())
+                    .map(Flux::just)
+                    .orElseGet(() -> aiService.streamSummary(userId,
+                            textNormalizer.normalize(extractedTextService
+                                    .getOrExtract(upload.sha256(), storedFileService.resolve(upload.filePath())))));
+        } catch (RuntimeException e) {
+            storedFileService.discard(upload.filePath());
+            throw e;
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        new SummaryStream(userId, file.getOriginalFilename(), upload, emitter).start(tokens);
+        return emitter;
+    }
+
+    /**
+     * One streaming request. Whichever of completion, failure or disconnect happens first wins;
+     * the others become no-ops.
+     */
+    class SummaryStream {
+
+        private final Long userId;
+        private final String originalFilename;
+        private final StoredUpload upload;
+        private final SseEmitter emitter;
+        private final StringBuilder summaryText = new StringBuilder();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile Disposable subscription;
+
+        SummaryStream(Long userId, String originalFilename, StoredUpload upload, SseEmitter emitter) {
+            this.userId = userId;
+            this.originalFilename = originalFilename;
+            this.upload = upload;
+            this.emitter = emitter;
+        }
+
+        void start(Flux<String> tokens) {
+            emitter.onTimeout(this::abort);
+            emitter.onError(_ -> abort());
+            emitter.onCompletion(this::abort);
+
+            subscription = tokens.subscribe(this::onToken, this::onFailure, this::onComplete);
+            if (finished.get()) {
+                // The client left before the subscription was assigned
+                subscription.dispose();
+            }
+        }
+
+        private void onToken(String token) {
+            summaryText.append(token);
+            try {
+                emitter.send(SseEmitter.event().name("token").data(new SummaryToken(token)));
+            } catch (IOException | IllegalStateException _) {
+                abort();
+            }
+        }
+
+        private void onComplete() {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+
+            Summary summary;
+            try {
+                summary = summaryService.saveSummary(
+                        userId, originalFilename, upload.filePath(), upload.sha256(), summaryText.toString());
+            } catch (Exception e) {
+                log.error("Failed to save streamed summary", e);
+                storedFileService.discard(upload.filePath());
+                sendErrorAndComplete(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to create summary. Please try again.");
+                return;
+            }
+
+            log.info("Streamed summary created for user {} with ID {}", userId, summary.getId());
+            try {
+                emitter.send(SseEmitter.event().name("done").data(summaryService.toResponse(summary)));
+                emitter.complete();
+            } catch (IOException | IllegalStateException _) {
+                // Saved anyway; the client can find it in the summary list
+                log.debug("Client left before receiving summary {}", summary.getId());
+            }
+        }
+
+        private void onFailure(Throwable error) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            storedFileService.discard(upload.filePath());
+            HttpStatus status;
+            if (error instanceof AiUnavailableException) {
+                status = HttpStatus.SERVICE_UNAVAILABLE;
+            } else if (error instanceof AiCapacityExceededException) {
+                status = HttpStatus.TOO_MANY_REQUESTS;
+            } else {
+                status = HttpStatus.INTERNAL_SERVER_ERROR;
+            }
+            sendErrorAndComplete(status, error.getMessage());
+        }
+
+        /**
+         * Client disconnected or timed out: stop generating and release the upload.
+         */
+        void abort() {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+
+            log.info("Summary stream for user {} ended before completion", userId);
+            Disposable current = subscription;
+            if (current != null) {
+                current.dispose();
+            }
+            storedFileService.discard(upload.filePath());
+        }
+
+        private void sendErrorAndComplete(HttpStatus status, String message) {
+            try {
+                emitter.send(SseEmitter.event().name("error")
+                        .data(new ErrorResponse(status.value(), status.getReasonPhrase(), message)));
+                emitter.complete();
+            } catch (IOException | IllegalStateException _) {
+                log.debug("Client left before receiving the error");
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package tubes.pbo.be.summary.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits extracted text into chunks that fit a token budget, cutting on the
+ * most natural boundary available: blank lines (sections, page breaks), then
+ * single line breaks, then whitespace, and only as a last resort mid-word.
+ */
+final class TextChunker {
+
+    /** Rough average for English and Indonesian prose; close enough for budgeting prompts. */
+    static final int CHARS_PER_TOKEN = 4;
+
+    private TextChunker() {
+    }
+
+    static int estimateTokens(String text) {
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    static List<String> split(String text, int maxTokens) {
+        int maxChars = Math.max(1, maxTokens) * CHARS_PER_TOKEN;
+        List<String> chunks = new ArrayList<>();
+
+        int start = 0;
+        while (start < text.length()) {
+            int end = Math.min(start + maxChars, text.length());
+            if (end < text.length()) {
+                end = findBoundary(text, start, end);
+            }
+
+            String chunk = text.substring(start, end).strip();
+            if (!chunk.isEmpty()) {
+                chunks.add(chunk);
+            }
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * @return the best cut point in (start, limit], preferring the latest boundary of the strongest kind
+     */
+    private static int findBoundary(String text, int start, int limit) {
+        // Do not accept a cut that leaves less than half a chunk behind
+        int floor = start + (limit - start) / 2;
+
+        int cut = text.lastIndexOf("\n\n", limit - 2);
+        if (cut > floor) {
+            return cut + 2;
+        }
+        cut = text.lastIndexOf('\n', limit - 1);
+        if (cut > floor) {
+            return cut + 1;
+        }
+        for (int i = limit - 1; i > floor; i--) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+}
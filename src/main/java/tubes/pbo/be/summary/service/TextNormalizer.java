@@ -0,0 +1,263 @@
+package tubes.pbo.be.summary.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shrinks extracted PDF text before it is put in a prompt.
+ * <p>
+ * Lines near the top or bottom of a page that repeat on many pages (running headers and
+ * footers, with any numbers in them ignored) and bare page numbers are dropped, words
+ * hyphenated across a line break are rejoined (dropping a soft hyphen, keeping a real one,
+ * since "well-known" may just as well end a line), and runs of whitespace are collapsed.
+ * Every step is a single pass over the characters, so the cost stays linear in the text length.
+ */
+@Component
+@Slf4j
+public class TextNormalizer {
+
+    // Headers and footers are only looked for on documents with at least this many pages
+    private static final int MIN_PAGES_FOR_REPEATS = 3;
+    private static final int MAX_PAGE_NUMBER_LENGTH = 12;
+    private static final String HYPHENS = "-\u00AD\u2010";
+    private static final char SOFT_HYPHEN = '\u00AD';
+
+    private final boolean enabled;
+    private final int edgeLines;
+    private final double repeatRatio;
+    private final Counter removedChars;
+    private final DistributionSummary reduction;
+
+    public TextNormalizer(
+            @Value("${app.pdf.normalization.enabled:true}") boolean enabled,
+            @Value("${app.pdf.normalization.edge-lines:3}") int edgeLines,
+            @Value("${app.pdf.normalization.repeat-ratio:0.5}") double repeatRatio,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.edgeLines = Math.max(0, edgeLines);
+        this.repeatRatio = repeatRatio;
+        this.removedChars = Counter.builder("summary.text.normalization.removed")
+                .description("Characters removed from extracted text before prompting")
+                .baseUnit("chars")
+                .register(meterRegistry);
+        this.reduction = DistributionSummary.builder("summary.text.normalization.reduction")
+                .description("Share of the extracted text removed before prompting")
+                .baseUnit("percent")
+                .register(meterRegistry);
+    }
+
+    public String normalize(ExtractedDocument document) {
+        String text = document.text();
+        if (!enabled || text.isEmpty()) {
+            return text;
+        }
+
+        List<List<String>> pages = splitPages(text, document.pageOffsets());
+        String normalized = join(pages, findRepeatedLines(pages));
+        if (normalized.isEmpty()) {
+            // Everything looked like a header; better to send the text as it was
+            return text;
+        }
+
+        int removed = text.length() - normalized.length();
+        removedChars.increment(removed);
+        reduction.record(100.0 * removed / text.length());
+        log.debug("Normalized extracted text from {} to {} chars", text.length(), normalized.length());
+        return normalized;
+    }
+
+    /**
+     * Splits each page into lines with inner whitespace collapsed and ends trimmed.
+     */
+    private static List<List<String>> splitPages(String text, int[] pageOffsets) {
+        List<List<String>> pages = new ArrayList<>(Math.max(1, pageOffsets.length));
+        if (pageOffsets.length == 0) {
+            pages.add(splitLines(text, 0, text.length()));
+            return pages;
+        }
+        for (int i = 0; i < pageOffsets.length; i++) {
+            int end = i + 1 < pageOffsets.length ? pageOffsets[i + 1] : text.length();
+            pages.add(splitLines(text, pageOffsets[i], end));
+        }
+        return pages;
+    }
+
+    private static List<String> splitLines(String text, int start, int end) {
+        List<String> lines = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+        boolean pendingSpace = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                lines.add(line.toString());
+                line.setLength(0);
+                pendingSpace = false;
+            } else if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                pendingSpace = !line.isEmpty();
+            } else {
+                if (pendingSpace) {
+                    line.append(' ');
+                    pendingSpace = false;
+                }
+                line.append(c);
+            }
+        }
+        if (!line.isEmpty()) {
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * @return keys of lines found near the edge of at least {@code repeatRatio} of the pages
+     */
+    private Set<String> findRepeatedLines(List<List<String>> pages) {
+        if (pages.size() < MIN_PAGES_FOR_REPEATS || edgeLines == 0) {
+            return Set.of();
+        }
+
+        Map<String, Integer> pageCounts = new HashMap<>();
+        for (List<String> lines : pages) {
+            Set<String> seenOnPage = new HashSet<>();
+            EdgeTracker edge = new EdgeTracker(lines, edgeLines);
+            for (String line : lines) {
+                if (edge.next(line)) {
+                    String key = key(line);
+                    if (seenOnPage.add(key)) {
+                        pageCounts.merge(key, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+
+        int threshold = Math.max(2, (int) Math.ceil(pages.size() * repeatRatio));
+        Set<String> repeated = new HashSet<>();
+        pageCounts.forEach((key, count) -> {
+            if (count >= threshold) {
+                repeated.add(key);
+            }
+        });
+        return repeated;
+    }
+
+    private String join(List<List<String>> pages, Set<String> repeated) {
+        StringBuilder out = new StringBuilder();
+        boolean paragraphBreak = false;
+        boolean multiPage = pages.size() > 1;
+        for (List<String> lines : pages) {
+            EdgeTracker edge = new EdgeTracker(lines, edgeLines);
+            for (String line : lines) {
+                boolean atEdge = edge.next(line);
+                if (line.isEmpty()) {
+                    paragraphBreak = !out.isEmpty();
+                    continue;
+                }
+                if (atEdge && ((multiPage && isPageNumber(line)) || repeated.contains(key(line)))) {
+                    continue;
+                }
+
+                if (!out.isEmpty()) {
+                    if (!paragraphBreak && endsWithHyphenatedWord(out) && Character.isLowerCase(line.charAt(0))) {
+                        if (out.charAt(out.length() - 1) == SOFT_HYPHEN) {
+                            out.setLength(out.length() - 1);
+                        }
+                    } else {
+                        out.append(paragraphBreak ? "\n\n" : "\n");
+                    }
+                }
+                out.append(line);
+                paragraphBreak = false;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Lower-cased line with each run of digits replaced by '#', so "Page 3 of 10"
+     * and "Page 4 of 10" count as the same footer.
+     */
+    private static String key(String line) {
+        StringBuilder key = new StringBuilder(line.length());
+        boolean inNumber = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (Character.isDigit(c)) {
+                if (!inNumber) {
+                    key.append('#');
+                    inNumber = true;
+                }
+            } else {
+                key.append(Character.toLowerCase(c));
+                inNumber = false;
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * A short line of digits and punctuation only, such as "12", "- 12 -" or "12/40".
+     */
+    private static boolean isPageNumber(String line) {
+        if (line.length() > MAX_PAGE_NUMBER_LENGTH) {
+            return false;
+        }
+        boolean hasDigit = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (Character.isDigit(c)) {
+                hasDigit = true;
+            } else if (Character.isLetter(c)) {
+                return false;
+            }
+        }
+        return hasDigit;
+    }
+
+    private static boolean endsWithHyphenatedWord(StringBuilder out) {
+        int length = out.length();
+        return length >= 2
+                && HYPHENS.indexOf(out.charAt(length - 1)) >= 0
+                && Character.isLetter(out.charAt(length - 2));
+    }
+
+    /**
+     * Tells whether each line, taken in order, is among the first or last {@code edgeLines}
+     * non-blank lines of its page.
+     */
+    private static final class EdgeTracker {
+
+        private final int edgeLines;
+        private final int nonBlankLines;
+        private int seen;
+
+        EdgeTracker(List<String> lines, int edgeLines) {
+            this.edgeLines = edgeLines;
+            int count = 0;
+            for (String line : lines) {
+                if (!line.isEmpty()) {
+                    count++;
+                }
+            }
+            this.nonBlankLines = count;
+        }
+
+        boolean next(String line) {
+            if (line.isEmpty()) {
+                return false;
+            }
+            int index = seen++;
+            return index < edgeLines || index >= nonBlankLines - edgeLines;
+        }
+    }
+}
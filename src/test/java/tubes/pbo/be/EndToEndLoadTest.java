@@ -0,0 +1,298 @@
+package tubes.pbo.be;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.AreaBreak;
+import com.itextpdf.layout.element.Paragraph;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import tubes.pbo.be.auth.service.EmailService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Drives complete user flows (register, verify, login, upload, wait for the summary,
+ * generate a quiz, submit it) over HTTP against an in-process server and H2, with the
+ * local AI stand-in in place of Gemini, and prints latency percentiles and throughput
+ * per endpoint. Flows start at a fixed rate whether or not earlier ones have finished.
+ * <p>
+ * Excluded from the default build; run with {@code mvn test -Pbenchmark -Dtest=EndToEndLoadTest}.
+ * Tune with {@code -Dloadtest.rate=<flows per second>}, {@code -Dloadtest.flows=<total>},
+ * {@code -Dloadtest.ai-latency-median-ms}, {@code -Dloadtest.ai-latency-p99-ms} and
+ * {@code -Dapp.ai.local.error-rate}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("local-ai")
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "app.ai.local.latency-median-ms=${loadtest.ai-latency-median-ms:50}",
+    "app.ai.local.latency-p99-ms=${loadtest.ai-latency-p99-ms:250}",
+    "app.summary.jobs.dispatch-interval-ms=500",
+    // Every simulated user connects from localhost
+    "app.auth.rate-limit.enabled=false",
+    "logging.level.tubes.pbo.be=WARN"
+})
+class EndToEndLoadTest {
+
+    private static final int RATE = Integer.getInteger("loadtest.rate", 5);
+    private static final int FLOWS = Integer.getInteger("loadtest.flows", 50);
+    private static final String PASSWORD = "load-test-password";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+    private static final Duration JOB_POLL_INTERVAL = Duration.ofMillis(50);
+    private static final Path UPLOAD_DIR = createUploadDir();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    private final Map<String, String> verificationTokens = new ConcurrentHashMap<>();
+    private final Map<String, Queue<Long>> latencies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> errors = new ConcurrentHashMap<>();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @DynamicPropertySource
+    static void uploadDir(DynamicPropertyRegistry registry) {
+        registry.add("app.file.upload-dir", UPLOAD_DIR::toString);
+    }
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            verificationTokens.put(invocation.getArgument(0), invocation.getArgument(1));
+            return null;
+        }).when(emailService).queueVerificationEmail(anyString(), anyString());
+    }
+
+    @Test
+    void userFlowsAtTargetRate() throws Exception {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, RATE);
+        List<Future<?>> flows = new ArrayList<>(FLOWS);
+        AtomicInteger failedFlows = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < FLOWS; i++) {
+                long delay = start + i * intervalNanos - System.nanoTime();
+                if (delay > 0) {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                }
+                int user = i;
+                flows.add(users.submit(() -> {
+                    try {
+                        runFlow(user);
+                    } catch (Exception e) {
+                        failedFlows.incrementAndGet();
+                        System.out.printf("Flow %d failed: %s%n", user, e.getMessage());
+                    }
+                }));
+            }
+            for (Future<?> flow : flows) {
+                flow.get(5, TimeUnit.MINUTES);
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        printReport(elapsedSeconds);
+        assertEquals(0, failedFlows.get(), "Some flows failed, see the report above");
+    }
+
+    private void runFlow(int user) throws Exception {
+        String email = "load-" + user + "-" + UUID.randomUUID() + "@example.com";
+
+        send("POST /api/auth/register", 201, post("/api/auth/register",
+                Map.of("email", email, "password", PASSWORD, "name", "Load User " + user)));
+
+        send("GET /api/auth/verify", 200, request("/api/auth/verify?token=" + verificationTokens.get(email)).GET());
+
+        JsonNode login = send("POST /api/auth/login", 200, post("/api/auth/login",
+                Map.of("email", email, "password", PASSWORD)));
+        String authorization = "Bearer " + login.path("data").path("token").asText();
+
+        long uploadStart = System.nanoTime();
+        JsonNode job = send("POST /api/summaries", 202, multipartPdf("/api/summaries", createPdf(user))
+                .header("Authorization", authorization));
+        long summaryId = awaitSummary(job.path("data").path("id").asLong(), authorization);
+        record("summary job (upload to done)", uploadStart);
+
+        JsonNode quiz = send("POST /api/quizzes", 201, post("/api/quizzes",
+                Map.of("summaryId", summaryId, "difficulty", "medium", "numberOfQuestions", 5))
+                .header("Authorization", authorization));
+
+        List<Map<String, String>> answers = new ArrayList<>();
+        for (JsonNode question : quiz.path("data").path("questions")) {
+            answers.add(Map.of(
+                    "questionId", question.path("id").asText(),
+                    "answer", question.path("options").path(0).asText()));
+        }
+        send("POST /api/quizzes/{id}/submit", 200, post(
+                "/api/quizzes/" + quiz.path("data").path("id").asLong() + "/submit",
+                Map.of("answers", answers))
+                .header("Authorization", authorization));
+    }
+
+    private long awaitSummary(long jobId, String authorization) throws Exception {
+        while (true) {
+            JsonNode job = send("GET /api/summaries/jobs/{id}", 200,
+                    request("/api/summaries/jobs/" + jobId).GET().header("Authorization", authorization));
+            String status = job.path("data").path("status").asText();
+            if ("done".equals(status)) {
+                return job.path("data").path("summaryId").asLong();
+            }
+            if ("failed".equals(status)) {
+                throw new IllegalStateException("Summary job " + jobId + " failed: "
+                        + job.path("data").path("errorMessage").asText());
+            }
+            Thread.sleep(JOB_POLL_INTERVAL);
+        }
+    }
+
+    private JsonNode send(String endpoint, int expectedStatus, HttpRequest.Builder request) throws Exception {
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            errors.computeIfAbsent(endpoint, _ -> new AtomicInteger()).incrementAndGet();
+            throw e;
+        }
+        record(endpoint, start);
+
+        if (response.statusCode() != expectedStatus) {
+            errors.computeIfAbsent(endpoint, _ -> new AtomicInteger()).incrementAndGet();
+            throw new IllegalStateException(endpoint + " returned " + response.statusCode() + ": " + response.body());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private void record(String endpoint, long startNanos) {
+        latencies.computeIfAbsent(endpoint, _ -> new ConcurrentLinkedQueue<>()).add(System.nanoTime() - startNanos);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).timeout(REQUEST_TIMEOUT);
+    }
+
+    private HttpRequest.Builder post(String path, Object body) throws IOException {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+    }
+
+    private HttpRequest.Builder multipartPdf(String path, byte[] pdf) {
+        String boundary = "----load-test-" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"lecture.pdf\"\r\n"
+                + "Content-Type: application/pdf\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(pdf);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return request(path)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()));
+    }
+
+    /**
+     * A few pages of lecture notes, different for every user so no upload reuses another's summary.
+     */
+    private static byte[] createPdf(int user) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (Document document = new Document(new PdfDocument(new PdfWriter(output)))) {
+            for (int page = 1; page <= 5; page++) {
+                document.add(new Paragraph("Lecture notes for user " + user + ", page " + page));
+                for (int line = 0; line < 30; line++) {
+                    document.add(new Paragraph("Object-oriented programming groups state and behaviour into objects. "
+                            + "Point " + line + " on page " + page + " explains encapsulation and inheritance."));
+                }
+                if (page < 5) {
+                    document.add(new AreaBreak());
+                }
+            }
+        }
+        return output.toByteArray();
+    }
+
+    private void printReport(double elapsedSeconds) {
+        System.out.printf("%nEnd-to-end load test: %d flows at %d/s in %.1f s%n", FLOWS, RATE, elapsedSeconds);
+        System.out.printf("%-34s %7s %7s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "p50 ms", "p95 ms", "p99 ms", "req/s");
+        latencies.keySet().stream().sorted().forEach(endpoint -> {
+            long[] sorted = latencies.get(endpoint).stream().mapToLong(Long::longValue).sorted().toArray();
+            System.out.printf("%-34s %7d %7d %9.1f %9.1f %9.1f %9.1f%n",
+                    endpoint,
+                    sorted.length,
+                    errors.getOrDefault(endpoint, new AtomicInteger()).get(),
+                    percentileMillis(sorted, 0.50),
+                    percentileMillis(sorted, 0.95),
+                    percentileMillis(sorted, 0.99),
+                    sorted.length / elapsedSeconds);
+        });
+    }
+
+    // Nearest-rank percentile
+    private static double percentileMillis(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * sortedNanos.length);
+        return sortedNanos[Math.clamp(rank - 1, 0, sortedNanos.length - 1)] / 1_000_000.0;
+    }
+
+    private static Path createUploadDir() {
+        try {
+            return Files.createTempDirectory("load-test-uploads");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
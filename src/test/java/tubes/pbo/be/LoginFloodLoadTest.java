@@ -0,0 +1,180 @@
+package tubes.pbo.be;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import tubes.pbo.be.auth.service.EmailService;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Floods the login endpoint with wrong passwords while timing an authenticated endpoint, and
+ * prints its latency percentiles before and during the flood. Password hashing runs on its own
+ * small pool, so the flood should leave the other endpoint's p99 close to its baseline.
+ * The rate limiter is disabled here, as if the flood came from many addresses, so every login
+ * reaches the hashing pool.
+ * <p>
+ * Excluded from the default build; run with {@code mvn test -Pbenchmark -Dtest=LoginFloodLoadTest}.
+ * Tune with {@code -Dloadtest.flood-clients}, {@code -Dloadtest.duration-seconds},
+ * {@code -Dloadtest.hash-pool-size} and {@code -Dloadtest.max-p99-ms}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:loginflood;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "app.auth.rate-limit.enabled=false",
+    "app.auth.password-hash.pool-size=${loadtest.hash-pool-size:2}",
+    "logging.level.tubes.pbo.be=WARN"
+})
+class LoginFloodLoadTest {
+
+    private static final int FLOOD_CLIENTS = Integer.getInteger("loadtest.flood-clients", 64);
+    private static final int DURATION_SECONDS = Integer.getInteger("loadtest.duration-seconds", 10);
+    private static final long MAX_P99_MS = Long.getLong("loadtest.max-p99-ms", 200);
+    private static final int BASELINE_PROBES = 200;
+    private static final Duration PROBE_INTERVAL = Duration.ofMillis(10);
+    private static final String EMAIL = "flood-target@example.com";
+    private static final String PASSWORD = "load-test-password";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockitoBean
+    private EmailService emailService;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void otherEndpointsStayFastDuringLoginFlood() throws Exception {
+        String authorization = "Bearer " + registerAndLogin();
+
+        long[] baseline = probe(authorization, BASELINE_PROBES, null);
+
+        AtomicBoolean flooding = new AtomicBoolean(true);
+        Map<Integer, AtomicInteger> loginStatuses = new ConcurrentHashMap<>();
+        long[] duringFlood;
+        long start = System.nanoTime();
+        try (ExecutorService attackers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < FLOOD_CLIENTS; i++) {
+                attackers.submit(() -> {
+                    while (flooding.get()) {
+                        int status = send(post("/api/auth/login",
+                                Map.of("email", EMAIL, "password", "wrong-password"))).statusCode();
+                        loginStatuses.computeIfAbsent(status, _ -> new AtomicInteger()).incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            duringFlood = probe(authorization, Integer.MAX_VALUE, start + TimeUnit.SECONDS.toNanos(DURATION_SECONDS));
+            flooding.set(false);
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%nLogin flood: %d clients for %.1f s%n", FLOOD_CLIENTS, elapsedSeconds);
+        System.out.printf("%-24s %7s %9s %9s %9s%n", "GET /api/settings", "count", "p50 ms", "p95 ms", "p99 ms");
+        printRow("baseline", baseline);
+        printRow("during flood", duringFlood);
+        loginStatuses.forEach((status, count) -> System.out.printf("POST /api/auth/login %d: %d (%.1f/s)%n",
+                status, count.get(), count.get() / elapsedSeconds));
+
+        assertTrue(percentileMillis(duringFlood, 0.99) <= MAX_P99_MS,
+                "p99 of GET /api/settings during the flood exceeded " + MAX_P99_MS + " ms, see the report above");
+    }
+
+    private String registerAndLogin() throws Exception {
+        AtomicReference<String> verificationToken = new AtomicReference<>();
+        doAnswer(invocation -> {
+            verificationToken.set(invocation.getArgument(1));
+            return null;
+        }).when(emailService).queueVerificationEmail(anyString(), anyString());
+
+        assertEquals(201, send(post("/api/auth/register",
+                Map.of("email", EMAIL, "password", PASSWORD, "name", "Flood Target"))).statusCode());
+        assertEquals(200, send(request("/api/auth/verify?token=" + verificationToken.get()).GET()).statusCode());
+
+        HttpResponse<String> login = send(post("/api/auth/login", Map.of("email", EMAIL, "password", PASSWORD)));
+        assertEquals(200, login.statusCode());
+        return objectMapper.readTree(login.body()).path("data").path("token").asText();
+    }
+
+    /**
+     * Calls the endpoint one request at a time until {@code count} calls or the deadline.
+     *
+     * @return sorted latencies in nanoseconds
+     */
+    private long[] probe(String authorization, int count, Long deadlineNanos) throws Exception {
+        List<Long> latencies = new ArrayList<>();
+        while (latencies.size() < count && (deadlineNanos == null || System.nanoTime() < deadlineNanos)) {
+            long start = System.nanoTime();
+            HttpResponse<String> response = send(request("/api/settings").GET().header("Authorization", authorization));
+            latencies.add(System.nanoTime() - start);
+            assertEquals(200, response.statusCode(), response.body());
+            Thread.sleep(PROBE_INTERVAL);
+        }
+        return latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).timeout(Duration.ofSeconds(60));
+    }
+
+    private HttpRequest.Builder post(String path, Object body) throws IOException {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+    }
+
+    private static void printRow(String label, long[] sortedNanos) {
+        System.out.printf("%-24s %7d %9.1f %9.1f %9.1f%n", label, sortedNanos.length,
+                percentileMillis(sortedNanos, 0.50), percentileMillis(sortedNanos, 0.95), percentileMillis(sortedNanos, 0.99));
+    }
+
+    // Nearest-rank percentile
+    private static double percentileMillis(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * sortedNanos.length);
+        return sortedNanos[Math.clamp(rank - 1, 0, sortedNanos.length - 1)] / 1_000_000.0;
+    }
+}
@@ -21,6 +21,7 @@ import tubes.pbo.be.admin.service.UserManagementService;
 import tubes.pbo.be.shared.exception.ForbiddenException;
 import tubes.pbo.be.shared.exception.ResourceNotFoundException;
 import tubes.pbo.be.shared.exception.ValidationException;
+import tubes.pbo.be.shared.security.AuthenticatedUser;
 import tubes.pbo.be.shared.security.SecurityContextHelper;
 import tubes.pbo.be.user.model.User;
 
@@ -145,7 +146,7 @@ class AdminControllerIntegrationTest {
 
         // Mock security context to return admin ID
         when(securityContextHelper.getCurrentUserId()).thenReturn(1L);
-        when(securityContextHelper.getCurrentUser()).thenReturn(adminUser);
+        when(securityContextHelper.getCurrentUser()).thenReturn(AuthenticatedUser.from(adminUser));
     }
 
     // ===== GET /api/admin/users Tests =====
@@ -519,7 +520,7 @@ class AdminControllerIntegrationTest {
     @WithMockUser(username = "2", roles = "USER")
     void listUsers_asNonAdmin_returns403() throws Exception {
         // Arrange
-        when(securityContextHelper.getCurrentUser()).thenReturn(regularUser);
+        when(securityContextHelper.getCurrentUser()).thenReturn(AuthenticatedUser.from(regularUser));
 
         // Act & Assert
         mockMvc.perform(get("/api/admin/users")
@@ -533,7 +534,7 @@ class AdminControllerIntegrationTest {
     @WithMockUser(username = "2", roles = "USER")
     void getUserDetail_asNonAdmin_returns403() throws Exception {
         // Arrange
-        when(securityContextHelper.getCurrentUser()).thenReturn(regularUser);
+        when(securityContextHelper.getCurrentUser()).thenReturn(AuthenticatedUser.from(regularUser));
 
         // Act & Assert
         mockMvc.perform(get("/api/admin/users/1")
@@ -547,7 +548,7 @@ class AdminControllerIntegrationTest {
     @WithMockUser(username = "2", roles = "USER")
     void createUser_asNonAdmin_returns403() throws Exception {
         // Arrange
-        when(securityContextHelper.getCurrentUser()).thenReturn(regularUser);
+        when(securityContextHelper.getCurrentUser()).thenReturn(AuthenticatedUser.from(regularUser));
 
         // Act & Assert
         mockMvc.perform(post("/api/admin/users")
@@ -562,7 +563,7 @@ class AdminControllerIntegrationTest {
     @WithMockUser(username = "2", roles = "USER")
     void updateUser_asNonAdmin_returns403() throws Exception {
         // Arrange
-        when(securityContextHelper.getCurrentUser()).thenReturn(regularUser);
+        when(securityContextHelper.getCurrentUser()).thenReturn(AuthenticatedUser.from(regularUser));
 
         // Act & Assert
         mockMvc.perform(put("/api/admin/users/1")
@@ -577,7 +578,7 @@ class AdminControllerIntegrationTest {
     @WithMockUser(username = "2", roles = "USER")
     void deleteUser_asNonAdmin_returns403() throws Exception {
         // Arrange
-        when(securityContextHelper.getCurrentUser()).thenReturn(regularUser);
+        when(securityContextHelper.getCurrentUser()).thenReturn(AuthenticatedUser.from(regularUser));
 
         // Act & Assert
         mockMvc.perform(delete("/api/admin/users/1")
@@ -591,7 +592,7 @@ class AdminControllerIntegrationTest {
     @WithMockUser(username = "2", roles = "USER")
     void getDashboardStats_asNonAdmin_returns403() throws Exception {
         // Arrange
-        when(securityContextHelper.getCurrentUser()).thenReturn(regularUser);
+        when(securityContextHelper.getCurrentUser()).thenReturn(AuthenticatedUser.from(regularUser));
 
         // Act & Assert
         mockMvc.perform(get("/api/admin/dashboard")
@@ -605,7 +606,7 @@ class AdminControllerIntegrationTest {
     @WithMockUser(username = "2", roles = "USER")
     void getUserActivity_asNonAdmin_returns403() throws Exception {
         // Arrange
-        when(securityContextHelper.getCurrentUser()).thenReturn(regularUser);
+        when(securityContextHelper.getCurrentUser()).thenReturn(AuthenticatedUser.from(regularUser));
 
         // Act & Assert
         mockMvc.perform(get("/api/admin/activity")
@@ -15,12 +15,18 @@ import tubes.pbo.be.admin.dto.CreateUserRequest;
 import tubes.pbo.be.admin.dto.UpdateUserRequest;
 import tubes.pbo.be.admin.dto.UserDetailResponse;
 import tubes.pbo.be.auth.repository.PasswordResetTokenRepository;
-import tubes.pbo.be.auth.repository.SessionRepository;
 import tubes.pbo.be.auth.repository.VerificationTokenRepository;
+import tubes.pbo.be.auth.service.AccessTokenService;
+import tubes.pbo.be.auth.service.TokenService;
+import tubes.pbo.be.quiz.repository.QuestionBankRepository;
 import tubes.pbo.be.shared.exception.ForbiddenException;
 import tubes.pbo.be.shared.exception.ResourceNotFoundException;
 import tubes.pbo.be.shared.exception.ValidationException;
+import tubes.pbo.be.shared.security.PrincipalCache;
+import tubes.pbo.be.summary.model.Summary;
 import tubes.pbo.be.summary.repository.SummaryRepository;
+import tubes.pbo.be.summary.service.StoredFileService;
+import tubes.pbo.be.summary.service.SummaryJobService;
 import tubes.pbo.be.user.model.User;
 import tubes.pbo.be.user.model.User.UserRole;
 import tubes.pbo.be.user.repository.UserRepository;
@@ -43,9 +49,6 @@ class UserManagementServiceTest {
     @Mock
     private SummaryRepository summaryRepository;
 
-    @Mock
-    private SessionRepository sessionRepository;
-
     @Mock
     private VerificationTokenRepository verificationTokenRepository;
 
@@ -55,6 +58,24 @@ class UserManagementServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private StoredFileService storedFileService;
+
+    @Mock
+    private TokenService tokenService;
+
+    @Mock
+    private AccessTokenService accessTokenService;
+
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private SummaryJobService summaryJobService;
+
+    @Mock
+    private QuestionBankRepository questionBankRepository;
+
     @InjectMocks
     private UserManagementService userManagementService;
 
@@ -346,6 +367,18 @@ class UserManagementServiceTest {
         verify(userRepository, never()).save(any());
     }
 
+    @Test
+    void createUser_unknownRole_throwsBeforeHashing() {
+        // Arrange
+        createUserRequest.setRole("SUPERUSER");
+        when(userRepository.existsByEmail(createUserRequest.getEmail())).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> userManagementService.createUser(createUserRequest));
+        verify(passwordEncoder, never()).encode(anyString());
+        verify(userRepository, never()).save(any());
+    }
+
     @Test
     void createUser_lowercaseRole_convertsToUppercase() {
         // Arrange
@@ -394,6 +427,8 @@ class UserManagementServiceTest {
         
         verify(userRepository).findById(1L);
         verify(userRepository).save(testUser1);
+        verify(tokenService, never()).deleteAllUserSessions(any());
+        verify(principalCache).invalidateUser(1L);
     }
 
     @Test
@@ -445,9 +480,29 @@ class UserManagementServiceTest {
         // Act
         userManagementService.updateUser(1L, updateUserRequest);
 
-        // Assert
+        // Assert - session tokens stay valid and are looked up again with the new role
         assertEquals(UserRole.ADMIN, testUser1.getRole());
         verify(userRepository).save(testUser1);
+        verify(principalCache).invalidateUser(1L);
+        verify(tokenService, never()).deleteAllUserSessions(any());
+    }
+
+    @Test
+    void updateUser_changeRoleWithAccessTokens_endsSessions() {
+        // Arrange
+        updateUserRequest.setEmail(testUser1.getEmail());
+        updateUserRequest.setRole("ADMIN");
+        
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser1));
+        when(userRepository.save(any(User.class))).thenReturn(testUser1);
+        when(summaryRepository.countByUserId(1L)).thenReturn(5L);
+        when(accessTokenService.isEnabled()).thenReturn(true);
+
+        // Act
+        userManagementService.updateUser(1L, updateUserRequest);
+
+        // Assert
+        verify(tokenService).deleteAllUserSessions(1L);
     }
 
     @Test
@@ -494,7 +549,6 @@ class UserManagementServiceTest {
         when(summaryRepository.findByUserId(eq(1L), any(Pageable.class)))
                 .thenReturn(new PageImpl<>(Arrays.asList()));
         
-        doNothing().when(sessionRepository).deleteByUserId(1L);
         doNothing().when(verificationTokenRepository).deleteByUserId(1L);
         doNothing().when(passwordResetTokenRepository).deleteByUserId(1L);
         doNothing().when(summaryRepository).deleteAll(anyList());
@@ -504,14 +558,35 @@ class UserManagementServiceTest {
         userManagementService.deleteUser(3L, 1L); // Admin (3) deleting User (1)
 
         // Assert
-        verify(sessionRepository).deleteByUserId(1L);
+        verify(tokenService).deleteAllUserSessions(1L);
         verify(verificationTokenRepository).deleteByUserId(1L);
         verify(passwordResetTokenRepository).deleteByUserId(1L);
+        verify(summaryJobService).deleteUserJobs(1L);
         verify(summaryRepository).findByUserId(eq(1L), any(Pageable.class));
         verify(summaryRepository).deleteAll(anyList());
         verify(userRepository).delete(testUser1);
     }
 
+    @Test
+    void deleteUser_withSummaries_clearsQuestionBanksAndReleasesFiles() {
+        // Arrange
+        Summary summary = new Summary();
+        summary.setId(10L);
+        summary.setUserId(1L);
+        summary.setFilePath("objects/ab/abc.pdf");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser1));
+        when(summaryRepository.findByUserId(eq(1L), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(summary)));
+
+        // Act
+        userManagementService.deleteUser(3L, 1L);
+
+        // Assert
+        verify(questionBankRepository).deleteBySummaryId(10L);
+        verify(storedFileService).discard("objects/ab/abc.pdf");
+        verify(summaryRepository).deleteAll(List.of(summary));
+    }
+
     @Test
     void deleteUser_selfDelete_throwsForbiddenException() {
         // Arrange - Admin trying to delete their own account
@@ -541,7 +616,7 @@ class UserManagementServiceTest {
         
         assertTrue(exception.getMessage().contains("User not found"));
         verify(userRepository).findById(999L);
-        verify(sessionRepository, never()).deleteByUserId(any());
+        verify(tokenService, never()).deleteAllUserSessions(any());
         verify(userRepository, never()).delete(any());
     }
 
@@ -556,12 +631,13 @@ class UserManagementServiceTest {
         userManagementService.deleteUser(3L, 1L);
 
         // Assert - Verify order of deletions
-        var inOrder = inOrder(sessionRepository, verificationTokenRepository, 
-                              passwordResetTokenRepository, summaryRepository, userRepository);
+        var inOrder = inOrder(tokenService, verificationTokenRepository, 
+                              passwordResetTokenRepository, summaryJobService, summaryRepository, userRepository);
         
-        inOrder.verify(sessionRepository).deleteByUserId(1L);
+        inOrder.verify(tokenService).deleteAllUserSessions(1L);
         inOrder.verify(verificationTokenRepository).deleteByUserId(1L);
         inOrder.verify(passwordResetTokenRepository).deleteByUserId(1L);
+        inOrder.verify(summaryJobService).deleteUserJobs(1L);
         inOrder.verify(summaryRepository).deleteAll(anyList());
         inOrder.verify(userRepository).delete(testUser1);
     }
@@ -13,6 +13,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import tubes.pbo.be.auth.dto.*;
 import tubes.pbo.be.auth.service.AuthService;
 import tubes.pbo.be.shared.exception.ForbiddenException;
+import tubes.pbo.be.shared.exception.TooManyRequestsException;
 import tubes.pbo.be.shared.exception.UnauthorizedException;
 import tubes.pbo.be.shared.exception.ValidationException;
 
@@ -77,7 +78,7 @@ class AuthControllerIntegrationTest {
     @Test
     void register_validRequest_returns201() throws Exception {
         // Arrange
-        when(authService.register(any(RegisterRequest.class))).thenReturn(1L);
+        when(authService.register(any(RegisterRequest.class), anyString())).thenReturn(1L);
 
         // Act & Assert
         mockMvc.perform(post("/api/auth/register")
@@ -87,13 +88,13 @@ class AuthControllerIntegrationTest {
                 .andExpect(jsonPath("$.message").value("Registration successful. Please check your email to verify your account."))
                 .andExpect(jsonPath("$.data.userId").value(1));
 
-        verify(authService).register(any(RegisterRequest.class));
+        verify(authService).register(any(RegisterRequest.class), anyString());
     }
 
     @Test
     void register_duplicateEmail_returns400() throws Exception {
         // Arrange
-        when(authService.register(any(RegisterRequest.class)))
+        when(authService.register(any(RegisterRequest.class), anyString()))
             .thenThrow(new ValidationException("Email already exists"));
 
         // Act & Assert
@@ -105,7 +106,7 @@ class AuthControllerIntegrationTest {
                 .andExpect(jsonPath("$.error").value("Bad Request"))
                 .andExpect(jsonPath("$.message").value("Email already exists"));
 
-        verify(authService).register(any(RegisterRequest.class));
+        verify(authService).register(any(RegisterRequest.class), anyString());
     }
 
     @Test
@@ -119,7 +120,7 @@ class AuthControllerIntegrationTest {
                 .content(objectMapper.writeValueAsString(registerRequest)))
                 .andExpect(status().isBadRequest());
 
-        verify(authService, never()).register(any(RegisterRequest.class));
+        verify(authService, never()).register(any(RegisterRequest.class), anyString());
     }
 
     @Test
@@ -133,7 +134,7 @@ class AuthControllerIntegrationTest {
                 .content(objectMapper.writeValueAsString(registerRequest)))
                 .andExpect(status().isBadRequest());
 
-        verify(authService, never()).register(any(RegisterRequest.class));
+        verify(authService, never()).register(any(RegisterRequest.class), anyString());
     }
 
     @Test
@@ -147,7 +148,7 @@ class AuthControllerIntegrationTest {
                 .content(objectMapper.writeValueAsString(registerRequest)))
                 .andExpect(status().isBadRequest());
 
-        verify(authService, never()).register(any(RegisterRequest.class));
+        verify(authService, never()).register(any(RegisterRequest.class), anyString());
     }
 
     // ===== Login Tests =====
@@ -155,7 +156,7 @@ class AuthControllerIntegrationTest {
     @Test
     void login_validCredentials_returns200() throws Exception {
         // Arrange
-        when(authService.login(any(LoginRequest.class))).thenReturn(tokenResponse);
+        when(authService.login(any(LoginRequest.class), anyString())).thenReturn(tokenResponse);
 
         // Act & Assert
         mockMvc.perform(post("/api/auth/login")
@@ -168,15 +169,16 @@ class AuthControllerIntegrationTest {
                 .andExpect(jsonPath("$.data.user.email").value("test@example.com"))
                 .andExpect(jsonPath("$.data.user.name").value("Test User"))
                 .andExpect(jsonPath("$.data.user.role").value("USER"))
-                .andExpect(jsonPath("$.data.user.password").doesNotExist());
+                .andExpect(jsonPath("$.data.user.password").doesNotExist())
+                .andExpect(jsonPath("$.data.refreshToken").doesNotExist());
 
-        verify(authService).login(any(LoginRequest.class));
+        verify(authService).login(any(LoginRequest.class), anyString());
     }
 
     @Test
     void login_invalidCredentials_returns401() throws Exception {
         // Arrange
-        when(authService.login(any(LoginRequest.class)))
+        when(authService.login(any(LoginRequest.class), anyString()))
             .thenThrow(new UnauthorizedException("Invalid email or password"));
 
         // Act & Assert
@@ -188,13 +190,29 @@ class AuthControllerIntegrationTest {
                 .andExpect(jsonPath("$.error").value("Unauthorized"))
                 .andExpect(jsonPath("$.message").value("Invalid email or password"));
 
-        verify(authService).login(any(LoginRequest.class));
+        verify(authService).login(any(LoginRequest.class), anyString());
+    }
+
+    @Test
+    void login_throttled_returns429WithRetryAfter() throws Exception {
+        // Arrange
+        when(authService.login(any(LoginRequest.class), eq("127.0.0.1")))
+            .thenThrow(new TooManyRequestsException("Too many attempts. Please try again later.", 30));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "30"))
+                .andExpect(jsonPath("$.status").value(429))
+                .andExpect(jsonPath("$.message").value("Too many attempts. Please try again later."));
     }
 
     @Test
     void login_unverifiedUser_returns403() throws Exception {
         // Arrange
-        when(authService.login(any(LoginRequest.class)))
+        when(authService.login(any(LoginRequest.class), anyString()))
             .thenThrow(new ForbiddenException("Please verify your email before logging in"));
 
         // Act & Assert
@@ -206,7 +224,7 @@ class AuthControllerIntegrationTest {
                 .andExpect(jsonPath("$.error").value("Forbidden"))
                 .andExpect(jsonPath("$.message").value("Please verify your email before logging in"));
 
-        verify(authService).login(any(LoginRequest.class));
+        verify(authService).login(any(LoginRequest.class), anyString());
     }
 
     @Test
@@ -220,7 +238,7 @@ class AuthControllerIntegrationTest {
                 .content(objectMapper.writeValueAsString(loginRequest)))
                 .andExpect(status().isBadRequest());
 
-        verify(authService, never()).login(any(LoginRequest.class));
+        verify(authService, never()).login(any(LoginRequest.class), anyString());
     }
 
     @Test
@@ -234,7 +252,53 @@ class AuthControllerIntegrationTest {
                 .content(objectMapper.writeValueAsString(loginRequest)))
                 .andExpect(status().isBadRequest());
 
-        verify(authService, never()).login(any(LoginRequest.class));
+        verify(authService, never()).login(any(LoginRequest.class), anyString());
+    }
+
+    // ===== Refresh Tests =====
+
+    @Test
+    void refresh_validRefreshToken_returns200() throws Exception {
+        // Arrange
+        tokenResponse.setToken("header.payload.signature");
+        tokenResponse.setRefreshToken("session-token-123");
+        tokenResponse.setExpiresIn(900L);
+        when(authService.refresh("session-token-123")).thenReturn(tokenResponse);
+
+        // Act & Assert
+        mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\": \"session-token-123\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Token refreshed successfully"))
+                .andExpect(jsonPath("$.data.token").value("header.payload.signature"))
+                .andExpect(jsonPath("$.data.refreshToken").value("session-token-123"))
+                .andExpect(jsonPath("$.data.expiresIn").value(900));
+    }
+
+    @Test
+    void refresh_expiredRefreshToken_returns401() throws Exception {
+        // Arrange
+        when(authService.refresh("expired-token"))
+            .thenThrow(new UnauthorizedException("Session has expired"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\": \"expired-token\"}"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message").value("Session has expired"));
+    }
+
+    @Test
+    void refresh_missingRefreshToken_returns400() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        verify(authService, never()).refresh(anyString());
     }
 
     // ===== Verify Email Tests =====
@@ -450,7 +514,7 @@ class AuthControllerIntegrationTest {
                 .content("plain text"))
                 .andExpect(status().is5xxServerError());
 
-        verify(authService, never()).register(any(RegisterRequest.class));
+        verify(authService, never()).register(any(RegisterRequest.class), anyString());
     }
 
     @Test
@@ -461,7 +525,7 @@ class AuthControllerIntegrationTest {
                 .content("{}"))
                 .andExpect(status().isBadRequest());
 
-        verify(authService, never()).login(any(LoginRequest.class));
+        verify(authService, never()).login(any(LoginRequest.class), anyString());
     }
 
     // ===== Response Format Tests =====
@@ -469,7 +533,7 @@ class AuthControllerIntegrationTest {
     @Test
     void allSuccessResponses_haveCorrectFormat() throws Exception {
         // Register
-        when(authService.register(any(RegisterRequest.class))).thenReturn(1L);
+        when(authService.register(any(RegisterRequest.class), anyString())).thenReturn(1L);
         mockMvc.perform(post("/api/auth/register")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(registerRequest)))
@@ -477,7 +541,7 @@ class AuthControllerIntegrationTest {
                 .andExpect(jsonPath("$.data").exists());
 
         // Login
-        when(authService.login(any(LoginRequest.class))).thenReturn(tokenResponse);
+        when(authService.login(any(LoginRequest.class), anyString())).thenReturn(tokenResponse);
         mockMvc.perform(post("/api/auth/login")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(loginRequest)))
@@ -490,7 +554,7 @@ class AuthControllerIntegrationTest {
     @Test
     void allErrorResponses_haveCorrectFormat() throws Exception {
         // Arrange
-        when(authService.login(any(LoginRequest.class)))
+        when(authService.login(any(LoginRequest.class), anyString()))
             .thenThrow(new UnauthorizedException("Invalid email or password"));
 
         // Act & Assert
@@ -0,0 +1,86 @@
+package tubes.pbo.be.auth.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import tubes.pbo.be.auth.dto.RegisterRequest;
+import tubes.pbo.be.auth.service.AuthService;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs on a real server, since the forwarded headers are applied by the servlet container
+ * before any filter sees the request. The test client connects over loopback, which the
+ * container trusts as a proxy.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:clientaddress;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class ClientAddressIntegrationTest {
+
+    private static final String REGISTER_BODY =
+            "{\"email\":\"test@example.com\",\"password\":\"password123\",\"name\":\"Test User\"}";
+
+    @LocalServerPort
+    private int port;
+
+    @MockitoBean
+    private AuthService authService;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    void register_behindTrustedProxy_usesForwardedClientAddress() throws Exception {
+        // Arrange
+        when(authService.register(any(RegisterRequest.class), anyString())).thenReturn(1L);
+
+        // Act
+        HttpResponse<String> response = register("203.0.113.7");
+
+        // Assert
+        assertEquals(201, response.statusCode());
+        verify(authService).register(any(RegisterRequest.class), eq("203.0.113.7"));
+    }
+
+    @Test
+    void register_withoutForwardedHeader_usesConnectionAddress() throws Exception {
+        // Arrange
+        when(authService.register(any(RegisterRequest.class), anyString())).thenReturn(1L);
+
+        // Act
+        HttpResponse<String> response = register(null);
+
+        // Assert
+        assertEquals(201, response.statusCode());
+        verify(authService).register(any(RegisterRequest.class), eq("127.0.0.1"));
+    }
+
+    private HttpResponse<String> register(String forwardedFor) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(URI.create("http://127.0.0.1:" + port + "/api/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(REGISTER_BODY));
+        if (forwardedFor != null) {
+            request.header("X-Forwarded-For", forwardedFor);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
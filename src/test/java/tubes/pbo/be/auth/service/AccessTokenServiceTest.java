@@ -0,0 +1,135 @@
+package tubes.pbo.be.auth.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tubes.pbo.be.auth.model.Session;
+import tubes.pbo.be.shared.exception.ConfigurationException;
+import tubes.pbo.be.user.model.User;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccessTokenServiceTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    @Mock
+    private RevocationList revocationList;
+
+    private AccessTokenService accessTokenService;
+    private Session session;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        accessTokenService = new AccessTokenService(revocationList, new ObjectMapper(), true, SECRET, 15);
+
+        session = new Session();
+        session.setId(7L);
+        session.setToken("550e8400-e29b-41d4-a716-446655440000");
+        session.setUserId(1L);
+        session.setExpiresAt(LocalDateTime.now().plusHours(24));
+
+        user = new User();
+        user.setId(1L);
+        user.setRole(User.UserRole.ADMIN);
+    }
+
+    @Test
+    void verify_issuedToken_returnsClaims() {
+        // Arrange
+        String token = accessTokenService.issue(session, user);
+
+        // Act
+        Optional<AccessToken> accessToken = accessTokenService.verify(token);
+
+        // Assert
+        assertTrue(accessTokenService.isAccessToken(token));
+        assertTrue(accessToken.isPresent());
+        assertEquals(1L, accessToken.get().userId());
+        assertEquals(User.UserRole.ADMIN, accessToken.get().role());
+        assertEquals(7L, accessToken.get().sessionId());
+        verify(revocationList).isRevoked(7L);
+    }
+
+    @Test
+    void verify_tamperedPayload_isRejected() {
+        // Arrange
+        String token = accessTokenService.issue(session, user);
+        String[] parts = token.split("\\.");
+        String payload = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+                .replace("\"ADMIN\"", "\"USER\"");
+        String tampered = parts[0] + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + "." + parts[2];
+
+        // Act & Assert
+        assertTrue(accessTokenService.verify(tampered).isEmpty());
+    }
+
+    @Test
+    void verify_tokenSignedWithOtherSecret_isRejected() {
+        // Arrange
+        AccessTokenService other = new AccessTokenService(revocationList, new ObjectMapper(), true,
+                "fedcba9876543210fedcba9876543210", 15);
+
+        // Act & Assert
+        assertTrue(accessTokenService.verify(other.issue(session, user)).isEmpty());
+    }
+
+    @Test
+    void verify_revokedSession_isRejected() {
+        // Arrange
+        String token = accessTokenService.issue(session, user);
+        when(revocationList.isRevoked(7L)).thenReturn(true);
+
+        // Act & Assert
+        assertTrue(accessTokenService.verify(token).isEmpty());
+    }
+
+    @Test
+    void verify_sessionExpired_tokenExpiresWithIt() {
+        // Arrange
+        session.setExpiresAt(LocalDateTime.now().minusSeconds(5));
+        String token = accessTokenService.issue(session, user);
+
+        // Act & Assert
+        assertTrue(accessTokenService.verify(token).isEmpty());
+        verifyNoInteractions(revocationList);
+    }
+
+    @Test
+    void verify_malformedTokens_areRejected() {
+        // Act & Assert
+        assertTrue(accessTokenService.verify("not.a.token").isEmpty());
+        assertTrue(accessTokenService.verify("a.b").isEmpty());
+        assertTrue(accessTokenService.verify(".").isEmpty());
+        assertFalse(accessTokenService.isAccessToken(session.getToken()));
+    }
+
+    @Test
+    void constructor_enabledWithShortSecret_throwsConfigurationException() {
+        // Act & Assert
+        assertThrows(ConfigurationException.class,
+                () -> new AccessTokenService(revocationList, new ObjectMapper(), true, "short", 15));
+    }
+
+    @Test
+    void verify_disabled_treatsEveryTokenAsSessionToken() {
+        // Arrange
+        AccessTokenService disabled = new AccessTokenService(revocationList, new ObjectMapper(), false, "", 15);
+
+        // Act & Assert
+        assertFalse(disabled.isAccessToken("header.payload.signature"));
+        assertTrue(disabled.verify("header.payload.signature").isEmpty());
+    }
+}
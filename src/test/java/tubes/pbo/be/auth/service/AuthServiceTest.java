@@ -3,12 +3,16 @@ package tubes.pbo.be.auth.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 import tubes.pbo.be.auth.dto.*;
+import tubes.pbo.be.auth.model.Session;
 import tubes.pbo.be.shared.exception.ForbiddenException;
+import tubes.pbo.be.shared.exception.TooManyRequestsException;
 import tubes.pbo.be.shared.exception.UnauthorizedException;
 import tubes.pbo.be.shared.exception.ValidationException;
 import tubes.pbo.be.user.model.User;
@@ -27,6 +31,8 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class AuthServiceTest {
 
+    private static final String CLIENT_IP = "203.0.113.7";
+
     @Mock
     private UserRepository userRepository;
 
@@ -39,16 +45,29 @@ class AuthServiceTest {
     @Mock
     private EmailService emailService;
 
-    @InjectMocks
+    @Mock
+    private AccessTokenService accessTokenService;
+
+    @Mock
+    private LoginRateLimiter loginRateLimiter;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     private AuthService authService;
 
     private RegisterRequest registerRequest;
     private LoginRequest loginRequest;
     private User testUser;
     private String testToken;
+    private Session testSession;
 
     @BeforeEach
     void setUp() {
+        authService = new AuthService(userRepository, passwordEncoder, tokenService, emailService,
+                accessTokenService, loginRateLimiter, new TransactionTemplate(transactionManager));
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
         // Setup test data
         registerRequest = new RegisterRequest();
         registerRequest.setEmail("test@example.com");
@@ -69,6 +88,12 @@ class AuthServiceTest {
         testUser.setCreatedAt(LocalDateTime.now());
 
         testToken = UUID.randomUUID().toString();
+
+        testSession = new Session();
+        testSession.setId(7L);
+        testSession.setToken(testToken);
+        testSession.setUserId(1L);
+        testSession.setExpiresAt(LocalDateTime.now().plusHours(24));
     }
 
     // ===== Register Tests =====
@@ -80,10 +105,10 @@ class AuthServiceTest {
         when(passwordEncoder.encode(anyString())).thenReturn("hashedPassword");
         when(userRepository.save(any(User.class))).thenReturn(testUser);
         when(tokenService.generateVerificationToken(anyLong())).thenReturn(testToken);
-        doNothing().when(emailService).sendVerificationEmail(anyString(), anyString());
+        doNothing().when(emailService).queueVerificationEmail(anyString(), anyString());
 
         // Act
-        Long userId = authService.register(registerRequest);
+        Long userId = authService.register(registerRequest, CLIENT_IP);
 
         // Assert
         assertNotNull(userId);
@@ -93,7 +118,25 @@ class AuthServiceTest {
         verify(passwordEncoder).encode("password123");
         verify(userRepository).save(any(User.class));
         verify(tokenService).generateVerificationToken(1L);
-        verify(emailService).sendVerificationEmail("test@example.com", testToken);
+        verify(emailService).queueVerificationEmail("test@example.com", testToken);
+    }
+
+    @Test
+    void register_hashesBeforeTransactionStarts() {
+        // Arrange
+        when(userRepository.existsByEmail(anyString())).thenReturn(false);
+        when(passwordEncoder.encode(anyString())).thenReturn("hashedPassword");
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+        when(tokenService.generateVerificationToken(anyLong())).thenReturn(testToken);
+
+        // Act
+        authService.register(registerRequest, CLIENT_IP);
+
+        // Assert
+        var inOrder = inOrder(passwordEncoder, transactionManager, userRepository);
+        inOrder.verify(passwordEncoder).encode("password123");
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(userRepository).save(any(User.class));
     }
 
     @Test
@@ -103,12 +146,23 @@ class AuthServiceTest {
 
         // Act & Assert
         ValidationException exception = assertThrows(ValidationException.class, 
-            () -> authService.register(registerRequest));
+            () -> authService.register(registerRequest, CLIENT_IP));
         
         assertEquals("Email already exists", exception.getMessage());
         verify(userRepository).existsByEmail("test@example.com");
         verify(userRepository, never()).save(any(User.class));
-        verify(emailService, never()).sendVerificationEmail(anyString(), anyString());
+        verify(emailService, never()).queueVerificationEmail(anyString(), anyString());
+    }
+
+    @Test
+    void register_throttled_rejectsBeforeHashing() {
+        // Arrange
+        doThrow(new TooManyRequestsException("Too many attempts. Please try again later.", 30))
+                .when(loginRateLimiter).checkRegistration(CLIENT_IP);
+
+        // Act & Assert
+        assertThrows(TooManyRequestsException.class, () -> authService.register(registerRequest, CLIENT_IP));
+        verifyNoInteractions(userRepository, passwordEncoder);
     }
 
     @Test
@@ -133,7 +187,7 @@ class AuthServiceTest {
         });
 
         // Act
-        authService.register(registerRequest);
+        authService.register(registerRequest, CLIENT_IP);
 
         // Assert
         verify(userRepository).save(any(User.class));
@@ -146,10 +200,10 @@ class AuthServiceTest {
         // Arrange
         when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(testUser));
         when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
-        when(tokenService.generateSessionToken(anyLong())).thenReturn(testToken);
+        when(tokenService.createSession(anyLong())).thenReturn(testSession);
 
         // Act
-        TokenResponse response = authService.login(loginRequest);
+        TokenResponse response = authService.login(loginRequest, CLIENT_IP);
 
         // Assert
         assertNotNull(response);
@@ -158,10 +212,22 @@ class AuthServiceTest {
         assertEquals("test@example.com", response.getUser().getEmail());
         assertEquals("Test User", response.getUser().getName());
         assertEquals("USER", response.getUser().getRole());
+        assertNull(response.getRefreshToken());
         
         verify(userRepository).findByEmail("test@example.com");
         verify(passwordEncoder).matches("password123", "hashedPassword");
-        verify(tokenService).generateSessionToken(1L);
+        verify(tokenService).createSession(1L);
+    }
+
+    @Test
+    void login_throttled_rejectsBeforeHashing() {
+        // Arrange
+        doThrow(new TooManyRequestsException("Too many attempts. Please try again later.", 30))
+                .when(loginRateLimiter).checkLogin("test@example.com", CLIENT_IP);
+
+        // Act & Assert
+        assertThrows(TooManyRequestsException.class, () -> authService.login(loginRequest, CLIENT_IP));
+        verifyNoInteractions(userRepository, passwordEncoder, tokenService);
     }
 
     @Test
@@ -171,12 +237,12 @@ class AuthServiceTest {
 
         // Act & Assert
         ValidationException exception = assertThrows(ValidationException.class,
-            () -> authService.login(loginRequest));
+            () -> authService.login(loginRequest, CLIENT_IP));
         
         assertEquals("Invalid email or password", exception.getMessage());
         verify(userRepository).findByEmail(anyString());
         verify(passwordEncoder, never()).matches(anyString(), anyString());
-        verify(tokenService, never()).generateSessionToken(anyLong());
+        verify(tokenService, never()).createSession(anyLong());
     }
 
     @Test
@@ -187,12 +253,12 @@ class AuthServiceTest {
 
         // Act & Assert
         ValidationException exception = assertThrows(ValidationException.class,
-            () -> authService.login(loginRequest));
+            () -> authService.login(loginRequest, CLIENT_IP));
         
         assertEquals("Invalid email or password", exception.getMessage());
         verify(userRepository).findByEmail(anyString());
         verify(passwordEncoder).matches(anyString(), anyString());
-        verify(tokenService, never()).generateSessionToken(anyLong());
+        verify(tokenService, never()).createSession(anyLong());
     }
 
     @Test
@@ -204,12 +270,12 @@ class AuthServiceTest {
 
         // Act & Assert
         ForbiddenException exception = assertThrows(ForbiddenException.class,
-            () -> authService.login(loginRequest));
+            () -> authService.login(loginRequest, CLIENT_IP));
         
         assertEquals("Please verify your email before logging in", exception.getMessage());
         verify(userRepository).findByEmail("test@example.com");
         verify(passwordEncoder).matches("password123", "hashedPassword");
-        verify(tokenService, never()).generateSessionToken(anyLong());
+        verify(tokenService, never()).createSession(anyLong());
     }
 
     @Test
@@ -218,16 +284,65 @@ class AuthServiceTest {
         loginRequest.setEmail("TEST@EXAMPLE.COM");
         when(userRepository.findByEmail("test@example.com")).thenReturn(Optional.of(testUser));
         when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
-        when(tokenService.generateSessionToken(anyLong())).thenReturn(testToken);
+        when(tokenService.createSession(anyLong())).thenReturn(testSession);
 
         // Act
-        TokenResponse response = authService.login(loginRequest);
+        TokenResponse response = authService.login(loginRequest, CLIENT_IP);
 
         // Assert
         assertNotNull(response);
         verify(userRepository).findByEmail("test@example.com");
     }
 
+    @Test
+    void login_signedAccessTokensEnabled_returnsAccessAndRefreshToken() {
+        // Arrange
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches(anyString(), anyString())).thenReturn(true);
+        when(tokenService.createSession(1L)).thenReturn(testSession);
+        when(accessTokenService.isEnabled()).thenReturn(true);
+        when(accessTokenService.issue(testSession, testUser)).thenReturn("header.payload.signature");
+        when(accessTokenService.getTtlSeconds()).thenReturn(900L);
+
+        // Act
+        TokenResponse response = authService.login(loginRequest, CLIENT_IP);
+
+        // Assert
+        assertEquals("header.payload.signature", response.getToken());
+        assertEquals(testToken, response.getRefreshToken());
+        assertEquals(900L, response.getExpiresIn());
+    }
+
+    // ===== Refresh Tests =====
+
+    @Test
+    void refresh_validRefreshToken_issuesNewAccessToken() {
+        // Arrange
+        when(tokenService.validateSession(testToken)).thenReturn(testSession);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(accessTokenService.isEnabled()).thenReturn(true);
+        when(accessTokenService.issue(testSession, testUser)).thenReturn("header.payload.signature");
+
+        // Act
+        TokenResponse response = authService.refresh(testToken);
+
+        // Assert
+        assertEquals("header.payload.signature", response.getToken());
+        assertEquals(testToken, response.getRefreshToken());
+        assertEquals("USER", response.getUser().getRole());
+    }
+
+    @Test
+    void refresh_invalidRefreshToken_throwsUnauthorizedException() {
+        // Arrange
+        when(tokenService.validateSession(testToken))
+            .thenThrow(new UnauthorizedException("Invalid or expired session token"));
+
+        // Act & Assert
+        assertThrows(UnauthorizedException.class, () -> authService.refresh(testToken));
+        verify(accessTokenService, never()).issue(any(), any());
+    }
+
     // ===== Verify Email Tests =====
 
     @Test
@@ -287,7 +402,7 @@ class AuthServiceTest {
         
         when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(testUser));
         when(tokenService.generatePasswordResetToken(anyLong())).thenReturn(testToken);
-        doNothing().when(emailService).sendPasswordResetEmail(anyString(), anyString());
+        doNothing().when(emailService).queuePasswordResetEmail(anyString(), anyString());
 
         // Act
         authService.forgotPassword(email);
@@ -295,7 +410,7 @@ class AuthServiceTest {
         // Assert
         verify(userRepository).findByEmail("test@example.com");
         verify(tokenService).generatePasswordResetToken(1L);
-        verify(emailService).sendPasswordResetEmail("test@example.com", testToken);
+        verify(emailService).queuePasswordResetEmail("test@example.com", testToken);
     }
 
     @Test
@@ -311,7 +426,7 @@ class AuthServiceTest {
         // Assert
         verify(userRepository).findByEmail("nonexistent@example.com");
         verify(tokenService, never()).generatePasswordResetToken(anyLong());
-        verify(emailService, never()).sendPasswordResetEmail(anyString(), anyString());
+        verify(emailService, never()).queuePasswordResetEmail(anyString(), anyString());
     }
 
     // ===== Reset Password Tests =====
@@ -323,6 +438,8 @@ class AuthServiceTest {
         request.setToken(testToken);
         request.setNewPassword("newPassword123");
         
+        when(tokenService.checkPasswordResetToken(anyString())).thenReturn(1L);
+        when(userRepository.existsById(1L)).thenReturn(true);
         when(tokenService.validatePasswordResetToken(anyString())).thenReturn(1L);
         when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
         when(passwordEncoder.encode(anyString())).thenReturn("newHashedPassword");
@@ -333,6 +450,7 @@ class AuthServiceTest {
         authService.resetPassword(request);
 
         // Assert
+        verify(tokenService).checkPasswordResetToken(testToken);
         verify(tokenService).validatePasswordResetToken(testToken);
         verify(userRepository).findById(1L);
         verify(passwordEncoder).encode("newPassword123");
@@ -340,6 +458,29 @@ class AuthServiceTest {
         verify(tokenService).deleteAllUserSessions(1L);
     }
 
+    @Test
+    void resetPassword_hashesBeforeTransactionStarts() {
+        // Arrange
+        ResetPasswordRequest request = new ResetPasswordRequest();
+        request.setToken(testToken);
+        request.setNewPassword("newPassword123");
+
+        when(tokenService.checkPasswordResetToken(anyString())).thenReturn(1L);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(tokenService.validatePasswordResetToken(anyString())).thenReturn(1L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.encode(anyString())).thenReturn("newHashedPassword");
+
+        // Act
+        authService.resetPassword(request);
+
+        // Assert
+        var inOrder = inOrder(passwordEncoder, transactionManager, tokenService);
+        inOrder.verify(passwordEncoder).encode("newPassword123");
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(tokenService).validatePasswordResetToken(testToken);
+    }
+
     @Test
     void resetPassword_invalidToken_throwsValidationException() {
         // Arrange
@@ -347,7 +488,7 @@ class AuthServiceTest {
         request.setToken(testToken);
         request.setNewPassword("newPassword123");
         
-        when(tokenService.validatePasswordResetToken(anyString()))
+        when(tokenService.checkPasswordResetToken(anyString()))
             .thenThrow(new ValidationException("Invalid or expired reset token"));
 
         // Act & Assert
@@ -355,7 +496,8 @@ class AuthServiceTest {
             () -> authService.resetPassword(request));
         
         assertEquals("Invalid or expired reset token", exception.getMessage());
-        verify(tokenService).validatePasswordResetToken(testToken);
+        verify(tokenService).checkPasswordResetToken(testToken);
+        verify(tokenService, never()).validatePasswordResetToken(anyString());
         verify(userRepository, never()).findById(anyLong());
         verify(passwordEncoder, never()).encode(anyString());
         verify(userRepository, never()).save(any(User.class));
@@ -369,16 +511,17 @@ class AuthServiceTest {
         request.setToken(testToken);
         request.setNewPassword("newPassword123");
         
-        when(tokenService.validatePasswordResetToken(anyString())).thenReturn(999L);
-        when(userRepository.findById(999L)).thenReturn(Optional.empty());
+        when(tokenService.checkPasswordResetToken(anyString())).thenReturn(999L);
+        when(userRepository.existsById(999L)).thenReturn(false);
 
         // Act & Assert
         ValidationException exception = assertThrows(ValidationException.class,
             () -> authService.resetPassword(request));
         
         assertEquals("User not found", exception.getMessage());
-        verify(tokenService).validatePasswordResetToken(testToken);
-        verify(userRepository).findById(999L);
+        verify(tokenService).checkPasswordResetToken(testToken);
+        verify(tokenService, never()).validatePasswordResetToken(anyString());
+        verify(userRepository).existsById(999L);
         verify(passwordEncoder, never()).encode(anyString());
         verify(userRepository, never()).save(any(User.class));
         verify(tokenService, never()).deleteAllUserSessions(anyLong());
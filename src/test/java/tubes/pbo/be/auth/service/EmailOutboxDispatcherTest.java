@@ -0,0 +1,204 @@
+package tubes.pbo.be.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import tubes.pbo.be.auth.model.EmailOutbox;
+import tubes.pbo.be.auth.repository.EmailOutboxRepository;
+import tubes.pbo.be.shared.lock.SchedulerLockService;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Sends through a real {@link JavaMailSenderImpl} to a {@link LocalSmtpServer}.
+ */
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxDispatcherTest {
+
+    private static final String BOUNCING = "bounce@example.com";
+
+    @Mock
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Mock
+    private SchedulerLockService schedulerLockService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+
+    private LocalSmtpServer smtpServer;
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtpServer = new LocalSmtpServer(Set.of(BOUNCING));
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtpServer.port());
+        mailSender.getJavaMailProperties().put("mail.smtp.timeout", "5000");
+
+        dispatcher = new EmailOutboxDispatcher(emailOutboxRepository, mailSender, schedulerLockService,
+                meterRegistry, Runnable::run);
+        ReflectionTestUtils.setField(dispatcher, "fromEmail", "noreply@example.com");
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 50);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 3);
+        ReflectionTestUtils.setField(dispatcher, "initialBackoffMs", 60000L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffMs", 600000L);
+        ReflectionTestUtils.setField(dispatcher, "lockTtlMs", 60000L);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        smtpServer.close();
+    }
+
+    @Test
+    void dispatch_sendsBatchOverOneConnectionAndDeletesSentEmails() {
+        // Arrange
+        givenLock(true);
+        givenPending(email(1L, "a@example.com", 0), email(2L, "b@example.com", 0), email(3L, "c@example.com", 0));
+
+        // Act
+        dispatcher.dispatch();
+
+        // Assert
+        assertEquals(1, smtpServer.connections());
+        assertEquals(List.of("a@example.com", "b@example.com", "c@example.com"),
+                smtpServer.received().stream().map(LocalSmtpServer.Received::recipient).toList());
+        assertTrue(smtpServer.received().getFirst().data().contains("Body for a@example.com"));
+        verify(emailOutboxRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        verify(emailOutboxRepository, never()).saveAll(anyList());
+        verify(schedulerLockService).unlock(EmailOutboxDispatcher.LOCK_NAME);
+        assertEquals(3.0, meterRegistry.get("mail.outbox.messages").tag("result", "sent").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void dispatch_refusedRecipient_isRetriedWithBackoffWhileOthersAreSent() {
+        // Arrange
+        givenLock(true);
+        EmailOutbox bouncing = email(2L, BOUNCING, 0);
+        givenPending(email(1L, "a@example.com", 0), bouncing);
+        LocalDateTime before = LocalDateTime.now();
+
+        // Act
+        dispatcher.dispatch();
+
+        // Assert
+        verify(emailOutboxRepository).deleteAllByIdInBatch(List.of(1L));
+        ArgumentCaptor<List<EmailOutbox>> captor = ArgumentCaptor.forClass(List.class);
+        verify(emailOutboxRepository).saveAll(captor.capture());
+        assertEquals(List.of(bouncing), captor.getValue());
+
+        assertEquals(EmailOutbox.Status.PENDING, bouncing.getStatus());
+        assertEquals(1, bouncing.getAttempts());
+        assertNotNull(bouncing.getLastError());
+        // Equal jitter keeps at least half of the first 60s step
+        assertTrue(bouncing.getNextAttemptAt().isAfter(before.plusSeconds(29)));
+        assertEquals(1.0, meterRegistry.get("mail.outbox.messages").tag("result", "retried").counter().count());
+    }
+
+    @Test
+    void dispatch_lastAttemptFails_marksEmailFailed() {
+        // Arrange
+        givenLock(true);
+        EmailOutbox bouncing = email(1L, BOUNCING, 2);
+        givenPending(bouncing);
+
+        // Act
+        dispatcher.dispatch();
+
+        // Assert
+        assertEquals(EmailOutbox.Status.FAILED, bouncing.getStatus());
+        assertEquals(3, bouncing.getAttempts());
+        verify(emailOutboxRepository, never()).deleteAllByIdInBatch(anyList());
+        assertEquals(1.0, meterRegistry.get("mail.outbox.messages").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    void dispatch_serverUnreachable_retriesWholeBatch() throws IOException {
+        // Arrange
+        try (ServerSocket unused = new ServerSocket(0)) {
+            mailSender.setPort(unused.getLocalPort());
+        }
+        givenLock(true);
+        EmailOutbox first = email(1L, "a@example.com", 0);
+        EmailOutbox second = email(2L, "b@example.com", 0);
+        givenPending(first, second);
+
+        // Act
+        dispatcher.dispatch();
+
+        // Assert
+        verify(emailOutboxRepository, never()).deleteAllByIdInBatch(anyList());
+        verify(emailOutboxRepository).saveAll(List.of(first, second));
+        assertEquals(1, first.getAttempts());
+        assertEquals(1, second.getAttempts());
+        verify(schedulerLockService).unlock(EmailOutboxDispatcher.LOCK_NAME);
+    }
+
+    @Test
+    void dispatch_lockHeldByAnotherNode_sendsNothing() {
+        // Arrange
+        givenLock(false);
+
+        // Act
+        dispatcher.dispatch();
+
+        // Assert
+        verifyNoInteractions(emailOutboxRepository);
+        assertEquals(0, smtpServer.connections());
+    }
+
+    @Test
+    void trigger_runsDispatchOnExecutor() {
+        // Arrange
+        givenLock(true);
+        givenPending(email(1L, "a@example.com", 0));
+
+        // Act
+        dispatcher.trigger();
+
+        // Assert
+        verify(emailOutboxRepository).deleteAllByIdInBatch(List.of(1L));
+    }
+
+    private void givenLock(boolean acquired) {
+        when(schedulerLockService.tryLock(eq(EmailOutboxDispatcher.LOCK_NAME), any(Duration.class))).thenReturn(acquired);
+    }
+
+    private void givenPending(EmailOutbox... emails) {
+        when(emailOutboxRepository.findByStatusAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+                eq(EmailOutbox.Status.PENDING), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(emails));
+    }
+
+    private static EmailOutbox email(Long id, String recipient, int attempts) {
+        EmailOutbox email = new EmailOutbox();
+        email.setId(id);
+        email.setRecipient(recipient);
+        email.setSubject("Subject");
+        email.setBody("Body for " + recipient);
+        email.setAttempts(attempts);
+        email.setNextAttemptAt(LocalDateTime.now());
+        return email;
+    }
+}
@@ -1,5 +1,6 @@
 package tubes.pbo.be.auth.service;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -8,12 +9,13 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tubes.pbo.be.auth.model.EmailOutbox;
+import tubes.pbo.be.auth.repository.EmailOutboxRepository;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -21,179 +23,100 @@ import static org.mockito.Mockito.*;
 class EmailServiceTest {
 
     @Mock
-    private JavaMailSender mailSender;
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Mock
+    private EmailOutboxDispatcher emailOutboxDispatcher;
 
     @InjectMocks
     private EmailService emailService;
 
-    private static final String FROM_EMAIL = "noreply@example.com";
     private static final String FRONTEND_URL = "http://localhost:3000";
     private static final String TEST_EMAIL = "test@example.com";
     private static final String TEST_TOKEN = "test-token-123";
 
     @BeforeEach
     void setUp() {
-        ReflectionTestUtils.setField(emailService, "fromEmail", FROM_EMAIL);
         ReflectionTestUtils.setField(emailService, "frontendUrl", FRONTEND_URL);
     }
 
-    @Test
-    @DisplayName("sendVerificationEmail - Success")
-    void sendVerificationEmail_success() {
-        // Act
-        emailService.sendVerificationEmail(TEST_EMAIL, TEST_TOKEN);
-
-        // Assert
-        ArgumentCaptor<SimpleMailMessage> messageCaptor = ArgumentCaptor.forClass(SimpleMailMessage.class);
-        verify(mailSender, times(1)).send(messageCaptor.capture());
-
-        SimpleMailMessage sentMessage = messageCaptor.getValue();
-        assertNotNull(sentMessage);
-        assertEquals(FROM_EMAIL, sentMessage.getFrom());
-        assertArrayEquals(new String[]{TEST_EMAIL}, sentMessage.getTo());
-        assertEquals("Verify Your Email - Tubes PBO", sentMessage.getSubject());
-        assertTrue(sentMessage.getText().contains(TEST_TOKEN));
-        assertTrue(sentMessage.getText().contains(FRONTEND_URL + "/verify?token=" + TEST_TOKEN));
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 
     @Test
-    @DisplayName("sendVerificationEmail - Contains Verification Link")
-    void sendVerificationEmail_containsVerificationLink() {
+    @DisplayName("queueVerificationEmail - Success")
+    void queueVerificationEmail_success() {
         // Act
-        emailService.sendVerificationEmail(TEST_EMAIL, TEST_TOKEN);
+        emailService.queueVerificationEmail(TEST_EMAIL, TEST_TOKEN);
 
         // Assert
-        ArgumentCaptor<SimpleMailMessage> messageCaptor = ArgumentCaptor.forClass(SimpleMailMessage.class);
-        verify(mailSender).send(messageCaptor.capture());
-
-        SimpleMailMessage sentMessage = messageCaptor.getValue();
-        String expectedLink = FRONTEND_URL + "/verify?token=" + TEST_TOKEN;
-        assertTrue(sentMessage.getText().contains(expectedLink),
-                "Email should contain verification link: " + expectedLink);
+        EmailOutbox queued = captureQueued();
+        assertEquals(TEST_EMAIL, queued.getRecipient());
+        assertEquals("Verify Your Email - Tubes PBO", queued.getSubject());
+        assertEquals(EmailOutbox.Status.PENDING, queued.getStatus());
+        assertTrue(queued.getBody().contains(FRONTEND_URL + "/verify?token=" + TEST_TOKEN));
+        assertTrue(queued.getBody().contains("Welcome to Tubes PBO"));
     }
 
     @Test
-    @DisplayName("sendVerificationEmail - Contains Welcome Message")
-    void sendVerificationEmail_containsWelcomeMessage() {
+    @DisplayName("queuePasswordResetEmail - Success")
+    void queuePasswordResetEmail_success() {
         // Act
-        emailService.sendVerificationEmail(TEST_EMAIL, TEST_TOKEN);
+        emailService.queuePasswordResetEmail(TEST_EMAIL, TEST_TOKEN);
 
         // Assert
-        ArgumentCaptor<SimpleMailMessage> messageCaptor = ArgumentCaptor.forClass(SimpleMailMessage.class);
-        verify(mailSender).send(messageCaptor.capture());
-
-        SimpleMailMessage sentMessage = messageCaptor.getValue();
-        assertTrue(sentMessage.getText().contains("Welcome to Tubes PBO"),
-                "Email should contain welcome message");
+        EmailOutbox queued = captureQueued();
+        assertEquals(TEST_EMAIL, queued.getRecipient());
+        assertEquals("Password Reset Request - Tubes PBO", queued.getSubject());
+        assertTrue(queued.getBody().contains(FRONTEND_URL + "/reset-password?token=" + TEST_TOKEN));
+        assertTrue(queued.getBody().contains("1 hour"));
     }
 
     @Test
-    @DisplayName("sendPasswordResetEmail - Success")
-    void sendPasswordResetEmail_success() {
-        // Act
-        emailService.sendPasswordResetEmail(TEST_EMAIL, TEST_TOKEN);
-
-        // Assert
-        ArgumentCaptor<SimpleMailMessage> messageCaptor = ArgumentCaptor.forClass(SimpleMailMessage.class);
-        verify(mailSender, times(1)).send(messageCaptor.capture());
-
-        SimpleMailMessage sentMessage = messageCaptor.getValue();
-        assertNotNull(sentMessage);
-        assertEquals(FROM_EMAIL, sentMessage.getFrom());
-        assertArrayEquals(new String[]{TEST_EMAIL}, sentMessage.getTo());
-        assertEquals("Password Reset Request - Tubes PBO", sentMessage.getSubject());
-        assertTrue(sentMessage.getText().contains(TEST_TOKEN));
-        assertTrue(sentMessage.getText().contains(FRONTEND_URL + "/reset-password?token=" + TEST_TOKEN));
-    }
+    @DisplayName("queueVerificationEmail - With Special Characters in Email")
+    void queueVerificationEmail_withSpecialCharactersInEmail() {
+        // Arrange
+        String specialEmail = "test+alias@example.com";
 
-    @Test
-    @DisplayName("sendPasswordResetEmail - Contains Reset Link")
-    void sendPasswordResetEmail_containsResetLink() {
         // Act
-        emailService.sendPasswordResetEmail(TEST_EMAIL, TEST_TOKEN);
+        emailService.queueVerificationEmail(specialEmail, TEST_TOKEN);
 
         // Assert
-        ArgumentCaptor<SimpleMailMessage> messageCaptor = ArgumentCaptor.forClass(SimpleMailMessage.class);
-        verify(mailSender).send(messageCaptor.capture());
-
-        SimpleMailMessage sentMessage = messageCaptor.getValue();
-        String expectedLink = FRONTEND_URL + "/reset-password?token=" + TEST_TOKEN;
-        assertTrue(sentMessage.getText().contains(expectedLink),
-                "Email should contain password reset link: " + expectedLink);
+        assertEquals(specialEmail, captureQueued().getRecipient());
     }
 
     @Test
-    @DisplayName("sendPasswordResetEmail - Contains Expiry Information")
-    void sendPasswordResetEmail_containsExpiryInformation() {
+    @DisplayName("queueVerificationEmail - No Transaction - Triggers Dispatch Immediately")
+    void queueVerificationEmail_noTransaction_triggersDispatchImmediately() {
         // Act
-        emailService.sendPasswordResetEmail(TEST_EMAIL, TEST_TOKEN);
+        emailService.queueVerificationEmail(TEST_EMAIL, TEST_TOKEN);
 
         // Assert
-        ArgumentCaptor<SimpleMailMessage> messageCaptor = ArgumentCaptor.forClass(SimpleMailMessage.class);
-        verify(mailSender).send(messageCaptor.capture());
-
-        SimpleMailMessage sentMessage = messageCaptor.getValue();
-        assertTrue(sentMessage.getText().contains("1 hour") || sentMessage.getText().contains("expire"),
-                "Email should mention token expiry");
-    }
-
-    @Test
-    @DisplayName("sendVerificationEmail - MailSender Throws Exception - Does Not Propagate Exception")
-    void sendVerificationEmail_mailSenderThrowsException_doesNotPropagateException() {
-        // Arrange
-        doThrow(new RuntimeException("SMTP error")).when(mailSender).send(any(SimpleMailMessage.class));
-
-        // Act - should not throw exception
-        emailService.sendVerificationEmail(TEST_EMAIL, TEST_TOKEN);
-
-        // Assert - verify email sending was attempted
-        verify(mailSender, times(1)).send(any(SimpleMailMessage.class));
+        verify(emailOutboxDispatcher).trigger();
     }
 
     @Test
-    @DisplayName("sendPasswordResetEmail - MailSender Throws Exception - Does Not Propagate Exception")
-    void sendPasswordResetEmail_mailSenderThrowsException_doesNotPropagateException() {
+    @DisplayName("queuePasswordResetEmail - In Transaction - Triggers Dispatch Only After Commit")
+    void queuePasswordResetEmail_inTransaction_triggersDispatchAfterCommit() {
         // Arrange
-        doThrow(new RuntimeException("SMTP error")).when(mailSender).send(any(SimpleMailMessage.class));
-
-        // Act - should not throw exception
-        emailService.sendPasswordResetEmail(TEST_EMAIL, TEST_TOKEN);
-
-        // Assert - verify email sending was attempted
-        verify(mailSender, times(1)).send(any(SimpleMailMessage.class));
-    }
-
-    @Test
-    @DisplayName("sendVerificationEmail - With Special Characters in Email")
-    void sendVerificationEmail_withSpecialCharactersInEmail() {
-        // Arrange
-        String specialEmail = "test+alias@example.com";
+        TransactionSynchronizationManager.initSynchronization();
 
         // Act
-        emailService.sendVerificationEmail(specialEmail, TEST_TOKEN);
+        emailService.queuePasswordResetEmail(TEST_EMAIL, TEST_TOKEN);
 
         // Assert
-        ArgumentCaptor<SimpleMailMessage> messageCaptor = ArgumentCaptor.forClass(SimpleMailMessage.class);
-        verify(mailSender).send(messageCaptor.capture());
-
-        SimpleMailMessage sentMessage = messageCaptor.getValue();
-        assertArrayEquals(new String[]{specialEmail}, sentMessage.getTo());
+        verify(emailOutboxDispatcher, never()).trigger();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(emailOutboxDispatcher).trigger();
     }
 
-    @Test
-    @DisplayName("sendPasswordResetEmail - With Special Characters in Token")
-    void sendPasswordResetEmail_withSpecialCharactersInToken() {
-        // Arrange
-        String specialToken = "test-token-with-special-chars-123-abc-XYZ";
-
-        // Act
-        emailService.sendPasswordResetEmail(TEST_EMAIL, specialToken);
-
-        // Assert
-        ArgumentCaptor<SimpleMailMessage> messageCaptor = ArgumentCaptor.forClass(SimpleMailMessage.class);
-        verify(mailSender).send(messageCaptor.capture());
-
-        SimpleMailMessage sentMessage = messageCaptor.getValue();
-        assertTrue(sentMessage.getText().contains(specialToken));
+    private EmailOutbox captureQueued() {
+        ArgumentCaptor<EmailOutbox> captor = ArgumentCaptor.forClass(EmailOutbox.class);
+        verify(emailOutboxRepository, times(1)).save(captor.capture());
+        return captor.getValue();
     }
 }
@@ -0,0 +1,107 @@
+package tubes.pbo.be.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import tubes.pbo.be.shared.exception.TooManyRequestsException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginRateLimiterTest {
+
+    private static final long WINDOW_MS = 60_000;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LoginRateLimiter limiter = new LoginRateLimiter(true, 60, 3, 5, 2, 1000, meterRegistry);
+
+    @Test
+    void checkLogin_perEmailLimit_rejectsFurtherAttemptsRegardlessOfCase() {
+        // Arrange
+        limiter.checkLogin("user@example.com", "198.51.100.1");
+        limiter.checkLogin("USER@example.com", "198.51.100.2");
+        limiter.checkLogin("user@example.com", "198.51.100.3");
+
+        // Act & Assert
+        TooManyRequestsException exception = assertThrows(TooManyRequestsException.class,
+                () -> limiter.checkLogin("User@Example.com", "198.51.100.4"));
+        assertTrue(exception.getRetryAfterSeconds() >= 1);
+        assertEquals(1.0, meterRegistry.get("auth.rate_limit.rejected").tag("limit", "login-email").counter().count());
+    }
+
+    @Test
+    void checkLogin_perIpLimit_rejectsAcrossEmails() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            limiter.checkLogin("user" + i + "@example.com", "198.51.100.1");
+        }
+
+        // Act & Assert
+        assertThrows(TooManyRequestsException.class, () -> limiter.checkLogin("other@example.com", "198.51.100.1"));
+        assertDoesNotThrow(() -> limiter.checkLogin("other@example.com", "198.51.100.2"));
+    }
+
+    @Test
+    void checkRegistration_perIpLimit_isSeparateFromLogins() {
+        // Arrange
+        limiter.checkRegistration("198.51.100.1");
+        limiter.checkRegistration("198.51.100.1");
+
+        // Act & Assert
+        assertThrows(TooManyRequestsException.class, () -> limiter.checkRegistration("198.51.100.1"));
+        assertDoesNotThrow(() -> limiter.checkLogin("user@example.com", "198.51.100.1"));
+    }
+
+    @Test
+    void acquire_slidingWindow_weighsPreviousWindowByOverlap() {
+        // Arrange: three attempts at the start of the first window use up the limit
+        long start = 1_000_000;
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("login-email", "user@example.com", 3, start);
+        }
+
+        // Act & Assert
+        // A quarter into the next window 75% of the previous count still applies: 2.25 attempts
+        assertDoesNotThrow(() -> limiter.acquire("login-email", "user@example.com", 3, start + WINDOW_MS + WINDOW_MS / 4));
+        // Now 2.25 + 1 = 3.25
+        assertThrows(TooManyRequestsException.class,
+                () -> limiter.acquire("login-email", "user@example.com", 3, start + WINDOW_MS + WINDOW_MS / 4));
+        // Two windows later nothing is left
+        assertDoesNotThrow(() -> limiter.acquire("login-email", "user@example.com", 3, start + 3 * WINDOW_MS));
+    }
+
+    @Test
+    void acquire_maxKeysReached_letsNewKeysThroughUntracked() {
+        // Arrange
+        LoginRateLimiter small = new LoginRateLimiter(true, 60, 1, 1, 1, 1, new SimpleMeterRegistry());
+        small.checkRegistration("198.51.100.1");
+
+        // Act & Assert
+        assertDoesNotThrow(() -> small.checkRegistration("198.51.100.2"));
+        assertDoesNotThrow(() -> small.checkRegistration("198.51.100.2"));
+        assertEquals(1, small.size());
+    }
+
+    @Test
+    void checkLogin_disabled_neverRejects() {
+        // Arrange
+        LoginRateLimiter disabled = new LoginRateLimiter(false, 60, 1, 1, 1, 1000, new SimpleMeterRegistry());
+
+        // Act & Assert
+        for (int i = 0; i < 10; i++) {
+            assertDoesNotThrow(() -> disabled.checkLogin("user@example.com", "198.51.100.1"));
+        }
+        assertEquals(0, disabled.size());
+    }
+
+    @Test
+    void evictExpired_dropsIdleWindows() {
+        // Arrange
+        limiter.acquire("login-ip", "198.51.100.1", 5, System.currentTimeMillis() - 2 * WINDOW_MS);
+        limiter.checkLogin("user@example.com", "198.51.100.2");
+
+        // Act
+        limiter.evictExpired();
+
+        // Assert
+        assertEquals(2, limiter.size());
+    }
+}
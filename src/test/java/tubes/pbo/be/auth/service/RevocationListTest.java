@@ -0,0 +1,101 @@
+package tubes.pbo.be.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tubes.pbo.be.auth.model.SessionRevocation;
+import tubes.pbo.be.auth.repository.SessionRevocationRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RevocationListTest {
+
+    @Mock
+    private SessionRevocationRepository sessionRevocationRepository;
+
+    private RevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        revocationList = new RevocationList(sessionRevocationRepository, true, 15, 60000, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void revoke_newSessions_recordsThemAndAppliesImmediately() {
+        // Arrange
+        when(sessionRevocationRepository.findBySessionIdIn(List.of(1L, 2L)))
+                .thenReturn(List.of(new SessionRevocation(10L, 2L, 5L, LocalDateTime.now(), LocalDateTime.now().plusMinutes(16))));
+
+        // Act
+        revocationList.revoke(5L, List.of(1L, 2L));
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SessionRevocation>> saved = ArgumentCaptor.forClass(List.class);
+        verify(sessionRevocationRepository).saveAll(saved.capture());
+        assertEquals(List.of(1L), saved.getValue().stream().map(SessionRevocation::getSessionId).toList());
+        assertTrue(revocationList.isRevoked(1L));
+        assertFalse(revocationList.isRevoked(3L));
+    }
+
+    @Test
+    void refresh_loadsRevocationsFromOtherNodesIncrementally() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        when(sessionRevocationRepository.findByRevokedAtGreaterThanEqualAndExpiresAtAfter(any(), any()))
+                .thenReturn(List.of(new SessionRevocation(1L, 11L, 5L, now, now.plusMinutes(16))))
+                .thenReturn(List.of(new SessionRevocation(2L, 12L, 6L, now, now.plusMinutes(16))));
+
+        // Act
+        revocationList.refresh();
+        revocationList.refresh();
+
+        // Assert
+        assertTrue(revocationList.isRevoked(11L));
+        assertTrue(revocationList.isRevoked(12L));
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(sessionRevocationRepository, times(2))
+                .findByRevokedAtGreaterThanEqualAndExpiresAtAfter(since.capture(), any());
+        // First run reaches back a whole token lifetime, later runs only the overlap window
+        assertTrue(since.getAllValues().get(0).isBefore(now.minusMinutes(15)));
+        assertTrue(since.getAllValues().get(1).isAfter(now.minusMinutes(2)));
+    }
+
+    @Test
+    void refresh_dropsEntriesOnceTheirTokensHaveExpired() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.now();
+        when(sessionRevocationRepository.findByRevokedAtGreaterThanEqualAndExpiresAtAfter(any(), any()))
+                .thenReturn(List.of(new SessionRevocation(1L, 11L, 5L, now.minusMinutes(20), now.minusSeconds(1))));
+
+        // Act
+        revocationList.refresh();
+
+        // Assert
+        assertFalse(revocationList.isRevoked(11L));
+    }
+
+    @Test
+    void revoke_disabled_doesNothing() {
+        // Arrange
+        RevocationList disabled = new RevocationList(sessionRevocationRepository, false, 15, 60000, new SimpleMeterRegistry());
+
+        // Act
+        disabled.revoke(5L, List.of(1L));
+        disabled.refresh();
+
+        // Assert
+        assertFalse(disabled.isRevoked(1L));
+        verifyNoInteractions(sessionRevocationRepository);
+    }
+}
@@ -0,0 +1,132 @@
+package tubes.pbo.be.auth.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import tubes.pbo.be.auth.repository.PasswordResetTokenRepository;
+import tubes.pbo.be.auth.repository.SessionRepository;
+import tubes.pbo.be.auth.repository.SessionRevocationRepository;
+import tubes.pbo.be.auth.repository.VerificationTokenRepository;
+import tubes.pbo.be.shared.lock.SchedulerLockService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenPurgeServiceTest {
+
+    @Mock
+    private SessionRepository sessionRepository;
+
+    @Mock
+    private SessionRevocationRepository sessionRevocationRepository;
+
+    @Mock
+    private VerificationTokenRepository verificationTokenRepository;
+
+    @Mock
+    private PasswordResetTokenRepository passwordResetTokenRepository;
+
+    @Mock
+    private SchedulerLockService schedulerLockService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TokenPurgeService tokenPurgeService;
+
+    @BeforeEach
+    void setUp() {
+        tokenPurgeService = new TokenPurgeService(sessionRepository, sessionRevocationRepository,
+                verificationTokenRepository, passwordResetTokenRepository, schedulerLockService, meterRegistry);
+        ReflectionTestUtils.setField(tokenPurgeService, "enabled", true);
+        ReflectionTestUtils.setField(tokenPurgeService, "batchSize", 2);
+        ReflectionTestUtils.setField(tokenPurgeService, "pauseMs", 0L);
+        ReflectionTestUtils.setField(tokenPurgeService, "lockTtlMs", 60000L);
+    }
+
+    @Test
+    void purge_deletesInBatchesUntilOneComesBackShort() {
+        // Arrange
+        when(schedulerLockService.tryLock(eq(TokenPurgeService.LOCK_NAME), any(Duration.class))).thenReturn(true);
+        when(sessionRepository.findExpiredIds(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L), List.of(3L, 4L), List.of(5L));
+        when(sessionRevocationRepository.findExpiredIds(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(verificationTokenRepository.findExpiredIds(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(6L));
+        when(verificationTokenRepository.findUsedIds(any(Pageable.class))).thenReturn(List.of(7L));
+        when(passwordResetTokenRepository.findExpiredIds(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of());
+        when(passwordResetTokenRepository.findUsedIds(any(Pageable.class))).thenReturn(List.of());
+
+        // Act
+        tokenPurgeService.purge();
+
+        // Assert
+        verify(sessionRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(sessionRepository).deleteAllByIdInBatch(List.of(3L, 4L));
+        verify(sessionRepository).deleteAllByIdInBatch(List.of(5L));
+        verify(verificationTokenRepository).deleteAllByIdInBatch(List.of(6L));
+        verify(verificationTokenRepository).deleteAllByIdInBatch(List.of(7L));
+        verify(sessionRevocationRepository, never()).deleteAllByIdInBatch(anyList());
+        verify(passwordResetTokenRepository, never()).deleteAllByIdInBatch(anyList());
+        verify(schedulerLockService).unlock(TokenPurgeService.LOCK_NAME);
+
+        assertEquals(5.0, meterRegistry.get("auth.purge.rows").tag("table", "sessions").summary().totalAmount());
+        assertEquals(2.0, meterRegistry.get("auth.purge.rows").tag("table", "verification_tokens").summary().totalAmount());
+        assertEquals(0.0, meterRegistry.get("auth.purge.rows").tag("table", "password_reset_tokens").summary().totalAmount());
+    }
+
+    @Test
+    void purge_lockHeldByAnotherNode_deletesNothing() {
+        // Arrange
+        when(schedulerLockService.tryLock(eq(TokenPurgeService.LOCK_NAME), any(Duration.class))).thenReturn(false);
+
+        // Act
+        tokenPurgeService.purge();
+
+        // Assert
+        verifyNoInteractions(sessionRepository, sessionRevocationRepository,
+                verificationTokenRepository, passwordResetTokenRepository);
+        verify(schedulerLockService, never()).unlock(any());
+    }
+
+    @Test
+    void purge_deleteFails_releasesLock() {
+        // Arrange
+        when(schedulerLockService.tryLock(eq(TokenPurgeService.LOCK_NAME), any(Duration.class))).thenReturn(true);
+        when(sessionRepository.findExpiredIds(any(LocalDateTime.class), any(Pageable.class)))
+                .thenThrow(new IllegalStateException("Database unavailable"));
+
+        // Act
+        tokenPurgeService.purge();
+
+        // Assert
+        verify(schedulerLockService).unlock(TokenPurgeService.LOCK_NAME);
+        verifyNoInteractions(passwordResetTokenRepository);
+    }
+
+    @Test
+    void purge_disabled_doesNotTakeLock() {
+        // Arrange
+        ReflectionTestUtils.setField(tokenPurgeService, "enabled", false);
+
+        // Act
+        tokenPurgeService.purge();
+
+        // Assert
+        verifyNoInteractions(schedulerLockService, sessionRepository);
+    }
+}
@@ -14,8 +14,12 @@ import tubes.pbo.be.auth.repository.SessionRepository;
 import tubes.pbo.be.auth.repository.VerificationTokenRepository;
 import tubes.pbo.be.shared.exception.UnauthorizedException;
 import tubes.pbo.be.shared.exception.ValidationException;
+import tubes.pbo.be.shared.security.PrincipalCache;
+import tubes.pbo.be.user.model.User;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -36,6 +40,15 @@ class TokenServiceTest {
     @Mock
     private PasswordResetTokenRepository passwordResetTokenRepository;
 
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private AccessTokenService accessTokenService;
+
+    @Mock
+    private RevocationList revocationList;
+
     @InjectMocks
     private TokenService tokenService;
 
@@ -181,6 +194,7 @@ class TokenServiceTest {
 
         // Assert
         verify(sessionRepository).deleteByToken(testToken);
+        verify(principalCache).invalidateToken(testToken);
     }
 
     @Test
@@ -193,6 +207,7 @@ class TokenServiceTest {
 
         // Assert
         verify(sessionRepository).deleteByUserId(testUserId);
+        verify(principalCache).invalidateUser(testUserId);
     }
 
     @Test
@@ -206,6 +221,59 @@ class TokenServiceTest {
 
         // Assert
         verify(sessionRepository).deleteByUserIdAndTokenNot(testUserId, currentToken);
+        verify(principalCache).invalidateUserExcept(testUserId, currentToken);
+    }
+
+    @Test
+    void deleteSession_signedAccessToken_revokesAndDeletesItsSession() {
+        // Arrange
+        String accessToken = "header.payload.signature";
+        when(accessTokenService.verify(accessToken)).thenReturn(Optional.of(
+            new AccessToken(testUserId, User.UserRole.USER, 1L, Instant.now().plusSeconds(900))));
+        when(accessTokenService.isEnabled()).thenReturn(true);
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(testSession));
+        when(sessionRepository.findByToken(testToken)).thenReturn(Optional.of(testSession));
+
+        // Act
+        tokenService.deleteSession(accessToken);
+
+        // Assert
+        verify(revocationList).revoke(testUserId, List.of(1L));
+        verify(sessionRepository).deleteByToken(testToken);
+        verify(principalCache).invalidateToken(testToken);
+    }
+
+    @Test
+    void deleteAllUserSessions_signedAccessTokensEnabled_revokesEverySession() {
+        // Arrange
+        when(accessTokenService.isEnabled()).thenReturn(true);
+        when(sessionRepository.findIdsByUserId(testUserId)).thenReturn(List.of(1L, 2L));
+
+        // Act
+        tokenService.deleteAllUserSessions(testUserId);
+
+        // Assert
+        verify(revocationList).revoke(testUserId, List.of(1L, 2L));
+        verify(sessionRepository).deleteByUserId(testUserId);
+    }
+
+    @Test
+    void deleteAllUserSessionsExceptCurrent_signedAccessToken_keepsItsSession() {
+        // Arrange
+        String accessToken = "header.payload.signature";
+        when(accessTokenService.verify(accessToken)).thenReturn(Optional.of(
+            new AccessToken(testUserId, User.UserRole.USER, 1L, Instant.now().plusSeconds(900))));
+        when(accessTokenService.isEnabled()).thenReturn(true);
+        when(sessionRepository.findById(1L)).thenReturn(Optional.of(testSession));
+        when(sessionRepository.findIdsByUserIdAndTokenNot(testUserId, testToken)).thenReturn(List.of(2L, 3L));
+
+        // Act
+        tokenService.deleteAllUserSessionsExceptCurrent(testUserId, accessToken);
+
+        // Assert
+        verify(revocationList).revoke(testUserId, List.of(2L, 3L));
+        verify(sessionRepository).deleteByUserIdAndTokenNot(testUserId, testToken);
+        verify(principalCache).invalidateUserExcept(testUserId, testToken);
     }
 
     // ===== Verification Token Tests =====
@@ -390,6 +458,20 @@ class TokenServiceTest {
         verify(passwordResetTokenRepository).save(argThat(token -> token.getUsed() == true));
     }
 
+    @Test
+    void checkPasswordResetToken_validToken_returnsUserWithoutUsingItUp() {
+        // Arrange
+        when(passwordResetTokenRepository.findByToken(testToken)).thenReturn(Optional.of(testPasswordResetToken));
+
+        // Act
+        Long userId = tokenService.checkPasswordResetToken(testToken);
+
+        // Assert
+        assertEquals(testUserId, userId);
+        assertFalse(testPasswordResetToken.getUsed());
+        verify(passwordResetTokenRepository, never()).save(any(PasswordResetToken.class));
+    }
+
     @Test
     void validatePasswordResetToken_tokenNotFound_throwsValidationException() {
         // Arrange
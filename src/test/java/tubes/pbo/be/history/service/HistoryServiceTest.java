@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -11,16 +12,21 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import tubes.pbo.be.history.dto.HistoryResponse;
+import tubes.pbo.be.quiz.repository.QuestionBankRepository;
 import tubes.pbo.be.quiz.repository.QuizRepository;
+import tubes.pbo.be.shared.dto.CursorPageResponse;
+import tubes.pbo.be.shared.dto.PageCursor;
 import tubes.pbo.be.shared.dto.PageResponse;
 import tubes.pbo.be.shared.exception.ForbiddenException;
 import tubes.pbo.be.shared.exception.ResourceNotFoundException;
 import tubes.pbo.be.summary.model.Summary;
 import tubes.pbo.be.summary.repository.SummaryRepository;
+import tubes.pbo.be.summary.repository.SummaryRepository.SummaryListView;
+import tubes.pbo.be.summary.service.StoredFileService;
 
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -40,15 +46,20 @@ class HistoryServiceTest {
     @Mock
     private QuizRepository quizRepository;
 
+    @Mock
+    private QuestionBankRepository questionBankRepository;
+
     @Mock
     private FileService fileService;
 
     @Mock
-    private tubes.pbo.be.shared.config.FileStorageConfig fileStorageConfig;
+    private StoredFileService storedFileService;
 
     @InjectMocks
     private HistoryService historyService;
 
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
     @TempDir
     Path tempDir;
 
@@ -93,7 +104,7 @@ class HistoryServiceTest {
 
         List<Summary> summaries = Arrays.asList(summary1, summary2);
         Page<Summary> summaryPage = new PageImpl<>(summaries, pageable, summaries.size());
-        when(summaryRepository.findByUserId(testUserId, pageable)).thenReturn(summaryPage);
+        when(summaryRepository.findListByUserId(testUserId, pageable)).thenReturn(summaryPage.map(this::listView));
 
         // Act
         PageResponse<HistoryResponse> result = historyService.listHistory(testUserId, pageable);
@@ -107,14 +118,14 @@ class HistoryServiceTest {
         assertEquals("doc1.pdf", result.getContent().get(0).getOriginalFilename());
         assertEquals("doc2.pdf", result.getContent().get(1).getOriginalFilename());
 
-        verify(summaryRepository).findByUserId(testUserId, pageable);
+        verify(summaryRepository).findListByUserId(testUserId, pageable);
     }
 
     @Test
     void listHistory_emptyResult_returnsEmptyPage() {
         // Arrange
         Page<Summary> emptyPage = new PageImpl<>(Arrays.asList(), pageable, 0);
-        when(summaryRepository.findByUserId(testUserId, pageable)).thenReturn(emptyPage);
+        when(summaryRepository.findListByUserId(testUserId, pageable)).thenReturn(emptyPage.map(this::listView));
 
         // Act
         PageResponse<HistoryResponse> result = historyService.listHistory(testUserId, pageable);
@@ -124,45 +135,57 @@ class HistoryServiceTest {
         assertTrue(result.getContent().isEmpty());
         assertEquals(0, result.getTotalElements());
 
-        verify(summaryRepository).findByUserId(testUserId, pageable);
+        verify(summaryRepository).findListByUserId(testUserId, pageable);
+    }
+
+    @Test
+    void listHistory_firstPageByCursor_seeksFromStart() {
+        // Arrange
+        when(summaryRepository.findListByUserIdAfter(testUserId, PageCursor.START.createdAt(), PageCursor.START.id(),
+                PageRequest.ofSize(11))).thenReturn(List.of(listView(testSummary)));
+
+        // Act
+        CursorPageResponse<HistoryResponse> result = historyService.listHistory(testUserId, null, 10);
+
+        // Assert
+        assertEquals(1, result.getContent().size());
+        assertEquals(testSummary.getId(), result.getContent().getFirst().getId());
+        assertFalse(result.isHasNext());
+        assertNull(result.getNextCursor());
+        verify(summaryRepository, never()).findListByUserId(any(), any());
     }
 
     // ===== deleteSummary Tests =====
 
     @Test
-    void deleteSummary_validOwner_deletesSuccessfully() throws IOException {
-        // Arrange - Create actual file
-        Path testFile = Path.of(testSummary.getFilePath());
-        Files.createFile(testFile);
-        assertTrue(testFile.toFile().exists());
-
+    void deleteSummary_validOwner_releasesFileAndDeletesRecord() {
+        // Arrange
         when(summaryRepository.findByIdAndUserId(testSummaryId, testUserId))
                 .thenReturn(Optional.of(testSummary));
-        when(fileStorageConfig.getUploadPath()).thenReturn(tempDir);
+        when(storedFileService.release(testSummary.getFilePath())).thenReturn(true);
 
         // Act
         historyService.deleteSummary(testUserId, testSummaryId);
 
         // Assert
-        assertFalse(testFile.toFile().exists()); // File should be deleted
         verify(summaryRepository).findByIdAndUserId(testSummaryId, testUserId);
         verify(quizRepository).deleteBySummaryId(testSummaryId);
+        verify(questionBankRepository).deleteBySummaryId(testSummaryId);
+        verify(storedFileService).release(testSummary.getFilePath());
         verify(summaryRepository).delete(testSummary);
     }
 
     @Test
-    void deleteSummary_fileNotExists_stillDeletesRecord() {
-        // Arrange - Don't create file
+    void deleteSummary_fileSharedWithOtherSummaries_stillDeletesRecord() {
+        // Arrange
         when(summaryRepository.findByIdAndUserId(testSummaryId, testUserId))
                 .thenReturn(Optional.of(testSummary));
-        when(fileStorageConfig.getUploadPath()).thenReturn(tempDir);
+        when(storedFileService.release(testSummary.getFilePath())).thenReturn(false);
 
         // Act
         historyService.deleteSummary(testUserId, testSummaryId);
 
         // Assert
-        verify(summaryRepository).findByIdAndUserId(testSummaryId, testUserId);
-        verify(quizRepository).deleteBySummaryId(testSummaryId);
         verify(summaryRepository).delete(testSummary);
     }
 
@@ -206,20 +229,19 @@ class HistoryServiceTest {
     }
 
     @Test
-    void deleteSummary_cascadesDeleteToQuizzes_deletesSuccessfully() throws IOException {
+    void deleteSummary_cascadesDeleteToQuizzes_deletesSuccessfully() {
         // Arrange
-        Path testFile = Path.of(testSummary.getFilePath());
-        Files.createFile(testFile);
         when(summaryRepository.findByIdAndUserId(testSummaryId, testUserId))
                 .thenReturn(Optional.of(testSummary));
-        when(fileStorageConfig.getUploadPath()).thenReturn(tempDir);
+        when(storedFileService.release(testSummary.getFilePath())).thenReturn(true);
 
         // Act
         historyService.deleteSummary(testUserId, testSummaryId);
 
         // Assert
-        verify(quizRepository).deleteBySummaryId(testSummaryId); // Quizzes deleted first
-        verify(summaryRepository).delete(testSummary); // Then summary
+        InOrder inOrder = inOrder(quizRepository, summaryRepository);
+        inOrder.verify(quizRepository).deleteBySummaryId(testSummaryId); // Quizzes deleted first
+        inOrder.verify(summaryRepository).delete(testSummary); // Then summary
     }
 
     // ===== downloadSummaryPdf Tests =====
@@ -382,4 +404,8 @@ class HistoryServiceTest {
         verify(summaryRepository).findByIdAndUserId(testSummaryId, testUserId);
         verify(summaryRepository).existsById(testSummaryId);
     }
+
+    private SummaryListView listView(Summary summary) {
+        return projectionFactory.createProjection(SummaryListView.class, summary);
+    }
 }
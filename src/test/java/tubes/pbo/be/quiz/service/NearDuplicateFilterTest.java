@@ -0,0 +1,44 @@
+package tubes.pbo.be.quiz.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearDuplicateFilterTest {
+
+    @Test
+    void accept_rewordedQuestion_isRejected() {
+        // Arrange
+        NearDuplicateFilter filter = new NearDuplicateFilter(0.8);
+
+        // Act & Assert
+        assertTrue(filter.accept("What is Spring Boot?"));
+        assertFalse(filter.accept("what is SPRING boot"));
+        assertFalse(filter.accept("What is Spring Boot, exactly?"));
+    }
+
+    @Test
+    void accept_differentQuestions_areKept() {
+        // Arrange
+        NearDuplicateFilter filter = new NearDuplicateFilter(0.8);
+
+        // Act & Assert
+        assertTrue(filter.accept("Question 1?"));
+        assertTrue(filter.accept("Question 2?"));
+        assertTrue(filter.accept("Which annotation enables auto-configuration?"));
+    }
+
+    @Test
+    void similarity_countsSharedWordsOverAllWords() {
+        // Act
+        double similarity = NearDuplicateFilter.similarity(
+                NearDuplicateFilter.words("Apa itu fotosintesis?"),
+                NearDuplicateFilter.words("Apa itu respirasi?"));
+
+        // Assert
+        assertEquals(0.5, similarity);
+        assertEquals(Set.of("apa", "itu", "fotosintesis"), NearDuplicateFilter.words("  Apa itu, fotosintesis?! "));
+    }
+}
@@ -0,0 +1,400 @@
+package tubes.pbo.be.quiz.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+import tubes.pbo.be.quiz.model.BankQuestion;
+import tubes.pbo.be.quiz.model.Question;
+import tubes.pbo.be.quiz.model.Quiz;
+import tubes.pbo.be.quiz.repository.QuestionBankRepository;
+import tubes.pbo.be.quiz.repository.QuestionRepository;
+import tubes.pbo.be.quiz.repository.QuizRepository;
+import tubes.pbo.be.shared.exception.AiCapacityExceededException;
+import tubes.pbo.be.shared.exception.AiServiceException;
+import tubes.pbo.be.summary.model.Summary;
+import tubes.pbo.be.summary.repository.SummaryRepository;
+import tubes.pbo.be.summary.service.SummaryCreatedEvent;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuestionBankServiceTest {
+
+    @Mock
+    private QuestionBankRepository questionBankRepository;
+
+    @Mock
+    private QuestionRepository questionRepository;
+
+    @Mock
+    private QuizRepository quizRepository;
+
+    @Mock
+    private SummaryRepository summaryRepository;
+
+    @Mock
+    private QuestionGenerationService questionGenerationService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private QuestionBankService questionBankService;
+    private Summary summary;
+
+    @BeforeEach
+    void setUp() {
+        questionBankService = createService(new SyncTaskExecutor());
+
+        summary = new Summary();
+        summary.setId(7L);
+        summary.setUserId(1L);
+        summary.setSummaryText("## Summary");
+
+        lenient().when(questionBankRepository.findAllById(any())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            return ids.stream().map(QuestionBankServiceTest::banked).toList();
+        });
+        lenient().when(questionBankRepository.saveAll(any())).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    private QuestionBankService createService(TaskExecutor executor) {
+        QuestionBankService service = new QuestionBankService(questionBankRepository, questionRepository,
+                quizRepository, summaryRepository, questionGenerationService, objectMapper, executor);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "fillSize", 15);
+        ReflectionTestUtils.setField(service, "lowWatermark", 5);
+        ReflectionTestUtils.setField(service, "recentQuizzes", 3);
+        ReflectionTestUtils.setField(service, "sweepWindowHours", 24);
+        ReflectionTestUtils.setField(service, "sweepBatchSize", 20);
+        return service;
+    }
+
+    // ===== assemble Tests =====
+
+    @Test
+    void assemble_enoughUnseenQuestions_skipsAiAndAvoidsRecentlySeen() {
+        // Arrange - bank holds 1..20, the user's last quiz (id 30) used 1..5
+        when(questionBankRepository.findIdsBySummaryIdAndDifficulty(7L, Quiz.Difficulty.EASY)).thenReturn(ids(1, 20));
+        when(quizRepository.findRecentIds(eq(1L), eq(7L), eq(Quiz.Difficulty.EASY), any())).thenReturn(List.of(30L));
+        when(questionRepository.findBankQuestionIdsByQuizIdIn(List.of(30L))).thenReturn(ids(1, 5));
+
+        // Act
+        QuestionBankService.Assembly assembly = questionBankService.assemble(1L, summary, Quiz.Difficulty.EASY, 10);
+
+        // Assert
+        List<Question> questions = assembly.questions();
+        assertEquals(10, questions.size());
+        assertEquals(List.of("q1", "q2", "q3", "q4", "q5", "q6", "q7", "q8", "q9", "q10"),
+                questions.stream().map(Question::getQuestionId).toList());
+        assertTrue(questions.stream().allMatch(q -> q.getBankQuestionId() > 5 && q.getQuizId() == null));
+        assertFalse(assembly.lowOnUnseen());
+        verifyNoInteractions(questionGenerationService);
+        verify(questionBankRepository, never()).saveAll(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void assembleAndAttach_tooFewUnseenQuestions_generatesOnlyMissingAndBanksThemWithQuiz() {
+        // Arrange
+        when(questionBankRepository.findIdsBySummaryIdAndDifficulty(7L, Quiz.Difficulty.HARD)).thenReturn(ids(1, 3));
+        when(quizRepository.findRecentIds(eq(1L), eq(7L), eq(Quiz.Difficulty.HARD), any())).thenReturn(List.of());
+        when(questionGenerationService.generateQuestions(1L, "## Summary", "HARD", 2, null))
+                .thenReturn(List.of(question("Option A"), question("Option B")));
+
+        // Act
+        QuestionBankService.Assembly assembly = questionBankService.assemble(1L, summary, Quiz.Difficulty.HARD, 5);
+
+        // Assert - nothing is written until the quiz is saved
+        assertEquals(5, assembly.questions().size());
+        assertTrue(assembly.lowOnUnseen());
+        verify(questionBankRepository, never()).saveAll(any());
+
+        // Act
+        List<Question> questions = questionBankService.attach(quiz(40L, Quiz.Difficulty.HARD), assembly);
+
+        // Assert
+        assertTrue(questions.stream().allMatch(q -> q.getQuizId() == 40L));
+        ArgumentCaptor<List<BankQuestion>> saved = ArgumentCaptor.forClass(List.class);
+        verify(questionBankRepository).saveAll(saved.capture());
+        assertEquals(2, saved.getValue().size());
+        assertTrue(saved.getValue().stream().allMatch(banked -> banked.getSummaryId() == 7L
+                && banked.getDifficulty() == Quiz.Difficulty.HARD));
+        verify(questionGenerationService).generateQuestions(1L, "## Summary", "HARD", 2, null);
+    }
+
+    @Test
+    void assemble_topUpFails_reusesSeenQuestionsWhenBankCoversIt() {
+        // Arrange - every question in the bank was in the last quiz
+        when(questionBankRepository.findIdsBySummaryIdAndDifficulty(7L, Quiz.Difficulty.EASY)).thenReturn(ids(1, 5));
+        when(quizRepository.findRecentIds(eq(1L), eq(7L), eq(Quiz.Difficulty.EASY), any())).thenReturn(List.of(30L));
+        when(questionRepository.findBankQuestionIdsByQuizIdIn(List.of(30L))).thenReturn(ids(1, 5));
+        when(questionGenerationService.generateQuestions(any(), any(), any(), anyInt(), any()))
+                .thenThrow(new AiServiceException("Failed to generate quiz questions. Please try again later."));
+
+        // Act
+        QuestionBankService.Assembly assembly = questionBankService.assemble(1L, summary, Quiz.Difficulty.EASY, 5);
+
+        // Assert
+        assertEquals(5, assembly.questions().size());
+    }
+
+    @Test
+    void assemble_topUpFailsAndBankTooSmall_rethrows() {
+        // Arrange
+        when(questionBankRepository.findIdsBySummaryIdAndDifficulty(7L, Quiz.Difficulty.EASY)).thenReturn(List.of());
+        when(quizRepository.findRecentIds(any(), any(), any(), any())).thenReturn(List.of());
+        when(questionGenerationService.generateQuestions(any(), any(), any(), anyInt(), any()))
+                .thenThrow(new AiCapacityExceededException("busy", 1));
+
+        // Act & Assert
+        assertThrows(AiCapacityExceededException.class, () ->
+                questionBankService.assemble(1L, summary, Quiz.Difficulty.EASY, 5));
+    }
+
+    @Test
+    void assemble_disabled_generatesDirectly() {
+        // Arrange
+        ReflectionTestUtils.setField(questionBankService, "enabled", false);
+        Question generated = question("Option A");
+        generated.setQuestionId("x");
+        when(questionGenerationService.generateQuestions(1L, "## Summary", "EASY", 5, null)).thenReturn(List.of(generated));
+
+        // Act
+        List<Question> questions = questionBankService.attach(quiz(40L, Quiz.Difficulty.EASY),
+                questionBankService.assemble(1L, summary, Quiz.Difficulty.EASY, 5));
+
+        // Assert
+        assertEquals("q1", questions.getFirst().getQuestionId());
+        assertEquals(40L, questions.getFirst().getQuizId());
+        verifyNoInteractions(questionBankRepository, quizRepository);
+    }
+
+    // ===== takeUnseen / addToBank Tests =====
+
+    @Test
+    void takeUnseen_returnsOnlyUnseenQuestionsWithoutGenerating() {
+        // Arrange
+        when(questionBankRepository.findIdsBySummaryIdAndDifficulty(7L, Quiz.Difficulty.EASY)).thenReturn(ids(1, 12));
+        when(quizRepository.findRecentIds(eq(1L), eq(7L), eq(Quiz.Difficulty.EASY), any())).thenReturn(List.of(40L, 30L));
+        when(questionRepository.findBankQuestionIdsByQuizIdIn(List.of(30L))).thenReturn(ids(1, 5));
+        // Once quiz 40 is saved, the refill sees all twelve as seen
+        when(questionRepository.findBankQuestionIdsByQuizIdIn(List.of(40L, 30L))).thenReturn(ids(1, 12));
+        when(summaryRepository.findById(7L)).thenReturn(Optional.of(summary));
+
+        // Act
+        List<Question> questions = questionBankService.takeUnseen(1L, summary, Quiz.Difficulty.EASY, 10, 40L);
+
+        // Assert - the 7 unseen questions, unnumbered; the missing 3 are left to the caller
+        assertEquals(7, questions.size());
+        assertTrue(questions.stream().allMatch(q -> q.getBankQuestionId() > 5 && q.getQuestionId() == null));
+        verify(questionGenerationService, never()).generateQuestions(any(), any(), any(), eq(3), any());
+        // Taking them all left the user below the watermark, so the bank is refilled
+        verify(questionGenerationService).generateQuestions(1L, "## Summary", "EASY", 15, null);
+    }
+
+    @Test
+    void addToBank_savesQuestionAndLinksIt() {
+        // Arrange
+        when(questionBankRepository.save(any(BankQuestion.class))).thenAnswer(inv -> {
+            BankQuestion banked = inv.getArgument(0);
+            banked.setId(99L);
+            return banked;
+        });
+        Question question = question("Option A");
+
+        // Act
+        Question result = questionBankService.addToBank(7L, Quiz.Difficulty.MEDIUM, question);
+
+        // Assert
+        assertSame(question, result);
+        assertEquals(99L, result.getBankQuestionId());
+        ArgumentCaptor<BankQuestion> saved = ArgumentCaptor.forClass(BankQuestion.class);
+        verify(questionBankRepository).save(saved.capture());
+        assertEquals(7L, saved.getValue().getSummaryId());
+        assertEquals(Quiz.Difficulty.MEDIUM, saved.getValue().getDifficulty());
+    }
+
+    @Test
+    void addToBank_bankDisabled_returnsQuestionUnsaved() {
+        // Arrange
+        ReflectionTestUtils.setField(questionBankService, "enabled", false);
+        Question question = question("Option A");
+
+        // Act
+        Question result = questionBankService.addToBank(7L, Quiz.Difficulty.MEDIUM, question);
+
+        // Assert
+        assertSame(question, result);
+        assertNull(result.getBankQuestionId());
+        verifyNoInteractions(questionBankRepository);
+    }
+
+    // ===== fill Tests =====
+
+    @Test
+    void onSummaryCreated_emptyBanks_fillsEveryDifficulty() {
+        // Arrange
+        when(summaryRepository.findById(7L)).thenReturn(Optional.of(summary));
+        when(questionGenerationService.generateQuestions(eq(1L), eq("## Summary"), any(), eq(15), isNull()))
+                .thenReturn(List.of(question("Option A")));
+
+        // Act
+        questionBankService.onSummaryCreated(new SummaryCreatedEvent(7L));
+
+        // Assert
+        for (Quiz.Difficulty difficulty : Quiz.Difficulty.values()) {
+            verify(questionGenerationService).generateQuestions(1L, "## Summary", difficulty.name(), 15, null);
+        }
+        verify(questionBankRepository, times(3)).saveAll(any());
+    }
+
+    @Test
+    void fill_sameContentAlreadyBanked_copiesInsteadOfGenerating() {
+        // Arrange - a re-upload of a document whose earlier summary 3 already has a bank
+        summary.setContentHash("abc123");
+        when(questionBankRepository.findIdsBySummaryIdAndDifficulty(7L, Quiz.Difficulty.EASY)).thenReturn(List.of());
+        when(summaryRepository.findById(7L)).thenReturn(Optional.of(summary));
+        when(questionBankRepository.findSummaryIdsWithSameContent(eq("abc123"), eq(7L), eq(Quiz.Difficulty.EASY), any()))
+                .thenReturn(List.of(3L));
+        when(questionBankRepository.copyBank(eq(3L), eq(7L), eq(Quiz.Difficulty.EASY), any())).thenReturn(15);
+
+        // Act
+        questionBankService.fill(7L, Quiz.Difficulty.EASY, null);
+
+        // Assert
+        verifyNoInteractions(questionGenerationService);
+        verify(questionBankRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void fill_userHasEnoughUnseen_doesNothing() {
+        // Arrange
+        when(questionBankRepository.findIdsBySummaryIdAndDifficulty(7L, Quiz.Difficulty.EASY)).thenReturn(ids(1, 10));
+        when(quizRepository.findRecentIds(eq(1L), eq(7L), eq(Quiz.Difficulty.EASY), any())).thenReturn(List.of(30L));
+        when(questionRepository.findBankQuestionIdsByQuizIdIn(List.of(30L))).thenReturn(ids(1, 5));
+
+        // Act
+        questionBankService.fill(7L, Quiz.Difficulty.EASY, 1L);
+
+        // Assert
+        verifyNoInteractions(questionGenerationService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fill_belowLowWatermark_topsUpAndDropsInvalidQuestions() {
+        // Arrange
+        when(questionBankRepository.findIdsBySummaryIdAndDifficulty(7L, Quiz.Difficulty.HARD)).thenReturn(ids(1, 3));
+        when(summaryRepository.findById(7L)).thenReturn(Optional.of(summary));
+        when(questionGenerationService.generateQuestions(1L, "## Summary", "HARD", 12, null))
+                .thenReturn(List.of(question("Option A"), question("Not an option"), question(" option b ")));
+
+        // Act
+        questionBankService.fill(7L, Quiz.Difficulty.HARD, null);
+
+        // Assert: the answer matches an option the way grading compares them
+        ArgumentCaptor<List<BankQuestion>> saved = ArgumentCaptor.forClass(List.class);
+        verify(questionBankRepository).saveAll(saved.capture());
+        assertEquals(2, saved.getValue().size());
+        BankQuestion banked = saved.getValue().getFirst();
+        assertEquals(7L, banked.getSummaryId());
+        assertEquals(Quiz.Difficulty.HARD, banked.getDifficulty());
+        assertEquals("Option A", banked.getCorrectAnswer());
+    }
+
+    @Test
+    void fill_aiCapacityExceeded_leavesBankForSweep() {
+        // Arrange
+        when(summaryRepository.findById(7L)).thenReturn(Optional.of(summary));
+        when(questionGenerationService.generateQuestions(any(), any(), any(), anyInt(), any()))
+                .thenThrow(new AiCapacityExceededException("busy", 1));
+
+        // Act & Assert
+        assertDoesNotThrow(() -> questionBankService.fill(7L, Quiz.Difficulty.EASY, null));
+        verify(questionBankRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void fill_summaryDeleted_skipsGeneration() {
+        // Arrange
+        when(summaryRepository.findById(7L)).thenReturn(Optional.empty());
+
+        // Act
+        questionBankService.fill(7L, Quiz.Difficulty.EASY, null);
+
+        // Assert
+        verifyNoInteractions(questionGenerationService);
+    }
+
+    @Test
+    void requestFill_executorSaturated_returnsFalse() {
+        // Arrange
+        QuestionBankService service = createService(_ -> {
+            throw new TaskRejectedException("full");
+        });
+
+        // Act & Assert
+        assertFalse(service.requestFill(7L, Quiz.Difficulty.EASY, null));
+        verifyNoInteractions(questionBankRepository);
+    }
+
+    // ===== sweepLowBanks Tests =====
+
+    @Test
+    void sweepLowBanks_requestsFillForLowBanks() {
+        // Arrange
+        when(questionBankRepository.findSummaryIdsBelowWatermark(any(), any(), eq(5L), any())).thenReturn(List.of());
+        when(questionBankRepository.findSummaryIdsBelowWatermark(any(), eq(Quiz.Difficulty.MEDIUM), eq(5L), any()))
+                .thenReturn(List.of(7L));
+        when(questionBankRepository.findIdsBySummaryIdAndDifficulty(7L, Quiz.Difficulty.MEDIUM)).thenReturn(ids(1, 5));
+
+        // Act
+        questionBankService.sweepLowBanks();
+
+        // Assert
+        verify(questionBankRepository).findIdsBySummaryIdAndDifficulty(7L, Quiz.Difficulty.MEDIUM);
+        verify(questionBankRepository, never()).findIdsBySummaryIdAndDifficulty(7L, Quiz.Difficulty.EASY);
+    }
+
+    private static List<Long> ids(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().toList();
+    }
+
+    private static Quiz quiz(Long id, Quiz.Difficulty difficulty) {
+        Quiz quiz = new Quiz();
+        quiz.setId(id);
+        quiz.setUserId(1L);
+        quiz.setSummaryId(7L);
+        quiz.setDifficulty(difficulty);
+        return quiz;
+    }
+
+    private static BankQuestion banked(Long id) {
+        BankQuestion banked = BankQuestion.of(7L, Quiz.Difficulty.EASY, question("Option A"));
+        banked.setId(id);
+        return banked;
+    }
+
+    private static Question question(String correctAnswer) {
+        Question question = new Question();
+        question.setQuestionId("q1");
+        question.setQuestionText("What is encapsulation?");
+        question.setOptions("[\"Option A\",\"Option B\",\"Option C\",\"Option D\"]");
+        question.setCorrectAnswer(correctAnswer);
+        question.setExplanation("Because.");
+        return question;
+    }
+}
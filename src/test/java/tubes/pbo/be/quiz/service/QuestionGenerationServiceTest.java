@@ -1,31 +1,41 @@
 package tubes.pbo.be.quiz.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
 import tubes.pbo.be.quiz.model.Question;
+import tubes.pbo.be.shared.ai.AiGateway;
+import tubes.pbo.be.shared.exception.AiCapacityExceededException;
+import tubes.pbo.be.shared.exception.AiServiceException;
 
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class QuestionGenerationServiceTest {
 
     @Mock
-    private ChatClient.Builder chatClientBuilder;
+    private AiGateway aiGateway;
 
     @Mock
     private ObjectMapper objectMapper;
@@ -35,6 +45,7 @@ class QuestionGenerationServiceTest {
 
     private final String sampleSummaryText = "This is a sample document about Spring Boot framework.";
     private final Long testQuizId = 1L;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     void setUp() {
@@ -42,6 +53,12 @@ class QuestionGenerationServiceTest {
         ReflectionTestUtils.setField(questionGenerationService, "aiModel", "gemini-1.5-pro");
         // Use real ObjectMapper for JSON parsing in tests
         ReflectionTestUtils.setField(questionGenerationService, "objectMapper", new ObjectMapper());
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(questionGenerationService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(questionGenerationService, "quizFanOutExecutor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(questionGenerationService, "fanOutEnabled", true);
+        ReflectionTestUtils.setField(questionGenerationService, "fanOutBatchSize", 5);
+        ReflectionTestUtils.setField(questionGenerationService, "similarityThreshold", 0.8);
     }
 
     // ===== getAiProvider Tests =====
@@ -104,11 +121,11 @@ class QuestionGenerationServiceTest {
                 ]
                 """;
 
-        setupMockChatClient(aiResponse);
+        setupMockAiGateway(aiResponse);
 
         // Act
         List<Question> questions = questionGenerationService.generateQuestions(
-                sampleSummaryText, "EASY", 2, testQuizId);
+                1L, sampleSummaryText, "EASY", 2, testQuizId);
 
         // Assert
         assertNotNull(questions);
@@ -122,7 +139,7 @@ class QuestionGenerationServiceTest {
         assertEquals("Spring Boot is a Java framework for building applications.", q1.getExplanation());
         assertTrue(q1.getOptions().contains("A framework"));
         
-        verify(chatClientBuilder).build();
+        verify(aiGateway).call(eq(1L), anyString());
     }
 
     @Test
@@ -140,11 +157,11 @@ class QuestionGenerationServiceTest {
                 ]
                 """;
 
-        setupMockChatClient(aiResponse);
+        setupMockAiGateway(aiResponse);
 
         // Act
         List<Question> questions = questionGenerationService.generateQuestions(
-                sampleSummaryText, "MEDIUM", 1, testQuizId);
+                1L, sampleSummaryText, "MEDIUM", 1, testQuizId);
 
         // Assert
         assertNotNull(questions);
@@ -168,11 +185,11 @@ class QuestionGenerationServiceTest {
                 ]
                 """;
 
-        setupMockChatClient(aiResponse);
+        setupMockAiGateway(aiResponse);
 
         // Act
         List<Question> questions = questionGenerationService.generateQuestions(
-                sampleSummaryText, "HARD", 1, testQuizId);
+                1L, sampleSummaryText, "HARD", 1, testQuizId);
 
         // Assert
         assertNotNull(questions);
@@ -197,11 +214,11 @@ class QuestionGenerationServiceTest {
                 ```
                 """;
 
-        setupMockChatClient(aiResponse);
+        setupMockAiGateway(aiResponse);
 
         // Act
         List<Question> questions = questionGenerationService.generateQuestions(
-                sampleSummaryText, "EASY", 1, testQuizId);
+                1L, sampleSummaryText, "EASY", 1, testQuizId);
 
         // Assert
         assertNotNull(questions);
@@ -212,32 +229,37 @@ class QuestionGenerationServiceTest {
     @Test
     void generateQuestions_aiFailure_throwsRuntimeException() {
         // Arrange
-        ChatClient mockChatClient = mock(ChatClient.class);
-        ChatClient.ChatClientRequestSpec mockRequestSpec = mock(ChatClient.ChatClientRequestSpec.class);
-        ChatClient.ChatClientRequestSpec mockUserSpec = mock(ChatClient.ChatClientRequestSpec.class);
-
-        when(chatClientBuilder.build()).thenReturn(mockChatClient);
-        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
-        when(mockRequestSpec.user(anyString())).thenReturn(mockUserSpec);
-        when(mockUserSpec.call()).thenThrow(new RuntimeException("AI service unavailable"));
+        when(aiGateway.call(eq(1L), anyString())).thenThrow(new RuntimeException("AI service unavailable"));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> 
-                questionGenerationService.generateQuestions(sampleSummaryText, "EASY", 2, testQuizId)
+                questionGenerationService.generateQuestions(1L, sampleSummaryText, "EASY", 2, testQuizId)
         );
 
         assertTrue(exception.getMessage().contains("Failed to generate quiz questions"));
     }
 
+    @Test
+    void generateQuestions_aiAtCapacity_propagatesCapacityException() {
+        // Arrange
+        when(aiGateway.call(eq(1L), anyString()))
+                .thenThrow(new AiCapacityExceededException("The AI service is busy. Please try again shortly.", 30));
+
+        // Act & Assert
+        assertThrows(AiCapacityExceededException.class, () ->
+                questionGenerationService.generateQuestions(1L, sampleSummaryText, "EASY", 2, testQuizId)
+        );
+    }
+
     @Test
     void generateQuestions_malformedJson_throwsRuntimeException() {
         // Arrange
         String malformedResponse = "This is not valid JSON";
-        setupMockChatClient(malformedResponse);
+        setupMockAiGateway(malformedResponse);
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> 
-                questionGenerationService.generateQuestions(sampleSummaryText, "EASY", 2, testQuizId)
+                questionGenerationService.generateQuestions(1L, sampleSummaryText, "EASY", 2, testQuizId)
         );
 
         assertTrue(exception.getMessage().contains("Failed to generate quiz questions"));
@@ -247,12 +269,12 @@ class QuestionGenerationServiceTest {
     void generateQuestions_emptyResponse_throwsRuntimeException() {
         // Arrange
         String aiResponse = "[]";
-        setupMockChatClient(aiResponse);
+        setupMockAiGateway(aiResponse);
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> 
                 questionGenerationService.generateQuestions(
-                        sampleSummaryText, "EASY", 0, testQuizId));
+                        1L, sampleSummaryText, "EASY", 0, testQuizId));
 
         // The message should contain information about empty questions
         assertNotNull(exception.getMessage());
@@ -289,11 +311,11 @@ class QuestionGenerationServiceTest {
                 ]
                 """;
 
-        setupMockChatClient(aiResponse);
+        setupMockAiGateway(aiResponse);
 
         // Act
         List<Question> questions = questionGenerationService.generateQuestions(
-                sampleSummaryText, "EASY", 3, testQuizId);
+                1L, sampleSummaryText, "EASY", 3, testQuizId);
 
         // Assert
         assertNotNull(questions);
@@ -308,11 +330,11 @@ class QuestionGenerationServiceTest {
     void generateQuestions_withDifferentNumberOfQuestions_handlesCorrectly(
             String scenario, String aiResponse, int requestedQuestions, int expectedSize) {
         // Arrange
-        setupMockChatClient(aiResponse);
+        setupMockAiGateway(aiResponse);
 
         // Act
         List<Question> questions = questionGenerationService.generateQuestions(
-                sampleSummaryText, "EASY", requestedQuestions, testQuizId);
+                1L, sampleSummaryText, "EASY", requestedQuestions, testQuizId);
 
         // Assert
         assertNotNull(questions);
@@ -341,11 +363,11 @@ class QuestionGenerationServiceTest {
     void generateQuestions_noJsonArray_throwsException() {
         // Arrange
         String invalidResponse = "Just text without array";
-        setupMockChatClient(invalidResponse);
+        setupMockAiGateway(invalidResponse);
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> 
-                questionGenerationService.generateQuestions(sampleSummaryText, "EASY", 2, testQuizId)
+                questionGenerationService.generateQuestions(1L, sampleSummaryText, "EASY", 2, testQuizId)
         );
     }
 
@@ -353,12 +375,14 @@ class QuestionGenerationServiceTest {
     @MethodSource("provideInvalidResponseScenarios")
     void generateQuestions_withInvalidResponse_throwsException(String scenario, String aiResponse) {
         // Arrange
-        setupMockChatClient(aiResponse);
+        setupMockAiGateway(aiResponse);
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> 
-                questionGenerationService.generateQuestions(sampleSummaryText, "EASY", 1, testQuizId)
+                questionGenerationService.generateQuestions(1L, sampleSummaryText, "EASY", 1, testQuizId)
         );
+        // The invalid question is skipped and asked for again once
+        verify(aiGateway, times(2)).call(eq(1L), anyString());
     }
 
     private static Stream<Arguments> provideInvalidResponseScenarios() {
@@ -432,11 +456,11 @@ class QuestionGenerationServiceTest {
                 ```
                 """;
 
-        setupMockChatClient(aiResponse);
+        setupMockAiGateway(aiResponse);
 
         // Act
         List<Question> questions = questionGenerationService.generateQuestions(
-                sampleSummaryText, "EASY", 1, testQuizId);
+                1L, sampleSummaryText, "EASY", 1, testQuizId);
 
         // Assert
         assertNotNull(questions);
@@ -460,11 +484,348 @@ class QuestionGenerationServiceTest {
                 This is the end.
                 """;
 
-        setupMockChatClient(aiResponse);
+        setupMockAiGateway(aiResponse);
+
+        // Act
+        List<Question> questions = questionGenerationService.generateQuestions(
+                1L, sampleSummaryText, "EASY", 1, testQuizId);
+
+        // Assert
+        assertNotNull(questions);
+        assertEquals(1, questions.size());
+    }
+
+    @Test
+    void generateQuestions_oneInvalidQuestion_keepsValidOnesAndTopsUpMissing() {
+        // Arrange
+        String firstResponse = """
+                [
+                  {
+                    "id": "q1",
+                    "question": "Question 1?",
+                    "options": ["A", "B", "C", "D"],
+                    "correctAnswer": "A",
+                    "explanation": "Explanation 1"
+                  },
+                  {
+                    "id": "q2",
+                    "question": "Question 2?",
+                    "options": ["A", "B", "C"],
+                    "correctAnswer": "B",
+                    "explanation": "Explanation 2"
+                  },
+                  {
+                    "id": "q3",
+                    "question": "Question 3?",
+                    "options": ["A", "B", "C", "D"],
+                    "correctAnswer": "C",
+                    "explanation": "Explanation 3"
+                  }
+                ]
+                """;
+        String topUpResponse = """
+                [
+                  {
+                    "id": "q1",
+                    "question": "Question 4?",
+                    "options": ["A", "B", "C", "D"],
+                    "correctAnswer": "D",
+                    "explanation": "Explanation 4"
+                  }
+                ]
+                """;
+        when(aiGateway.call(eq(1L), anyString())).thenReturn(firstResponse, topUpResponse);
+
+        // Act
+        List<Question> questions = questionGenerationService.generateQuestions(
+                1L, sampleSummaryText, "EASY", 3, testQuizId);
+
+        // Assert
+        assertEquals(List.of("Question 1?", "Question 3?", "Question 4?"),
+                questions.stream().map(Question::getQuestionText).toList());
+        assertEquals(List.of("q1", "q2", "q3"), questions.stream().map(Question::getQuestionId).toList());
+
+        ArgumentCaptor<String> prompts = ArgumentCaptor.forClass(String.class);
+        verify(aiGateway, times(2)).call(eq(1L), prompts.capture());
+        String topUpPrompt = prompts.getAllValues().get(1);
+        assertTrue(topUpPrompt.startsWith("Generate exactly 1 multiple-choice"));
+        assertTrue(topUpPrompt.contains("- Question 1?"));
+        assertTrue(topUpPrompt.contains("- Question 3?"));
+        assertEquals(1.0, meterRegistry.counter("quiz.generation.skipped").count());
+    }
+
+    @Test
+    void generateQuestions_truncatedResponse_keepsCompletedQuestions() {
+        // Arrange
+        String truncatedResponse = """
+                [
+                  {
+                    "id": "q1",
+                    "question": "Question 1?",
+                    "options": ["A", "B", "C", "D"],
+                    "correctAnswer": "A",
+                    "explanation": "Explanation 1"
+                  },
+                  {
+                    "id": "q2",
+                    "question": "Quest""";
+        String topUpResponse = """
+                [{"id": "q1", "question": "Question 2?", "options": ["A", "B", "C", "D"],
+                  "correctAnswer": "B", "explanation": "Explanation 2"}]
+                """;
+        when(aiGateway.call(eq(1L), anyString())).thenReturn(truncatedResponse, topUpResponse);
+
+        // Act
+        List<Question> questions = questionGenerationService.generateQuestions(
+                1L, sampleSummaryText, "EASY", 2, testQuizId);
+
+        // Assert
+        assertEquals(List.of("Question 1?", "Question 2?"),
+                questions.stream().map(Question::getQuestionText).toList());
+    }
+
+    @Test
+    void generateQuestions_topUpFails_returnsQuestionsAlreadyParsed() {
+        // Arrange
+        String oneQuestion = """
+                [{"id": "q1", "question": "Question 1?", "options": ["A", "B", "C", "D"],
+                  "correctAnswer": "A", "explanation": "Explanation 1"}]
+                """;
+        when(aiGateway.call(eq(1L), anyString()))
+                .thenReturn(oneQuestion)
+                .thenThrow(new AiCapacityExceededException("The AI service is busy. Please try again shortly.", 30));
+
+        // Act
+        List<Question> questions = questionGenerationService.generateQuestions(
+                1L, sampleSummaryText, "EASY", 3, testQuizId);
+
+        // Assert
+        assertEquals(1, questions.size());
+        assertEquals("Question 1?", questions.getFirst().getQuestionText());
+    }
+
+    @Test
+    void generateQuestions_largeCount_splitsIntoFocusedPartsAndNumbersInPartOrder() {
+        // Arrange
+        when(aiGateway.call(eq(1L), anyString())).thenAnswer(invocation -> {
+            String prompt = invocation.getArgument(1);
+            String topic = prompt.contains("Focus on: key concepts") ? "concepts"
+                    : prompt.contains("Focus on: processes") ? "processes" : "applications";
+            return questionsJson(topic, 5);
+        });
+
+        // Act
+        List<Question> questions = questionGenerationService.generateQuestions(
+                1L, sampleSummaryText, "HARD", 15, testQuizId);
+
+        // Assert
+        assertEquals(15, questions.size());
+        assertEquals(IntStream.rangeClosed(1, 15).mapToObj(i -> "q" + i).toList(),
+                questions.stream().map(Question::getQuestionId).toList());
+        assertEquals("Which statement about concepts number 1 holds?", questions.get(0).getQuestionText());
+        assertEquals("Which statement about processes number 1 holds?", questions.get(5).getQuestionText());
+        assertEquals("Which statement about applications number 1 holds?", questions.get(10).getQuestionText());
+
+        ArgumentCaptor<String> prompts = ArgumentCaptor.forClass(String.class);
+        verify(aiGateway, times(3)).call(eq(1L), prompts.capture());
+        assertTrue(prompts.getAllValues().stream().allMatch(prompt -> prompt.startsWith("Generate exactly 5 ")));
+        assertEquals(3, prompts.getAllValues().stream().distinct().count());
+    }
+
+    @Test
+    void generateQuestions_unevenCount_spreadsQuestionsOverParts() {
+        // Arrange
+        when(aiGateway.call(eq(1L), anyString())).thenAnswer(invocation -> {
+            String prompt = invocation.getArgument(1);
+            int size = prompt.startsWith("Generate exactly 4 ") ? 4 : 3;
+            return questionsJson(prompt.contains("Focus on: key concepts") ? "concepts" : "processes", size);
+        });
+
+        // Act
+        List<Question> questions = questionGenerationService.generateQuestions(
+                1L, sampleSummaryText, "EASY", 7, testQuizId);
+
+        // Assert
+        assertEquals(7, questions.size());
+        ArgumentCaptor<String> prompts = ArgumentCaptor.forClass(String.class);
+        verify(aiGateway, times(2)).call(eq(1L), prompts.capture());
+        assertTrue(prompts.getAllValues().get(0).startsWith("Generate exactly 4 "));
+        assertTrue(prompts.getAllValues().get(1).startsWith("Generate exactly 3 "));
+    }
+
+    @Test
+    void generateQuestions_nearDuplicateAcrossParts_dropsItAndTopsUp() {
+        // Arrange
+        String firstPart = """
+                [
+                  {"id": "q1", "question": "What is Spring Boot?", "options": ["A", "B", "C", "D"],
+                   "correctAnswer": "A", "explanation": "E"},
+                  {"id": "q2", "question": "Why use auto-configuration?", "options": ["A", "B", "C", "D"],
+                   "correctAnswer": "B", "explanation": "E"},
+                  {"id": "q3", "question": "Which server is embedded by default?", "options": ["A", "B", "C", "D"],
+                   "correctAnswer": "C", "explanation": "E"}
+                ]
+                """;
+        String secondPart = """
+                [
+                  {"id": "q1", "question": "What exactly is Spring Boot?", "options": ["A", "B", "C", "D"],
+                   "correctAnswer": "A", "explanation": "E"},
+                  {"id": "q2", "question": "How are starters used?", "options": ["A", "B", "C", "D"],
+                   "correctAnswer": "B", "explanation": "E"},
+                  {"id": "q3", "question": "What does the actuator expose?", "options": ["A", "B", "C", "D"],
+                   "correctAnswer": "C", "explanation": "E"}
+                ]
+                """;
+        String topUp = """
+                [{"id": "q1", "question": "Where are properties loaded from?", "options": ["A", "B", "C", "D"],
+                  "correctAnswer": "D", "explanation": "E"}]
+                """;
+        when(aiGateway.call(eq(1L), anyString())).thenReturn(firstPart, secondPart, topUp);
+
+        // Act
+        List<Question> questions = questionGenerationService.generateQuestions(
+                1L, sampleSummaryText, "EASY", 6, testQuizId);
+
+        // Assert
+        assertEquals(List.of("What is Spring Boot?", "Why use auto-configuration?",
+                        "Which server is embedded by default?", "How are starters used?",
+                        "What does the actuator expose?", "Where are properties loaded from?"),
+                questions.stream().map(Question::getQuestionText).toList());
+        assertEquals(1.0, meterRegistry.counter("quiz.generation.skipped").count());
+    }
+
+    @Test
+    void generateQuestions_onePartFails_keepsOtherPartsAndTopsUp() {
+        // Arrange
+        when(aiGateway.call(eq(1L), anyString()))
+                .thenReturn(questionsJson("concepts", 5))
+                .thenThrow(new RuntimeException("AI service unavailable"))
+                .thenReturn(questionsJson("applications", 5))
+                .thenReturn(questionsJson("details", 5));
+
+        // Act
+        List<Question> questions = questionGenerationService.generateQuestions(
+                1L, sampleSummaryText, "MEDIUM", 15, testQuizId);
+
+        // Assert
+        assertEquals(15, questions.size());
+        ArgumentCaptor<String> prompts = ArgumentCaptor.forClass(String.class);
+        verify(aiGateway, times(4)).call(eq(1L), prompts.capture());
+        assertTrue(prompts.getAllValues().get(3).startsWith("Generate exactly 5 "));
+        assertTrue(prompts.getAllValues().get(3).contains("Do not repeat any of these questions"));
+    }
+
+    @Test
+    void generateQuestions_allPartsAtCapacity_propagatesCapacityException() {
+        // Arrange
+        when(aiGateway.call(eq(1L), anyString()))
+                .thenThrow(new AiCapacityExceededException("The AI service is busy. Please try again shortly.", 30));
+
+        // Act & Assert
+        assertThrows(AiCapacityExceededException.class, () ->
+                questionGenerationService.generateQuestions(1L, sampleSummaryText, "EASY", 10, testQuizId));
+    }
+
+    @Test
+    void generateQuestions_fanOutDisabled_asksForAllQuestionsAtOnce() {
+        // Arrange
+        ReflectionTestUtils.setField(questionGenerationService, "fanOutEnabled", false);
+        setupMockAiGateway(questionsJson("concepts", 10));
 
         // Act
         List<Question> questions = questionGenerationService.generateQuestions(
-                sampleSummaryText, "EASY", 1, testQuizId);
+                1L, sampleSummaryText, "EASY", 10, testQuizId);
+
+        // Assert
+        assertEquals(10, questions.size());
+        verify(aiGateway).call(eq(1L), startsWith("Generate exactly 10 "));
+    }
+
+    // ===== streamQuestions Tests =====
+
+    @Test
+    void streamQuestions_chunkedReply_emitsEachQuestionAsItCloses() {
+        // Arrange
+        String reply = "```json\n" + questionsJson("concepts", 3) + "\n```";
+        List<String> chunks = IntStream.range(0, reply.length())
+                .filter(i -> i % 7 == 0)
+                .mapToObj(i -> reply.substring(i, Math.min(reply.length(), i + 7)))
+                .toList();
+        when(aiGateway.stream(eq(1L), anyString())).thenReturn(Flux.fromIterable(chunks));
+
+        // Act
+        List<GeneratedQuestion> questions = questionGenerationService
+                .streamQuestions(1L, sampleSummaryText, "EASY", 3, List.of())
+                .collectList()
+                .block();
+
+        // Assert
+        assertNotNull(questions);
+        assertEquals(List.of("Which statement about concepts number 1 holds?",
+                        "Which statement about concepts number 2 holds?",
+                        "Which statement about concepts number 3 holds?"),
+                questions.stream().map(GeneratedQuestion::question).toList());
+        verify(aiGateway).stream(eq(1L), startsWith("Generate exactly 3 "));
+    }
+
+    @Test
+    void streamQuestions_tooFewUsable_streamsTopUpForMissingAndSkipsKnownQuestions() {
+        // Arrange
+        String first = """
+                [{"id": "q1", "question": "Banked question?", "options": ["A", "B", "C", "D"],
+                  "correctAnswer": "A", "explanation": "E"},
+                 {"id": "q2", "question": "Fresh question?", "options": ["A", "B", "C", "D"],
+                  "correctAnswer": "B", "explanation": "E"},
+                 {"id": "q3", "question": "Broken?", "options": ["A"], "correctAnswer": "A", "explanation": "E"}]
+                """;
+        when(aiGateway.stream(eq(1L), anyString()))
+                .thenReturn(Flux.just(first))
+                .thenReturn(Flux.just(questionsJson("applications", 2)));
+
+        // Act
+        List<GeneratedQuestion> questions = questionGenerationService
+                .streamQuestions(1L, sampleSummaryText, "EASY", 3, List.of("Banked question?"))
+                .collectList()
+                .block();
+
+        // Assert
+        assertNotNull(questions);
+        assertEquals(List.of("Fresh question?",
+                        "Which statement about applications number 1 holds?",
+                        "Which statement about applications number 2 holds?"),
+                questions.stream().map(GeneratedQuestion::question).toList());
+        ArgumentCaptor<String> prompts = ArgumentCaptor.forClass(String.class);
+        verify(aiGateway, times(2)).stream(eq(1L), prompts.capture());
+        assertTrue(prompts.getAllValues().get(0).contains("- Banked question?"));
+        assertTrue(prompts.getAllValues().get(1).startsWith("Generate exactly 2 "));
+        assertTrue(prompts.getAllValues().get(1).contains("- Fresh question?"));
+        assertEquals(2.0, meterRegistry.counter("quiz.generation.skipped").count());
+    }
+
+    @Test
+    void streamQuestions_modelFails_emitsAiServiceException() {
+        // Arrange
+        when(aiGateway.stream(eq(1L), anyString())).thenReturn(Flux.error(new IllegalStateException("quota exceeded")));
+
+        // Act & Assert
+        Flux<GeneratedQuestion> questions = questionGenerationService
+                .streamQuestions(1L, sampleSummaryText, "EASY", 3, List.of());
+        AiServiceException exception = assertThrows(AiServiceException.class, questions::blockLast);
+        assertEquals("Failed to generate quiz questions. Please try again later.", exception.getMessage());
+    }
+
+    @Test
+    void streamQuestions_topUpFailsAfterSomeQuestions_completesWithThem() {
+        // Arrange
+        when(aiGateway.stream(eq(1L), anyString()))
+                .thenReturn(Flux.just(questionsJson("concepts", 1)))
+                .thenReturn(Flux.error(new AiCapacityExceededException("The AI service is busy. Please try again shortly.", 30)));
+
+        // Act
+        List<GeneratedQuestion> questions = questionGenerationService
+                .streamQuestions(1L, sampleSummaryText, "EASY", 3, List.of())
+                .collectList()
+                .block();
 
         // Assert
         assertNotNull(questions);
@@ -473,16 +834,16 @@ class QuestionGenerationServiceTest {
 
     // ===== Helper Methods =====
 
-    private void setupMockChatClient(String response) {
-        ChatClient mockChatClient = mock(ChatClient.class);
-        ChatClient.ChatClientRequestSpec mockRequestSpec = mock(ChatClient.ChatClientRequestSpec.class);
-        ChatClient.ChatClientRequestSpec mockUserSpec = mock(ChatClient.ChatClientRequestSpec.class);
-        ChatClient.CallResponseSpec mockCallSpec = mock(ChatClient.CallResponseSpec.class);
-
-        when(chatClientBuilder.build()).thenReturn(mockChatClient);
-        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
-        when(mockRequestSpec.user(anyString())).thenReturn(mockUserSpec);
-        when(mockUserSpec.call()).thenReturn(mockCallSpec);
-        when(mockCallSpec.content()).thenReturn(response);
+    private void setupMockAiGateway(String response) {
+        when(aiGateway.call(eq(1L), anyString())).thenReturn(response);
+    }
+
+    private static String questionsJson(String topic, int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(i -> """
+                        {"id": "q%d", "question": "Which statement about %s number %d holds?",
+                         "options": ["A", "B", "C", "D"], "correctAnswer": "A", "explanation": "Explanation"}"""
+                        .formatted(i, topic, i))
+                .collect(Collectors.joining(",", "[", "]"));
     }
 }
@@ -0,0 +1,96 @@
+package tubes.pbo.be.quiz.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionStreamParserTest {
+
+    private static final String QUESTION_1 = """
+            {"id": "q1", "question": "Question 1?", "options": ["A", "B", "C", "D"],
+             "correctAnswer": "A", "explanation": "Explanation 1"}""";
+
+    private static final String QUESTION_2 = """
+            {"id": "q2", "question": "Question 2?", "options": ["A", "B", "C", "D"],
+             "correctAnswer": "B", "explanation": "Explanation 2", "difficulty": "EASY"}""";
+
+    private final QuestionStreamParser parser = new QuestionStreamParser(new ObjectMapper());
+
+    @Test
+    void feed_oneCharacterAtATime_returnsEachQuestionWhenItCloses() {
+        // Arrange
+        String response = "```json\n[" + QUESTION_1 + ",\n" + QUESTION_2 + "]\n```";
+        List<Integer> completedAt = new ArrayList<>();
+        List<GeneratedQuestion> questions = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < response.length(); i++) {
+            List<GeneratedQuestion> completed = parser.feed(response.substring(i, i + 1));
+            if (!completed.isEmpty()) {
+                completedAt.add(i);
+                questions.addAll(completed);
+            }
+        }
+        parser.finish();
+
+        // Assert
+        assertEquals(List.of("Question 1?", "Question 2?"), questions.stream().map(GeneratedQuestion::question).toList());
+        assertEquals(List.of(response.indexOf(QUESTION_1) + QUESTION_1.length() - 1,
+                response.indexOf(QUESTION_2) + QUESTION_2.length() - 1), completedAt);
+        assertEquals(0, parser.skipped());
+    }
+
+    @Test
+    void feed_invalidElements_skipsAndCountsThem() {
+        // Arrange
+        String response = "[" + QUESTION_1 + ", \"not a question\", {\"id\": \"q2\", \"question\": \"Question 2?\","
+                + " \"options\": [\"A\", \"B\", \"C\", \"D\"], \"correctAnswer\": \"E\", \"explanation\": \"\"}, "
+                + QUESTION_2 + "]";
+
+        // Act
+        List<GeneratedQuestion> questions = parser.feed(response);
+        parser.finish();
+
+        // Assert
+        assertEquals(List.of("Question 1?", "Question 2?"), questions.stream().map(GeneratedQuestion::question).toList());
+        assertEquals(2, parser.skipped());
+    }
+
+    @Test
+    void feed_malformedJson_keepsQuestionsReadBeforeTheError() {
+        // Act
+        List<GeneratedQuestion> questions = parser.feed("[" + QUESTION_1 + ", {\"id\": \"q2\" \"question\": }]");
+        parser.finish();
+
+        // Assert
+        assertEquals(1, questions.size());
+        assertEquals(1, parser.skipped());
+    }
+
+    @Test
+    void feed_afterClosingBracket_ignoresRemainingText() {
+        // Act
+        List<GeneratedQuestion> questions = new ArrayList<>(parser.feed("Here you go: [" + QUESTION_1 + "] and also ["));
+        questions.addAll(parser.feed(QUESTION_2 + "]"));
+        parser.finish();
+
+        // Assert
+        assertEquals(1, questions.size());
+        assertEquals(0, parser.skipped());
+    }
+
+    @Test
+    void feed_noArray_returnsNothing() {
+        // Act
+        List<GeneratedQuestion> questions = parser.feed("This is not valid JSON");
+        parser.finish();
+
+        // Assert
+        assertTrue(questions.isEmpty());
+        assertEquals(0, parser.skipped());
+    }
+}
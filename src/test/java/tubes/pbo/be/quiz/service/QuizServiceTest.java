@@ -11,11 +11,19 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 import tubes.pbo.be.quiz.dto.*;
 import tubes.pbo.be.quiz.model.Question;
 import tubes.pbo.be.quiz.model.Quiz;
 import tubes.pbo.be.quiz.repository.QuestionRepository;
 import tubes.pbo.be.quiz.repository.QuizRepository;
+import tubes.pbo.be.quiz.repository.QuizRepository.QuizListView;
+import tubes.pbo.be.shared.dto.CursorPageResponse;
+import tubes.pbo.be.shared.dto.PageCursor;
 import tubes.pbo.be.shared.exception.ForbiddenException;
 import tubes.pbo.be.shared.exception.ResourceNotFoundException;
 import tubes.pbo.be.shared.exception.ValidationException;
@@ -25,12 +33,13 @@ import tubes.pbo.be.summary.repository.SummaryRepository;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,11 +55,16 @@ class QuizServiceTest {
     private SummaryRepository summaryRepository;
 
     @Mock
-    private QuestionGenerationService questionGenerationService;
+    private QuestionBankService questionBankService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     @InjectMocks
     private QuizService quizService;
 
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
+
     private ObjectMapper objectMapper;
     private Long testUserId;
     private Long testSummaryId;
@@ -62,6 +76,9 @@ class QuizServiceTest {
     void setUp() throws Exception {
         objectMapper = new ObjectMapper();
         org.springframework.test.util.ReflectionTestUtils.setField(quizService, "objectMapper", objectMapper);
+        org.springframework.test.util.ReflectionTestUtils.setField(quizService, "transactionTemplate",
+                new TransactionTemplate(transactionManager));
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
 
         testUserId = 1L;
         testSummaryId = 1L;
@@ -101,8 +118,9 @@ class QuizServiceTest {
         when(summaryRepository.findByIdAndUserId(testSummaryId, testUserId))
                 .thenReturn(Optional.of(testSummary));
         when(quizRepository.save(any(Quiz.class))).thenReturn(testQuiz);
-        when(questionGenerationService.generateQuestions(anyString(), anyString(), anyInt(), anyLong()))
-                .thenReturn(testQuestions);
+        QuestionBankService.Assembly assembly = new QuestionBankService.Assembly(testQuestions, false);
+        when(questionBankService.assemble(testUserId, testSummary, Quiz.Difficulty.EASY, 5)).thenReturn(assembly);
+        when(questionBankService.attach(testQuiz, assembly)).thenReturn(testQuestions);
         when(questionRepository.saveAll(any())).thenReturn(testQuestions);
 
         // Act
@@ -129,8 +147,8 @@ class QuizServiceTest {
 
         verify(summaryRepository).findByIdAndUserId(testSummaryId, testUserId);
         verify(quizRepository).save(any(Quiz.class));
-        verify(questionGenerationService).generateQuestions(
-                testSummary.getSummaryText(), "EASY", 5, testQuiz.getId());
+        verify(questionBankService).assemble(testUserId, testSummary, Quiz.Difficulty.EASY, 5);
+        verify(questionBankService).attach(testQuiz, assembly);
         verify(questionRepository).saveAll(testQuestions);
     }
 
@@ -148,8 +166,9 @@ class QuizServiceTest {
         when(summaryRepository.findByIdAndUserId(testSummaryId, testUserId))
                 .thenReturn(Optional.of(testSummary));
         when(quizRepository.save(any(Quiz.class))).thenReturn(testQuiz);
-        when(questionGenerationService.generateQuestions(anyString(), anyString(), anyInt(), anyLong()))
-                .thenReturn(testQuestions);
+        QuestionBankService.Assembly assembly = new QuestionBankService.Assembly(testQuestions, false);
+        when(questionBankService.assemble(testUserId, testSummary, Quiz.Difficulty.MEDIUM, 10)).thenReturn(assembly);
+        when(questionBankService.attach(testQuiz, assembly)).thenReturn(testQuestions);
         when(questionRepository.saveAll(any())).thenReturn(testQuestions);
 
         // Act
@@ -343,7 +362,7 @@ class QuizServiceTest {
         List<Quiz> quizzes = Arrays.asList(testQuiz);
         Page<Quiz> quizPage = new PageImpl<>(quizzes, pageable, 1);
 
-        when(quizRepository.findByUserId(testUserId, pageable)).thenReturn(quizPage);
+        when(quizRepository.findListByUserId(testUserId, pageable)).thenReturn(quizPage.map(this::listView));
 
         // Act
         Page<QuizListItem> result = quizService.listQuizzes(testUserId, null, pageable);
@@ -362,8 +381,8 @@ class QuizServiceTest {
         assertNull(item.getCorrectAnswers());
         assertNull(item.getSubmittedAt());
 
-        verify(quizRepository).findByUserId(testUserId, pageable);
-        verify(quizRepository, never()).findByUserIdAndSummaryId(any(), any(), any());
+        verify(quizRepository).findListByUserId(testUserId, pageable);
+        verify(quizRepository, never()).findListByUserIdAndSummaryId(any(), any(), any());
     }
 
     @Test
@@ -374,8 +393,8 @@ class QuizServiceTest {
         Page<Quiz> quizPage = new PageImpl<>(quizzes, pageable, 1);
 
         when(summaryRepository.existsByIdAndUserId(testSummaryId, testUserId)).thenReturn(true);
-        when(quizRepository.findByUserIdAndSummaryId(testUserId, testSummaryId, pageable))
-                .thenReturn(quizPage);
+        when(quizRepository.findListByUserIdAndSummaryId(testUserId, testSummaryId, pageable))
+                .thenReturn(quizPage.map(this::listView));
 
         // Act
         Page<QuizListItem> result = quizService.listQuizzes(testUserId, testSummaryId, pageable);
@@ -385,7 +404,7 @@ class QuizServiceTest {
         assertEquals(1, result.getTotalElements());
 
         verify(summaryRepository).existsByIdAndUserId(testSummaryId, testUserId);
-        verify(quizRepository).findByUserIdAndSummaryId(testUserId, testSummaryId, pageable);
+        verify(quizRepository).findListByUserIdAndSummaryId(testUserId, testSummaryId, pageable);
     }
 
     @Test
@@ -400,7 +419,7 @@ class QuizServiceTest {
                 quizService.listQuizzes(testUserId, testSummaryId, pageable));
 
         assertEquals("You do not have access to this summary", exception.getMessage());
-        verify(quizRepository, never()).findByUserIdAndSummaryId(any(), any(), any());
+        verify(quizRepository, never()).findListByUserIdAndSummaryId(any(), any(), any());
     }
 
     @Test
@@ -414,7 +433,7 @@ class QuizServiceTest {
         List<Quiz> quizzes = Arrays.asList(testQuiz);
         Page<Quiz> quizPage = new PageImpl<>(quizzes, pageable, 1);
 
-        when(quizRepository.findByUserId(testUserId, pageable)).thenReturn(quizPage);
+        when(quizRepository.findListByUserId(testUserId, pageable)).thenReturn(quizPage.map(this::listView));
 
         // Act
         Page<QuizListItem> result = quizService.listQuizzes(testUserId, null, pageable);
@@ -426,6 +445,34 @@ class QuizServiceTest {
         assertNotNull(item.getSubmittedAt());
     }
 
+    @Test
+    void listQuizzes_bySummaryCursor_seeksWithinSummary() {
+        // Arrange
+        PageCursor after = new PageCursor(LocalDateTime.now(), 50L);
+        when(summaryRepository.existsByIdAndUserId(testSummaryId, testUserId)).thenReturn(true);
+        when(quizRepository.findListByUserIdAndSummaryIdAfter(testUserId, testSummaryId, after.createdAt(), after.id(),
+                PageRequest.ofSize(11))).thenReturn(List.of(listView(testQuiz)));
+
+        // Act
+        CursorPageResponse<QuizListItem> result = quizService.listQuizzes(testUserId, testSummaryId, after.encode(), 10);
+
+        // Assert
+        assertEquals(1, result.getContent().size());
+        assertEquals(testQuiz.getId(), result.getContent().getFirst().getId());
+        assertFalse(result.isHasNext());
+        verify(quizRepository, never()).findListByUserIdAfter(any(), any(), any(), any());
+    }
+
+    @Test
+    void listQuizzes_cursorSummaryNotOwned_throwsForbiddenException() {
+        // Arrange
+        when(summaryRepository.existsByIdAndUserId(testSummaryId, testUserId)).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(ForbiddenException.class, () -> quizService.listQuizzes(testUserId, testSummaryId, null, 10));
+        verifyNoInteractions(quizRepository);
+    }
+
     // ===== getQuizDetail Tests =====
 
     @Test
@@ -543,4 +590,18 @@ class QuizServiceTest {
         
         return questions;
     }
+
+    private QuizListView listView(Quiz quiz) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", quiz.getId());
+        row.put("summaryId", quiz.getSummaryId());
+        row.put("originalFilename", quiz.getSummary() != null ? quiz.getSummary().getOriginalFilename() : null);
+        row.put("difficulty", quiz.getDifficulty());
+        row.put("numberOfQuestions", quiz.getNumberOfQuestions());
+        row.put("isSubmitted", quiz.getIsSubmitted());
+        row.put("correctAnswers", quiz.getCorrectAnswers());
+        row.put("createdAt", quiz.getCreatedAt());
+        row.put("submittedAt", quiz.getSubmittedAt());
+        return projectionFactory.createProjection(QuizListView.class, row);
+    }
 }
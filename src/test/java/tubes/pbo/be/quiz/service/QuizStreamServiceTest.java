@@ -0,0 +1,227 @@
+package tubes.pbo.be.quiz.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import tubes.pbo.be.quiz.dto.QuestionResponse;
+import tubes.pbo.be.quiz.dto.QuizRequest;
+import tubes.pbo.be.quiz.dto.QuizResponse;
+import tubes.pbo.be.quiz.model.Question;
+import tubes.pbo.be.quiz.model.Quiz;
+import tubes.pbo.be.quiz.repository.QuestionRepository;
+import tubes.pbo.be.quiz.repository.QuizRepository;
+import tubes.pbo.be.shared.exception.AiServiceException;
+import tubes.pbo.be.shared.exception.ValidationException;
+import tubes.pbo.be.summary.model.Summary;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuizStreamServiceTest {
+
+    @Mock
+    private QuizService quizService;
+
+    @Mock
+    private QuizRepository quizRepository;
+
+    @Mock
+    private QuestionRepository questionRepository;
+
+    @Mock
+    private QuestionBankService questionBankService;
+
+    @Mock
+    private QuestionGenerationService questionGenerationService;
+
+    @InjectMocks
+    private QuizStreamService quizStreamService;
+
+    private QuizRequest request;
+    private Summary summary;
+    private Quiz quiz;
+
+    @BeforeEach
+    void setUp() {
+        request = new QuizRequest();
+        request.setSummaryId(10L);
+        request.setDifficulty("easy");
+        request.setNumberOfQuestions(5);
+
+        summary = new Summary();
+        summary.setId(10L);
+        summary.setUserId(1L);
+        summary.setSummaryText("Summary text");
+
+        quiz = new Quiz();
+        quiz.setId(20L);
+        quiz.setUserId(1L);
+        quiz.setSummaryId(10L);
+        quiz.setDifficulty(Quiz.Difficulty.EASY);
+        quiz.setNumberOfQuestions(5);
+
+        lenient().when(quizService.validateRequest(1L, request)).thenReturn(summary);
+        lenient().when(quizService.createQuiz(1L, summary, request)).thenReturn(quiz);
+        lenient().when(quizService.toQuestionResponse(any())).thenReturn(new QuestionResponse());
+        lenient().when(quizService.toResponse(any(), any())).thenReturn(new QuizResponse());
+        lenient().when(questionRepository.save(any(Question.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(questionGenerationService.toQuestion(any(), eq(20L))).thenAnswer(invocation -> {
+            GeneratedQuestion generated = invocation.getArgument(0);
+            Question question = new Question();
+            question.setQuizId(20L);
+            question.setQuestionText(generated.question());
+            return question;
+        });
+        lenient().when(questionBankService.addToBank(eq(10L), eq(Quiz.Difficulty.EASY), any()))
+                .thenAnswer(invocation -> invocation.getArgument(2));
+    }
+
+    @Test
+    void streamQuiz_bankAndGeneratedQuestions_savesEachInOrderAndFinishesQuiz() {
+        // Arrange
+        when(questionBankService.takeUnseen(1L, summary, Quiz.Difficulty.EASY, 5, 20L))
+                .thenReturn(List.of(question("Banked?")));
+        when(questionGenerationService.streamQuestions(1L, "Summary text", "EASY", 4, List.of("Banked?")))
+                .thenReturn(Flux.fromIterable(generated(4)));
+
+        // Act
+        SseEmitter emitter = quizStreamService.streamQuiz(1L, request);
+
+        // Assert
+        assertNotNull(emitter);
+        ArgumentCaptor<Question> saved = ArgumentCaptor.forClass(Question.class);
+        verify(questionRepository, times(5)).save(saved.capture());
+        assertEquals(List.of("q1", "q2", "q3", "q4", "q5"),
+                saved.getAllValues().stream().map(Question::getQuestionId).toList());
+        assertEquals("Banked?", saved.getAllValues().getFirst().getQuestionText());
+        verify(questionBankService, times(4)).addToBank(eq(10L), eq(Quiz.Difficulty.EASY), any());
+        verify(quizService, times(5)).toQuestionResponse(any());
+        verify(quizService).toResponse(quiz, saved.getAllValues());
+        verify(quizRepository, never()).deleteById(anyLong());
+    }
+
+    @Test
+    void streamQuiz_bankCoversWholeQuiz_doesNotCallAi() {
+        // Arrange
+        List<Question> banked = IntStream.rangeClosed(1, 5).mapToObj(i -> question("Banked " + i + "?")).toList();
+        when(questionBankService.takeUnseen(1L, summary, Quiz.Difficulty.EASY, 5, 20L)).thenReturn(banked);
+
+        // Act
+        quizStreamService.streamQuiz(1L, request);
+
+        // Assert
+        verify(questionRepository, times(5)).save(any(Question.class));
+        verify(questionGenerationService, never()).streamQuestions(anyLong(), anyString(), anyString(), anyInt(), anyList());
+        verify(quizService).toResponse(eq(quiz), any());
+    }
+
+    @Test
+    void streamQuiz_fewerQuestionsThanRequested_finishesQuizWithWhatArrived() {
+        // Arrange
+        when(questionBankService.takeUnseen(1L, summary, Quiz.Difficulty.EASY, 5, 20L)).thenReturn(List.of());
+        when(questionGenerationService.streamQuestions(1L, "Summary text", "EASY", 5, List.of()))
+                .thenReturn(Flux.fromIterable(generated(3)));
+
+        // Act
+        quizStreamService.streamQuiz(1L, request);
+
+        // Assert
+        assertEquals(3, quiz.getNumberOfQuestions());
+        verify(quizRepository).save(quiz);
+        verify(quizService).toResponse(eq(quiz), argThat(questions -> questions.size() == 3));
+    }
+
+    @Test
+    void streamQuiz_aiFailsMidStream_deletesQuiz() {
+        // Arrange
+        when(questionBankService.takeUnseen(1L, summary, Quiz.Difficulty.EASY, 5, 20L)).thenReturn(List.of());
+        when(questionGenerationService.streamQuestions(1L, "Summary text", "EASY", 5, List.of()))
+                .thenReturn(Flux.concat(
+                        Flux.fromIterable(generated(1)),
+                        Flux.error(new AiServiceException("Failed to generate quiz questions. Please try again later."))));
+
+        // Act
+        quizStreamService.streamQuiz(1L, request);
+
+        // Assert
+        verify(questionRepository).save(any(Question.class));
+        verify(quizRepository).deleteById(20L);
+        verify(quizService, never()).toResponse(any(), any());
+    }
+
+    @Test
+    void streamQuiz_noQuestionsGenerated_deletesQuiz() {
+        // Arrange
+        when(questionBankService.takeUnseen(1L, summary, Quiz.Difficulty.EASY, 5, 20L)).thenReturn(List.of());
+        when(questionGenerationService.streamQuestions(1L, "Summary text", "EASY", 5, List.of()))
+                .thenReturn(Flux.empty());
+
+        // Act
+        quizStreamService.streamQuiz(1L, request);
+
+        // Assert
+        verify(quizRepository).deleteById(20L);
+        verify(quizService, never()).toResponse(any(), any());
+    }
+
+    @Test
+    void streamQuiz_invalidRequest_throwsBeforeCreatingQuiz() {
+        // Arrange
+        when(quizService.validateRequest(1L, request))
+                .thenThrow(new ValidationException("Number of questions must be exactly 5, 10, or 15"));
+
+        // Act & Assert
+        assertThrows(ValidationException.class, () -> quizStreamService.streamQuiz(1L, request));
+        verify(quizService, never()).createQuiz(any(), any(), any());
+    }
+
+    @Test
+    void abort_clientDisconnectsMidStream_cancelsGenerationAndDeletesQuiz() {
+        // Arrange
+        Sinks.Many<Question> questions = Sinks.many().unicast().onBackpressureBuffer();
+        QuizStreamService.QuizStream stream = quizStreamService.new QuizStream(quiz, new SseEmitter());
+        stream.start(questions.asFlux());
+        questions.tryEmitNext(question("First?"));
+
+        // Act
+        stream.abort();
+        questions.tryEmitComplete();
+
+        // Assert
+        assertEquals(0, questions.currentSubscriberCount());
+        verify(questionRepository, times(1)).save(any(Question.class));
+        verify(quizRepository, times(1)).deleteById(20L);
+        verify(quizService, never()).toResponse(any(), any());
+    }
+
+    private static Question question(String text) {
+        Question question = new Question();
+        question.setQuizId(20L);
+        question.setQuestionText(text);
+        return question;
+    }
+
+    private static List<GeneratedQuestion> generated(int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(i -> new GeneratedQuestion("q" + i, "Generated " + i + "?",
+                        List.of("A", "B", "C", "D"), "A", "Explanation"))
+                .toList();
+    }
+}
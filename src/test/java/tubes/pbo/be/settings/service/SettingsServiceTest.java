@@ -3,10 +3,12 @@ package tubes.pbo.be.settings.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
 import tubes.pbo.be.auth.service.TokenService;
 import tubes.pbo.be.settings.dto.ChangePasswordRequest;
 import tubes.pbo.be.settings.dto.ProfileResponse;
@@ -34,9 +36,11 @@ class SettingsServiceTest {
     private TokenService tokenService;
 
     @Mock
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
-    @InjectMocks
     private SettingsService settingsService;
 
     private User testUser;
@@ -46,6 +50,10 @@ class SettingsServiceTest {
 
     @BeforeEach
     void setUp() {
+        settingsService = new SettingsService(userRepository, tokenService, passwordEncoder,
+                new TransactionTemplate(transactionManager));
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
         // Setup test user
         testUser = new User();
         testUser.setId(1L);
@@ -172,8 +180,8 @@ class SettingsServiceTest {
         // Act
         settingsService.changePassword(1L, currentToken, changePasswordRequest);
 
-        // Assert
-        verify(userRepository).findById(1L);
+        // Assert: read once to verify, again inside the transaction to update
+        verify(userRepository, times(2)).findById(1L);
         verify(passwordEncoder).matches("currentPassword123", "hashedPassword");
         verify(passwordEncoder).encode("newPassword123");
         verify(userRepository).save(testUser);
@@ -278,4 +286,42 @@ class SettingsServiceTest {
         verify(userRepository).save(testUser);
         verify(tokenService).deleteAllUserSessionsExceptCurrent(1L, currentToken);
     }
+
+    @Test
+    void changePassword_passwordChangedWhileHashing_throwsValidationException() {
+        // Arrange
+        User changedElsewhere = new User();
+        changedElsewhere.setId(1L);
+        changedElsewhere.setPassword("otherHashedPassword");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser), Optional.of(changedElsewhere));
+        when(passwordEncoder.matches("currentPassword123", "hashedPassword")).thenReturn(true);
+        when(passwordEncoder.encode("newPassword123")).thenReturn("newHashedPassword");
+
+        // Act & Assert
+        ValidationException exception = assertThrows(
+            ValidationException.class,
+            () -> settingsService.changePassword(1L, currentToken, changePasswordRequest)
+        );
+
+        assertEquals("Current password is incorrect", exception.getMessage());
+        verify(userRepository, never()).save(any(User.class));
+        verify(tokenService, never()).deleteAllUserSessionsExceptCurrent(anyLong(), anyString());
+    }
+
+    @Test
+    void changePassword_hashesBeforeTransactionStarts() {
+        // Arrange
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches("currentPassword123", "hashedPassword")).thenReturn(true);
+        when(passwordEncoder.encode("newPassword123")).thenReturn("newHashedPassword");
+
+        // Act
+        settingsService.changePassword(1L, currentToken, changePasswordRequest);
+
+        // Assert
+        var inOrder = inOrder(passwordEncoder, transactionManager, userRepository);
+        inOrder.verify(passwordEncoder).encode("newPassword123");
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(userRepository).save(testUser);
+    }
 }
@@ -0,0 +1,131 @@
+package tubes.pbo.be.shared.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tubes.pbo.be.shared.exception.AiUnavailableException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AiCircuitBreakerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicLong now;
+    private AiCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        now = new AtomicLong();
+        circuitBreaker = new AiCircuitBreaker(3, 10000, meterRegistry, now::get);
+    }
+
+    @Test
+    void acquirePermission_fewerFailuresThanThreshold_staysClosed() {
+        // Arrange
+        recordFailures(2);
+
+        // Act & Assert
+        assertDoesNotThrow(circuitBreaker::acquirePermission);
+        assertEquals(AiCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void acquirePermission_thresholdReached_failsFastWithRetryAfter() {
+        // Arrange
+        recordFailures(3);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(4));
+
+        // Act & Assert
+        AiUnavailableException exception =
+                assertThrows(AiUnavailableException.class, circuitBreaker::acquirePermission);
+        assertEquals(6, exception.getRetryAfterSeconds());
+        assertEquals(AiCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(2, meterRegistry.get("ai.gateway.circuit.state").gauge().value());
+        assertEquals(1, meterRegistry.get("ai.gateway.circuit.rejected").counter().count());
+    }
+
+    @Test
+    void onSuccess_betweenFailures_resetsFailureCount() {
+        // Arrange
+        recordFailures(2);
+        circuitBreaker.acquirePermission();
+        circuitBreaker.onSuccess();
+
+        // Act
+        recordFailures(2);
+
+        // Assert
+        assertEquals(AiCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void acquirePermission_openDurationElapsed_letsOneTrialThrough() {
+        // Arrange
+        recordFailures(3);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        // Act
+        circuitBreaker.acquirePermission();
+
+        // Assert - a second caller is rejected while the trial runs
+        assertEquals(AiCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertThrows(AiUnavailableException.class, circuitBreaker::acquirePermission);
+    }
+
+    @Test
+    void onSuccess_trialCall_closesBreaker() {
+        // Arrange
+        recordFailures(3);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        circuitBreaker.acquirePermission();
+
+        // Act
+        circuitBreaker.onSuccess();
+
+        // Assert
+        assertEquals(AiCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertDoesNotThrow(circuitBreaker::acquirePermission);
+        assertEquals(0, meterRegistry.get("ai.gateway.circuit.state").gauge().value());
+    }
+
+    @Test
+    void onFailure_trialCall_reopensBreaker() {
+        // Arrange
+        recordFailures(3);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        circuitBreaker.acquirePermission();
+
+        // Act
+        circuitBreaker.onFailure();
+
+        // Assert
+        assertEquals(AiCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertThrows(AiUnavailableException.class, circuitBreaker::acquirePermission);
+    }
+
+    @Test
+    void onIgnored_trialCall_letsAnotherTrialThrough() {
+        // Arrange
+        recordFailures(3);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        circuitBreaker.acquirePermission();
+
+        // Act
+        circuitBreaker.onIgnored();
+
+        // Assert
+        assertDoesNotThrow(circuitBreaker::acquirePermission);
+        assertEquals(AiCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    private void recordFailures(int times) {
+        for (int i = 0; i < times; i++) {
+            circuitBreaker.acquirePermission();
+            circuitBreaker.onFailure();
+        }
+    }
+}
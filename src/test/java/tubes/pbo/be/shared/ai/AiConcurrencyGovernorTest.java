@@ -0,0 +1,235 @@
+package tubes.pbo.be.shared.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import tubes.pbo.be.shared.exception.AiCapacityExceededException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AiConcurrencyGovernorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void execute_belowLimit_runsCallAndFreesSlot() {
+        // Arrange
+        AiConcurrencyGovernor governor = new AiConcurrencyGovernor(2, 10, 1000, meterRegistry);
+
+        // Act
+        String result = governor.execute(1L, () -> "summary");
+
+        // Assert
+        assertEquals("summary", result);
+        assertEquals(0, governor.getInFlight());
+        assertEquals(1, meterRegistry.get("ai.governor.queue.wait").timer().count());
+    }
+
+    @Test
+    void execute_callFails_stillFreesSlot() {
+        // Arrange
+        AiConcurrencyGovernor governor = new AiConcurrencyGovernor(1, 10, 1000, meterRegistry);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> governor.execute(1L, () -> {
+            throw new IllegalStateException("quota exceeded");
+        }));
+        assertEquals(0, governor.getInFlight());
+    }
+
+    @Test
+    void execute_limitReached_waitsForFreedSlot() throws Exception {
+        // Arrange
+        AiConcurrencyGovernor governor = new AiConcurrencyGovernor(1, 10, 5000, meterRegistry);
+        governor.acquire(1L);
+
+        // Act
+        Future<String> waiting = callers.submit(() -> governor.execute(2L, () -> "done"));
+        awaitQueueDepth(governor, 1);
+
+        // Assert
+        assertFalse(waiting.isDone());
+        assertEquals(1, meterRegistry.get("ai.governor.queue.depth").gauge().value());
+
+        governor.release();
+        assertEquals("done", waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(0, governor.getInFlight());
+        assertEquals(0, governor.getQueueDepth());
+    }
+
+    @Test
+    void acquire_queueFull_rejectsImmediately() {
+        // Arrange
+        AiConcurrencyGovernor governor = new AiConcurrencyGovernor(1, 0, 5000, meterRegistry);
+        governor.acquire(1L);
+
+        // Act & Assert
+        AiCapacityExceededException exception =
+                assertThrows(AiCapacityExceededException.class, () -> governor.acquire(2L));
+        assertEquals("The AI service is busy. Please try again shortly.", exception.getMessage());
+        assertEquals(5, exception.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.get("ai.governor.rejected").tag("reason", "queue_full").counter().count());
+        assertEquals(1, governor.getInFlight());
+    }
+
+    @Test
+    void acquire_waitTimesOut_rejectsAndLeavesQueue() {
+        // Arrange
+        AiConcurrencyGovernor governor = new AiConcurrencyGovernor(1, 10, 50, meterRegistry);
+        governor.acquire(1L);
+
+        // Act & Assert
+        AiCapacityExceededException exception =
+                assertThrows(AiCapacityExceededException.class, () -> governor.acquire(2L));
+        assertEquals(1, exception.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.get("ai.governor.rejected").tag("reason", "timeout").counter().count());
+        assertEquals(0, governor.getQueueDepth());
+
+        // The slot is not handed to the waiter that gave up
+        governor.release();
+        assertEquals(0, governor.getInFlight());
+    }
+
+    @Test
+    void release_waitersFromSeveralUsers_servesUsersRoundRobin() throws Exception {
+        // Arrange - user A queues three calls before user B queues one
+        AiConcurrencyGovernor governor = new AiConcurrencyGovernor(1, 10, 5000, meterRegistry);
+        governor.acquire("holder");
+        List<String> served = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> calls = new ArrayList<>();
+
+        String[][] waiters = {{"A", "A1"}, {"A", "A2"}, {"A", "A3"}, {"B", "B1"}};
+        for (int i = 0; i < waiters.length; i++) {
+            String user = waiters[i][0];
+            String name = waiters[i][1];
+            calls.add(callers.submit(() -> governor.execute(user, () -> served.add(name))));
+            awaitQueueDepth(governor, i + 1);
+        }
+
+        // Act
+        governor.release();
+        for (Future<?> call : calls) {
+            call.get(5, TimeUnit.SECONDS);
+        }
+
+        // Assert
+        assertEquals(List.of("A1", "B1", "A2", "A3"), served);
+        assertEquals(0, governor.getInFlight());
+    }
+
+    @Test
+    void stream_holdsSlotUntilStreamCompletes() {
+        // Arrange
+        AiConcurrencyGovernor governor = new AiConcurrencyGovernor(1, 10, 1000, meterRegistry);
+        Sinks.Many<String> tokens = Sinks.many().unicast().onBackpressureBuffer();
+        List<String> received = new ArrayList<>();
+
+        // Act
+        governor.stream(1L, tokens::asFlux).subscribe(received::add);
+        tokens.tryEmitNext("## Sum");
+
+        // Assert
+        assertEquals(1, governor.getInFlight());
+        tokens.tryEmitComplete();
+        assertEquals(List.of("## Sum"), received);
+        assertEquals(0, governor.getInFlight());
+    }
+
+    @Test
+    void stream_subscriberCancels_freesSlot() {
+        // Arrange
+        AiConcurrencyGovernor governor = new AiConcurrencyGovernor(1, 10, 1000, meterRegistry);
+        Sinks.Many<String> tokens = Sinks.many().unicast().onBackpressureBuffer();
+
+        // Act
+        Disposable subscription = governor.stream(1L, tokens::asFlux).subscribe();
+        assertEquals(1, governor.getInFlight());
+        subscription.dispose();
+
+        // Assert
+        assertEquals(0, governor.getInFlight());
+    }
+
+    @Test
+    void stream_limitReached_waitsWithoutBlockingSubscriber() {
+        // Arrange
+        AiConcurrencyGovernor governor = new AiConcurrencyGovernor(1, 10, 1000, meterRegistry);
+        governor.acquire("holder");
+        List<String> received = new ArrayList<>();
+
+        // Act: subscribe returns at once, the call starts when the slot is handed over
+        governor.stream(1L, () -> Flux.just("## Sum")).subscribe(received::add);
+        assertEquals(1, governor.getQueueDepth());
+        assertTrue(received.isEmpty());
+        governor.release();
+
+        // Assert
+        assertEquals(List.of("## Sum"), received);
+        assertEquals(0, governor.getInFlight());
+    }
+
+    @Test
+    void stream_cancelledWhileQueued_leavesQueue() {
+        // Arrange
+        AiConcurrencyGovernor governor = new AiConcurrencyGovernor(1, 10, 1000, meterRegistry);
+        governor.acquire("holder");
+
+        // Act
+        Disposable subscription = governor.stream(1L, () -> Flux.just("## Sum")).subscribe();
+        assertEquals(1, governor.getQueueDepth());
+        subscription.dispose();
+
+        // Assert
+        assertEquals(0, governor.getQueueDepth());
+        governor.release();
+        assertEquals(0, governor.getInFlight());
+    }
+
+    @Test
+    void stream_waitTimesOut_failsWithCapacityExceeded() {
+        // Arrange
+        AiConcurrencyGovernor governor = new AiConcurrencyGovernor(1, 10, 50, meterRegistry);
+        governor.acquire("holder");
+
+        // Act & Assert
+        assertThrows(AiCapacityExceededException.class,
+                () -> governor.stream(1L, () -> Flux.just("## Sum")).blockLast(Duration.ofSeconds(5)));
+        assertEquals(0, governor.getQueueDepth());
+        assertEquals(1, governor.getInFlight());
+    }
+
+    private static void awaitQueueDepth(AiConcurrencyGovernor governor, int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (governor.getQueueDepth() < depth) {
+            if (System.nanoTime() > deadline) {
+                fail("Queue never reached depth " + depth);
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package tubes.pbo.be.shared.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import tubes.pbo.be.shared.exception.AiUnavailableException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class AiGatewayTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ChatClient chatClient;
+    private ExecutorService hedgeExecutor;
+    private AiGateway aiGateway;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        chatClient = mock(ChatClient.class, RETURNS_DEEP_STUBS);
+        hedgeExecutor = Executors.newCachedThreadPool();
+        aiGateway = new AiGateway(chatClient,
+                new AiConcurrencyGovernor(8, 50, 1000, meterRegistry),
+                new AiCircuitBreaker(3, 30000, meterRegistry),
+                meterRegistry,
+                hedgeExecutor);
+        ReflectionTestUtils.setField(aiGateway, "maxAttempts", 3);
+        ReflectionTestUtils.setField(aiGateway, "initialBackoffMs", 1L);
+        ReflectionTestUtils.setField(aiGateway, "maxBackoffMs", 2L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hedgeExecutor.shutdownNow();
+    }
+
+    // ===== call Tests =====
+
+    @Test
+    void call_providerAnswers_returnsContentAndRecordsSuccess() {
+        // Arrange
+        when(chatClient.prompt().user(anyString()).call().content()).thenReturn("# Summary");
+
+        // Act
+        String result = aiGateway.call(1L, "Summarize this");
+
+        // Assert
+        assertEquals("# Summary", result);
+        assertEquals(1, latencyCount("call", "success"));
+        assertEquals(0, meterRegistry.get("ai.gateway.retries").counter().count());
+    }
+
+    @Test
+    void call_transientErrorThenSuccess_retries() {
+        // Arrange
+        when(chatClient.prompt().user(anyString()).call().content())
+                .thenThrow(new TransientAiException("503 Service Unavailable"))
+                .thenThrow(new UncheckedIOException(new IOException("Connection reset")))
+                .thenReturn("# Summary");
+
+        // Act
+        String result = aiGateway.call(1L, "Summarize this");
+
+        // Assert
+        assertEquals("# Summary", result);
+        assertEquals(2, meterRegistry.get("ai.gateway.retries").counter().count());
+        assertEquals(1, latencyCount("call", "success"));
+    }
+
+    @Test
+    void call_nonTransientError_failsWithoutRetry() {
+        // Arrange
+        when(chatClient.prompt().user(anyString()).call().content())
+                .thenThrow(new NonTransientAiException("400 Bad Request"));
+
+        // Act & Assert
+        assertThrows(NonTransientAiException.class, () -> aiGateway.call(1L, "Summarize this"));
+        assertEquals(0, meterRegistry.get("ai.gateway.retries").counter().count());
+        assertEquals(1, latencyCount("call", "failure"));
+    }
+
+    @Test
+    void call_transientErrorEveryAttempt_throwsLastError() {
+        // Arrange
+        when(chatClient.prompt().user(anyString()).call().content())
+                .thenThrow(new TransientAiException("429 Too Many Requests"));
+
+        // Act & Assert
+        assertThrows(TransientAiException.class, () -> aiGateway.call(1L, "Summarize this"));
+        assertEquals(2, meterRegistry.get("ai.gateway.retries").counter().count());
+    }
+
+    @Test
+    void call_repeatedProviderFailures_opensCircuitAndFailsFast() {
+        // Arrange - three failed attempts reach the breaker threshold
+        when(chatClient.prompt().user(anyString()).call().content())
+                .thenThrow(new TransientAiException("503 Service Unavailable"));
+        assertThrows(TransientAiException.class, () -> aiGateway.call(1L, "Summarize this"));
+
+        // Act & Assert
+        assertThrows(AiUnavailableException.class, () -> aiGateway.call(1L, "Summarize this"));
+        assertEquals(1, latencyCount("call", "circuit_open"));
+    }
+
+    @Test
+    void call_hedgingEnabledAndPrimarySlow_returnsFirstAnswer() {
+        // Arrange - one quick call sets the p95, then the next call stalls until the hedge answers
+        ReflectionTestUtils.setField(aiGateway, "hedgingEnabled", true);
+        ReflectionTestUtils.setField(aiGateway, "hedgingMinSamples", 1L);
+        CountDownLatch releasePrimary = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        when(chatClient.prompt().user(anyString()).call().content()).thenAnswer(_ -> switch (calls.incrementAndGet()) {
+            case 1 -> "warm-up";
+            case 2 -> {
+                releasePrimary.await(5, TimeUnit.SECONDS);
+                yield "primary";
+            }
+            default -> "hedge";
+        });
+        aiGateway.call(1L, "Warm up");
+
+        // Act
+        String result = aiGateway.call(1L, "Summarize this");
+        releasePrimary.countDown();
+
+        // Assert
+        assertEquals("hedge", result);
+        assertEquals(1, meterRegistry.get("ai.gateway.hedges").counter().count());
+    }
+
+    // ===== stream Tests =====
+
+    @Test
+    void stream_failsBeforeFirstToken_retries() {
+        // Arrange
+        when(chatClient.prompt().user(anyString()).stream().content()).thenReturn(
+                Flux.error(new TransientAiException("503 Service Unavailable")),
+                Flux.just("## Sum", "mary"));
+
+        // Act
+        List<String> tokens = aiGateway.stream(1L, "Summarize this").collectList().block();
+
+        // Assert
+        assertEquals(List.of("## Sum", "mary"), tokens);
+        assertEquals(1, meterRegistry.get("ai.gateway.retries").counter().count());
+        assertEquals(1, latencyCount("stream", "success"));
+    }
+
+    @Test
+    void stream_failsAfterFirstToken_doesNotRepeatText() {
+        // Arrange
+        when(chatClient.prompt().user(anyString()).stream().content()).thenReturn(
+                Flux.concat(Flux.just("## Sum"), Flux.error(new TransientAiException("503 Service Unavailable"))));
+
+        // Act & Assert
+        assertThrows(TransientAiException.class, () -> aiGateway.stream(1L, "Summarize this").blockLast());
+        assertEquals(0, meterRegistry.get("ai.gateway.retries").counter().count());
+        assertEquals(1, latencyCount("stream", "failure"));
+    }
+
+    // ===== isRetryable Tests =====
+
+    @Test
+    void isRetryable_classifiesErrors() {
+        assertTrue(AiGateway.isRetryable(new TransientAiException("overloaded")));
+        assertTrue(AiGateway.isRetryable(new RuntimeException(new IOException("Connection reset"))));
+        assertFalse(AiGateway.isRetryable(new NonTransientAiException("invalid API key")));
+        assertFalse(AiGateway.isRetryable(new IllegalArgumentException("bad prompt")));
+    }
+
+    private long latencyCount(String operation, String outcome) {
+        return meterRegistry.get("ai.gateway.latency")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+}
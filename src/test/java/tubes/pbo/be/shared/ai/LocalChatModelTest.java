@@ -0,0 +1,111 @@
+package tubes.pbo.be.shared.ai;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.retry.TransientAiException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalChatModelTest {
+
+    private static final String SUMMARY_PROMPT = """
+            Please provide a comprehensive and structured summary of the following document.
+
+            Document text:
+            Encapsulation hides state behind methods. Inheritance reuses behaviour. Polymorphism picks the method at runtime.
+            """;
+
+    private static final String QUIZ_PROMPT = """
+            Generate exactly 5 multiple-choice questions based on the following document summary.
+            Difficulty level: MEDIUM
+
+            Document summary:
+            ## Summary
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void call_summaryPrompt_returnsSameMarkdownEveryTime() {
+        // Arrange
+        ChatClient chatClient = ChatClient.builder(new LocalChatModel(objectMapper, 0, 0, 0.0, Math::random)).build();
+
+        // Act
+        String first = chatClient.prompt().user(SUMMARY_PROMPT).call().content();
+        String second = chatClient.prompt().user(SUMMARY_PROMPT).call().content();
+
+        // Assert
+        assertEquals(first, second);
+        assertTrue(first.startsWith("## Summary"));
+        assertTrue(first.contains("- Encapsulation hides state behind methods."));
+        assertTrue(first.contains("- Polymorphism picks the method at runtime."));
+    }
+
+    @Test
+    void call_quizPrompt_returnsRequestedNumberOfWellFormedQuestions() throws Exception {
+        // Arrange
+        LocalChatModel model = new LocalChatModel(objectMapper, 0, 0, 0.0, Math::random);
+
+        // Act
+        List<Map<String, Object>> questions = objectMapper.readValue(
+                model.respond(QUIZ_PROMPT), new TypeReference<>() {});
+
+        // Assert
+        assertEquals(5, questions.size());
+        for (Map<String, Object> question : questions) {
+            assertTrue(question.keySet().containsAll(List.of("id", "question", "options", "correctAnswer", "explanation")));
+            List<?> options = (List<?>) question.get("options");
+            assertEquals(4, options.size());
+            assertTrue(options.contains(question.get("correctAnswer")));
+        }
+        assertEquals("q1", questions.getFirst().get("id"));
+    }
+
+    @Test
+    void stream_summaryPrompt_streamsSameTextAsCall() {
+        // Arrange
+        LocalChatModel model = new LocalChatModel(objectMapper, 0, 0, 0.0, Math::random);
+        ChatClient chatClient = ChatClient.builder(model).build();
+
+        // Act
+        String streamed = chatClient.prompt().user(SUMMARY_PROMPT).stream().content()
+                .collect(Collectors.joining())
+                .block();
+
+        // Assert
+        assertEquals(model.respond(SUMMARY_PROMPT), streamed);
+    }
+
+    @Test
+    void call_errorRateOne_failsWithTransientError() {
+        // Arrange
+        ChatClient chatClient = ChatClient.builder(new LocalChatModel(objectMapper, 0, 0, 1.0, Math::random)).build();
+
+        // Act & Assert
+        assertThrows(TransientAiException.class, () -> chatClient.prompt().user(SUMMARY_PROMPT).call().content());
+    }
+
+    @Test
+    void sampleLatencyMs_followsConfiguredMedianAndTail() {
+        // Arrange
+        LocalChatModel model = new LocalChatModel(objectMapper, 200, 1000, 0.0, Math::random);
+
+        // Act
+        long[] samples = new long[10_000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = model.sampleLatencyMs();
+        }
+        Arrays.sort(samples);
+
+        // Assert
+        assertEquals(200, samples[samples.length / 2], 30);
+        assertEquals(1000, samples[(int) (samples.length * 0.99)], 250);
+    }
+}
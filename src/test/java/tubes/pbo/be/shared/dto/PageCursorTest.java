@@ -0,0 +1,70 @@
+package tubes.pbo.be.shared.dto;
+
+import org.junit.jupiter.api.Test;
+import tubes.pbo.be.shared.exception.ValidationException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    @Test
+    void encodeThenDecode_roundTrips() {
+        // Arrange
+        PageCursor cursor = new PageCursor(LocalDateTime.of(2026, 1, 2, 10, 0, 0, 123_456_000), 42L);
+
+        // Act
+        PageCursor decoded = PageCursor.decode(cursor.encode());
+
+        // Assert
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void decode_nullOrBlank_returnsStart() {
+        assertSame(PageCursor.START, PageCursor.decode(null));
+        assertSame(PageCursor.START, PageCursor.decode(""));
+    }
+
+    @Test
+    void decode_tamperedCursor_throwsValidationException() {
+        assertThrows(ValidationException.class, () -> PageCursor.decode("not a cursor!"));
+        assertThrows(ValidationException.class, () -> PageCursor.decode("MjAyNg"));
+    }
+
+    @Test
+    void pageSize_clampedToAllowedRange() {
+        assertEquals(1, PageCursor.pageSize(0));
+        assertEquals(10, PageCursor.pageSize(10));
+        assertEquals(PageCursor.MAX_PAGE_SIZE, PageCursor.pageSize(10_000));
+    }
+
+    @Test
+    void cursorPage_extraRow_setsNextCursorFromLastReturnedRow() {
+        // Arrange
+        LocalDateTime now = LocalDateTime.of(2026, 1, 2, 10, 0);
+        List<PageCursor> rows = List.of(
+                new PageCursor(now, 3L), new PageCursor(now, 2L), new PageCursor(now.minusDays(1), 1L));
+
+        // Act
+        CursorPageResponse<Long> page = CursorPageResponse.of(rows, 2, row -> row, PageCursor::id);
+
+        // Assert
+        assertEquals(List.of(3L, 2L), page.getContent());
+        assertTrue(page.isHasNext());
+        assertEquals(new PageCursor(now, 2L), PageCursor.decode(page.getNextCursor()));
+    }
+
+    @Test
+    void cursorPage_noExtraRow_isLastPage() {
+        // Act
+        CursorPageResponse<Long> page = CursorPageResponse.of(
+                List.of(new PageCursor(LocalDateTime.now(), 1L)), 2, row -> row, PageCursor::id);
+
+        // Assert
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+    }
+}
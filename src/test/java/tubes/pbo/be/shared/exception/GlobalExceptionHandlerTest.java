@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -173,6 +174,58 @@ class GlobalExceptionHandlerTest {
         assertThat(response.getBody().getMessage()).isEqualTo("AI service error");
     }
 
+    @Test
+    void handleAiCapacityExceeded_shouldReturn429WithRetryAfter() {
+        // Arrange
+        AiCapacityExceededException exception =
+                new AiCapacityExceededException("The AI service is busy. Please try again shortly.", 30);
+
+        // Act
+        ResponseEntity<ErrorResponse> response = exceptionHandler.handleAiCapacityExceeded(exception);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("30");
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getStatus()).isEqualTo(429);
+        assertThat(response.getBody().getError()).isEqualTo("Too Many Requests");
+        assertThat(response.getBody().getMessage()).isEqualTo("The AI service is busy. Please try again shortly.");
+    }
+
+    @Test
+    void handleTooManyRequests_shouldReturn429WithRetryAfter() {
+        // Arrange
+        TooManyRequestsException exception =
+                new TooManyRequestsException("Too many login attempts. Please try again later.", 42);
+
+        // Act
+        ResponseEntity<ErrorResponse> response = exceptionHandler.handleTooManyRequests(exception);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("42");
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getStatus()).isEqualTo(429);
+        assertThat(response.getBody().getMessage()).isEqualTo("Too many login attempts. Please try again later.");
+    }
+
+    @Test
+    void handleAiUnavailable_shouldReturn503WithRetryAfter() {
+        // Arrange
+        AiUnavailableException exception =
+                new AiUnavailableException("The AI service is temporarily unavailable. Please try again later.", 12);
+
+        // Act
+        ResponseEntity<ErrorResponse> response = exceptionHandler.handleAiUnavailable(exception);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("12");
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getStatus()).isEqualTo(503);
+        assertThat(response.getBody().getError()).isEqualTo("Service Unavailable");
+    }
+
     @Test
     void handleFileOperation_shouldReturn500() {
         // Arrange
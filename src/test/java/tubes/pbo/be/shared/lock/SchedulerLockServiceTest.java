@@ -0,0 +1,59 @@
+package tubes.pbo.be.shared.lock;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the lock queries against H2; a second service instance stands in for another node.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:schedulerlockdb",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class SchedulerLockServiceTest {
+
+    @Autowired
+    private SchedulerLockService schedulerLockService;
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @Test
+    void tryLock_heldByAnotherNode_isRefusedUntilUnlocked() {
+        // Arrange
+        SchedulerLockService otherNode = new SchedulerLockService(schedulerLockRepository);
+
+        // Act & Assert
+        assertTrue(schedulerLockService.tryLock("held", Duration.ofMinutes(5)));
+        assertFalse(otherNode.tryLock("held", Duration.ofMinutes(5)));
+
+        otherNode.unlock("held");
+        assertFalse(otherNode.tryLock("held", Duration.ofMinutes(5)));
+
+        schedulerLockService.unlock("held");
+        assertTrue(otherNode.tryLock("held", Duration.ofMinutes(5)));
+    }
+
+    @Test
+    void tryLock_expiredLock_canBeTakenOver() {
+        // Arrange
+        SchedulerLockService otherNode = new SchedulerLockService(schedulerLockRepository);
+        schedulerLockRepository.insert("expired", "dead-node", LocalDateTime.now().minusSeconds(1));
+
+        // Act & Assert
+        assertTrue(otherNode.tryLock("expired", Duration.ofMinutes(5)));
+        assertFalse(schedulerLockService.tryLock("expired", Duration.ofMinutes(5)));
+    }
+}
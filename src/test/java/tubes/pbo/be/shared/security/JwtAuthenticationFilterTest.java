@@ -1,5 +1,6 @@
 package tubes.pbo.be.shared.security;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,12 +11,23 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import tubes.pbo.be.auth.model.Session;
+import tubes.pbo.be.auth.repository.PasswordResetTokenRepository;
+import tubes.pbo.be.auth.repository.SessionRepository;
+import tubes.pbo.be.auth.repository.VerificationTokenRepository;
+import tubes.pbo.be.auth.service.AccessToken;
+import tubes.pbo.be.auth.service.AccessTokenService;
+import tubes.pbo.be.auth.service.RevocationList;
 import tubes.pbo.be.auth.service.TokenService;
+import tubes.pbo.be.shared.exception.UnauthorizedException;
 import tubes.pbo.be.user.model.User;
 import tubes.pbo.be.user.repository.UserRepository;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -30,6 +42,9 @@ class JwtAuthenticationFilterTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private AccessTokenService accessTokenService;
+
     @Mock
     private HttpServletRequest request;
 
@@ -39,11 +54,14 @@ class JwtAuthenticationFilterTest {
     @Mock
     private FilterChain filterChain;
 
+    private PrincipalCache principalCache;
+
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
     @BeforeEach
     void setUp() {
-        jwtAuthenticationFilter = new JwtAuthenticationFilter(tokenService, userRepository);
+        principalCache = new PrincipalCache(true, 60, 100, new SimpleMeterRegistry());
+        jwtAuthenticationFilter = new JwtAuthenticationFilter(tokenService, userRepository, principalCache, accessTokenService);
         SecurityContextHolder.clearContext();
     }
 
@@ -60,9 +78,10 @@ class JwtAuthenticationFilterTest {
         User user = new User();
         user.setId(userId);
         user.setEmail("test@example.com");
+        user.setRole(User.UserRole.USER);
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(tokenService.validateSessionToken(token)).thenReturn(userId);
+        when(tokenService.validateSession(token)).thenReturn(session(token, userId));
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
 
         // Act
@@ -70,7 +89,32 @@ class JwtAuthenticationFilterTest {
 
         // Assert
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
-        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).isEqualTo(user);
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal())
+            .isEqualTo(new AuthenticatedUser(userId, User.UserRole.USER));
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_withAdminToken_shouldGrantAdminRole() throws ServletException, IOException {
+        // Arrange
+        String token = "admin-token";
+        Long userId = 2L;
+        User user = new User();
+        user.setId(userId);
+        user.setEmail("admin@example.com");
+        user.setRole(User.UserRole.ADMIN);
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(tokenService.validateSession(token)).thenReturn(session(token, userId));
+        when(userRepository.findById(userId)).thenReturn(Optional.of(user));
+
+        // Act
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getAuthorities())
+            .extracting(GrantedAuthority::getAuthority)
+            .containsExactly("ROLE_ADMIN");
         verify(filterChain).doFilter(request, response);
     }
 
@@ -107,7 +151,7 @@ class JwtAuthenticationFilterTest {
         // Arrange
         String token = "invalid-token";
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(tokenService.validateSessionToken(token)).thenThrow(new RuntimeException("Invalid token"));
+        when(tokenService.validateSession(token)).thenThrow(new RuntimeException("Invalid token"));
 
         // Act
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -124,7 +168,7 @@ class JwtAuthenticationFilterTest {
         Long userId = 999L;
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(tokenService.validateSessionToken(token)).thenReturn(userId);
+        when(tokenService.validateSession(token)).thenReturn(session(token, userId));
         when(userRepository.findById(userId)).thenReturn(Optional.empty());
 
         // Act
@@ -151,7 +195,7 @@ class JwtAuthenticationFilterTest {
         SecurityContextHolder.getContext().setAuthentication(existingAuth);
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(tokenService.validateSessionToken(token)).thenReturn(userId);
+        when(tokenService.validateSession(token)).thenReturn(session(token, userId));
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
 
         // Act
@@ -194,7 +238,7 @@ class JwtAuthenticationFilterTest {
         // Arrange
         String token = "exception-token";
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(tokenService.validateSessionToken(token)).thenThrow(new RuntimeException("Service error"));
+        when(tokenService.validateSession(token)).thenThrow(new RuntimeException("Service error"));
 
         // Act
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -211,7 +255,7 @@ class JwtAuthenticationFilterTest {
         Long userId = 1L;
 
         when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
-        when(tokenService.validateSessionToken(token)).thenReturn(userId);
+        when(tokenService.validateSession(token)).thenReturn(session(token, userId));
         when(userRepository.findById(userId)).thenThrow(new RuntimeException("Database error"));
 
         // Act
@@ -221,4 +265,150 @@ class JwtAuthenticationFilterTest {
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
         verify(filterChain).doFilter(request, response);
     }
+
+    @Test
+    void doFilterInternal_withCachedToken_shouldNotQueryDatabase() throws ServletException, IOException {
+        // Arrange
+        String token = "valid-token";
+        User user = new User();
+        user.setId(1L);
+        user.setRole(User.UserRole.ADMIN);
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(tokenService.validateSession(token)).thenReturn(session(token, 1L));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        // Act
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        SecurityContextHolder.clearContext();
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal())
+            .isEqualTo(new AuthenticatedUser(1L, User.UserRole.ADMIN));
+        verify(tokenService, times(1)).validateSession(token);
+        verify(userRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void doFilterInternal_afterLogout_shouldRejectCachedTokenImmediately() throws ServletException, IOException {
+        // Arrange
+        SessionRepository sessionRepository = mock(SessionRepository.class);
+        TokenService realTokenService = new TokenService(sessionRepository, mock(VerificationTokenRepository.class),
+            mock(PasswordResetTokenRepository.class), principalCache, accessTokenService, mock(RevocationList.class));
+        JwtAuthenticationFilter filter =
+            new JwtAuthenticationFilter(realTokenService, userRepository, principalCache, accessTokenService);
+
+        String token = "valid-token";
+        User user = new User();
+        user.setId(1L);
+        user.setRole(User.UserRole.USER);
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(sessionRepository.findByToken(token))
+            .thenReturn(Optional.of(session(token, 1L)))
+            .thenReturn(Optional.empty());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        filter.doFilterInternal(request, response, filterChain);
+        SecurityContextHolder.clearContext();
+        filter.doFilterInternal(request, response, filterChain);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+        SecurityContextHolder.clearContext();
+
+        // Act
+        realTokenService.deleteSession(token);
+        filter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(sessionRepository).deleteByToken(token);
+        verify(sessionRepository, times(2)).findByToken(token);
+    }
+
+    @Test
+    void doFilterInternal_afterUserInvalidated_shouldReloadPrincipal() throws ServletException, IOException {
+        // Arrange
+        String token = "valid-token";
+        User user = new User();
+        user.setId(1L);
+        user.setRole(User.UserRole.ADMIN);
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(tokenService.validateSession(token))
+            .thenReturn(session(token, 1L))
+            .thenThrow(new UnauthorizedException("Invalid or expired session token"));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+        SecurityContextHolder.clearContext();
+
+        // Act
+        principalCache.invalidateUser(1L);
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(tokenService, times(2)).validateSession(token);
+    }
+
+    @Test
+    void doFilterInternal_withSignedAccessToken_shouldAuthenticateWithoutDatabase() throws ServletException, IOException {
+        // Arrange
+        String token = "header.payload.signature";
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(accessTokenService.isAccessToken(token)).thenReturn(true);
+        when(accessTokenService.verify(token)).thenReturn(Optional.of(
+            new AccessToken(1L, User.UserRole.ADMIN, 5L, Instant.now().plusSeconds(900))));
+
+        // Act
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal())
+            .isEqualTo(new AuthenticatedUser(1L, User.UserRole.ADMIN));
+        verifyNoInteractions(tokenService, userRepository);
+    }
+
+    @Test
+    void doFilterInternal_withRejectedAccessToken_shouldNotFallBackToSessionLookup() throws ServletException, IOException {
+        // Arrange
+        String token = "header.payload.forged";
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(accessTokenService.isAccessToken(token)).thenReturn(true);
+        when(accessTokenService.verify(token)).thenReturn(Optional.empty());
+
+        // Act
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verifyNoInteractions(tokenService, userRepository);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    @Test
+    void doFilterInternal_withSessionTokenWhileAccessTokensEnabled_shouldNotAuthenticate() throws ServletException, IOException {
+        // Arrange - the refresh token returned by login must not work as a bearer credential
+        String token = "refresh-token";
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(accessTokenService.isAccessToken(token)).thenReturn(false);
+        when(accessTokenService.isEnabled()).thenReturn(true);
+
+        // Act
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verifyNoInteractions(tokenService, userRepository);
+        verify(filterChain).doFilter(request, response);
+    }
+
+    private static Session session(String token, Long userId) {
+        Session session = new Session();
+        session.setToken(token);
+        session.setUserId(userId);
+        session.setExpiresAt(LocalDateTime.now().plusHours(24));
+        return session;
+    }
 }
@@ -0,0 +1,110 @@
+package tubes.pbo.be.shared.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import tubes.pbo.be.shared.exception.TooManyRequestsException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ThreadPoolTaskExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void encodeAndMatches_runOnPool() {
+        // Arrange
+        PooledPasswordEncoder encoder = encoder(new BCryptPasswordEncoder(4), 1, 1, Duration.ofSeconds(5));
+
+        // Act
+        String hash = encoder.encode("password123");
+
+        // Assert
+        assertTrue(encoder.matches("password123", hash));
+        assertFalse(encoder.matches("wrong-password", hash));
+        assertEquals(3, meterRegistry.get("auth.password_hash.latency").timer().count());
+    }
+
+    @Test
+    void matches_poolSaturated_rejectsWithoutHashing() throws InterruptedException {
+        // Arrange
+        PooledPasswordEncoder encoder = encoder(new BCryptPasswordEncoder(4), 1, 0, Duration.ofSeconds(5));
+        occupyPool();
+
+        // Act & Assert
+        TooManyRequestsException exception = assertThrows(TooManyRequestsException.class,
+                () -> encoder.matches("password123", "$2a$04$invalid"));
+        assertEquals(1, exception.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("auth.password_hash.rejected").tag("reason", "saturated").counter().count());
+    }
+
+    @Test
+    void encode_waitsLongerThanTimeout_rejects() throws InterruptedException {
+        // Arrange
+        PooledPasswordEncoder encoder = encoder(new BCryptPasswordEncoder(4), 1, 1, Duration.ofMillis(50));
+        occupyPool();
+
+        // Act & Assert
+        assertThrows(TooManyRequestsException.class, () -> encoder.encode("password123"));
+        assertEquals(1.0, meterRegistry.get("auth.password_hash.rejected").tag("reason", "timeout").counter().count());
+    }
+
+    @Test
+    void encode_delegateFails_propagatesException() {
+        // Arrange
+        PasswordEncoder failing = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                throw new IllegalArgumentException("Password too long");
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return false;
+            }
+        };
+        PooledPasswordEncoder encoder = encoder(failing, 1, 1, Duration.ofSeconds(5));
+
+        // Act & Assert
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> encoder.encode("password123"));
+        assertEquals("Password too long", exception.getMessage());
+    }
+
+    private PooledPasswordEncoder encoder(PasswordEncoder delegate, int poolSize, int queueCapacity, Duration timeout) {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.initialize();
+        return new PooledPasswordEncoder(delegate, executor, timeout, meterRegistry);
+    }
+
+    private void occupyPool() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,120 @@
+package tubes.pbo.be.shared.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import tubes.pbo.be.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrincipalCacheTest {
+
+    private static final AuthenticatedUser USER_1 = new AuthenticatedUser(1L, User.UserRole.USER);
+    private static final AuthenticatedUser USER_2 = new AuthenticatedUser(2L, User.UserRole.ADMIN);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PrincipalCache cache = new PrincipalCache(true, 60, 2, meterRegistry);
+
+    @Test
+    void get_afterPut_returnsPrincipalAndCountsHitsAndMisses() {
+        // Arrange
+        cache.put("token-1", USER_1, sessionExpiry(), cache.generation());
+
+        // Act
+        Optional<AuthenticatedUser> hit = cache.get("token-1");
+        Optional<AuthenticatedUser> miss = cache.get("token-2");
+
+        // Assert
+        assertEquals(Optional.of(USER_1), hit);
+        assertTrue(miss.isEmpty());
+        assertEquals(1.0, meterRegistry.get("auth.principal_cache.lookups").tag("result", "hit").counter().count());
+        assertEquals(1.0, meterRegistry.get("auth.principal_cache.lookups").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void get_sessionExpiresBeforeTtl_expiresWithSession() {
+        // Arrange
+        cache.put("token-1", USER_1, LocalDateTime.now().minusSeconds(1), cache.generation());
+
+        // Act & Assert
+        assertTrue(cache.get("token-1").isEmpty());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void put_overMaxSize_dropsLeastRecentlyUsed() {
+        // Arrange
+        cache.put("token-1", USER_1, sessionExpiry(), cache.generation());
+        cache.put("token-2", USER_2, sessionExpiry(), cache.generation());
+        cache.get("token-1");
+
+        // Act
+        cache.put("token-3", USER_2, sessionExpiry(), cache.generation());
+
+        // Assert
+        assertEquals(2, cache.size());
+        assertTrue(cache.get("token-1").isPresent());
+        assertTrue(cache.get("token-2").isEmpty());
+        assertTrue(cache.get("token-3").isPresent());
+    }
+
+    @Test
+    void put_invalidatedWhileLoading_isIgnored() {
+        // Arrange
+        long generation = cache.generation();
+        cache.invalidateToken("token-1");
+
+        // Act
+        cache.put("token-1", USER_1, sessionExpiry(), generation);
+
+        // Assert
+        assertTrue(cache.get("token-1").isEmpty());
+    }
+
+    @Test
+    void invalidateUser_removesEveryTokenOfThatUser() {
+        // Arrange
+        PrincipalCache large = new PrincipalCache(true, 60, 10, new SimpleMeterRegistry());
+        large.put("token-1", USER_1, sessionExpiry(), large.generation());
+        large.put("token-2", USER_1, sessionExpiry(), large.generation());
+        large.put("token-3", USER_2, sessionExpiry(), large.generation());
+
+        // Act
+        large.invalidateUser(1L);
+
+        // Assert
+        assertTrue(large.get("token-1").isEmpty());
+        assertTrue(large.get("token-2").isEmpty());
+        assertTrue(large.get("token-3").isPresent());
+    }
+
+    @Test
+    void invalidateUserExcept_keepsCurrentToken() {
+        // Arrange
+        cache.put("token-1", USER_1, sessionExpiry(), cache.generation());
+        cache.put("token-2", USER_1, sessionExpiry(), cache.generation());
+
+        // Act
+        cache.invalidateUserExcept(1L, "token-2");
+
+        // Assert
+        assertTrue(cache.get("token-1").isEmpty());
+        assertTrue(cache.get("token-2").isPresent());
+    }
+
+    @Test
+    void get_disabled_alwaysMisses() {
+        // Arrange
+        PrincipalCache disabled = new PrincipalCache(false, 60, 10, new SimpleMeterRegistry());
+        disabled.put("token-1", USER_1, sessionExpiry(), disabled.generation());
+
+        // Act & Assert
+        assertTrue(disabled.get("token-1").isEmpty());
+    }
+
+    private static LocalDateTime sessionExpiry() {
+        return LocalDateTime.now().plusHours(24);
+    }
+}
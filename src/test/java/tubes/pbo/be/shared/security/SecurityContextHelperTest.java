@@ -37,8 +37,7 @@ class SecurityContextHelperTest {
     @Test
     void getCurrentUserId_withValidAuthentication_shouldReturnUserId() {
         // Arrange
-        User user = new User();
-        user.setId(123L);
+        AuthenticatedUser user = new AuthenticatedUser(123L, User.UserRole.USER);
         Authentication auth = new UsernamePasswordAuthenticationToken(user, null, null);
         SecurityContextHolder.getContext().setAuthentication(auth);
 
@@ -105,20 +104,30 @@ class SecurityContextHelperTest {
     @Test
     void getCurrentUser_withValidAuthentication_shouldReturnUser() {
         // Arrange
-        User user = new User();
-        user.setId(456L);
-        user.setEmail("test@example.com");
-        user.setName("Test User");
+        AuthenticatedUser user = new AuthenticatedUser(456L, User.UserRole.ADMIN);
         Authentication auth = new UsernamePasswordAuthenticationToken(user, null, null);
         SecurityContextHolder.getContext().setAuthentication(auth);
 
         // Act
-        User result = securityContextHelper.getCurrentUser();
+        AuthenticatedUser result = securityContextHelper.getCurrentUser();
 
         // Assert
         assertThat(result).isEqualTo(user);
-        assertThat(result.getId()).isEqualTo(456L);
-        assertThat(result.getEmail()).isEqualTo("test@example.com");
+        assertThat(result.id()).isEqualTo(456L);
+        assertThat(result.isAdmin()).isTrue();
+    }
+
+    @Test
+    void getCurrentUser_withUserEntityPrincipal_shouldThrowUnauthorizedException() {
+        // Arrange
+        User user = new User();
+        user.setId(456L);
+        Authentication auth = new UsernamePasswordAuthenticationToken(user, null, null);
+        SecurityContextHolder.getContext().setAuthentication(auth);
+
+        // Act & Assert
+        assertThatThrownBy(() -> securityContextHelper.getCurrentUser())
+            .isInstanceOf(UnauthorizedException.class);
     }
 
     @Test
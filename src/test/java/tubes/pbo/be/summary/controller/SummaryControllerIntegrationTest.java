@@ -16,12 +16,21 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tubes.pbo.be.shared.exception.FileOperationException;
 import tubes.pbo.be.shared.exception.ResourceNotFoundException;
 import tubes.pbo.be.shared.exception.ValidationException;
 import tubes.pbo.be.shared.security.SecurityContextHelper;
+import tubes.pbo.be.summary.dto.SummaryBatchItem;
+import tubes.pbo.be.summary.dto.SummaryBatchResponse;
+import tubes.pbo.be.summary.dto.SummaryJobResponse;
 import tubes.pbo.be.summary.dto.SummaryListItem;
 import tubes.pbo.be.summary.dto.SummaryResponse;
+import tubes.pbo.be.summary.service.SummaryBatchService;
+import tubes.pbo.be.summary.service.SummaryJobService;
 import tubes.pbo.be.summary.service.SummaryService;
+import tubes.pbo.be.summary.service.SummaryStreamService;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -53,11 +62,21 @@ class SummaryControllerIntegrationTest {
     @MockitoBean
     private SummaryService summaryService;
 
+    @MockitoBean
+    private SummaryJobService summaryJobService;
+
+    @MockitoBean
+    private SummaryBatchService summaryBatchService;
+
+    @MockitoBean
+    private SummaryStreamService summaryStreamService;
+
     @MockitoBean
     private SecurityContextHelper securityContextHelper;
 
     private Long testUserId;
     private SummaryResponse summaryResponse;
+    private SummaryJobResponse queuedJob;
     private List<SummaryListItem> summaryListItems;
     private MockMultipartFile validPdfFile;
 
@@ -74,6 +93,14 @@ class SummaryControllerIntegrationTest {
         summaryResponse.setAiModel("gemini-1.5-pro");
         summaryResponse.setCreatedAt(LocalDateTime.now());
 
+        // Setup queued job
+        queuedJob = new SummaryJobResponse();
+        queuedJob.setId(5L);
+        queuedJob.setStatus("queued");
+        queuedJob.setOriginalFilename("test-document.pdf");
+        queuedJob.setCreatedAt(LocalDateTime.now());
+        queuedJob.setUpdatedAt(LocalDateTime.now());
+
         // Setup list items
         SummaryListItem item1 = new SummaryListItem();
         item1.setId(1L);
@@ -105,25 +132,25 @@ class SummaryControllerIntegrationTest {
 
     @Test
     @WithMockUser
-    void generateSummary_validPdf_returns201() throws Exception {
+    void generateSummary_validPdf_returns202() throws Exception {
         // Arrange
-        when(summaryService.createSummary(anyLong(), any())).thenReturn(summaryResponse);
+        when(summaryJobService.submitJob(anyLong(), any())).thenReturn(queuedJob);
 
         // Act & Assert
         mockMvc.perform(multipart("/api/summaries")
                         .file(validPdfFile)
                         .contentType(MediaType.MULTIPART_FORM_DATA))
-                .andExpect(status().isCreated())
-                .andExpect(jsonPath("$.message").value("Summary generated successfully"))
-                .andExpect(jsonPath("$.data.id").value(1))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/summaries/jobs/5"))
+                .andExpect(jsonPath("$.message").value("Summary generation queued"))
+                .andExpect(jsonPath("$.data.id").value(5))
+                .andExpect(jsonPath("$.data.status").value("queued"))
                 .andExpect(jsonPath("$.data.originalFilename").value("test-document.pdf"))
-                .andExpect(jsonPath("$.data.summaryText").value("## Summary\n\nThis is a test summary."))
-                .andExpect(jsonPath("$.data.aiProvider").value("gemini"))
-                .andExpect(jsonPath("$.data.aiModel").value("gemini-1.5-pro"))
+                .andExpect(jsonPath("$.data.summaryId").doesNotExist())
                 .andExpect(jsonPath("$.data.createdAt").exists());
 
         verify(securityContextHelper).getCurrentUserId();
-        verify(summaryService).createSummary(eq(testUserId), any());
+        verify(summaryJobService).submitJob(eq(testUserId), any());
     }
 
     @Test
@@ -134,14 +161,13 @@ class SummaryControllerIntegrationTest {
                         .contentType(MediaType.MULTIPART_FORM_DATA))
                 .andExpect(status().isForbidden()); // 403 for anonymous users
 
-        verify(summaryService, never()).createSummary(anyLong(), any());
+        verify(summaryJobService, never()).submitJob(anyLong(), any());
     }
 
     private static Stream<String> invalidSummaryErrors() {
         return Stream.of(
                 "File is required",
-                "Only PDF files are allowed",
-                "Invalid or corrupted PDF file"
+                "Only PDF files are allowed"
         );
     }
 
@@ -150,7 +176,7 @@ class SummaryControllerIntegrationTest {
     @WithMockUser
     void generateSummary_invalidInput_returns400(String errorMessage) throws Exception {
         // Arrange
-        when(summaryService.createSummary(anyLong(), any()))
+        when(summaryJobService.submitJob(anyLong(), any()))
                 .thenThrow(new ValidationException(errorMessage));
 
         // Act & Assert
@@ -161,15 +187,15 @@ class SummaryControllerIntegrationTest {
                 .andExpect(jsonPath("$.error").value("Bad Request"))
                 .andExpect(jsonPath("$.message").value(errorMessage));
 
-        verify(summaryService).createSummary(eq(testUserId), any());
+        verify(summaryJobService).submitJob(eq(testUserId), any());
     }
 
     @Test
     @WithMockUser
-    void generateSummary_aiServiceFails_returns500() throws Exception {
+    void generateSummary_fileStorageFails_returns500() throws Exception {
         // Arrange
-        when(summaryService.createSummary(anyLong(), any()))
-                .thenThrow(new RuntimeException("Failed to generate summary. Please try again later."));
+        when(summaryJobService.submitJob(anyLong(), any()))
+                .thenThrow(new FileOperationException("Failed to save file. Please try again."));
 
         // Act & Assert
         mockMvc.perform(multipart("/api/summaries")
@@ -178,7 +204,7 @@ class SummaryControllerIntegrationTest {
                 .andExpect(status().isInternalServerError())
                 .andExpect(jsonPath("$.error").value("Internal Server Error"));
 
-        verify(summaryService).createSummary(eq(testUserId), any());
+        verify(summaryJobService).submitJob(eq(testUserId), any());
     }
 
     @Test
@@ -189,7 +215,154 @@ class SummaryControllerIntegrationTest {
                         .contentType(MediaType.MULTIPART_FORM_DATA))
                 .andExpect(status().isInternalServerError());
 
-        verify(summaryService, never()).createSummary(anyLong(), any());
+        verify(summaryJobService, never()).submitJob(anyLong(), any());
+    }
+
+    // ===== streamSummary Tests =====
+
+    @Test
+    @WithMockUser
+    void streamSummary_validPdf_streamsEvents() throws Exception {
+        // Arrange
+        SseEmitter emitter = new SseEmitter();
+        emitter.send(SseEmitter.event().name("token").data("## Summary"));
+        emitter.send(SseEmitter.event().name("done").data(summaryResponse));
+        emitter.complete();
+        when(summaryStreamService.streamSummary(anyLong(), any())).thenReturn(emitter);
+
+        // Act
+        MvcResult result = mockMvc.perform(multipart("/api/summaries/stream")
+                        .file(validPdfFile)
+                        .contentType(MediaType.MULTIPART_FORM_DATA))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(content().string(containsString("event:token")))
+                .andExpect(content().string(containsString("event:done")));
+
+        verify(summaryStreamService).streamSummary(eq(testUserId), any());
+    }
+
+    @Test
+    @WithMockUser
+    void streamSummary_invalidPdf_returns400() throws Exception {
+        // Arrange
+        when(summaryStreamService.streamSummary(anyLong(), any()))
+                .thenThrow(new ValidationException("Only PDF files are allowed"));
+
+        // Act & Assert
+        mockMvc.perform(multipart("/api/summaries/stream")
+                        .file(validPdfFile)
+                        .contentType(MediaType.MULTIPART_FORM_DATA))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Only PDF files are allowed"));
+    }
+
+    @Test
+    void streamSummary_noAuth_returns403() throws Exception {
+        // Act & Assert
+        mockMvc.perform(multipart("/api/summaries/stream")
+                        .file(validPdfFile)
+                        .contentType(MediaType.MULTIPART_FORM_DATA))
+                .andExpect(status().isForbidden());
+
+        verify(summaryStreamService, never()).streamSummary(anyLong(), any());
+    }
+
+    // ===== generateSummaries (batch) Tests =====
+
+    @Test
+    @WithMockUser
+    void generateSummaries_mixedResults_returns200WithResultPerFile() throws Exception {
+        // Arrange
+        SummaryBatchResponse batch = new SummaryBatchResponse(1, 1, List.of(
+                new SummaryBatchItem(0, "a.pdf", "created", 7L, null),
+                new SummaryBatchItem(1, "b.pdf", "failed", null, "Invalid or corrupted PDF file")));
+        when(summaryBatchService.createSummaries(anyLong(), any())).thenReturn(batch);
+
+        // Act & Assert
+        mockMvc.perform(multipart("/api/summaries/batch")
+                        .file(new MockMultipartFile("files", "a.pdf", "application/pdf", "PDF a".getBytes()))
+                        .file(new MockMultipartFile("files", "b.pdf", "application/pdf", "PDF b".getBytes()))
+                        .contentType(MediaType.MULTIPART_FORM_DATA))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Created 1 of 2 summaries"))
+                .andExpect(jsonPath("$.data.created").value(1))
+                .andExpect(jsonPath("$.data.failed").value(1))
+                .andExpect(jsonPath("$.data.results[0].summaryId").value(7))
+                .andExpect(jsonPath("$.data.results[0].errorMessage").doesNotExist())
+                .andExpect(jsonPath("$.data.results[1].status").value("failed"))
+                .andExpect(jsonPath("$.data.results[1].errorMessage").value("Invalid or corrupted PDF file"));
+
+        verify(summaryBatchService).createSummaries(eq(testUserId), argThat(files -> files.size() == 2));
+    }
+
+    @Test
+    @WithMockUser
+    void generateSummaries_invalidFile_returns400() throws Exception {
+        // Arrange
+        when(summaryBatchService.createSummaries(anyLong(), any()))
+                .thenThrow(new ValidationException("Invalid files: notes.txt (Only PDF files are allowed)"));
+
+        // Act & Assert
+        mockMvc.perform(multipart("/api/summaries/batch")
+                        .file(new MockMultipartFile("files", "notes.txt", "text/plain", "text".getBytes()))
+                        .contentType(MediaType.MULTIPART_FORM_DATA))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid files: notes.txt (Only PDF files are allowed)"));
+    }
+
+    // ===== getJobStatus Tests =====
+
+    @Test
+    @WithMockUser
+    void getJobStatus_doneJob_returnsSummaryId() throws Exception {
+        // Arrange
+        queuedJob.setStatus("done");
+        queuedJob.setSummaryId(1L);
+        when(summaryJobService.getJobStatus(testUserId, 5L)).thenReturn(queuedJob);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/summaries/jobs/5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Summary job retrieved successfully"))
+                .andExpect(jsonPath("$.data.status").value("done"))
+                .andExpect(jsonPath("$.data.summaryId").value(1));
+
+        verify(summaryJobService).getJobStatus(testUserId, 5L);
+    }
+
+    @Test
+    @WithMockUser
+    void getJobStatus_failedJob_returnsErrorMessage() throws Exception {
+        // Arrange
+        queuedJob.setStatus("failed");
+        queuedJob.setErrorMessage("Invalid or corrupted PDF file");
+        when(summaryJobService.getJobStatus(testUserId, 5L)).thenReturn(queuedJob);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/summaries/jobs/5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("failed"))
+                .andExpect(jsonPath("$.data.errorMessage").value("Invalid or corrupted PDF file"))
+                .andExpect(jsonPath("$.data.summaryId").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser
+    void getJobStatus_notFound_returns404() throws Exception {
+        // Arrange
+        when(summaryJobService.getJobStatus(testUserId, 999L))
+                .thenThrow(new ResourceNotFoundException("Summary job", "id", 999L));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/summaries/jobs/999"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Not Found"));
     }
 
     // ===== listSummaries Tests =====
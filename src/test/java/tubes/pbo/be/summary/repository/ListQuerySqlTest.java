@@ -0,0 +1,190 @@
+package tubes.pbo.be.summary.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+import tubes.pbo.be.quiz.model.Quiz;
+import tubes.pbo.be.quiz.repository.QuizRepository;
+import tubes.pbo.be.quiz.repository.QuizRepository.QuizListView;
+import tubes.pbo.be.shared.dto.PageCursor;
+import tubes.pbo.be.summary.model.Summary;
+import tubes.pbo.be.summary.repository.SummaryRepository.SummaryActivityView;
+import tubes.pbo.be.summary.repository.SummaryRepository.SummaryListView;
+import tubes.pbo.be.user.model.User;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the SQL behind list endpoints: none of them may read the summary_text column.
+ */
+@SpringBootTest
+@Transactional
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:listquerydb",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + "tubes.pbo.be.summary.repository.ListQuerySqlTest$SqlRecorder"
+})
+class ListQuerySqlTest {
+
+    private static final String SUMMARY_TEXT_COLUMN = "summary_text";
+
+    @Autowired
+    private SummaryRepository summaryRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private final Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdAt"));
+    private User user;
+    private Summary summary;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setEmail("lister@example.com");
+        user.setPassword("hashed");
+        user.setName("Lister");
+        entityManager.persist(user);
+
+        summary = new Summary();
+        summary.setUserId(user.getId());
+        summary.setOriginalFilename("lecture.pdf");
+        summary.setFilePath("objects/ab/abc.pdf");
+        summary.setSummaryText("## Summary\n\n" + "Long text. ".repeat(1000));
+        summary.setAiProvider("gemini");
+        summary.setAiModel("gemini-2.0-flash");
+        entityManager.persist(summary);
+
+        Quiz quiz = new Quiz();
+        quiz.setUserId(user.getId());
+        quiz.setSummaryId(summary.getId());
+        quiz.setDifficulty(Quiz.Difficulty.EASY);
+        quiz.setNumberOfQuestions(5);
+        entityManager.persist(quiz);
+
+        entityManager.flush();
+        entityManager.clear();
+        SqlRecorder.STATEMENTS.clear();
+    }
+
+    @Test
+    void findListByUserId_doesNotSelectSummaryText() {
+        // Act
+        Page<SummaryListView> page = summaryRepository.findListByUserId(user.getId(), pageable);
+
+        // Assert
+        assertEquals(1, page.getTotalElements());
+        assertEquals("lecture.pdf", page.getContent().getFirst().getOriginalFilename());
+        assertNoSummaryText();
+    }
+
+    @Test
+    void findActivity_doesNotSelectSummaryText() {
+        // Act
+        Page<SummaryActivityView> page = summaryRepository.findActivity(PageRequest.of(0, 10));
+
+        // Assert
+        SummaryActivityView activity = page.getContent().getFirst();
+        assertEquals("Lister", activity.getUserName());
+        assertEquals("lecture.pdf", activity.getOriginalFilename());
+        assertNoSummaryText();
+    }
+
+    @Test
+    void findQuizList_doesNotSelectSummaryText() {
+        // Act
+        Page<QuizListView> all = quizRepository.findListByUserId(user.getId(), pageable);
+        Page<QuizListView> filtered = quizRepository.findListByUserIdAndSummaryId(user.getId(), summary.getId(), pageable);
+
+        // Assert
+        assertEquals("lecture.pdf", all.getContent().getFirst().getOriginalFilename());
+        assertEquals(Quiz.Difficulty.EASY, all.getContent().getFirst().getDifficulty());
+        assertEquals(1, filtered.getTotalElements());
+        assertNoSummaryText();
+    }
+
+    @Test
+    void findListByUserIdAfter_seeksPastCursorWithoutCounting() {
+        // Arrange
+        Summary second = persistSummary("second.pdf");
+        Summary third = persistSummary("third.pdf");
+        entityManager.flush();
+        entityManager.clear();
+        SqlRecorder.STATEMENTS.clear();
+        PageCursor start = PageCursor.START;
+
+        // Act
+        List<SummaryListView> first = summaryRepository.findListByUserIdAfter(
+                user.getId(), start.createdAt(), start.id(), PageRequest.ofSize(2));
+        SummaryListView last = first.getLast();
+        List<SummaryListView> next = summaryRepository.findListByUserIdAfter(
+                user.getId(), last.getCreatedAt(), last.getId(), PageRequest.ofSize(2));
+
+        // Assert
+        assertEquals(List.of(third.getId(), second.getId()), first.stream().map(SummaryListView::getId).toList());
+        assertEquals(List.of(summary.getId()), next.stream().map(SummaryListView::getId).toList());
+        assertNoSummaryText();
+        assertTrue(SqlRecorder.STATEMENTS.stream().noneMatch(sql -> sql.contains("count(")));
+    }
+
+    @Test
+    void findById_selectsSummaryText() {
+        // Act - loading the entity is the case the list queries avoid
+        summaryRepository.findById(summary.getId());
+
+        // Assert
+        assertTrue(SqlRecorder.STATEMENTS.stream().anyMatch(sql -> sql.contains(SUMMARY_TEXT_COLUMN)));
+    }
+
+    private Summary persistSummary(String filename) {
+        Summary other = new Summary();
+        other.setUserId(user.getId());
+        other.setOriginalFilename(filename);
+        other.setFilePath("objects/cd/" + filename);
+        other.setSummaryText("## Summary");
+        other.setAiProvider("gemini");
+        other.setAiModel("gemini-2.0-flash");
+        entityManager.persist(other);
+        return other;
+    }
+
+    private static void assertNoSummaryText() {
+        List<String> statements = List.copyOf(SqlRecorder.STATEMENTS);
+        assertFalse(statements.isEmpty());
+        for (String sql : statements) {
+            assertFalse(sql.contains(SUMMARY_TEXT_COLUMN), "Selected summary text: " + sql);
+        }
+    }
+
+    public static class SqlRecorder implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql.toLowerCase(Locale.ROOT));
+            return sql;
+        }
+    }
+}
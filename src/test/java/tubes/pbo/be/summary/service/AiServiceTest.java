@@ -1,5 +1,6 @@
 package tubes.pbo.be.summary.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -7,19 +8,32 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import tubes.pbo.be.shared.ai.AiCircuitBreaker;
+import tubes.pbo.be.shared.ai.AiConcurrencyGovernor;
+import tubes.pbo.be.shared.ai.AiGateway;
+import tubes.pbo.be.shared.exception.AiCapacityExceededException;
+import tubes.pbo.be.shared.exception.AiServiceException;
+import tubes.pbo.be.shared.exception.AiUnavailableException;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class AiServiceTest {
 
     @Mock
-    private ChatClient.Builder chatClientBuilder;
+    private AiGateway aiGateway;
 
     @InjectMocks
     private AiService aiService;
@@ -28,6 +42,8 @@ class AiServiceTest {
     void setUp() {
         // Set aiModel via reflection since it's @Value injected
         ReflectionTestUtils.setField(aiService, "aiModel", "gemini-1.5-pro");
+        ReflectionTestUtils.setField(aiService, "mapReduceThresholdTokens", 30000);
+        ReflectionTestUtils.setField(aiService, "chunkTokens", 8000);
     }
 
     // ===== getAiProvider Tests =====
@@ -73,70 +89,40 @@ class AiServiceTest {
         // Arrange
         String inputText = "This is a sample document text that needs to be summarized.";
         String expectedSummary = "# Summary\\n\\nThis is a concise summary of the document.";
-        
-        ChatClient mockChatClient = mock(ChatClient.class);
-        ChatClient.ChatClientRequestSpec mockRequestSpec = mock(ChatClient.ChatClientRequestSpec.class);
-        ChatClient.ChatClientRequestSpec mockUserSpec = mock(ChatClient.ChatClientRequestSpec.class);
-        ChatClient.CallResponseSpec mockCallSpec = mock(ChatClient.CallResponseSpec.class);
-        
-        when(chatClientBuilder.build()).thenReturn(mockChatClient);
-        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
-        when(mockRequestSpec.user(anyString())).thenReturn(mockUserSpec);
-        when(mockUserSpec.call()).thenReturn(mockCallSpec);
-        when(mockCallSpec.content()).thenReturn(expectedSummary);
+        when(aiGateway.call(eq(1L), anyString())).thenReturn(expectedSummary);
 
         // Act
-        String result = aiService.generateSummary(inputText);
+        String result = aiService.generateSummary(1L, inputText);
 
         // Assert
         assertNotNull(result);
         assertEquals(expectedSummary, result);
-        verify(chatClientBuilder).build();
-        verify(mockChatClient).prompt();
-        verify(mockRequestSpec).user(anyString());
-        verify(mockUserSpec).call();
-        verify(mockCallSpec).content();
+        verify(aiGateway).call(eq(1L), argThat(prompt -> prompt.contains(inputText)));
     }
 
     @Test
     void generateSummary_aiServiceThrowsException_throwsRuntimeException() {
         // Arrange
         String inputText = "Sample text";
-        
-        ChatClient mockChatClient = mock(ChatClient.class);
-        ChatClient.ChatClientRequestSpec mockRequestSpec = mock(ChatClient.ChatClientRequestSpec.class);
-        
-        when(chatClientBuilder.build()).thenReturn(mockChatClient);
-        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
-        when(mockRequestSpec.user(anyString())).thenThrow(new RuntimeException("AI service unavailable"));
+        when(aiGateway.call(eq(1L), anyString())).thenThrow(new RuntimeException("AI service unavailable"));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            aiService.generateSummary(inputText);
+            aiService.generateSummary(1L, inputText);
         });
         
         assertTrue(exception.getMessage().contains("Failed to generate summary"));
-        verify(chatClientBuilder).build();
+        verify(aiGateway).call(eq(1L), anyString());
     }
 
     @Test
     void generateSummary_emptyResponse_returnsEmptyString() {
         // Arrange
         String inputText = "Some text";
-        
-        ChatClient mockChatClient = mock(ChatClient.class);
-        ChatClient.ChatClientRequestSpec mockRequestSpec = mock(ChatClient.ChatClientRequestSpec.class);
-        ChatClient.ChatClientRequestSpec mockUserSpec = mock(ChatClient.ChatClientRequestSpec.class);
-        ChatClient.CallResponseSpec mockCallSpec = mock(ChatClient.CallResponseSpec.class);
-        
-        when(chatClientBuilder.build()).thenReturn(mockChatClient);
-        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
-        when(mockRequestSpec.user(anyString())).thenReturn(mockUserSpec);
-        when(mockUserSpec.call()).thenReturn(mockCallSpec);
-        when(mockCallSpec.content()).thenReturn("");
+        when(aiGateway.call(eq(1L), anyString())).thenReturn("");
 
         // Act
-        String result = aiService.generateSummary(inputText);
+        String result = aiService.generateSummary(1L, inputText);
 
         // Assert
         assertNotNull(result);
@@ -148,23 +134,236 @@ class AiServiceTest {
         // Arrange
         String longText = "A".repeat(10000); // 10k characters
         String expectedSummary = "Summary of long document";
-        
-        ChatClient mockChatClient = mock(ChatClient.class);
-        ChatClient.ChatClientRequestSpec mockRequestSpec = mock(ChatClient.ChatClientRequestSpec.class);
-        ChatClient.ChatClientRequestSpec mockUserSpec = mock(ChatClient.ChatClientRequestSpec.class);
-        ChatClient.CallResponseSpec mockCallSpec = mock(ChatClient.CallResponseSpec.class);
-        
-        when(chatClientBuilder.build()).thenReturn(mockChatClient);
-        when(mockChatClient.prompt()).thenReturn(mockRequestSpec);
-        when(mockRequestSpec.user(anyString())).thenReturn(mockUserSpec);
-        when(mockUserSpec.call()).thenReturn(mockCallSpec);
-        when(mockCallSpec.content()).thenReturn(expectedSummary);
+        when(aiGateway.call(eq(1L), anyString())).thenReturn(expectedSummary);
 
         // Act
-        String result = aiService.generateSummary(longText);
+        String result = aiService.generateSummary(1L, longText);
 
         // Assert
         assertNotNull(result);
         assertEquals(expectedSummary, result);
     }
+
+    @Test
+    void generateSummary_aiAtCapacity_propagatesCapacityException() {
+        // Arrange
+        when(aiGateway.call(eq(1L), anyString()))
+                .thenThrow(new AiCapacityExceededException("The AI service is busy. Please try again shortly.", 30));
+
+        // Act & Assert
+        AiCapacityExceededException exception = assertThrows(AiCapacityExceededException.class,
+                () -> aiService.generateSummary(1L, "Sample text"));
+        assertEquals(30, exception.getRetryAfterSeconds());
+    }
+
+    @Test
+    void generateSummary_circuitOpen_propagatesUnavailableException() {
+        // Arrange
+        when(aiGateway.call(eq(1L), anyString())).thenThrow(
+                new AiUnavailableException("The AI service is temporarily unavailable. Please try again later.", 20));
+
+        // Act & Assert
+        assertThrows(AiUnavailableException.class, () -> aiService.generateSummary(1L, "Sample text"));
+    }
+
+    // ===== Map-reduce Tests =====
+
+    @Test
+    void generateSummary_documentAboveThreshold_summarizesChunksThenMerges() {
+        // Arrange
+        FakeChatModel chatModel = new FakeChatModel(prompt ->
+                prompt.startsWith("The following is part") ? "- partial" : "# Merged summary");
+        AiService mapReduceService = createMapReduceService(chatModel, Executors.newFixedThreadPool(2));
+
+        // ~3000 tokens with a 1000 token budget per chunk
+        String document = ("Lecture paragraph about data structures. ".repeat(25) + "\n\n").repeat(12);
+
+        // Act
+        String result = mapReduceService.generateSummary(1L, document);
+
+        // Assert
+        assertEquals("# Merged summary", result);
+        List<String> prompts = chatModel.prompts();
+        long chunkPrompts = prompts.stream().filter(p -> p.startsWith("The following is part")).count();
+        assertTrue(chunkPrompts >= 3);
+        assertEquals(chunkPrompts + 1, prompts.size());
+        assertTrue(prompts.get(prompts.size() - 1).contains("combine them into a comprehensive and structured summary"));
+    }
+
+    @Test
+    void generateSummary_mapReduce_keepsPartialsInDocumentOrder() {
+        // Arrange - each chunk summary echoes the section marker it saw
+        FakeChatModel chatModel = new FakeChatModel(prompt -> {
+            if (prompt.startsWith("The following is part")) {
+                int marker = prompt.indexOf("SECTION-");
+                return prompt.substring(marker, marker + 10);
+            }
+            return prompt;
+        });
+        AiService mapReduceService = createMapReduceService(chatModel, Executors.newFixedThreadPool(4));
+
+        StringBuilder document = new StringBuilder();
+        for (int i = 10; i < 20; i++) {
+            document.append("SECTION-").append(i).append(" ").append("content ".repeat(450)).append("\n\n");
+        }
+
+        // Act
+        String reducePrompt = mapReduceService.generateSummary(1L, document.toString());
+
+        // Assert
+        for (int i = 10; i < 19; i++) {
+            assertTrue(reducePrompt.indexOf("SECTION-" + i) < reducePrompt.indexOf("SECTION-" + (i + 1)));
+        }
+    }
+
+    @Test
+    void generateSummary_mapReduce_respectsParallelismBound() {
+        // Arrange
+        FakeChatModel chatModel = new FakeChatModel(_ -> "- partial");
+        AiService mapReduceService = createMapReduceService(chatModel, Executors.newFixedThreadPool(2));
+
+        // Act
+        mapReduceService.generateSummary(1L, "word ".repeat(20000));
+
+        // Assert
+        assertTrue(chatModel.maxInFlight() <= 2);
+    }
+
+    @Test
+    void generateSummary_chunkFails_throwsAiServiceException() {
+        // Arrange
+        FakeChatModel chatModel = new FakeChatModel(prompt -> {
+            if (prompt.contains("part 2 of")) {
+                throw new IllegalStateException("quota exceeded");
+            }
+            return "- partial";
+        });
+        AiService mapReduceService = createMapReduceService(chatModel, Executors.newFixedThreadPool(2));
+
+        // Act & Assert
+        AiServiceException exception = assertThrows(AiServiceException.class,
+                () -> mapReduceService.generateSummary(1L, "word ".repeat(20000)));
+        assertEquals("Failed to generate summary. Please try again later.", exception.getMessage());
+    }
+
+    @Test
+    void generateSummary_chunkFails_interruptsRunningAndDropsQueuedChunks() throws Exception {
+        // Arrange - part 1 fails while part 2 is still running and the rest wait in the queue
+        CountDownLatch part2Running = new CountDownLatch(1);
+        CountDownLatch part2Interrupted = new CountDownLatch(1);
+        FakeChatModel chatModel = new FakeChatModel(prompt -> {
+            if (prompt.contains("part 2 of")) {
+                part2Running.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException _) {
+                    part2Interrupted.countDown();
+                }
+                return "- partial";
+            }
+            if (prompt.contains("part 1 of")) {
+                try {
+                    part2Running.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException _) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalStateException("quota exceeded");
+            }
+            return "- partial";
+        });
+        AiService mapReduceService = createMapReduceService(chatModel, Executors.newFixedThreadPool(2));
+
+        // Act
+        assertThrows(AiServiceException.class, () -> mapReduceService.generateSummary(1L, "word ".repeat(20000)));
+
+        // Assert
+        // The thread freed by part 1 may pick up one more part before the rest are cancelled
+        assertTrue(part2Interrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(chatModel.prompts().size() <= 3);
+    }
+
+    @Test
+    void generateSummary_mapReduce_respectsGovernorLimit() {
+        // Arrange - the governor allows fewer calls than the map executor has threads
+        FakeChatModel chatModel = new FakeChatModel(_ -> "- partial");
+        AiService mapReduceService = createMapReduceService(chatModel,
+                new AiConcurrencyGovernor(1, 50, 5000, new SimpleMeterRegistry()), Executors.newFixedThreadPool(4));
+
+        // Act
+        mapReduceService.generateSummary(1L, "word ".repeat(20000));
+
+        // Assert
+        assertEquals(1, chatModel.maxInFlight());
+    }
+
+    // ===== streamSummary Tests =====
+
+    @Test
+    void streamSummary_shortDocument_streamsTokensInOrder() {
+        // Arrange
+        FakeChatModel chatModel = new FakeChatModel(_ -> "# Summary of the document");
+        AiService streamingService = createMapReduceService(chatModel, Executors.newFixedThreadPool(2));
+
+        // Act
+        List<String> tokens = streamingService.streamSummary(1L, "Short lecture notes.").collectList().block();
+
+        // Assert
+        assertNotNull(tokens);
+        assertTrue(tokens.size() > 1);
+        assertEquals("# Summary of the document", String.join("", tokens));
+        assertEquals(1, chatModel.prompts().size());
+    }
+
+    @Test
+    void streamSummary_longDocument_streamsOnlyTheMergePass() {
+        // Arrange
+        FakeChatModel chatModel = new FakeChatModel(prompt ->
+                prompt.startsWith("The following is part") ? "- partial" : "# Merged summary");
+        AiService streamingService = createMapReduceService(chatModel, Executors.newFixedThreadPool(2));
+
+        // Act
+        String result = String.join("", streamingService.streamSummary(1L, "word ".repeat(20000)).collectList().block());
+
+        // Assert
+        assertEquals("# Merged summary", result);
+        assertTrue(chatModel.prompts().get(chatModel.prompts().size() - 1).contains("combine them"));
+    }
+
+    @Test
+    void streamSummary_circuitOpen_emitsUnavailableException() {
+        // Arrange
+        when(aiGateway.stream(eq(1L), anyString())).thenReturn(Flux.error(
+                new AiUnavailableException("The AI service is temporarily unavailable. Please try again later.", 20)));
+
+        // Act & Assert
+        assertThrows(AiUnavailableException.class, () -> aiService.streamSummary(1L, "Short notes.").blockLast());
+    }
+
+    @Test
+    void streamSummary_modelFails_emitsAiServiceException() {
+        // Arrange
+        FakeChatModel chatModel = new FakeChatModel(_ -> {
+            throw new IllegalStateException("quota exceeded");
+        });
+        AiService streamingService = createMapReduceService(chatModel, Executors.newFixedThreadPool(2));
+
+        // Act & Assert
+        assertThrows(AiServiceException.class, () -> streamingService.streamSummary(1L, "Short notes.").blockLast());
+    }
+
+    private AiService createMapReduceService(FakeChatModel chatModel, ExecutorService executor) {
+        return createMapReduceService(chatModel, new AiConcurrencyGovernor(8, 50, 1000, new SimpleMeterRegistry()), executor);
+    }
+
+    private AiService createMapReduceService(FakeChatModel chatModel, AiConcurrencyGovernor governor,
+                                             ExecutorService executor) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AiGateway gateway = new AiGateway(ChatClient.builder(chatModel).build(), governor,
+                new AiCircuitBreaker(5, 30000, meterRegistry), meterRegistry, Runnable::run);
+        AiService service = new AiService(gateway, new TaskExecutorAdapter(executor));
+        ReflectionTestUtils.setField(service, "aiModel", "gemini-1.5-pro");
+        ReflectionTestUtils.setField(service, "mapReduceThresholdTokens", 2000);
+        ReflectionTestUtils.setField(service, "chunkTokens", 1000);
+        return service;
+    }
 }
@@ -0,0 +1,77 @@
+package tubes.pbo.be.summary.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExtractedDocumentTest {
+
+    private static final String TEXT = "Page one\nPage two\nPage three";
+    private static final int[] OFFSETS = {0, 9, 18};
+
+    @Test
+    void pageText_returnsTextBetweenOffsets() {
+        // Arrange
+        ExtractedDocument document = ExtractedDocument.of(TEXT, OFFSETS);
+
+        // Act & Assert
+        assertEquals(3, document.pageCount());
+        assertEquals("Page one", document.pageText(1));
+        assertEquals("Page two", document.pageText(2));
+        assertEquals("Page three", document.pageText(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> document.pageText(4));
+    }
+
+    @Test
+    void compressed_inflatesOnFirstRead() {
+        // Arrange
+        ExtractedDocument document = ExtractedDocument.compressed(TextCompression.deflate(TEXT), OFFSETS, 3, false, false);
+
+        // Act & Assert
+        assertEquals(3, document.pageCount());
+        assertEquals(TEXT, document.text());
+        assertEquals("Page two", document.pageText(2));
+    }
+
+    @Test
+    void of_withoutLimits_isNotTruncated() {
+        // Act
+        ExtractedDocument document = ExtractedDocument.of(TEXT, OFFSETS);
+
+        // Assert
+        assertEquals(3, document.totalPageCount());
+        assertFalse(document.isTruncated());
+    }
+
+    @Test
+    void of_pageLimitReached_isTruncated() {
+        // Act
+        ExtractedDocument document = ExtractedDocument.of(TEXT, OFFSETS, 10, true, false);
+
+        // Assert
+        assertEquals(3, document.pageCount());
+        assertEquals(10, document.totalPageCount());
+        assertTrue(document.pageLimitReached());
+        assertFalse(document.charLimitReached());
+        assertTrue(document.isTruncated());
+    }
+
+    @Test
+    void pageOffsets_returnsCopy() {
+        // Arrange
+        ExtractedDocument document = ExtractedDocument.of(TEXT, OFFSETS);
+
+        // Act
+        document.pageOffsets()[1] = 100;
+
+        // Assert
+        assertArrayEquals(OFFSETS, document.pageOffsets());
+    }
+
+    @Test
+    void encodeThenDecodeOffsets_roundTrips() {
+        assertEquals("0,9,18", ExtractedDocument.encodeOffsets(OFFSETS));
+        assertArrayEquals(OFFSETS, ExtractedDocument.decodeOffsets("0,9,18"));
+        assertArrayEquals(new int[0], ExtractedDocument.decodeOffsets(""));
+    }
+}
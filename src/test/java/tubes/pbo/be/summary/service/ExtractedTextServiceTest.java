@@ -0,0 +1,129 @@
+package tubes.pbo.be.summary.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import tubes.pbo.be.summary.model.ExtractedText;
+import tubes.pbo.be.summary.repository.ExtractedTextRepository;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExtractedTextServiceTest {
+
+    private static final String CONTENT_HASH = "abc123";
+    private static final Path PDF_PATH = Path.of("/uploads/objects/ab/abc123.pdf");
+
+    @Mock
+    private ExtractedTextRepository extractedTextRepository;
+
+    @Mock
+    private PdfProcessingService pdfProcessingService;
+
+    @InjectMocks
+    private ExtractedTextService extractedTextService;
+
+    @Test
+    void getOrExtract_firstTime_extractsAndStoresCompressed() {
+        // Arrange
+        when(extractedTextRepository.findByContentHash(CONTENT_HASH)).thenReturn(Optional.empty());
+        when(pdfProcessingService.extractDocument(PDF_PATH))
+                .thenReturn(ExtractedDocument.of("Page one\nPage two", new int[] {0, 9}));
+
+        // Act
+        ExtractedDocument document = extractedTextService.getOrExtract(CONTENT_HASH, PDF_PATH);
+
+        // Assert
+        assertEquals("Page one\nPage two", document.text());
+        ArgumentCaptor<ExtractedText> captor = ArgumentCaptor.forClass(ExtractedText.class);
+        verify(extractedTextRepository).save(captor.capture());
+        ExtractedText stored = captor.getValue();
+        assertEquals(CONTENT_HASH, stored.getContentHash());
+        assertEquals("Page one\nPage two", TextCompression.inflate(stored.getCompressedText()));
+        assertEquals("0,9", stored.getPageOffsets());
+        assertEquals(2, stored.getPageCount());
+        assertEquals(17, stored.getTextLength());
+        assertEquals(2, stored.getTotalPageCount());
+        assertFalse(stored.getPageLimitReached());
+        assertFalse(stored.getCharLimitReached());
+    }
+
+    @Test
+    void getOrExtract_alreadyStored_skipsPdfParsing() {
+        // Arrange
+        ExtractedText stored = new ExtractedText();
+        stored.setContentHash(CONTENT_HASH);
+        stored.setCompressedText(TextCompression.deflate("Page one\nPage two"));
+        stored.setPageOffsets("0,9");
+        when(extractedTextRepository.findByContentHash(CONTENT_HASH)).thenReturn(Optional.of(stored));
+
+        // Act
+        ExtractedDocument document = extractedTextService.getOrExtract(CONTENT_HASH, PDF_PATH);
+
+        // Assert
+        assertEquals("Page two", document.pageText(2));
+        assertEquals(2, document.totalPageCount());
+        assertFalse(document.isTruncated());
+        verifyNoInteractions(pdfProcessingService);
+        verify(extractedTextRepository, never()).save(any());
+    }
+
+    @Test
+    void getOrExtract_truncatedDocument_storesAndRestoresLimits() {
+        // Arrange
+        when(extractedTextRepository.findByContentHash(CONTENT_HASH)).thenReturn(Optional.empty());
+        when(pdfProcessingService.extractDocument(PDF_PATH))
+                .thenReturn(ExtractedDocument.of("Page one\nPage two", new int[] {0, 9}, 40, true, false));
+        extractedTextService.getOrExtract(CONTENT_HASH, PDF_PATH);
+        ArgumentCaptor<ExtractedText> captor = ArgumentCaptor.forClass(ExtractedText.class);
+        verify(extractedTextRepository).save(captor.capture());
+        when(extractedTextRepository.findByContentHash(CONTENT_HASH)).thenReturn(Optional.of(captor.getValue()));
+
+        // Act
+        ExtractedDocument restored = extractedTextService.find(CONTENT_HASH).orElseThrow();
+
+        // Assert
+        assertEquals(2, restored.pageCount());
+        assertEquals(40, restored.totalPageCount());
+        assertTrue(restored.pageLimitReached());
+        assertFalse(restored.charLimitReached());
+    }
+
+    @Test
+    void getOrExtract_noContentHash_extractsWithoutStoring() {
+        // Arrange
+        when(pdfProcessingService.extractDocument(PDF_PATH))
+                .thenReturn(ExtractedDocument.of("Legacy upload", new int[] {0}));
+
+        // Act
+        ExtractedDocument document = extractedTextService.getOrExtract(null, PDF_PATH);
+
+        // Assert
+        assertEquals("Legacy upload", document.text());
+        verifyNoInteractions(extractedTextRepository);
+    }
+
+    @Test
+    void getOrExtract_storedConcurrently_returnsExtractedText() {
+        // Arrange
+        when(extractedTextRepository.findByContentHash(CONTENT_HASH)).thenReturn(Optional.empty());
+        when(pdfProcessingService.extractDocument(PDF_PATH))
+                .thenReturn(ExtractedDocument.of("Extracted text", new int[] {0}));
+        when(extractedTextRepository.save(any())).thenThrow(new DataIntegrityViolationException("Duplicate entry"));
+
+        // Act
+        ExtractedDocument document = extractedTextService.getOrExtract(CONTENT_HASH, PDF_PATH);
+
+        // Assert
+        assertEquals("Extracted text", document.text());
+    }
+}
@@ -0,0 +1,67 @@
+package tubes.pbo.be.summary.service;
+
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-process chat model for tests. Wrap it with {@code ChatClient.builder(fakeChatModel)}
+ * to exercise the real ChatClient call chain without a network call.
+ */
+class FakeChatModel implements ChatModel {
+
+    private final UnaryOperator<String> responder;
+    private final List<String> prompts = new CopyOnWriteArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    FakeChatModel(UnaryOperator<String> responder) {
+        this.responder = responder;
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        String text = prompt.getContents();
+        prompts.add(text);
+
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            // Long enough for concurrent calls to overlap
+            Thread.sleep(5);
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(responder.apply(text)))));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Streams the response word by word.
+     */
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        return Flux.defer(() -> {
+            String text = prompt.getContents();
+            prompts.add(text);
+            return Flux.fromArray(responder.apply(text).split("(?<= )"));
+        }).map(token -> new ChatResponse(List.of(new Generation(new AssistantMessage(token)))));
+    }
+
+    List<String> prompts() {
+        return prompts;
+    }
+
+    int maxInFlight() {
+        return maxInFlight.get();
+    }
+}
@@ -0,0 +1,97 @@
+package tubes.pbo.be.summary.service;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.AreaBreak;
+import com.itextpdf.layout.element.Paragraph;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares sequential and parallel extraction on a lecture-pack sized PDF.
+ * Excluded from the default build; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class PdfExtractionBenchmarkTest {
+
+    private static final int PAGES = 300;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 10;
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutorService executor;
+    private PdfProcessingService pdfProcessingService;
+    private Path pdfPath;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(4);
+        pdfProcessingService = new PdfProcessingService(executor);
+        ReflectionTestUtils.setField(pdfProcessingService, "parallelism", 4);
+
+        pdfPath = tempDir.resolve("lecture-pack.pdf");
+        try (Document document = new Document(new PdfDocument(new PdfWriter(pdfPath.toString())))) {
+            for (int page = 1; page <= PAGES; page++) {
+                for (int line = 0; line < 40; line++) {
+                    document.add(new Paragraph("Page " + page + " line " + line
+                            + ": the quick brown fox jumps over the lazy dog."));
+                }
+                if (page < PAGES) {
+                    document.add(new AreaBreak());
+                }
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void compareSequentialAndParallelExtraction() {
+        long sequentialNanos = measure(Integer.MAX_VALUE);
+        long parallelNanos = measure(1);
+
+        System.out.printf("PDF extraction, %d pages: sequential %.1f ms, parallel %.1f ms (%.2fx)%n",
+                PAGES,
+                sequentialNanos / 1_000_000.0,
+                parallelNanos / 1_000_000.0,
+                (double) sequentialNanos / parallelNanos);
+
+        ReflectionTestUtils.setField(pdfProcessingService, "parallelThresholdPages", Integer.MAX_VALUE);
+        String sequential = pdfProcessingService.extractText(pdfPath);
+        ReflectionTestUtils.setField(pdfProcessingService, "parallelThresholdPages", 1);
+        assertEquals(sequential, pdfProcessingService.extractText(pdfPath));
+    }
+
+    /**
+     * @return mean wall time per extraction
+     */
+    private long measure(int parallelThresholdPages) {
+        ReflectionTestUtils.setField(pdfProcessingService, "parallelThresholdPages", parallelThresholdPages);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            pdfProcessingService.extractText(pdfPath);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            pdfProcessingService.extractText(pdfPath);
+        }
+        return (System.nanoTime() - start) / MEASURED_ROUNDS;
+    }
+}
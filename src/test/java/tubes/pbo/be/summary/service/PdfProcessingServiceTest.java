@@ -7,27 +7,47 @@ import com.itextpdf.layout.element.Paragraph;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import tubes.pbo.be.shared.exception.ValidationException;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
 class PdfProcessingServiceTest {
 
-    @InjectMocks
     private PdfProcessingService pdfProcessingService;
 
+    @TempDir
+    Path tempDir;
+
     private byte[] validPdfBytes;
     private String expectedText;
 
     @BeforeEach
     void setUp() {
+        pdfProcessingService = new PdfProcessingService(ForkJoinPool.commonPool());
+        ReflectionTestUtils.setField(pdfProcessingService, "parallelThresholdPages", 50);
+        ReflectionTestUtils.setField(pdfProcessingService, "parallelism", 4);
+        ReflectionTestUtils.setField(pdfProcessingService, "maxPages", 500);
+        ReflectionTestUtils.setField(pdfProcessingService, "maxChars", 2_000_000);
+
         // Create a valid PDF with test content
         expectedText = "This is a test PDF document.\nIt contains multiple lines of text.";
         validPdfBytes = createTestPdf(expectedText);
@@ -36,12 +56,12 @@ class PdfProcessingServiceTest {
     // ===== extractText Tests =====
 
     @Test
-    void extractText_validPdf_returnsExtractedText() {
+    void extractText_validPdf_returnsExtractedText() throws IOException {
         // Arrange
-        InputStream pdfInputStream = new ByteArrayInputStream(validPdfBytes);
+        Path pdfPath = writeToFile(validPdfBytes);
 
         // Act
-        String result = pdfProcessingService.extractText(pdfInputStream);
+        String result = pdfProcessingService.extractText(pdfPath);
 
         // Assert
         assertNotNull(result);
@@ -51,13 +71,13 @@ class PdfProcessingServiceTest {
     }
 
     @Test
-    void extractText_multiPagePdf_extractsAllPages() {
+    void extractText_multiPagePdf_extractsAllPages() throws IOException {
         // Arrange
         byte[] multiPagePdf = createMultiPagePdf(3);
-        InputStream pdfInputStream = new ByteArrayInputStream(multiPagePdf);
+        Path pdfPath = writeToFile(multiPagePdf);
 
         // Act
-        String result = pdfProcessingService.extractText(pdfInputStream);
+        String result = pdfProcessingService.extractText(pdfPath);
 
         // Assert
         assertNotNull(result);
@@ -67,14 +87,43 @@ class PdfProcessingServiceTest {
     }
 
     @Test
-    void extractText_pdfWithSpecialCharacters_extractsCorrectly() {
+    void extractText_aboveParallelThreshold_keepsPageOrder() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(pdfProcessingService, "parallelThresholdPages", 2);
+        Path pdfPath = writeToFile(createMultiPagePdf(10));
+
+        // Act
+        String result = pdfProcessingService.extractText(pdfPath);
+
+        // Assert
+        for (int i = 1; i < 10; i++) {
+            assertTrue(result.indexOf("Page " + i + " content") < result.indexOf("Page " + (i + 1) + " content"));
+        }
+    }
+
+    @Test
+    void extractText_parallelAndSequential_returnSameText() throws IOException {
+        // Arrange
+        Path pdfPath = writeToFile(createMultiPagePdf(7));
+        String sequential = pdfProcessingService.extractText(pdfPath);
+        ReflectionTestUtils.setField(pdfProcessingService, "parallelThresholdPages", 1);
+
+        // Act
+        String parallel = pdfProcessingService.extractText(pdfPath);
+
+        // Assert
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    void extractText_pdfWithSpecialCharacters_extractsCorrectly() throws IOException {
         // Arrange
         String specialText = "Special characters: à é ñ © ® ™ € £ ¥";
         byte[] pdfBytes = createTestPdf(specialText);
-        InputStream pdfInputStream = new ByteArrayInputStream(pdfBytes);
+        Path pdfPath = writeToFile(pdfBytes);
 
         // Act
-        String result = pdfProcessingService.extractText(pdfInputStream);
+        String result = pdfProcessingService.extractText(pdfPath);
 
         // Assert
         assertNotNull(result);
@@ -82,35 +131,48 @@ class PdfProcessingServiceTest {
     }
 
     @Test
-    void extractText_emptyPdf_throwsValidationException() {
+    void extractText_emptyPdf_throwsValidationException() throws IOException {
         // Arrange - Create PDF with no text
         byte[] emptyPdfBytes = createEmptyPdf();
-        InputStream pdfInputStream = new ByteArrayInputStream(emptyPdfBytes);
+        Path pdfPath = writeToFile(emptyPdfBytes);
 
         // Act & Assert
         ValidationException exception = assertThrows(ValidationException.class, () -> {
-            pdfProcessingService.extractText(pdfInputStream);
+            pdfProcessingService.extractText(pdfPath);
         });
 
         assertEquals("PDF file appears to be empty or contains no extractable text", exception.getMessage());
     }
 
     @Test
-    void extractText_invalidPdf_throwsValidationException() {
+    void extractText_invalidPdf_throwsValidationException() throws IOException {
         // Arrange - Invalid PDF bytes
         byte[] invalidBytes = "This is not a valid PDF file".getBytes();
-        InputStream pdfInputStream = new ByteArrayInputStream(invalidBytes);
+        Path pdfPath = writeToFile(invalidBytes);
 
         // Act & Assert
         ValidationException exception = assertThrows(ValidationException.class, () -> {
-            pdfProcessingService.extractText(pdfInputStream);
+            pdfProcessingService.extractText(pdfPath);
         });
 
         assertEquals("Invalid or corrupted PDF file", exception.getMessage());
     }
 
     @Test
-    void extractText_corruptedPdf_throwsException() {
+    void extractText_missingFile_throwsValidationException() {
+        // Arrange
+        Path missing = tempDir.resolve("missing.pdf");
+
+        // Act & Assert
+        ValidationException exception = assertThrows(ValidationException.class, () -> {
+            pdfProcessingService.extractText(missing);
+        });
+
+        assertEquals("Invalid or corrupted PDF file", exception.getMessage());
+    }
+
+    @Test
+    void extractText_corruptedPdf_throwsException() throws IOException {
         // Arrange - Partially valid PDF header but corrupted content
         byte[] corruptedBytes = new byte[validPdfBytes.length];
         System.arraycopy(validPdfBytes, 0, corruptedBytes, 0, validPdfBytes.length);
@@ -118,28 +180,28 @@ class PdfProcessingServiceTest {
         for (int i = 50; i < 100 && i < corruptedBytes.length; i++) {
             corruptedBytes[i] = 0;
         }
-        InputStream pdfInputStream = new ByteArrayInputStream(corruptedBytes);
+        Path pdfPath = writeToFile(corruptedBytes);
 
         // Act & Assert
         // Corrupted PDFs may throw various exceptions depending on corruption type
         // (ValidationException, RuntimeException, or iText's AssertionError)
         assertThrows(Throwable.class, () -> {
-            pdfProcessingService.extractText(pdfInputStream);
+            pdfProcessingService.extractText(pdfPath);
         });
     }
 
     @Test
-    void extractText_largePdf_extractsSuccessfully() {
+    void extractText_largePdf_extractsSuccessfully() throws IOException {
         // Arrange - Create PDF with lots of text
         StringBuilder largeText = new StringBuilder();
         for (int i = 0; i < 1000; i++) {
             largeText.append("Line ").append(i).append(": Lorem ipsum dolor sit amet. ");
         }
         byte[] largePdfBytes = createTestPdf(largeText.toString());
-        InputStream pdfInputStream = new ByteArrayInputStream(largePdfBytes);
+        Path pdfPath = writeToFile(largePdfBytes);
 
         // Act
-        String result = pdfProcessingService.extractText(pdfInputStream);
+        String result = pdfProcessingService.extractText(pdfPath);
 
         // Assert
         assertNotNull(result);
@@ -149,13 +211,13 @@ class PdfProcessingServiceTest {
     }
 
     @Test
-    void extractText_pdfWithFormatting_extractsTextOnly() {
+    void extractText_pdfWithFormatting_extractsTextOnly() throws IOException {
         // Arrange - PDF with bold, italic, etc (iText will extract plain text)
         byte[] formattedPdf = createTestPdf("Bold text. Italic text. Normal text.");
-        InputStream pdfInputStream = new ByteArrayInputStream(formattedPdf);
+        Path pdfPath = writeToFile(formattedPdf);
 
         // Act
-        String result = pdfProcessingService.extractText(pdfInputStream);
+        String result = pdfProcessingService.extractText(pdfPath);
 
         // Assert
         assertNotNull(result);
@@ -164,8 +226,214 @@ class PdfProcessingServiceTest {
         assertTrue(result.contains("Normal text"));
     }
 
+    // ===== extractDocument Tests =====
+
+    @Test
+    void extractDocument_multiPagePdf_recordsWherePagesStart() throws IOException {
+        // Arrange
+        Path pdfPath = writeToFile(createMultiPagePdf(3));
+
+        // Act
+        ExtractedDocument document = pdfProcessingService.extractDocument(pdfPath);
+
+        // Assert
+        assertEquals(3, document.pageCount());
+        assertEquals(0, document.pageOffsets()[0]);
+        assertTrue(document.pageText(1).contains("Page 1 content"));
+        assertTrue(document.pageText(2).contains("Page 2 content"));
+        assertFalse(document.pageText(2).contains("Page 3 content"));
+        assertTrue(document.pageText(3).contains("Page 3 content"));
+    }
+
+    @Test
+    void extractDocument_parallel_recordsSameOffsetsAsSequential() throws IOException {
+        // Arrange
+        Path pdfPath = writeToFile(createMultiPagePdf(7));
+        ExtractedDocument sequential = pdfProcessingService.extractDocument(pdfPath);
+        ReflectionTestUtils.setField(pdfProcessingService, "parallelThresholdPages", 1);
+
+        // Act
+        ExtractedDocument parallel = pdfProcessingService.extractDocument(pdfPath);
+
+        // Assert
+        assertEquals(sequential.text(), parallel.text());
+        assertArrayEquals(sequential.pageOffsets(), parallel.pageOffsets());
+    }
+
+    @Test
+    void join_leadingBlankPage_shiftsOffsetsIntoTrimmedText() {
+        // Act
+        ExtractedDocument document = PdfProcessingService.join(List.of("  ", "First", "Second  "));
+
+        // Assert
+        assertEquals("First\nSecond", document.text());
+        assertArrayEquals(new int[] {0, 0, 6}, document.pageOffsets());
+        assertEquals("", document.pageText(1));
+        assertEquals("Second", document.pageText(3));
+    }
+
+    @Test
+    void extractDocument_withinBudgets_isNotTruncated() throws IOException {
+        // Arrange
+        Path pdfPath = writeToFile(createMultiPagePdf(3));
+
+        // Act
+        ExtractedDocument document = pdfProcessingService.extractDocument(pdfPath);
+
+        // Assert
+        assertEquals(3, document.totalPageCount());
+        assertFalse(document.isTruncated());
+    }
+
+    @Test
+    void extractDocument_morePagesThanBudget_stopsAtPageLimit() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(pdfProcessingService, "maxPages", 2);
+        Path pdfPath = writeToFile(createMultiPagePdf(5));
+
+        // Act
+        ExtractedDocument document = pdfProcessingService.extractDocument(pdfPath);
+
+        // Assert
+        assertEquals(2, document.pageCount());
+        assertEquals(5, document.totalPageCount());
+        assertTrue(document.pageLimitReached());
+        assertFalse(document.charLimitReached());
+        assertTrue(document.text().contains("Page 2 content"));
+        assertFalse(document.text().contains("Page 3 content"));
+    }
+
+    @Test
+    void extractDocument_moreTextThanBudget_stopsAtCharLimit() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(pdfProcessingService, "maxChars", 20);
+        Path pdfPath = writeToFile(createMultiPagePdf(5));
+
+        // Act
+        ExtractedDocument document = pdfProcessingService.extractDocument(pdfPath);
+
+        // Assert
+        assertTrue(document.text().length() <= 20);
+        assertTrue(document.pageCount() < 5);
+        assertEquals(5, document.totalPageCount());
+        assertTrue(document.charLimitReached());
+        assertFalse(document.pageLimitReached());
+        assertTrue(document.text().startsWith("Page 1 content"));
+    }
+
+    @Test
+    void extractDocument_parallelWithCharBudget_matchesSequential() throws IOException {
+        // Arrange
+        ReflectionTestUtils.setField(pdfProcessingService, "maxChars", 30);
+        Path pdfPath = writeToFile(createMultiPagePdf(12));
+        ExtractedDocument sequential = pdfProcessingService.extractDocument(pdfPath);
+        ReflectionTestUtils.setField(pdfProcessingService, "parallelThresholdPages", 1);
+
+        // Act
+        ExtractedDocument parallel = pdfProcessingService.extractDocument(pdfPath);
+
+        // Assert
+        assertTrue(parallel.charLimitReached());
+        assertEquals(sequential.text(), parallel.text());
+        assertArrayEquals(sequential.pageOffsets(), parallel.pageOffsets());
+    }
+
+    @Test
+    void extractDocument_laterRangesUseBudgetFirst_matchesSequential() throws IOException {
+        // Arrange - ranges 2 to 4 run before range 1, so they use up the shared budget first
+        ReflectionTestUtils.setField(pdfProcessingService, "maxChars", 30);
+        Path pdfPath = writeToFile(createMultiPagePdf(12));
+        ExtractedDocument sequential = pdfProcessingService.extractDocument(pdfPath);
+
+        List<Runnable> firstRange = new ArrayList<>();
+        AtomicInteger submitted = new AtomicInteger();
+        PdfProcessingService service = new PdfProcessingService(task -> {
+            int range = submitted.getAndIncrement();
+            if (range == 0) {
+                firstRange.add(task);
+                return;
+            }
+            task.run();
+            if (range == 3) {
+                firstRange.getFirst().run();
+            }
+        });
+        ReflectionTestUtils.setField(service, "parallelThresholdPages", 1);
+        ReflectionTestUtils.setField(service, "parallelism", 4);
+        ReflectionTestUtils.setField(service, "maxPages", 500);
+        ReflectionTestUtils.setField(service, "maxChars", 30);
+
+        // Act
+        ExtractedDocument parallel = service.extractDocument(pdfPath);
+
+        // Assert
+        assertTrue(parallel.charLimitReached());
+        assertEquals(sequential.text(), parallel.text());
+        assertArrayEquals(sequential.pageOffsets(), parallel.pageOffsets());
+    }
+
+    @Test
+    void extractParallel_rangeFails_cancelsRangesNotYetStarted() throws Exception {
+        // Arrange - the last range asks for pages past the end of the document
+        Path pdfPath = writeToFile(createMultiPagePdf(6));
+        PdfProcessingService.SharedSource source = PdfProcessingService.SharedSource.map(pdfPath);
+        List<Runnable> queued = new CopyOnWriteArrayList<>();
+        PdfProcessingService service = new PdfProcessingService(queued::add);
+        ReflectionTestUtils.setField(service, "parallelism", 4);
+        ReflectionTestUtils.setField(service, "maxChars", 2_000_000);
+
+        CompletableFuture<List<String>> extraction = CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.extractParallel(source, 8);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+        while (queued.size() < 4) {
+            Thread.onSpinWait();
+        }
+
+        // Act - only the failing range ever runs
+        queued.get(3).run();
+
+        // Assert
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> extraction.get(5, TimeUnit.SECONDS));
+        IOException failure = assertInstanceOf(IOException.class, exception.getCause());
+        assertFalse(failure.getCause() instanceof CancellationException);
+    }
+
+    @Test
+    void join_overCharBudget_cutsLastPageAndFlagsIt() {
+        // Act
+        ExtractedDocument document = PdfProcessingService.join(List.of("First", "Second", "Third"), 3, 3, 9);
+
+        // Assert
+        assertEquals("First\nSec", document.text());
+        assertArrayEquals(new int[] {0, 6}, document.pageOffsets());
+        assertTrue(document.charLimitReached());
+        assertFalse(document.pageLimitReached());
+    }
+
+    @Test
+    void join_exactlyFillsCharBudget_isNotTruncated() {
+        // Act
+        ExtractedDocument document = PdfProcessingService.join(List.of("First", "Second"), 2, 2, 12);
+
+        // Assert
+        assertEquals("First\nSecond", document.text());
+        assertFalse(document.isTruncated());
+    }
+
     // ===== Helper Methods =====
 
+    /**
+     * Writes PDF bytes to a temp file, the way uploads are stored before extraction
+     */
+    private Path writeToFile(byte[] pdfBytes) throws IOException {
+        return Files.write(Files.createTempFile(tempDir, "test", ".pdf"), pdfBytes);
+    }
+
     /**
      * Creates a valid PDF with the given text content
      */
@@ -0,0 +1,131 @@
+package tubes.pbo.be.summary.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tubes.pbo.be.summary.model.StoredFile;
+import tubes.pbo.be.summary.repository.StoredFileRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@link StoredFileService#discard(String)} against H2 without a surrounding transaction,
+ * the way the upload paths call it, and {@link StoredFileService#release(String)} inside one,
+ * the way summary deletion calls it.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:storedfiledb",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "app.file.upload-dir=${java.io.tmpdir}/stored-file-discard-test"
+})
+class StoredFileServiceDiscardTest {
+
+    private static final String SHA256 = "ab".repeat(32);
+    private static final String FILE_PATH = "objects/ab/" + SHA256 + ".pdf";
+
+    @Autowired
+    private StoredFileService storedFileService;
+
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        storedFileRepository.deleteAll();
+        Files.deleteIfExists(storedFileService.resolve(FILE_PATH));
+    }
+
+    @Test
+    void discard_lastReference_deletesRowAndFile() throws Exception {
+        // Arrange
+        Path file = writeFile();
+        storedFileRepository.save(storedFile(1));
+
+        // Act
+        storedFileService.discard(FILE_PATH);
+
+        // Assert
+        assertFalse(storedFileRepository.existsBySha256(SHA256));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void discard_sharedFile_decrementsAndKeepsFile() throws Exception {
+        // Arrange
+        Path file = writeFile();
+        storedFileRepository.save(storedFile(2));
+
+        // Act
+        storedFileService.discard(FILE_PATH);
+
+        // Assert
+        assertEquals(1, storedFileRepository.findAll().getFirst().getRefCount());
+        assertTrue(Files.exists(file));
+    }
+
+    @Test
+    void discard_contentStoredAgainBeforeCommit_keepsFile() throws Exception {
+        // Arrange
+        Path file = writeFile();
+        storedFileRepository.save(storedFile(1));
+
+        // Act: the same content is registered again before the discarding transaction commits
+        new TransactionTemplate(transactionManager).executeWithoutResult(_ -> {
+            storedFileService.discard(FILE_PATH);
+            storedFileRepository.flush();
+            storedFileRepository.save(storedFile(1));
+        });
+
+        // Assert
+        assertTrue(storedFileRepository.existsBySha256(SHA256));
+        assertTrue(Files.exists(file));
+    }
+
+    @Test
+    void release_callerRollsBack_keepsRowAndFile() throws Exception {
+        // Arrange
+        Path file = writeFile();
+        storedFileRepository.save(storedFile(1));
+
+        // Act
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            assertTrue(storedFileService.release(FILE_PATH));
+            status.setRollbackOnly();
+        });
+
+        // Assert
+        assertTrue(storedFileRepository.existsBySha256(SHA256));
+        assertTrue(Files.exists(file));
+    }
+
+    private Path writeFile() throws Exception {
+        Path file = storedFileService.resolve(FILE_PATH);
+        Files.createDirectories(file.getParent());
+        Files.write(file, "PDF content".getBytes());
+        return file;
+    }
+
+    private static StoredFile storedFile(int refCount) {
+        StoredFile storedFile = new StoredFile();
+        storedFile.setSha256(SHA256);
+        storedFile.setFilePath(FILE_PATH);
+        storedFile.setSizeBytes(11L);
+        storedFile.setRefCount(refCount);
+        return storedFile;
+    }
+}
@@ -0,0 +1,185 @@
+package tubes.pbo.be.summary.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import tubes.pbo.be.shared.config.FileStorageConfig;
+import tubes.pbo.be.summary.model.StoredFile;
+import tubes.pbo.be.summary.repository.ExtractedTextRepository;
+import tubes.pbo.be.summary.repository.StoredFileRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StoredFileServiceTest {
+
+    // SHA-256 of "PDF content"
+    private static final String CONTENT_SHA256 = "7e7f04c8b5646f7ad29b1cb0c8085d4ff9c6b08f2a632f496641b31f524c7b98";
+
+    @Mock
+    private StoredFileRepository storedFileRepository;
+
+    @Mock
+    private ExtractedTextRepository extractedTextRepository;
+
+    @Mock
+    private FileStorageConfig fileStorageConfig;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private StoredFileService storedFileService;
+
+    @TempDir
+    Path tempDir;
+
+    private MockMultipartFile pdfFile;
+
+    @BeforeEach
+    void setUp() {
+        pdfFile = new MockMultipartFile("file", "test.pdf", "application/pdf", "PDF content".getBytes());
+
+        lenient().when(fileStorageConfig.getUploadPath()).thenReturn(tempDir);
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    // ===== store Tests =====
+
+    @Test
+    void store_newContent_movesFileUnderItsHash() throws Exception {
+        // Arrange
+        when(storedFileRepository.findBySha256ForUpdate(any())).thenReturn(Optional.empty());
+
+        // Act
+        StoredFileService.StoredUpload upload = storedFileService.store(pdfFile);
+
+        // Assert
+        assertEquals(CONTENT_SHA256, upload.sha256());
+        assertEquals("objects/" + upload.sha256().substring(0, 2) + "/" + upload.sha256() + ".pdf", upload.filePath());
+        assertEquals(11L, upload.sizeBytes());
+        assertArrayEquals("PDF content".getBytes(), Files.readAllBytes(tempDir.resolve(upload.filePath())));
+        verify(storedFileRepository).saveAndFlush(argThat(stored ->
+                stored.getSha256().equals(upload.sha256()) && stored.getRefCount() == 1));
+        assertNoTempFilesLeft();
+    }
+
+    @Test
+    void store_sameContentTwice_producesSameHash() throws Exception {
+        // Arrange
+        when(storedFileRepository.findBySha256ForUpdate(any())).thenReturn(Optional.empty());
+
+        // Act
+        StoredFileService.StoredUpload first = storedFileService.store(pdfFile);
+        StoredFileService.StoredUpload second = storedFileService.store(
+                new MockMultipartFile("file", "renamed.pdf", "application/pdf", "PDF content".getBytes()));
+
+        // Assert
+        assertEquals(first.sha256(), second.sha256());
+        assertEquals(first.filePath(), second.filePath());
+    }
+
+    @Test
+    void store_knownContent_reusesExistingFileAndAddsReference() throws Exception {
+        // Arrange
+        StoredFile existing = new StoredFile();
+        existing.setSha256(CONTENT_SHA256);
+        existing.setFilePath("objects/7e/7e7f04c8b5646f7ad29b1cb0c8085d4ff9c6b08f2a632f496641b31f524c7b98.pdf");
+        existing.setSizeBytes(11L);
+        existing.setRefCount(2);
+        when(storedFileRepository.findBySha256ForUpdate(CONTENT_SHA256)).thenReturn(Optional.of(existing));
+
+        // Act
+        StoredFileService.StoredUpload upload = storedFileService.store(pdfFile);
+
+        // Assert
+        assertEquals(existing.getFilePath(), upload.filePath());
+        assertEquals(3, existing.getRefCount());
+        verify(storedFileRepository).save(existing);
+        verify(storedFileRepository, never()).saveAndFlush(any());
+        assertNoTempFilesLeft();
+    }
+
+    // ===== release Tests =====
+
+    @Test
+    void release_sharedFile_decrementsAndKeepsFile() {
+        // Arrange
+        StoredFile storedFile = new StoredFile();
+        storedFile.setFilePath("objects/ab/abc.pdf");
+        storedFile.setRefCount(2);
+        when(storedFileRepository.findByFilePathForUpdate("objects/ab/abc.pdf")).thenReturn(Optional.of(storedFile));
+
+        // Act
+        boolean lastReference = storedFileService.release("objects/ab/abc.pdf");
+
+        // Assert
+        assertFalse(lastReference);
+        assertEquals(1, storedFile.getRefCount());
+        verify(storedFileRepository, never()).delete(any());
+        verifyNoInteractions(extractedTextRepository);
+    }
+
+    @Test
+    void release_lastReference_deletesRowAndExtractedText() {
+        // Arrange
+        StoredFile storedFile = new StoredFile();
+        storedFile.setSha256(CONTENT_SHA256);
+        storedFile.setFilePath("objects/ab/abc.pdf");
+        storedFile.setRefCount(1);
+        when(storedFileRepository.findByFilePathForUpdate("objects/ab/abc.pdf")).thenReturn(Optional.of(storedFile));
+
+        // Act
+        boolean lastReference = storedFileService.release("objects/ab/abc.pdf");
+
+        // Assert
+        assertTrue(lastReference);
+        verify(storedFileRepository).delete(storedFile);
+        verify(extractedTextRepository).deleteByContentHash(CONTENT_SHA256);
+    }
+
+    @Test
+    void release_legacyUntrackedFile_returnsTrue() {
+        // Arrange
+        when(storedFileRepository.findByFilePathForUpdate("1/uuid.pdf")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertTrue(storedFileService.release("1/uuid.pdf"));
+    }
+
+    @Test
+    void discard_lastReference_deletesPhysicalFile() throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("1/uuid.pdf");
+        Files.createDirectories(file.getParent());
+        Files.write(file, "PDF content".getBytes());
+        when(storedFileRepository.findByFilePathForUpdate("1/uuid.pdf")).thenReturn(Optional.empty());
+
+        // Act
+        storedFileService.discard("1/uuid.pdf");
+
+        // Assert
+        assertFalse(Files.exists(file));
+    }
+
+    private void assertNoTempFilesLeft() throws Exception {
+        try (Stream<Path> files = Files.list(tempDir.resolve("tmp"))) {
+            assertEquals(0, files.count());
+        }
+    }
+}
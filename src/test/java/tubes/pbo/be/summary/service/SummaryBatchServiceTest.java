@@ -0,0 +1,175 @@
+package tubes.pbo.be.summary.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+import tubes.pbo.be.shared.exception.FileOperationException;
+import tubes.pbo.be.shared.exception.ValidationException;
+import tubes.pbo.be.summary.dto.SummaryBatchItem;
+import tubes.pbo.be.summary.dto.SummaryBatchResponse;
+import tubes.pbo.be.summary.dto.SummaryResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SummaryBatchServiceTest {
+
+    @Mock
+    private SummaryService summaryService;
+
+    private ExecutorService executor;
+    private SummaryBatchService summaryBatchService;
+    private final Long testUserId = 1L;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(8);
+        summaryBatchService = new SummaryBatchService(summaryService, executor);
+        ReflectionTestUtils.setField(summaryBatchService, "maxFiles", 20);
+        ReflectionTestUtils.setField(summaryBatchService, "parallelism", 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void createSummaries_allValid_returnsSummaryIdsInRequestOrder() {
+        // Arrange
+        List<MultipartFile> files = pdfs(5);
+        when(summaryService.createSummary(eq(testUserId), any())).thenAnswer(inv -> {
+            MultipartFile file = inv.getArgument(1);
+            return summary(100L + files.indexOf(file));
+        });
+
+        // Act
+        SummaryBatchResponse response = summaryBatchService.createSummaries(testUserId, files);
+
+        // Assert
+        assertEquals(5, response.getCreated());
+        assertEquals(0, response.getFailed());
+        for (int i = 0; i < 5; i++) {
+            SummaryBatchItem item = response.getResults().get(i);
+            assertEquals(i, item.getIndex());
+            assertEquals("doc-" + i + ".pdf", item.getOriginalFilename());
+            assertEquals("created", item.getStatus());
+            assertEquals(100L + i, item.getSummaryId());
+        }
+    }
+
+    @Test
+    void createSummaries_oneFileFails_othersStillCreated() {
+        // Arrange
+        List<MultipartFile> files = pdfs(3);
+        when(summaryService.createSummary(testUserId, files.get(0))).thenReturn(summary(1L));
+        when(summaryService.createSummary(testUserId, files.get(1)))
+                .thenThrow(new ValidationException("Invalid or corrupted PDF file"));
+        when(summaryService.createSummary(testUserId, files.get(2)))
+                .thenThrow(new FileOperationException("Failed to create summary. Please try again."));
+
+        // Act
+        SummaryBatchResponse response = summaryBatchService.createSummaries(testUserId, files);
+
+        // Assert
+        assertEquals(1, response.getCreated());
+        assertEquals(2, response.getFailed());
+        assertEquals(1L, response.getResults().get(0).getSummaryId());
+        assertEquals("failed", response.getResults().get(1).getStatus());
+        assertEquals("Invalid or corrupted PDF file", response.getResults().get(1).getErrorMessage());
+        assertNull(response.getResults().get(1).getSummaryId());
+        assertEquals("Failed to create summary. Please try again.", response.getResults().get(2).getErrorMessage());
+    }
+
+    @Test
+    void createSummaries_unexpectedError_reportedWithoutDetails() {
+        // Arrange
+        List<MultipartFile> files = pdfs(1);
+        when(summaryService.createSummary(any(), any())).thenThrow(new IllegalStateException("connection reset"));
+
+        // Act
+        SummaryBatchResponse response = summaryBatchService.createSummaries(testUserId, files);
+
+        // Assert
+        assertEquals("Failed to create summary. Please try again.", response.getResults().getFirst().getErrorMessage());
+    }
+
+    @Test
+    void createSummaries_invalidFile_rejectsWholeBatchBeforeProcessing() {
+        // Arrange
+        List<MultipartFile> files = new ArrayList<>(pdfs(2));
+        MockMultipartFile text = new MockMultipartFile("files", "notes.txt", "text/plain", "text".getBytes());
+        files.add(text);
+        doThrow(new ValidationException("Only PDF files are allowed")).when(summaryService).validatePdf(text);
+
+        // Act & Assert
+        ValidationException exception = assertThrows(ValidationException.class,
+                () -> summaryBatchService.createSummaries(testUserId, files));
+        assertEquals("Invalid files: notes.txt (Only PDF files are allowed)", exception.getMessage());
+        verify(summaryService, never()).createSummary(any(), any());
+    }
+
+    @Test
+    void createSummaries_tooManyFiles_throwsValidationException() {
+        // Arrange
+        ReflectionTestUtils.setField(summaryBatchService, "maxFiles", 2);
+
+        // Act & Assert
+        assertThrows(ValidationException.class, () -> summaryBatchService.createSummaries(testUserId, pdfs(3)));
+        verifyNoInteractions(summaryService);
+    }
+
+    @Test
+    void createSummaries_noFiles_throwsValidationException() {
+        // Act & Assert
+        assertThrows(ValidationException.class, () -> summaryBatchService.createSummaries(testUserId, List.of()));
+    }
+
+    @Test
+    void createSummaries_manyFiles_neverExceedsPerRequestParallelism() {
+        // Arrange
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(summaryService.createSummary(eq(testUserId), any())).thenAnswer(_ -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return summary(1L);
+        });
+
+        // Act
+        SummaryBatchResponse response = summaryBatchService.createSummaries(testUserId, pdfs(12));
+
+        // Assert
+        assertEquals(12, response.getCreated());
+        assertTrue(maxInFlight.get() <= 3, "Ran " + maxInFlight.get() + " files at once");
+    }
+
+    private static List<MultipartFile> pdfs(int count) {
+        List<MultipartFile> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            files.add(new MockMultipartFile("files", "doc-" + i + ".pdf", "application/pdf", ("PDF " + i).getBytes()));
+        }
+        return files;
+    }
+
+    private static SummaryResponse summary(Long id) {
+        SummaryResponse response = new SummaryResponse();
+        response.setId(id);
+        return response;
+    }
+}
@@ -0,0 +1,446 @@
+package tubes.pbo.be.summary.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import tubes.pbo.be.shared.exception.AiCapacityExceededException;
+import tubes.pbo.be.shared.exception.AiUnavailableException;
+import tubes.pbo.be.shared.exception.ResourceNotFoundException;
+import tubes.pbo.be.shared.exception.ValidationException;
+import tubes.pbo.be.summary.dto.SummaryJobResponse;
+import tubes.pbo.be.summary.model.Summary;
+import tubes.pbo.be.summary.model.SummaryJob;
+import tubes.pbo.be.summary.repository.SummaryJobRepository;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SummaryJobServiceTest {
+
+    @Mock
+    private SummaryJobRepository summaryJobRepository;
+
+    @Mock
+    private SummaryService summaryService;
+
+    @Mock
+    private StoredFileService storedFileService;
+
+    @Mock
+    private ExtractedTextService extractedTextService;
+
+    @Spy
+    private TextNormalizer textNormalizer = new TextNormalizer(true, 3, 0.5, new SimpleMeterRegistry());
+
+    @Mock
+    private AiService aiService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SummaryJobService summaryJobService;
+    private MockMultipartFile validPdfFile;
+    private SummaryJob queuedJob;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        summaryJobService = createService(new SyncTaskExecutor());
+
+        validPdfFile = new MockMultipartFile(
+                "file",
+                "test-document.pdf",
+                "application/pdf",
+                "PDF content".getBytes()
+        );
+
+        queuedJob = new SummaryJob();
+        queuedJob.setId(5L);
+        queuedJob.setUserId(1L);
+        queuedJob.setOriginalFilename("test-document.pdf");
+        queuedJob.setFilePath("1/stored.pdf");
+        queuedJob.setContentHash("abc123");
+        queuedJob.setStatus(SummaryJob.Status.QUEUED);
+        queuedJob.setAttempts(0);
+        queuedJob.setCreatedAt(LocalDateTime.now());
+
+        lenient().when(storedFileService.resolve(anyString())).thenAnswer(inv -> Path.of("/uploads", inv.<String>getArgument(0)));
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        lenient().when(summaryJobRepository.save(any(SummaryJob.class))).thenAnswer(inv -> inv.getArgument(0));
+        lenient().when(summaryService.findReusableSummaryText(any())).thenReturn(Optional.empty());
+    }
+
+    private SummaryJobService createService(TaskExecutor executor) {
+        SummaryJobService service = new SummaryJobService(
+                summaryJobRepository,
+                summaryService,
+                storedFileService,
+                extractedTextService,
+                textNormalizer,
+                aiService,
+                new TransactionTemplate(transactionManager),
+                executor
+        );
+        ReflectionTestUtils.setField(service, "maxAttempts", 3);
+        ReflectionTestUtils.setField(service, "dispatchBatchSize", 20);
+        ReflectionTestUtils.setField(service, "staleAfterMs", 600_000L);
+        return service;
+    }
+
+    // ===== submitJob Tests =====
+
+    @Test
+    void submitJob_validPdf_queuesAndProcessesJob() throws Exception {
+        // Arrange
+        when(storedFileService.store(validPdfFile))
+                .thenReturn(new StoredFileService.StoredUpload("1/stored.pdf", "abc123", 11L));
+        when(summaryJobRepository.save(any(SummaryJob.class))).thenAnswer(inv -> {
+            SummaryJob job = inv.getArgument(0);
+            job.setId(5L);
+            return job;
+        });
+        when(summaryJobRepository.claim(eq(5L), eq(SummaryJob.Status.QUEUED), eq(SummaryJob.Status.EXTRACTING), any()))
+                .thenReturn(1);
+        when(summaryJobRepository.findById(5L)).thenReturn(Optional.of(queuedJob));
+        when(extractedTextService.getOrExtract("abc123", Path.of("/uploads/1/stored.pdf"))).thenReturn(extracted("Extracted text"));
+        when(aiService.generateSummary(1L, "Extracted text")).thenReturn("## Summary");
+
+        Summary summary = new Summary();
+        summary.setId(42L);
+        when(summaryService.saveSummary(1L, "test-document.pdf", "1/stored.pdf", "abc123", "## Summary")).thenReturn(summary);
+
+        // Act
+        SummaryJobResponse response = summaryJobService.submitJob(1L, validPdfFile);
+
+        // Assert
+        assertEquals(5L, response.getId());
+        assertEquals("queued", response.getStatus());
+        assertEquals(SummaryJob.Status.DONE, queuedJob.getStatus());
+        assertEquals(42L, queuedJob.getSummaryId());
+        verify(summaryService).validatePdf(validPdfFile);
+        verify(storedFileService, never()).discard(anyString());
+    }
+
+    @Test
+    void submitJob_invalidFile_throwsWithoutQueueing() throws Exception {
+        // Arrange
+        doThrow(new ValidationException("Only PDF files are allowed")).when(summaryService).validatePdf(any());
+
+        // Act & Assert
+        assertThrows(ValidationException.class, () -> summaryJobService.submitJob(1L, validPdfFile));
+
+        verify(storedFileService, never()).store(any());
+        verify(summaryJobRepository, never()).save(any());
+    }
+
+    @Test
+    void submitJob_executorSaturated_leavesJobQueued() throws Exception {
+        // Arrange
+        summaryJobService = createService(task -> {
+            throw new TaskRejectedException("full");
+        });
+        when(storedFileService.store(validPdfFile))
+                .thenReturn(new StoredFileService.StoredUpload("1/stored.pdf", "abc123", 11L));
+        when(summaryJobRepository.save(any(SummaryJob.class))).thenAnswer(inv -> {
+            SummaryJob job = inv.getArgument(0);
+            job.setId(5L);
+            return job;
+        });
+
+        // Act
+        SummaryJobResponse response = summaryJobService.submitJob(1L, validPdfFile);
+
+        // Assert
+        assertEquals("queued", response.getStatus());
+        verify(summaryJobRepository, never()).claim(any(), any(), any(), any());
+    }
+
+    // ===== processJob Tests =====
+
+    @Test
+    void processJob_alreadyClaimed_doesNothing() {
+        // Arrange
+        when(summaryJobRepository.claim(eq(5L), any(), any(), any())).thenReturn(0);
+
+        // Act
+        summaryJobService.processJob(5L);
+
+        // Assert
+        verify(summaryJobRepository, never()).findById(any());
+        verifyNoInteractions(extractedTextService, aiService);
+    }
+
+    @Test
+    void processJob_invalidPdf_failsJobWithMessage() {
+        // Arrange
+        when(summaryJobRepository.claim(eq(5L), any(), any(), any())).thenReturn(1);
+        when(summaryJobRepository.findById(5L)).thenReturn(Optional.of(queuedJob));
+        when(extractedTextService.getOrExtract(any(), any()))
+                .thenThrow(new ValidationException("Invalid or corrupted PDF file"));
+
+        // Act
+        summaryJobService.processJob(5L);
+
+        // Assert
+        assertEquals(SummaryJob.Status.FAILED, queuedJob.getStatus());
+        assertEquals("Invalid or corrupted PDF file", queuedJob.getErrorMessage());
+        verify(aiService, never()).generateSummary(any(), any());
+        verify(storedFileService).discard("1/stored.pdf");
+    }
+
+    @Test
+    void processJob_aiFails_failsJobWithGenericMessage() {
+        // Arrange
+        when(summaryJobRepository.claim(eq(5L), any(), any(), any())).thenReturn(1);
+        when(summaryJobRepository.findById(5L)).thenReturn(Optional.of(queuedJob));
+        when(extractedTextService.getOrExtract(any(), any())).thenReturn(extracted("Extracted text"));
+        when(aiService.generateSummary(1L, "Extracted text")).thenThrow(new RuntimeException("quota exceeded"));
+
+        // Act
+        summaryJobService.processJob(5L);
+
+        // Assert
+        assertEquals(SummaryJob.Status.FAILED, queuedJob.getStatus());
+        assertEquals("Failed to create summary. Please try again.", queuedJob.getErrorMessage());
+        verify(summaryService, never()).saveSummary(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void processJob_aiAtCapacity_requeuesJobWithoutUsingAnAttempt() {
+        // Arrange - claim() counted an attempt in the database
+        queuedJob.setAttempts(1);
+        when(summaryJobRepository.claim(eq(5L), any(), any(), any())).thenReturn(1);
+        when(summaryJobRepository.findById(5L)).thenReturn(Optional.of(queuedJob));
+        when(extractedTextService.getOrExtract(any(), any())).thenReturn(extracted("Extracted text"));
+        when(aiService.generateSummary(1L, "Extracted text"))
+                .thenThrow(new AiCapacityExceededException("The AI service is busy. Please try again shortly.", 30));
+
+        // Act
+        summaryJobService.processJob(5L);
+
+        // Assert
+        assertEquals(SummaryJob.Status.QUEUED, queuedJob.getStatus());
+        assertEquals(0, queuedJob.getAttempts());
+        verify(storedFileService, never()).discard(any());
+    }
+
+    @Test
+    void processJob_aiUnavailable_countsAttemptAndWaitsForRetryAfter() {
+        // Arrange
+        queuedJob.setAttempts(1);
+        when(summaryJobRepository.claim(eq(5L), any(), any(), any())).thenReturn(1);
+        when(summaryJobRepository.findById(5L)).thenReturn(Optional.of(queuedJob));
+        when(extractedTextService.getOrExtract(any(), any())).thenReturn(extracted("Extracted text"));
+        when(aiService.generateSummary(1L, "Extracted text")).thenThrow(
+                new AiUnavailableException("The AI service is temporarily unavailable. Please try again later.", 20));
+
+        // Act
+        summaryJobService.processJob(5L);
+
+        // Assert
+        assertEquals(SummaryJob.Status.QUEUED, queuedJob.getStatus());
+        assertEquals(1, queuedJob.getAttempts());
+        assertTrue(queuedJob.getNotBefore().isAfter(LocalDateTime.now().plusSeconds(10)));
+        verify(storedFileService, never()).discard(any());
+    }
+
+    @Test
+    void processJob_aiUnavailableOnLastAttempt_failsJob() {
+        // Arrange
+        queuedJob.setAttempts(3);
+        when(summaryJobRepository.claim(eq(5L), any(), any(), any())).thenReturn(1);
+        when(summaryJobRepository.findById(5L)).thenReturn(Optional.of(queuedJob));
+        when(extractedTextService.getOrExtract(any(), any())).thenReturn(extracted("Extracted text"));
+        when(aiService.generateSummary(1L, "Extracted text")).thenThrow(
+                new AiUnavailableException("The AI service is temporarily unavailable. Please try again later.", 20));
+
+        // Act
+        summaryJobService.processJob(5L);
+
+        // Assert
+        assertEquals(SummaryJob.Status.FAILED, queuedJob.getStatus());
+        assertEquals("The AI service is unavailable. Please try again later.", queuedJob.getErrorMessage());
+        verify(storedFileService).discard("1/stored.pdf");
+    }
+
+    @Test
+    void processJob_identicalContentAlreadySummarized_reusesSummaryText() {
+        // Arrange
+        when(summaryJobRepository.claim(eq(5L), any(), any(), any())).thenReturn(1);
+        when(summaryJobRepository.findById(5L)).thenReturn(Optional.of(queuedJob));
+        when(summaryService.findReusableSummaryText("abc123")).thenReturn(Optional.of("## Existing"));
+        Summary summary = new Summary();
+        summary.setId(43L);
+        when(summaryService.saveSummary(1L, "test-document.pdf", "1/stored.pdf", "abc123", "## Existing"))
+                .thenReturn(summary);
+
+        // Act
+        summaryJobService.processJob(5L);
+
+        // Assert
+        assertEquals(SummaryJob.Status.DONE, queuedJob.getStatus());
+        assertEquals(43L, queuedJob.getSummaryId());
+        verifyNoInteractions(extractedTextService, aiService);
+    }
+
+    // ===== requeueInterruptedJobs Tests =====
+
+    @Test
+    void requeueInterruptedJobs_requeuesStaleAndFailsExhaustedJobs() {
+        // Arrange
+        SummaryJob interrupted = new SummaryJob();
+        interrupted.setId(6L);
+        interrupted.setFilePath("1/other.pdf");
+        interrupted.setStatus(SummaryJob.Status.SUMMARIZING);
+        interrupted.setAttempts(1);
+
+        SummaryJob exhausted = new SummaryJob();
+        exhausted.setId(7L);
+        exhausted.setFilePath("1/broken.pdf");
+        exhausted.setStatus(SummaryJob.Status.EXTRACTING);
+        exhausted.setAttempts(3);
+
+        when(summaryJobRepository.findByStatusInAndUpdatedAtBefore(any(), any()))
+                .thenReturn(List.of(interrupted, exhausted));
+        when(summaryJobRepository.recoverStale(anyLong(), any(), any(), any(), any(), any())).thenReturn(1);
+        when(summaryJobRepository.findDispatchable(eq(SummaryJob.Status.QUEUED), any(), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        // Act
+        summaryJobService.requeueInterruptedJobs();
+
+        // Assert
+        verify(summaryJobRepository).recoverStale(eq(6L), any(), any(), eq(SummaryJob.Status.QUEUED), isNull(), any());
+        verify(summaryJobRepository).recoverStale(eq(7L), any(), any(), eq(SummaryJob.Status.FAILED), anyString(), any());
+        verify(storedFileService).discard("1/broken.pdf");
+        verify(storedFileService, never()).discard("1/other.pdf");
+    }
+
+    @Test
+    void recoverStaleJobs_touchedSinceRead_leavesJobAlone() {
+        // Arrange
+        SummaryJob exhausted = new SummaryJob();
+        exhausted.setId(7L);
+        exhausted.setFilePath("1/busy.pdf");
+        exhausted.setStatus(SummaryJob.Status.SUMMARIZING);
+        exhausted.setAttempts(3);
+
+        when(summaryJobRepository.findByStatusInAndUpdatedAtBefore(any(), any())).thenReturn(List.of(exhausted));
+        when(summaryJobRepository.recoverStale(anyLong(), any(), any(), any(), any(), any())).thenReturn(0);
+
+        // Act
+        summaryJobService.recoverStaleJobs();
+
+        // Assert
+        verifyNoInteractions(storedFileService);
+    }
+
+    @Test
+    void heartbeat_touchesJobsHandedToThisNode() {
+        // Arrange: an executor that holds on to the job as if it were still running
+        SummaryJobService service = createService(_ -> { });
+        service.dispatch(5L);
+
+        // Act
+        service.heartbeat();
+
+        // Assert
+        verify(summaryJobRepository).touch(eq(List.of(5L)), any(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void heartbeat_nothingRunning_skipsUpdate() {
+        // Act
+        summaryJobService.heartbeat();
+
+        // Assert
+        verify(summaryJobRepository, never()).touch(any(), any(), any());
+    }
+
+    // ===== deleteUserJobs Tests =====
+
+    @Test
+    void deleteUserJobs_releasesUploadsOfUnfinishedJobs() {
+        // Arrange
+        when(summaryJobRepository.findByUserIdAndStatusIn(eq(1L), any())).thenReturn(List.of(queuedJob));
+
+        // Act
+        summaryJobService.deleteUserJobs(1L);
+
+        // Assert
+        verify(storedFileService).discard("1/stored.pdf");
+        verify(summaryJobRepository).deleteByUserId(1L);
+    }
+
+    // ===== getJobStatus Tests =====
+
+    @Test
+    void getJobStatus_doneJob_returnsSummaryId() {
+        // Arrange
+        queuedJob.setStatus(SummaryJob.Status.DONE);
+        queuedJob.setSummaryId(42L);
+        when(summaryJobRepository.findByIdAndUserId(5L, 1L)).thenReturn(Optional.of(queuedJob));
+
+        // Act
+        SummaryJobResponse response = summaryJobService.getJobStatus(1L, 5L);
+
+        // Assert
+        assertEquals("done", response.getStatus());
+        assertEquals(42L, response.getSummaryId());
+    }
+
+    @Test
+    void getJobStatus_otherUsersJob_throwsResourceNotFoundException() {
+        // Arrange
+        when(summaryJobRepository.findByIdAndUserId(5L, 2L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> summaryJobService.getJobStatus(2L, 5L));
+    }
+
+    @Test
+    void processJob_savesSummaryInsideTransaction() {
+        // Arrange
+        when(summaryJobRepository.claim(eq(5L), any(), any(), any())).thenReturn(1);
+        when(summaryJobRepository.findById(5L)).thenReturn(Optional.of(queuedJob));
+        when(extractedTextService.getOrExtract(any(), any())).thenReturn(extracted("Extracted text"));
+        when(aiService.generateSummary(1L, "Extracted text")).thenReturn("## Summary");
+        Summary summary = new Summary();
+        summary.setId(42L);
+        when(summaryService.saveSummary(any(), any(), any(), any(), any())).thenReturn(summary);
+
+        // Act
+        summaryJobService.processJob(5L);
+
+        // Assert
+        verify(transactionManager).commit(any());
+        ArgumentCaptor<SummaryJob> captor = ArgumentCaptor.forClass(SummaryJob.class);
+        verify(summaryJobRepository, atLeastOnce()).save(captor.capture());
+        assertEquals(SummaryJob.Status.DONE, captor.getValue().getStatus());
+    }
+
+    private static ExtractedDocument extracted(String text) {
+        return ExtractedDocument.of(text, new int[] {0});
+    }
+}
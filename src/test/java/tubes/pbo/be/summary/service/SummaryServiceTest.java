@@ -1,28 +1,35 @@
 package tubes.pbo.be.summary.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
-import tubes.pbo.be.shared.config.FileStorageConfig;
+import tubes.pbo.be.shared.dto.CursorPageResponse;
+import tubes.pbo.be.shared.dto.PageCursor;
+import tubes.pbo.be.shared.exception.AiCapacityExceededException;
 import tubes.pbo.be.shared.exception.ResourceNotFoundException;
 import tubes.pbo.be.shared.exception.ValidationException;
 import tubes.pbo.be.summary.dto.SummaryListItem;
 import tubes.pbo.be.summary.dto.SummaryResponse;
 import tubes.pbo.be.summary.model.Summary;
+import tubes.pbo.be.summary.repository.ExtractedTextRepository.ExtractionInfo;
 import tubes.pbo.be.summary.repository.SummaryRepository;
+import tubes.pbo.be.summary.repository.SummaryRepository.SummaryListView;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
@@ -32,6 +39,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.lenient;
 
@@ -42,34 +50,41 @@ class SummaryServiceTest {
     private SummaryRepository summaryRepository;
 
     @Mock
-    private PdfProcessingService pdfProcessingService;
+    private ExtractedTextService extractedTextService;
+
+    @Spy
+    private TextNormalizer textNormalizer = new TextNormalizer(true, 3, 0.5, new SimpleMeterRegistry());
 
     @Mock
     private AiService aiService;
 
     @Mock
-    private FileStorageConfig fileStorageConfig;
+    private StoredFileService storedFileService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
 
     @InjectMocks
     private SummaryService summaryService;
 
-    @TempDir
-    Path tempDir;
+    private final ProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
 
     private Long testUserId;
     private MultipartFile validPdfFile;
     private Summary testSummary;
     private String extractedText;
     private String generatedSummary;
+    private Path storedPath;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws Exception {
         // Set max file size via reflection
         ReflectionTestUtils.setField(summaryService, "maxFileSize", "10MB");
 
         testUserId = 1L;
         extractedText = "This is extracted text from the PDF document.";
         generatedSummary = "## Summary\n\nThis is a generated summary.";
+        storedPath = Path.of("/uploads/objects/ab/abc123.pdf");
 
         // Create valid PDF file
         validPdfFile = new MockMultipartFile(
@@ -84,14 +99,17 @@ class SummaryServiceTest {
         testSummary.setId(1L);
         testSummary.setUserId(testUserId);
         testSummary.setOriginalFilename("test-document.pdf");
-        testSummary.setFilePath("1/uuid-123.pdf");
+        testSummary.setFilePath("objects/ab/abc123.pdf");
+        testSummary.setContentHash("abc123");
         testSummary.setSummaryText(generatedSummary);
         testSummary.setAiProvider("gemini");
         testSummary.setAiModel("gemini-1.5-pro");
         testSummary.setCreatedAt(LocalDateTime.now());
 
-        // Mock file storage config - lenient to avoid UnnecessaryStubbingException
-        lenient().when(fileStorageConfig.getUploadPath()).thenReturn(tempDir);
+        // Mock file storage - lenient to avoid UnnecessaryStubbingException
+        lenient().when(storedFileService.store(any()))
+                .thenReturn(new StoredFileService.StoredUpload("objects/ab/abc123.pdf", "abc123", 11L));
+        lenient().when(storedFileService.resolve("objects/ab/abc123.pdf")).thenReturn(storedPath);
     }
 
     // ===== createSummary Tests =====
@@ -99,8 +117,8 @@ class SummaryServiceTest {
     @Test
     void createSummary_validPdf_createsSuccessfully() {
         // Arrange
-        when(pdfProcessingService.extractText(any())).thenReturn(extractedText);
-        when(aiService.generateSummary(extractedText)).thenReturn(generatedSummary);
+        when(extractedTextService.getOrExtract(any(), any())).thenReturn(extracted(extractedText));
+        when(aiService.generateSummary(testUserId, extractedText)).thenReturn(generatedSummary);
         when(aiService.getAiProvider()).thenReturn("gemini");
         when(aiService.getAiModel()).thenReturn("gemini-1.5-pro");
         when(summaryRepository.save(any(Summary.class))).thenReturn(testSummary);
@@ -117,9 +135,10 @@ class SummaryServiceTest {
         assertEquals("gemini-1.5-pro", result.getAiModel());
         assertNotNull(result.getCreatedAt());
 
-        verify(pdfProcessingService).extractText(any());
-        verify(aiService).generateSummary(extractedText);
+        verify(extractedTextService).getOrExtract("abc123", storedPath);
+        verify(aiService).generateSummary(testUserId, extractedText);
         verify(summaryRepository).save(any(Summary.class));
+        verify(eventPublisher).publishEvent(new SummaryCreatedEvent(testSummary.getId()));
     }
 
     @Test
@@ -138,8 +157,8 @@ class SummaryServiceTest {
         });
 
         assertEquals("File is required", exception.getMessage());
-        verify(pdfProcessingService, never()).extractText(any());
-        verify(aiService, never()).generateSummary(any());
+        verify(extractedTextService, never()).getOrExtract(any(), any());
+        verify(aiService, never()).generateSummary(any(), any());
         verify(summaryRepository, never()).save(any());
     }
 
@@ -159,7 +178,7 @@ class SummaryServiceTest {
         });
 
         assertEquals("Only PDF files are allowed", exception.getMessage());
-        verify(pdfProcessingService, never()).extractText(any());
+        verify(extractedTextService, never()).getOrExtract(any(), any());
     }
 
     @Test
@@ -201,7 +220,7 @@ class SummaryServiceTest {
     @Test
     void createSummary_pdfExtractionFails_throwsValidationException() {
         // Arrange
-        when(pdfProcessingService.extractText(any()))
+        when(extractedTextService.getOrExtract(any(), any()))
                 .thenThrow(new ValidationException("Invalid or corrupted PDF file"));
 
         // Act & Assert
@@ -210,16 +229,16 @@ class SummaryServiceTest {
         });
 
         assertEquals("Invalid or corrupted PDF file", exception.getMessage());
-        verify(pdfProcessingService).extractText(any());
-        verify(aiService, never()).generateSummary(any());
+        verify(extractedTextService).getOrExtract(any(), any());
+        verify(aiService, never()).generateSummary(any(), any());
         verify(summaryRepository, never()).save(any());
     }
 
     @Test
     void createSummary_aiServiceFails_throwsRuntimeException() {
         // Arrange
-        when(pdfProcessingService.extractText(any())).thenReturn(extractedText);
-        when(aiService.generateSummary(extractedText))
+        when(extractedTextService.getOrExtract(any(), any())).thenReturn(extracted(extractedText));
+        when(aiService.generateSummary(testUserId, extractedText))
                 .thenThrow(new RuntimeException("Failed to generate summary. Please try again later."));
 
         // Act & Assert
@@ -228,37 +247,98 @@ class SummaryServiceTest {
         });
 
         assertTrue(exception.getMessage().contains("Failed to create summary"));
-        verify(pdfProcessingService).extractText(any());
-        verify(aiService).generateSummary(extractedText);
+        verify(extractedTextService).getOrExtract(any(), any());
+        verify(aiService).generateSummary(testUserId, extractedText);
+        verify(summaryRepository, never()).save(any());
+    }
+
+    @Test
+    void createSummary_aiAtCapacity_propagatesCapacityExceptionAndDiscardsUpload() {
+        // Arrange
+        when(extractedTextService.getOrExtract(any(), any())).thenReturn(extracted(extractedText));
+        when(aiService.generateSummary(testUserId, extractedText))
+                .thenThrow(new AiCapacityExceededException("The AI service is busy. Please try again shortly.", 30));
+
+        // Act & Assert
+        assertThrows(AiCapacityExceededException.class, () -> summaryService.createSummary(testUserId, validPdfFile));
+
+        verify(storedFileService).discard("objects/ab/abc123.pdf");
         verify(summaryRepository, never()).save(any());
     }
 
     @Test
     void createSummary_fileStorageFails_throwsRuntimeException() throws Exception {
         // Arrange
-        MultipartFile failingFile = mock(MultipartFile.class);
-        when(failingFile.isEmpty()).thenReturn(false);
-        when(failingFile.getContentType()).thenReturn("application/pdf");
-        when(failingFile.getOriginalFilename()).thenReturn("test.pdf");
-        when(failingFile.getInputStream())
-                .thenReturn(new ByteArrayInputStream("PDF".getBytes()))
-                .thenThrow(new IOException("Failed to read file"));
-
-        // Lenient because test fails before these are called
-        lenient().when(pdfProcessingService.extractText(any())).thenReturn(extractedText);
-        lenient().when(aiService.generateSummary(extractedText)).thenReturn(generatedSummary);
-        lenient().when(aiService.getAiProvider()).thenReturn("gemini");
-        lenient().when(aiService.getAiModel()).thenReturn("gemini-1.5-pro");
+        when(storedFileService.store(any())).thenThrow(new IOException("Disk full"));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
-            summaryService.createSummary(testUserId, failingFile);
+            summaryService.createSummary(testUserId, validPdfFile);
         });
 
         assertTrue(exception.getMessage().contains("Failed to save file"));
+        verify(extractedTextService, never()).getOrExtract(any(), any());
         verify(summaryRepository, never()).save(any());
     }
 
+    @Test
+    void createSummary_identicalContentAlreadySummarized_reusesSummaryText() {
+        // Arrange
+        when(aiService.getAiProvider()).thenReturn("gemini");
+        when(aiService.getAiModel()).thenReturn("gemini-1.5-pro");
+        when(summaryRepository.findFirstByContentHashAndAiModelOrderByCreatedAtDesc("abc123", "gemini-1.5-pro"))
+                .thenReturn(Optional.of(testSummary));
+        when(summaryRepository.save(any(Summary.class))).thenAnswer(inv -> {
+            Summary saved = inv.getArgument(0);
+            saved.setId(2L);
+            return saved;
+        });
+
+        // Act
+        SummaryResponse result = summaryService.createSummary(2L, validPdfFile);
+
+        // Assert
+        assertEquals(2L, result.getId());
+        assertEquals(generatedSummary, result.getSummaryText());
+        verify(summaryRepository).save(argThat(saved ->
+                "objects/ab/abc123.pdf".equals(saved.getFilePath()) && "abc123".equals(saved.getContentHash())));
+        verify(extractedTextService, never()).getOrExtract(any(), any());
+        verify(aiService, never()).generateSummary(any(), any());
+    }
+
+    @Test
+    void createSummary_documentOverExtractionBudget_reportsTruncation() {
+        // Arrange
+        ExtractionInfo info = mock(ExtractionInfo.class);
+        when(info.getPageCount()).thenReturn(500);
+        when(info.getTotalPageCount()).thenReturn(812);
+        when(info.getPageLimitReached()).thenReturn(true);
+        when(extractedTextService.getOrExtract(any(), any())).thenReturn(extracted(extractedText));
+        when(extractedTextService.findInfo("abc123")).thenReturn(Optional.of(info));
+        when(aiService.generateSummary(testUserId, extractedText)).thenReturn(generatedSummary);
+        when(summaryRepository.save(any(Summary.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // Act
+        SummaryResponse result = summaryService.createSummary(testUserId, validPdfFile);
+
+        // Assert
+        assertTrue(result.isTruncated());
+        assertEquals(500, result.getPagesSummarized());
+        assertEquals(812, result.getTotalPages());
+    }
+
+    @Test
+    void createSummary_failsAfterStoring_releasesStoredFile() {
+        // Arrange
+        when(extractedTextService.getOrExtract(any(), any()))
+                .thenThrow(new ValidationException("Invalid or corrupted PDF file"));
+
+        // Act & Assert
+        assertThrows(ValidationException.class, () -> summaryService.createSummary(testUserId, validPdfFile));
+
+        verify(storedFileService).discard("objects/ab/abc123.pdf");
+    }
+
     @Test
     void createSummary_uppercasePdfExtension_acceptsFile() {
         // Arrange
@@ -269,8 +349,8 @@ class SummaryServiceTest {
                 "PDF content".getBytes()
         );
 
-        when(pdfProcessingService.extractText(any())).thenReturn(extractedText);
-        when(aiService.generateSummary(extractedText)).thenReturn(generatedSummary);
+        when(extractedTextService.getOrExtract(any(), any())).thenReturn(extracted(extractedText));
+        when(aiService.generateSummary(testUserId, extractedText)).thenReturn(generatedSummary);
         when(aiService.getAiProvider()).thenReturn("gemini");
         when(aiService.getAiModel()).thenReturn("gemini-1.5-pro");
         when(summaryRepository.save(any(Summary.class))).thenReturn(testSummary);
@@ -280,7 +360,7 @@ class SummaryServiceTest {
 
         // Assert
         assertNotNull(result);
-        verify(pdfProcessingService).extractText(any());
+        verify(extractedTextService).getOrExtract(any(), any());
         verify(summaryRepository).save(any(Summary.class));
     }
 
@@ -293,7 +373,7 @@ class SummaryServiceTest {
         List<Summary> summaries = Arrays.asList(testSummary);
         Page<Summary> summaryPage = new PageImpl<>(summaries, pageable, 1);
 
-        when(summaryRepository.findByUserId(testUserId, pageable)).thenReturn(summaryPage);
+        when(summaryRepository.findListByUserId(testUserId, pageable)).thenReturn(summaryPage.map(this::listView));
 
         // Act
         Page<SummaryListItem> result = summaryService.listSummaries(testUserId, pageable);
@@ -309,7 +389,7 @@ class SummaryServiceTest {
         assertEquals(testSummary.getAiProvider(), item.getAiProvider());
         assertEquals(testSummary.getCreatedAt(), item.getCreatedAt());
 
-        verify(summaryRepository).findByUserId(testUserId, pageable);
+        verify(summaryRepository).findListByUserId(testUserId, pageable);
     }
 
     @Test
@@ -318,7 +398,7 @@ class SummaryServiceTest {
         Pageable pageable = PageRequest.of(0, 10);
         Page<Summary> emptyPage = new PageImpl<>(Arrays.asList(), pageable, 0);
 
-        when(summaryRepository.findByUserId(testUserId, pageable)).thenReturn(emptyPage);
+        when(summaryRepository.findListByUserId(testUserId, pageable)).thenReturn(emptyPage.map(this::listView));
 
         // Act
         Page<SummaryListItem> result = summaryService.listSummaries(testUserId, pageable);
@@ -328,7 +408,7 @@ class SummaryServiceTest {
         assertEquals(0, result.getTotalElements());
         assertEquals(0, result.getContent().size());
 
-        verify(summaryRepository).findByUserId(testUserId, pageable);
+        verify(summaryRepository).findListByUserId(testUserId, pageable);
     }
 
     @Test
@@ -345,7 +425,7 @@ class SummaryServiceTest {
         List<Summary> summaries = Arrays.asList(testSummary, summary2);
         Page<Summary> summaryPage = new PageImpl<>(summaries, pageable, 2);
 
-        when(summaryRepository.findByUserId(testUserId, pageable)).thenReturn(summaryPage);
+        when(summaryRepository.findListByUserId(testUserId, pageable)).thenReturn(summaryPage.map(this::listView));
 
         // Act
         Page<SummaryListItem> result = summaryService.listSummaries(testUserId, pageable);
@@ -355,7 +435,38 @@ class SummaryServiceTest {
         assertEquals(2, result.getTotalElements());
         assertEquals(2, result.getContent().size());
 
-        verify(summaryRepository).findByUserId(testUserId, pageable);
+        verify(summaryRepository).findListByUserId(testUserId, pageable);
+    }
+
+    @Test
+    void listSummaries_cursorWithMoreRows_returnsNextCursor() {
+        // Arrange
+        Summary summary2 = new Summary();
+        summary2.setId(2L);
+        summary2.setUserId(testUserId);
+        summary2.setOriginalFilename("document2.pdf");
+        summary2.setAiProvider("gemini");
+        summary2.setCreatedAt(testSummary.getCreatedAt().minusMinutes(1));
+        PageCursor after = new PageCursor(testSummary.getCreatedAt().plusMinutes(1), 9L);
+
+        when(summaryRepository.findListByUserIdAfter(testUserId, after.createdAt(), after.id(), PageRequest.ofSize(2)))
+                .thenReturn(List.of(listView(testSummary), listView(summary2)));
+
+        // Act
+        CursorPageResponse<SummaryListItem> result = summaryService.listSummaries(testUserId, after.encode(), 1);
+
+        // Assert
+        assertEquals(1, result.getContent().size());
+        assertEquals(testSummary.getId(), result.getContent().getFirst().getId());
+        assertTrue(result.isHasNext());
+        assertEquals(new PageCursor(testSummary.getCreatedAt(), testSummary.getId()), PageCursor.decode(result.getNextCursor()));
+    }
+
+    @Test
+    void listSummaries_invalidCursor_throwsValidationException() {
+        // Act & Assert
+        assertThrows(ValidationException.class, () -> summaryService.listSummaries(testUserId, "not-a-cursor", 10));
+        verifyNoInteractions(summaryRepository);
     }
 
     // ===== getSummaryDetail Tests =====
@@ -412,4 +523,12 @@ class SummaryServiceTest {
 
         verify(summaryRepository).findByIdAndUserId(1L, wrongUserId);
     }
+
+    private static ExtractedDocument extracted(String text) {
+        return ExtractedDocument.of(text, new int[] {0});
+    }
+
+    private SummaryListView listView(Summary summary) {
+        return projectionFactory.createProjection(SummaryListView.class, summary);
+    }
 }
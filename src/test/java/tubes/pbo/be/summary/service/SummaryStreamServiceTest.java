@@ -0,0 +1,191 @@
+package tubes.pbo.be.summary.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import tubes.pbo.be.shared.exception.AiServiceException;
+import tubes.pbo.be.shared.exception.FileOperationException;
+import tubes.pbo.be.shared.exception.ValidationException;
+import tubes.pbo.be.summary.dto.SummaryResponse;
+import tubes.pbo.be.summary.dto.SummaryToken;
+import tubes.pbo.be.summary.model.Summary;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SummaryStreamServiceTest {
+
+    @Mock
+    private SummaryService summaryService;
+
+    @Mock
+    private StoredFileService storedFileService;
+
+    @Mock
+    private ExtractedTextService extractedTextService;
+
+    @Spy
+    private TextNormalizer textNormalizer = new TextNormalizer(true, 3, 0.5, new SimpleMeterRegistry());
+
+    @Mock
+    private AiService aiService;
+
+    @InjectMocks
+    private SummaryStreamService summaryStreamService;
+
+    private MockMultipartFile validPdfFile;
+    private StoredFileService.StoredUpload upload;
+    private Path storedPath;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        validPdfFile = new MockMultipartFile("file", "test-document.pdf", "application/pdf", "PDF content".getBytes());
+        upload = new StoredFileService.StoredUpload("objects/ab/abc123.pdf", "abc123", 11L);
+        storedPath = Path.of("/uploads/objects/ab/abc123.pdf");
+
+        lenient().when(storedFileService.store(validPdfFile)).thenReturn(upload);
+        lenient().when(storedFileService.resolve(upload.filePath())).thenReturn(storedPath);
+        lenient().when(summaryService.findReusableSummaryText("abc123")).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void streamSummary_streamCompletes_savesConcatenatedSummary() {
+        // Arrange
+        when(extractedTextService.getOrExtract("abc123", storedPath)).thenReturn(extracted("Extracted text"));
+        when(aiService.streamSummary(1L, "Extracted text")).thenReturn(Flux.just("## Sum", "mary\n", "Body"));
+        Summary summary = new Summary();
+        summary.setId(42L);
+        when(summaryService.saveSummary(1L, "test-document.pdf", "objects/ab/abc123.pdf", "abc123", "## Summary\nBody"))
+                .thenReturn(summary);
+        when(summaryService.toResponse(summary)).thenReturn(new SummaryResponse());
+
+        // Act
+        SseEmitter emitter = summaryStreamService.streamSummary(1L, validPdfFile);
+
+        // Assert
+        assertNotNull(emitter);
+        verify(summaryService).toResponse(summary);
+        verify(storedFileService, never()).discard(any());
+    }
+
+    @Test
+    void streamSummary_identicalContentAlreadySummarized_streamsExistingText() {
+        // Arrange
+        when(summaryService.findReusableSummaryText("abc123")).thenReturn(Optional.of("## Existing"));
+        when(summaryService.saveSummary(any(), any(), any(), any(), any())).thenReturn(new Summary());
+        when(summaryService.toResponse(any())).thenReturn(new SummaryResponse());
+
+        // Act
+        summaryStreamService.streamSummary(1L, validPdfFile);
+
+        // Assert
+        verify(summaryService).saveSummary(1L, "test-document.pdf", "objects/ab/abc123.pdf", "abc123", "## Existing");
+        verifyNoInteractions(extractedTextService, aiService);
+    }
+
+    @Test
+    void streamSummary_aiFailsMidStream_discardsUploadWithoutSaving() {
+        // Arrange
+        when(extractedTextService.getOrExtract("abc123", storedPath)).thenReturn(extracted("Extracted text"));
+        when(aiService.streamSummary(1L, "Extracted text")).thenReturn(Flux.concat(
+                Flux.just("## Partial"),
+                Flux.error(new AiServiceException("Failed to generate summary. Please try again later.", null))));
+
+        // Act
+        summaryStreamService.streamSummary(1L, validPdfFile);
+
+        // Assert
+        verify(summaryService, never()).saveSummary(any(), any(), any(), any(), any());
+        verify(storedFileService).discard("objects/ab/abc123.pdf");
+    }
+
+    @Test
+    void streamSummary_invalidPdf_throwsBeforeStreaming() {
+        // Arrange
+        when(extractedTextService.getOrExtract("abc123", storedPath))
+                .thenThrow(new ValidationException("Invalid or corrupted PDF file"));
+
+        // Act & Assert
+        assertThrows(ValidationException.class, () -> summaryStreamService.streamSummary(1L, validPdfFile));
+
+        verify(storedFileService).discard("objects/ab/abc123.pdf");
+        verifyNoInteractions(aiService);
+    }
+
+    @Test
+    void streamSummary_storageFails_throwsFileOperationException() throws Exception {
+        // Arrange
+        when(storedFileService.store(validPdfFile)).thenThrow(new IOException("Disk full"));
+
+        // Act & Assert
+        FileOperationException exception = assertThrows(FileOperationException.class,
+                () -> summaryStreamService.streamSummary(1L, validPdfFile));
+        assertEquals("Failed to save file. Please try again.", exception.getMessage());
+    }
+
+    @Test
+    void abort_clientDisconnectsMidStream_cancelsGenerationAndDiscardsUpload() {
+        // Arrange
+        Sinks.Many<String> tokens = Sinks.many().unicast().onBackpressureBuffer();
+        SummaryStreamService.SummaryStream stream =
+                summaryStreamService.new SummaryStream(1L, "test-document.pdf", upload, new SseEmitter());
+        stream.start(tokens.asFlux());
+        tokens.tryEmitNext("## Partial");
+
+        // Act
+        stream.abort();
+        tokens.tryEmitComplete();
+
+        // Assert
+        assertEquals(0, tokens.currentSubscriberCount());
+        verify(summaryService, never()).saveSummary(any(), any(), any(), any(), any());
+        verify(storedFileService, times(1)).discard("objects/ab/abc123.pdf");
+    }
+
+    @Test
+    void start_tokensWithLeadingSpaces_sendsThemAsJsonText() {
+        // Arrange - SSE clients strip one leading space from a raw data line
+        List<Object> sent = new ArrayList<>();
+        SseEmitter emitter = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                builder.build().forEach(part -> sent.add(part.getData()));
+            }
+        };
+        when(summaryService.saveSummary(any(), any(), any(), any(), any())).thenReturn(new Summary());
+        when(summaryService.toResponse(any())).thenReturn(new SummaryResponse());
+        SummaryStreamService.SummaryStream stream =
+                summaryStreamService.new SummaryStream(1L, "test-document.pdf", upload, emitter);
+
+        // Act
+        stream.start(Flux.just("Hello", " world", "\n"));
+
+        // Assert
+        assertEquals(List.of("Hello", " world", "\n"), sent.stream()
+                .filter(SummaryToken.class::isInstance)
+                .map(token -> ((SummaryToken) token).getText())
+                .toList());
+        verify(summaryService).saveSummary(1L, "test-document.pdf", "objects/ab/abc123.pdf", "abc123", "Hello world\n");
+    }
+
+    private static ExtractedDocument extracted(String text) {
+        return ExtractedDocument.of(text, new int[] {0});
+    }
+}
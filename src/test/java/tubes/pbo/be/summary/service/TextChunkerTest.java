@@ -0,0 +1,77 @@
+package tubes.pbo.be.summary.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextChunkerTest {
+
+    @Test
+    void split_shortText_returnsSingleChunk() {
+        List<String> chunks = TextChunker.split("Short document.", 100);
+
+        assertEquals(List.of("Short document."), chunks);
+    }
+
+    @Test
+    void split_prefersBlankLineBoundaries() {
+        // Arrange - two 60-char sections, budget of 20 tokens (80 chars)
+        String first = "a".repeat(60);
+        String second = "b".repeat(60);
+
+        // Act
+        List<String> chunks = TextChunker.split(first + "\n\n" + second, 20);
+
+        // Assert
+        assertEquals(List.of(first, second), chunks);
+    }
+
+    @Test
+    void split_fallsBackToLineBreaks() {
+        // Arrange
+        String text = "x".repeat(50) + "\n" + "y".repeat(50);
+
+        // Act
+        List<String> chunks = TextChunker.split(text, 20);
+
+        // Assert
+        assertEquals(List.of("x".repeat(50), "y".repeat(50)), chunks);
+    }
+
+    @Test
+    void split_everyChunkFitsBudgetAndNothingIsLost() {
+        // Arrange
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append("Sentence number ").append(i).append(" of the lecture notes. ");
+            if (i % 7 == 0) {
+                text.append("\n");
+            }
+        }
+
+        // Act
+        List<String> chunks = TextChunker.split(text.toString(), 100);
+
+        // Assert
+        assertTrue(chunks.size() > 1);
+        chunks.forEach(chunk -> assertTrue(chunk.length() <= 100 * TextChunker.CHARS_PER_TOKEN));
+        assertEquals(text.toString().replaceAll("\\s", ""), String.join("", chunks).replaceAll("\\s", ""));
+    }
+
+    @Test
+    void split_unbrokenText_cutsAtBudget() {
+        List<String> chunks = TextChunker.split("z".repeat(100), 10);
+
+        assertEquals(3, chunks.size());
+        assertEquals(40, chunks.get(0).length());
+    }
+
+    @Test
+    void estimateTokens_roundsUp() {
+        assertEquals(0, TextChunker.estimateTokens(""));
+        assertEquals(1, TextChunker.estimateTokens("abc"));
+        assertEquals(2, TextChunker.estimateTokens("abcde"));
+    }
+}
@@ -0,0 +1,39 @@
+package tubes.pbo.be.summary.service;
+
+import org.junit.jupiter.api.Test;
+import tubes.pbo.be.shared.exception.FileOperationException;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextCompressionTest {
+
+    @Test
+    void deflateThenInflate_returnsOriginalText() {
+        // Arrange
+        String text = "Ringkasan materi: pemrograman berorientasi objek — enkapsulasi, pewarisan.\n".repeat(200);
+
+        // Act
+        byte[] compressed = TextCompression.deflate(text);
+
+        // Assert
+        assertEquals(text, TextCompression.inflate(compressed));
+        assertTrue(compressed.length < text.length() / 4);
+    }
+
+    @Test
+    void deflateThenInflate_emptyText_roundTrips() {
+        assertEquals("", TextCompression.inflate(TextCompression.deflate("")));
+    }
+
+    @Test
+    void inflate_truncatedData_throwsFileOperationException() {
+        // Arrange
+        byte[] compressed = TextCompression.deflate("Some extracted text ".repeat(100));
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+
+        // Act & Assert
+        assertThrows(FileOperationException.class, () -> TextCompression.inflate(truncated));
+    }
+}
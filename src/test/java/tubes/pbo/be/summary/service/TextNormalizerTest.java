@@ -0,0 +1,148 @@
+package tubes.pbo.be.summary.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextNormalizerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TextNormalizer textNormalizer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        textNormalizer = new TextNormalizer(true, 3, 0.5, meterRegistry);
+    }
+
+    @Test
+    void normalize_runningHeaderAndFooter_removedFromEveryPage() {
+        // Arrange
+        ExtractedDocument document = document(
+                "Pemrograman Berorientasi Objek\nClasses bundle state and behaviour.\nHalaman 1 dari 3",
+                "Pemrograman Berorientasi Objek\nInheritance lets a class reuse another.\nHalaman 2 dari 3",
+                "Pemrograman Berorientasi Objek\nPolymorphism picks the method at runtime.\nHalaman 3 dari 3");
+
+        // Act
+        String result = textNormalizer.normalize(document);
+
+        // Assert
+        assertEquals("""
+                Classes bundle state and behaviour.
+                Inheritance lets a class reuse another.
+                Polymorphism picks the method at runtime.""", result);
+    }
+
+    @Test
+    void normalize_lineRepeatedInBody_kept() {
+        // Arrange - the repeated line sits in the middle of each page, away from header and footer
+        List<String> pages = new ArrayList<>();
+        for (int page = 1; page <= 3; page++) {
+            pages.add("Intro " + page + "\nA\nB\nC\nSee the definition above.\nD\nE\nF\nEnd " + page);
+        }
+
+        // Act
+        String result = textNormalizer.normalize(document(pages.toArray(String[]::new)));
+
+        // Assert
+        assertEquals(3, result.split("See the definition above\\.", -1).length - 1);
+    }
+
+    @Test
+    void normalize_barePageNumbers_removed() {
+        // Act
+        String result = textNormalizer.normalize(document("First page text.\n- 1 -", "Second page text.\n2"));
+
+        // Assert
+        assertEquals("First page text.\nSecond page text.", result);
+    }
+
+    @Test
+    void normalize_wordSoftHyphenatedAcrossLines_rejoinedWithoutHyphen() {
+        // Act
+        String result = textNormalizer.normalize(document("Encapsulation hides the inter\u00AD\nnal state.\nWell-Known names stay."));
+
+        // Assert
+        assertEquals("Encapsulation hides the internal state.\nWell-Known names stay.", result);
+    }
+
+    @Test
+    void normalize_compoundBrokenAtHyphen_rejoinedKeepingHyphen() {
+        // Act
+        String result = textNormalizer.normalize(document("A well-\nknown, state-\nof-the-art and non\u2010\nblocking design."));
+
+        // Assert
+        assertEquals("A well-known, state-of-the-art and non\u2010blocking design.", result);
+    }
+
+    @Test
+    void normalize_hyphenatedWordAcrossPageWithFooter_rejoined() {
+        // Act
+        String result = textNormalizer.normalize(document("The object is instan\u00AD\n1", "tiated once.\n2"));
+
+        // Assert
+        assertEquals("The object is instantiated once.", result);
+    }
+
+    @Test
+    void normalize_whitespaceRuns_collapsed() {
+        // Act
+        String result = textNormalizer.normalize(document("  Too    many\t\tspaces  \n\n\n\nNext   paragraph\r\n"));
+
+        // Assert
+        assertEquals("Too many spaces\n\nNext paragraph", result);
+    }
+
+    @Test
+    void normalize_recordsHowMuchWasRemoved() {
+        // Arrange
+        String text = "Short   text   with   padding";
+
+        // Act
+        String result = textNormalizer.normalize(document(text));
+
+        // Assert
+        assertEquals("Short text with padding", result);
+        assertEquals(text.length() - result.length(),
+                meterRegistry.get("summary.text.normalization.removed").counter().count());
+        assertEquals(1, meterRegistry.get("summary.text.normalization.reduction").summary().count());
+    }
+
+    @Test
+    void normalize_disabled_returnsTextUnchanged() {
+        // Arrange
+        TextNormalizer disabled = new TextNormalizer(false, 3, 0.5, meterRegistry);
+        String text = "Keep   this\n1";
+
+        // Act & Assert
+        assertEquals(text, disabled.normalize(document(text)));
+    }
+
+    @Test
+    void normalize_largeDocument_scalesLinearly() {
+        // Arrange - a pathological input for backtracking regexes: long runs of spaces and hyphens
+        String page = ("word-" + " ".repeat(50) + "\n").repeat(200) + "-".repeat(5000) + "\n";
+        String[] pages = new String[200];
+        Arrays.fill(pages, page);
+        ExtractedDocument document = document(pages);
+
+        // Act
+        long start = System.nanoTime();
+        String result = textNormalizer.normalize(document);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // Assert
+        assertFalse(result.isEmpty());
+        assertTrue(elapsedMs < 2000, "Normalizing took " + elapsedMs + " ms");
+    }
+
+    private static ExtractedDocument document(String... pages) {
+        return PdfProcessingService.join(List.of(pages));
+    }
+}